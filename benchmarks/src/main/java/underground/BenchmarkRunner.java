@@ -0,0 +1,53 @@
+package underground;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the command line options of JMH, adding the
+ * {@link GCProfiler} when no profiler is chosen so that every result comes with
+ * its allocation rate.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Prevents {@link BenchmarkRunner} being constructed.
+	 */
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args
+	 *            The command line options of JMH.
+	 * @throws Exception
+	 *             If the options are invalid or the benchmarks fail.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		// Listing and help are left to JMH itself.
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (commandLine.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,88 @@
+package underground;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures loading a network: reading its file with the {@link CsvReader},
+ * filling a {@link MetroBuilder} from it, and building the {@link Metro}.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+	/**
+	 * Reads every field of the network file through a stream.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param blackhole
+	 *            Consumes the fields.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	@Benchmark
+	public void readStreamed(NetworkState state, Blackhole blackhole) throws IOException {
+		CsvReader.read(state.file, false, (record, index, value) -> blackhole.consume(value));
+	}
+
+	/**
+	 * Reads every field of the network file through a memory mapping.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param blackhole
+	 *            Consumes the fields.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	@Benchmark
+	public void readMapped(NetworkState state, Blackhole blackhole) throws IOException {
+		CsvReader.read(state.file, true, (record, index, value) -> blackhole.consume(value));
+	}
+
+	/**
+	 * Builds the {@link Metro} of a {@link MetroBuilder} that is already
+	 * filled.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @return {@link Metro}
+	 */
+	@Benchmark
+	public Metro build(NetworkState state) {
+		return state.builder.build();
+	}
+
+	/**
+	 * Reads the network file into a new {@link MetroBuilder} and builds its
+	 * {@link Metro}, as the program does when it starts.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @return {@link Metro}
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	@Benchmark
+	public Metro load(NetworkState state) throws IOException {
+		return NetworkState.load(state.file, null, null).build();
+	}
+
+}
@@ -0,0 +1,195 @@
+package underground;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The network a benchmark is measured on, loaded once per trial from a comma
+ * separated values file in the format of <code>MTRsystem_partial.csv</code>,
+ * where the first field of each record is a {@link Line} and the rest are its
+ * {@link Station}s.
+ *
+ * <p>
+ * The <code>mtr</code> network is the bundled MTR data. Any other network is
+ * named <code>&lt;topology&gt;-&lt;stations&gt;</code>, such as
+ * <code>long-chain-100000</code>, and is generated by the
+ * {@link NetworkGenerator} into a temporary file so that it is loaded the same
+ * way as the MTR data. The pairs of {@link Station}s that paths are
+ * found between are chosen with a fixed seed, so every run measures the same
+ * queries.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+
+	/**
+	 * The name of the bundled MTR data within the benchmark jar.
+	 */
+	private static final String MTR_RESOURCE = "/MTRsystem_partial.csv";
+
+	/**
+	 * The number of pairs of {@link Station}s that queries cycle through.
+	 */
+	private static final int PAIRS = 1024;
+
+	/**
+	 * The network that is measured: <code>mtr</code> or
+	 * <code>&lt;topology&gt;-&lt;stations&gt;</code>.
+	 */
+	@Param({ "mtr", "grid-10000", "grid-100000" })
+	public String network;
+
+	/**
+	 * The comma separated values file of the network, which is deleted when
+	 * the trial ends.
+	 */
+	Path file;
+
+	/**
+	 * The {@link MetroBuilder} filled from the {@link NetworkState#file}.
+	 */
+	MetroBuilder builder;
+
+	/**
+	 * The {@link Metro} built by the {@link NetworkState#builder}.
+	 */
+	Metro metro;
+
+	/**
+	 * The names of the {@link Line}s, in the order they are in the file.
+	 */
+	String[] lineNames;
+
+	/**
+	 * The names of the {@link Station}s, in the order they are first seen in
+	 * the file.
+	 */
+	String[] stationNames;
+
+	/**
+	 * The names of the start {@link Station}s of the queried pairs.
+	 */
+	String[] starts;
+
+	/**
+	 * The names of the end {@link Station}s of the queried pairs.
+	 */
+	String[] ends;
+
+	/**
+	 * Writes the file of the network and loads it.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be written or read.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+
+		file = Files.createTempFile("network", ".csv");
+
+		if (network.equals("mtr")) {
+			try (InputStream in = NetworkState.class.getResourceAsStream(MTR_RESOURCE)) {
+				if (in == null) {
+					throw new IOException("The benchmark jar does not contain " + MTR_RESOURCE);
+				}
+				Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} else {
+			final int split = network.lastIndexOf('-');
+			if (split < 0) {
+				throw new IllegalArgumentException("Unknown network: " + network);
+			}
+			NetworkGenerator.writeCsv(NetworkGenerator.Topology.forName(network.substring(0, split)),
+					Integer.parseInt(network.substring(split + 1)), NetworkGenerator.DEFAULT_SEED, file);
+		}
+
+		final List<String> lines = new ArrayList<>();
+		final Set<String> stations = new LinkedHashSet<>();
+		builder = load(file, lines, stations);
+		metro = builder.build();
+
+		lineNames = lines.toArray(new String[0]);
+		stationNames = stations.toArray(new String[0]);
+
+		final Random random = new Random(NetworkGenerator.DEFAULT_SEED);
+		starts = new String[PAIRS];
+		ends = new String[PAIRS];
+		for (int index = 0; index < PAIRS; index++) {
+			starts[index] = stationNames[random.nextInt(stationNames.length)];
+			ends[index] = stationNames[random.nextInt(stationNames.length)];
+		}
+	}
+
+	/**
+	 * Deletes the file of the network.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Reads a network file into a new {@link MetroBuilder} in the same way as
+	 * {@link Main}.
+	 *
+	 * @param file
+	 *            The {@link Path} of the file.
+	 * @param lineNames
+	 *            Receives the names of the {@link Line}s, or <code>null</code>.
+	 * @param stationNames
+	 *            Receives the names of the {@link Station}s, or
+	 *            <code>null</code>.
+	 * @return The filled {@link MetroBuilder}.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	static MetroBuilder load(Path file, List<String> lineNames, Set<String> stationNames) throws IOException {
+
+		final MetroBuilder builder = new MetroBuilder();
+
+		CsvReader.read(file, new CsvReader.Handler() {
+
+			private String lineName;
+
+			@Override
+			public void field(int record, int index, String value) {
+				if (index == 0) {
+					lineName = value;
+					if (lineNames != null) {
+						lineNames.add(value);
+					}
+				} else if (!value.isEmpty()) {
+					builder.addStation(value, lineName);
+					if (stationNames != null) {
+						stationNames.add(value);
+					}
+				}
+			}
+		});
+
+		return builder;
+	}
+
+}
@@ -0,0 +1,114 @@
+package underground;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the queries of a {@link Metro}: finding paths in each
+ * {@link RoutingMode} and finding the {@link Line}s adjacent to a
+ * {@link Line}. Each call queries the next of a fixed set of pairs of
+ * {@link Station}s, or the next {@link Line}, so no one query dominates.
+ *
+ * <p>
+ * {@link RoutingMode#LEGACY_DEPTH_FIRST} is not measured, as it takes
+ * exponential time on the grid networks.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	/**
+	 * The {@link RoutingMode} paths are found with.
+	 */
+	@State(Scope.Benchmark)
+	public static class Routing {
+
+		/**
+		 * The name of the {@link RoutingMode}.
+		 */
+		@Param({ "FEWEST_STOPS", "BIDIRECTIONAL", "FEWEST_CHANGES", "FASTEST" })
+		public RoutingMode mode;
+	}
+
+	/**
+	 * The position of each thread in the queried pairs and {@link Line}s.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		/**
+		 * The number of queries made by this thread.
+		 */
+		int next;
+	}
+
+	/**
+	 * Finds the path between the next pair of {@link Station}s.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param routing
+	 *            {@link Routing}
+	 * @param cursor
+	 *            {@link Cursor}
+	 * @return The path.
+	 */
+	@Benchmark
+	public List<Station> findPath(NetworkState state, Routing routing, Cursor cursor) {
+
+		final int pair = cursor.next++ % state.starts.length;
+		final Metro metro = state.metro;
+
+		return metro.findPath(metro.getStation(state.starts[pair]), metro.getStation(state.ends[pair]),
+				routing.mode);
+	}
+
+	/**
+	 * Finds the {@link Line}s adjacent to the next {@link Line}.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param cursor
+	 *            {@link Cursor}
+	 * @return The adjacent {@link Line}s.
+	 */
+	@Benchmark
+	public Set<Line> getAdjacentLines(NetworkState state, Cursor cursor) {
+		return state.metro.getAdjacentLines(state.lineNames[cursor.next++ % state.lineNames.length]);
+	}
+
+	/**
+	 * Finds the names of the {@link Line}s adjacent to the next {@link Line}.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param cursor
+	 *            {@link Cursor}
+	 * @return The names of the adjacent {@link Line}s.
+	 */
+	@Benchmark
+	public Set<String> getAdjacentLineNames(NetworkState state, Cursor cursor) {
+		return state.metro.getAdjacentLineNames(state.lineNames[cursor.next++ % state.lineNames.length]);
+	}
+
+}
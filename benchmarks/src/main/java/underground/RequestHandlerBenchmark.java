@@ -0,0 +1,170 @@
+package underground;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures every request a {@link RequestHandler} answers, including the time
+ * taken to format the answer and, for paths, to look it up in the
+ * {@link RouteCache}.
+ *
+ * <p>
+ * A cache capacity of <code>1</code> makes almost every path a miss, so the
+ * path is searched for; a capacity larger than the number of queried pairs
+ * makes almost every path a hit once the cache is warm.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestHandlerBenchmark {
+
+	/**
+	 * The {@link RequestHandler} that is measured and the position of the
+	 * queries. Only one thread should measure each {@link RequestHandler}, as
+	 * the edits are not repeatable otherwise.
+	 */
+	@State(Scope.Thread)
+	public static class Handler {
+
+		/**
+		 * The largest number of paths the {@link RouteCache} holds.
+		 */
+		@Param({ "1", "4096" })
+		public int cacheCapacity;
+
+		/**
+		 * The {@link RequestHandler} of the {@link NetworkState#metro}.
+		 */
+		RequestHandler handler;
+
+		/**
+		 * The number of requests made.
+		 */
+		int next;
+
+		/**
+		 * Constructs the {@link RequestHandler}.
+		 *
+		 * @param state
+		 *            {@link NetworkState}
+		 */
+		@Setup(Level.Trial)
+		public void setup(NetworkState state) {
+			handler = new RequestHandler(state.metro, cacheCapacity);
+			next = 0;
+		}
+	}
+
+	/**
+	 * Lists the termini of every {@link Line}.
+	 *
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The answer.
+	 */
+	@Benchmark
+	public String listAllTermini(Handler handler) {
+		return handler.handler.listAllTermini();
+	}
+
+	/**
+	 * Lists the {@link Station}s of the next {@link Line}.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The answer.
+	 */
+	@Benchmark
+	public String listStationsInLine(NetworkState state, Handler handler) {
+		return handler.handler.listStationsInLine(state.lineNames[handler.next++ % state.lineNames.length]);
+	}
+
+	/**
+	 * Lists the {@link Line}s directly connected to the next {@link Line}.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The answer.
+	 */
+	@Benchmark
+	public String listAllDirectlyConnectedLines(NetworkState state, Handler handler) {
+		return handler.handler
+				.listAllDirectlyConnectedLines(state.lineNames[handler.next++ % state.lineNames.length]);
+	}
+
+	/**
+	 * Shows the path with the fewest stops between the next pair of
+	 * {@link Station}s.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The answer.
+	 */
+	@Benchmark
+	public String showPathBetween(NetworkState state, Handler handler) {
+		final int pair = handler.next++ % state.starts.length;
+		return handler.handler.showPathBetween(state.starts[pair], state.ends[pair]);
+	}
+
+	/**
+	 * Shows the path with the fewest changes between the next pair of
+	 * {@link Station}s.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The answer.
+	 */
+	@Benchmark
+	public String showPathWithFewestChangesBetween(NetworkState state, Handler handler) {
+		final int pair = handler.next++ % state.starts.length;
+		return handler.handler.showPathWithFewestChangesBetween(state.starts[pair], state.ends[pair]);
+	}
+
+	/**
+	 * Closes the next {@link Station}, or reopens it if it is closed, keeping
+	 * the cached paths the edit cannot have changed.
+	 *
+	 * @param state
+	 *            {@link NetworkState}
+	 * @param handler
+	 *            {@link Handler}
+	 * @return The edited {@link Metro}.
+	 */
+	@Benchmark
+	public Metro edit(NetworkState state, Handler handler) {
+
+		// Each station is closed and then reopened by the next call.
+		final String station = state.stationNames[handler.next++ / 2 % state.stationNames.length];
+
+		return handler.handler
+				.edit(metro -> metro.isClosed(station) ? metro.reopenStation(station) : metro.closeStation(station));
+	}
+
+}
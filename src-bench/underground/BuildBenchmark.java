@@ -0,0 +1,105 @@
+package underground;
+
+/**
+ * Compares how long a {@link MetroBuilder} takes to build grids of increasing
+ * size generated by the {@link NetworkGenerator} on one thread and on every
+ * available core.
+ * 
+ * <p>
+ * Usage: <code>BuildBenchmark [threads] [side...]</code>, where each side is
+ * the number of rows and columns of a square grid. The default sides give
+ * networks of 10,000 to 1,000,000 {@link Station}s.
+ * </p>
+ * 
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class BuildBenchmark {
+
+	/**
+	 * The side lengths of the square grids that are measured when none are
+	 * specified.
+	 */
+	private static final int[] DEFAULT_SIDES = { 100, 316, 1000 };
+
+	/**
+	 * The number of times each build is repeated, of which the fastest is
+	 * reported.
+	 */
+	private static final int REPEATS = 3;
+
+	/**
+	 * Prevents {@link BuildBenchmark} being constructed.
+	 */
+	private BuildBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            The number of threads of the parallel build, followed by the
+	 *            sides of the grids, all optional.
+	 */
+	public static void main(String[] args) {
+
+		final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+		int[] sides = DEFAULT_SIDES;
+		if (args.length > 1) {
+			sides = new int[args.length - 1];
+			for (int index = 1; index < args.length; index++) {
+				sides[index - 1] = Integer.parseInt(args[index]);
+			}
+		}
+
+		System.out.printf("%10s %8s %14s %14s %8s%n", "stations", "lines", "1 thread (ms)",
+				threads + " threads (ms)", "speedup");
+
+		for (int side : sides) {
+
+			final MetroBuilder builder = NetworkGenerator.gridBuilder(side, side);
+
+			final double sequential = fastestBuild(builder, 1);
+			final double parallel = fastestBuild(builder, threads);
+
+			System.out.printf("%10d %8d %14.1f %14.1f %8.2f%n", side * side, 2 * side, sequential, parallel,
+					sequential / parallel);
+		}
+	}
+
+	/**
+	 * Builds the {@link Metro} of the specified {@link MetroBuilder} several
+	 * times on the specified number of threads.
+	 * 
+	 * @param builder
+	 *            {@link MetroBuilder}
+	 * @param threads
+	 *            The number of threads to build on.
+	 * @return The time, in milliseconds, of the fastest build.
+	 */
+	private static double fastestBuild(MetroBuilder builder, int threads) {
+
+		builder.setBuildParallelism(threads);
+
+		long fastest = Long.MAX_VALUE;
+
+		for (int repeat = 0; repeat < REPEATS; repeat++) {
+
+			final long start = System.nanoTime();
+			final Metro metro = builder.build();
+			final long time = System.nanoTime() - start;
+
+			// Keep the metro reachable until the build has been timed.
+			if (metro.outputAllStations().isEmpty()) {
+				throw new IllegalStateException("The built metro has no lines.");
+			}
+
+			fastest = Math.min(fastest, time);
+		}
+
+		return fastest / 1e6;
+	}
+
+}
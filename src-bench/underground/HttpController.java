@@ -0,0 +1,224 @@
+package underground;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link Controller} that makes each request of a network front end over
+ * HTTP, so that a load test can drive a front end in the same way as an
+ * in-process {@link RequestHandler}.
+ *
+ * <p>
+ * Each request is a <code>GET</code> of one of the following, relative to the
+ * base URL, and the answer is the <code>answer</code> of the JSON object of the
+ * response, as served by a {@link ControllerServer}:
+ * </p>
+ * <ul>
+ * <li><code>/termini</code></li>
+ * <li><code>/stations?line=</code><i>line</i></li>
+ * <li><code>/connected?line=</code><i>line</i></li>
+ * <li><code>/path?from=</code><i>station</i><code>&amp;to=</code><i>station</i></li>
+ * <li><code>/path?from=</code><i>station</i><code>&amp;to=</code><i>station</i><code>&amp;mode=fewest-changes</code></li>
+ * </ul>
+ *
+ * <p>
+ * Connections are kept alive between requests by {@link HttpURLConnection},
+ * which reuses a connection once the body of its last response has been read.
+ * A response whose status is not <code>200</code> is thrown as an
+ * {@link IllegalStateException}, and a failed connection as an
+ * {@link UncheckedIOException}.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class HttpController implements Controller {
+
+	/**
+	 * The base URL of the front end, without a trailing slash.
+	 */
+	private final String baseUrl;
+
+	/**
+	 * Constructs a new {@link HttpController}.
+	 *
+	 * @param baseUrl
+	 *            The base URL of the front end, such as
+	 *            <code>http://localhost:8080</code>.
+	 */
+	public HttpController(String baseUrl) {
+
+		// Check parameters
+		if (baseUrl == null) {
+			throw new NullPointerException("Base URL cannot be null.");
+		}
+
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+	}
+
+	@Override
+	public String listAllTermini() {
+		return get("/termini");
+	}
+
+	@Override
+	public String listStationsInLine(String line) {
+		return get("/stations?line=" + encode(line));
+	}
+
+	@Override
+	public String listAllDirectlyConnectedLines(String line) {
+		return get("/connected?line=" + encode(line));
+	}
+
+	@Override
+	public String showPathBetween(String stationA, String stationB) {
+		return get("/path?from=" + encode(stationA) + "&to=" + encode(stationB));
+	}
+
+	@Override
+	public String showPathWithFewestChangesBetween(String stationA, String stationB) {
+		return get("/path?from=" + encode(stationA) + "&to=" + encode(stationB) + "&mode=fewest-changes");
+	}
+
+	/**
+	 * Makes a <code>GET</code> request of the front end.
+	 *
+	 * @param path
+	 *            The path and query, relative to the base URL.
+	 * @return The body of the response.
+	 */
+	private String get(String path) {
+
+		try {
+
+			final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+			connection.setRequestMethod("GET");
+
+			final int status = connection.getResponseCode();
+
+			// Read the whole body either way, so the connection can be reused.
+			final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			final String body = in == null ? "" : readFully(in);
+
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IllegalStateException("HTTP " + status + " from " + path + ": " + body);
+			}
+
+			return answerOf(body);
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Retrieves the answer of the body of a response.
+	 *
+	 * @param body
+	 *            The JSON object of the response, whose only member is the
+	 *            <code>answer</code> string.
+	 * @return The answer.
+	 */
+	private static String answerOf(String body) {
+
+		final String prefix = "{\"answer\":\"";
+		final String suffix = "\"}";
+
+		if (!body.startsWith(prefix) || !body.endsWith(suffix)) {
+			throw new IllegalStateException("Not an answer: " + body);
+		}
+
+		final StringBuilder answer = new StringBuilder(body.length());
+		final int end = body.length() - suffix.length();
+
+		for (int index = prefix.length(); index < end; index++) {
+
+			final char next = body.charAt(index);
+
+			if (next != '\\') {
+				answer.append(next);
+				continue;
+			}
+
+			final char escaped = body.charAt(++index);
+
+			switch (escaped) {
+			case 'n':
+				answer.append('\n');
+				break;
+			case 'r':
+				answer.append('\r');
+				break;
+			case 't':
+				answer.append('\t');
+				break;
+			case 'b':
+				answer.append('\b');
+				break;
+			case 'f':
+				answer.append('\f');
+				break;
+			case 'u':
+				answer.append((char) Integer.parseInt(body.substring(index + 1, index + 5), 16));
+				index += 4;
+				break;
+			default:
+				// The quote, backslash and slash stand for themselves.
+				answer.append(escaped);
+			}
+		}
+
+		return answer.toString();
+	}
+
+	/**
+	 * Reads and closes an {@link InputStream}.
+	 *
+	 * @param in
+	 *            {@link InputStream}
+	 * @return Its contents, as UTF-8.
+	 * @throws IOException
+	 *             If the {@link InputStream} cannot be read.
+	 */
+	private static String readFully(InputStream in) throws IOException {
+
+		try (InputStream stream = in) {
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+
+			int read;
+			while ((read = stream.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Encodes a value of a query.
+	 *
+	 * @param value
+	 *            The value.
+	 * @return The value, encoded as UTF-8.
+	 */
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			// Every Java platform supports UTF-8.
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
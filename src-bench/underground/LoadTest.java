@@ -0,0 +1,740 @@
+package underground;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link Controller}, such as a {@link RequestHandler} or the
+ * {@link HttpController} of a network front end, from many threads with a mix
+ * of its requests, and reports the throughput and the latency percentiles.
+ *
+ * <p>
+ * In a closed loop each thread makes its next request as soon as the last one
+ * is answered, which finds the most requests per second the {@link Controller}
+ * can answer, but hides how long requests would wait once it falls behind. In
+ * an open loop requests are due at a fixed rate whether or not the earlier
+ * ones are answered, and the response time of each request is measured from
+ * when it was due rather than when a thread got round to making it. This
+ * corrects for coordinated omission: a stall of the {@link Controller} counts
+ * against every request due during the stall, not just the one that was
+ * stalled. The service time, from when each request was made, is reported as
+ * well.
+ * </p>
+ *
+ * <p>
+ * Usage: <code>LoadTest [--option=value...]</code>, with the options:
+ * </p>
+ * <ul>
+ * <li><code>network</code>: <code>mtr</code>, a network file or
+ * <code>&lt;topology&gt;-&lt;stations&gt;</code>, as for
+ * {@link SampleNetwork#of(String)}. Default <code>mtr</code>.</li>
+ * <li><code>target</code>: <code>in-process</code> for a
+ * {@link RequestHandler} of the network, or the base URL of a front end
+ * serving the same network. Default <code>in-process</code>.</li>
+ * <li><code>threads</code>: the number of threads. Default the number of
+ * cores.</li>
+ * <li><code>virtual</code>: <code>true</code> to run on virtual threads, which
+ * needs Java 21. Default <code>false</code>.</li>
+ * <li><code>rate</code>: the requests per second of an open loop, or
+ * <code>0</code> for a closed loop. Default <code>0</code>.</li>
+ * <li><code>duration</code> and <code>warmup</code>: the seconds measured,
+ * and the seconds run before them and not measured. Default <code>10</code>
+ * and <code>2</code>.</li>
+ * <li><code>mix</code>: the weight of each request, such as
+ * <code>path=70,changes=10,stations=10,connected=5,termini=5</code>, which is
+ * the default.</li>
+ * <li><code>cache</code>: the {@link RouteCache} capacity of an in-process
+ * target. Default {@link RequestHandler#DEFAULT_CACHE_CAPACITY}.</li>
+ * <li><code>seed</code>: the seed the requests are chosen with.</li>
+ * </ul>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class LoadTest {
+
+	/**
+	 * The weights of the requests when no mix is specified.
+	 */
+	public static final String DEFAULT_MIX = "path=70,changes=10,stations=10,connected=5,termini=5";
+
+	/**
+	 * The percentiles that are reported.
+	 */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+	/**
+	 * The {@link Controller} the requests are made of.
+	 */
+	private final Controller controller;
+
+	/**
+	 * The names of the {@link Line}s the requests are made with.
+	 */
+	private final String[] lineNames;
+
+	/**
+	 * The names of the {@link Station}s the requests are made with.
+	 */
+	private final String[] stationNames;
+
+	/**
+	 * The {@link Operation} of each unit of weight of the mix.
+	 */
+	private final Operation[] mix;
+
+	/**
+	 * The number of threads the requests are made from.
+	 */
+	private final int threads;
+
+	/**
+	 * Creates the threads the requests are made from.
+	 */
+	private final ThreadFactory threadFactory;
+
+	/**
+	 * The requests per second of an open loop, or <code>0</code> for a closed
+	 * loop.
+	 */
+	private final double rate;
+
+	/**
+	 * The seed the requests are chosen with.
+	 */
+	private final long seed;
+
+	/**
+	 * Constructs a new {@link LoadTest}.
+	 *
+	 * @param controller
+	 *            The {@link Controller} the requests are made of.
+	 * @param network
+	 *            The {@link SampleNetwork} whose {@link Line}s and
+	 *            {@link Station}s the requests are made with.
+	 * @param mix
+	 *            The weight of each request, such as
+	 *            {@link LoadTest#DEFAULT_MIX}.
+	 * @param threads
+	 *            The number of threads the requests are made from.
+	 * @param threadFactory
+	 *            Creates the threads.
+	 * @param rate
+	 *            The requests per second of an open loop, or <code>0</code>
+	 *            for a closed loop.
+	 * @param seed
+	 *            The seed the requests are chosen with.
+	 */
+	public LoadTest(Controller controller, SampleNetwork network, String mix, int threads,
+			ThreadFactory threadFactory, double rate, long seed) {
+
+		// Check parameters
+		if (controller == null) {
+			throw new NullPointerException("Controller cannot be null.");
+		} else if (network == null) {
+			throw new NullPointerException("Network cannot be null.");
+		} else if (threadFactory == null) {
+			throw new NullPointerException("Thread factory cannot be null.");
+		} else if (threads < 1) {
+			throw new IllegalArgumentException("There must be at least one thread.");
+		} else if (rate < 0) {
+			throw new IllegalArgumentException("The rate cannot be negative.");
+		}
+
+		this.controller = controller;
+		this.lineNames = network.getLineNames();
+		this.stationNames = network.getStationNames();
+		this.mix = Operation.parseMix(mix);
+		this.threads = threads;
+		this.threadFactory = threadFactory;
+		this.rate = rate;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs a load test from the command line.
+	 *
+	 * @param args
+	 *            The options, each as <code>--option=value</code>.
+	 * @throws IOException
+	 *             If the network cannot be read.
+	 * @throws InterruptedException
+	 *             If the test is interrupted.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		final Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+
+			final int equals = arg.indexOf('=');
+			if (!arg.startsWith("--") || equals < 0) {
+				System.err.println("Usage: LoadTest [--option=value...]");
+				System.exit(1);
+			}
+
+			options.put(arg.substring(2, equals), arg.substring(equals + 1));
+		}
+
+		final String target = options.getOrDefault("target", "in-process");
+		final int threads = Integer.parseInt(
+				options.getOrDefault("threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+		final double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+		final double duration = Double.parseDouble(options.getOrDefault("duration", "10"));
+		final double warmup = Double.parseDouble(options.getOrDefault("warmup", "2"));
+		final int cache = Integer.parseInt(
+				options.getOrDefault("cache", Integer.toString(RequestHandler.DEFAULT_CACHE_CAPACITY)));
+		final long seed = Long.parseLong(options.getOrDefault("seed", Long.toString(NetworkGenerator.DEFAULT_SEED)));
+
+		ThreadFactory threadFactory = null;
+		if (Boolean.parseBoolean(options.getOrDefault("virtual", "false"))) {
+			threadFactory = virtualThreadFactory();
+			if (threadFactory == null) {
+				System.out.println("Virtual threads need Java 21, so platform threads are used.");
+			}
+		}
+		final boolean virtual = threadFactory != null;
+		if (!virtual) {
+			threadFactory = Thread::new;
+		}
+
+		final SampleNetwork network = SampleNetwork.of(options.getOrDefault("network", "mtr"));
+		final Controller controller = target.equals("in-process")
+				? new RequestHandler(network.getBuilder().build(), cache)
+				: new HttpController(target);
+
+		final LoadTest test = new LoadTest(controller, network, options.getOrDefault("mix", DEFAULT_MIX), threads,
+				threadFactory, rate, seed);
+
+		System.out.printf("%-10s %s%n", "target", target);
+		System.out.printf("%-10s %d stations, %d lines%n", "network", network.getStationNames().length,
+				network.getLineNames().length);
+		System.out.printf("%-10s %s%n", "loop", rate > 0 ? "open, " + rate + " requests/s" : "closed");
+		System.out.printf("%-10s %d %s%n", "threads", threads, virtual ? "virtual" : "platform");
+
+		test.run(seconds(warmup));
+		final Result result = test.run(seconds(duration));
+
+		System.out.printf("%-10s %d in %.2f s, %.1f requests/s%n", "completed", result.getCompleted(),
+				result.getElapsed() / 1e9, result.getThroughput());
+		System.out.printf("%-10s %d%s%n", "errors", result.getErrors(),
+				result.getFirstError() == null ? "" : ", first: " + result.getFirstError());
+		System.out.println();
+
+		System.out.printf("%-10s", "(us)");
+		for (double percentile : PERCENTILES) {
+			System.out.printf(" %9s", "p" + percentile);
+		}
+		System.out.printf(" %9s %9s%n", "max", "mean");
+
+		if (rate > 0) {
+			print("response", result.getResponseTimes());
+		}
+		print("service", result.getServiceTimes());
+	}
+
+	/**
+	 * Makes requests for the specified time and waits for the last of them to
+	 * be answered.
+	 *
+	 * @param duration
+	 *            The time, in nanoseconds, requests are made for.
+	 * @return The {@link Result} of the requests.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting.
+	 */
+	public Result run(long duration) throws InterruptedException {
+
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final Phase phase = new Phase();
+		final Tally[] tallies = new Tally[threads];
+		final Thread[] workers = new Thread[threads];
+
+		for (int index = 0; index < threads; index++) {
+
+			final Tally tally = new Tally();
+			final Random random = new Random(seed + index);
+			tallies[index] = tally;
+
+			workers[index] = threadFactory.newThread(() -> {
+				ready.countDown();
+				try {
+					phase.go.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				work(phase, random, tally);
+			});
+			workers[index].start();
+		}
+
+		// Start every thread at once, so none has a head start.
+		ready.await();
+		phase.start = System.nanoTime();
+		phase.end = phase.start + duration;
+		phase.go.countDown();
+
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		final Result result = new Result();
+		long finish = phase.end;
+		for (Tally tally : tallies) {
+			result.completed += tally.completed;
+			result.errors += tally.errors;
+			result.responseTimes.add(tally.responseTimes);
+			result.serviceTimes.add(tally.serviceTimes);
+			finish = Math.max(finish, tally.finish);
+			if (result.firstError == null) {
+				result.firstError = tally.firstError;
+			}
+		}
+		result.elapsed = finish - phase.start;
+
+		return result;
+	}
+
+	/**
+	 * Makes requests on one thread until the end of a {@link Phase}.
+	 *
+	 * @param phase
+	 *            The {@link Phase}, which has started.
+	 * @param random
+	 *            The {@link Random} of this thread.
+	 * @param tally
+	 *            The {@link Tally} of this thread.
+	 */
+	private void work(Phase phase, Random random, Tally tally) {
+
+		final double interval = rate > 0 ? 1e9 / rate : 0;
+
+		while (true) {
+
+			final long due;
+			if (rate > 0) {
+
+				// Take the next request that is due, and wait until it is.
+				due = phase.start + (long) (phase.sequence.getAndIncrement() * interval);
+				if (due >= phase.end) {
+					break;
+				}
+
+				long now;
+				while ((now = System.nanoTime()) < due) {
+					LockSupport.parkNanos(due - now);
+				}
+			} else {
+				due = System.nanoTime();
+				if (due >= phase.end) {
+					break;
+				}
+			}
+
+			final Operation operation = mix[random.nextInt(mix.length)];
+			final long made = System.nanoTime();
+
+			try {
+				tally.checksum += operation.call(controller, lineNames, stationNames, random).length();
+			} catch (RuntimeException e) {
+				tally.errors++;
+				if (tally.firstError == null) {
+					tally.firstError = e.toString();
+				}
+			}
+
+			final long answered = System.nanoTime();
+			tally.responseTimes.record(answered - due);
+			tally.serviceTimes.record(answered - made);
+			tally.completed++;
+			tally.finish = answered;
+		}
+	}
+
+	/**
+	 * Prints the percentiles of a {@link LatencyHistogram} in microseconds.
+	 *
+	 * @param name
+	 *            The name of the row.
+	 * @param histogram
+	 *            {@link LatencyHistogram}
+	 */
+	private static void print(String name, LatencyHistogram histogram) {
+
+		System.out.printf("%-10s", name);
+		for (double percentile : PERCENTILES) {
+			System.out.printf(" %9.1f", histogram.getPercentile(percentile) / 1e3);
+		}
+		System.out.printf(" %9.1f %9.1f%n", histogram.getMax() / 1e3, histogram.getMean() / 1e3);
+	}
+
+	/**
+	 * Converts seconds to nanoseconds.
+	 *
+	 * @param seconds
+	 *            The time, in seconds.
+	 * @return The time, in nanoseconds.
+	 */
+	private static long seconds(double seconds) {
+		return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * Retrieves a {@link ThreadFactory} of virtual threads through reflection,
+	 * so that this class still runs on the versions of Java without them.
+	 *
+	 * @return The {@link ThreadFactory}, or <code>null</code> if there are no
+	 *         virtual threads.
+	 */
+	static ThreadFactory virtualThreadFactory() {
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The requests a {@link LoadTest} makes of a {@link Controller}.
+	 */
+	public enum Operation {
+
+		/**
+		 * {@link Controller#listAllTermini()}.
+		 */
+		TERMINI("termini") {
+			@Override
+			String call(Controller controller, String[] lineNames, String[] stationNames, Random random) {
+				return controller.listAllTermini();
+			}
+		},
+
+		/**
+		 * {@link Controller#listStationsInLine(String)} of a random
+		 * {@link Line}.
+		 */
+		STATIONS("stations") {
+			@Override
+			String call(Controller controller, String[] lineNames, String[] stationNames, Random random) {
+				return controller.listStationsInLine(lineNames[random.nextInt(lineNames.length)]);
+			}
+		},
+
+		/**
+		 * {@link Controller#listAllDirectlyConnectedLines(String)} of a random
+		 * {@link Line}.
+		 */
+		CONNECTED("connected") {
+			@Override
+			String call(Controller controller, String[] lineNames, String[] stationNames, Random random) {
+				return controller.listAllDirectlyConnectedLines(lineNames[random.nextInt(lineNames.length)]);
+			}
+		},
+
+		/**
+		 * {@link Controller#showPathBetween(String, String)} of two random
+		 * {@link Station}s.
+		 */
+		PATH("path") {
+			@Override
+			String call(Controller controller, String[] lineNames, String[] stationNames, Random random) {
+				return controller.showPathBetween(stationNames[random.nextInt(stationNames.length)],
+						stationNames[random.nextInt(stationNames.length)]);
+			}
+		},
+
+		/**
+		 * {@link Controller#showPathWithFewestChangesBetween(String, String)} of
+		 * two random {@link Station}s.
+		 */
+		CHANGES("changes") {
+			@Override
+			String call(Controller controller, String[] lineNames, String[] stationNames, Random random) {
+				return controller.showPathWithFewestChangesBetween(stationNames[random.nextInt(stationNames.length)],
+						stationNames[random.nextInt(stationNames.length)]);
+			}
+		};
+
+		/**
+		 * The name of the {@link Operation} in a mix.
+		 */
+		private final String name;
+
+		/**
+		 * Constructs a new {@link Operation}.
+		 *
+		 * @param name
+		 *            {@link Operation#name}
+		 */
+		private Operation(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Makes the request.
+		 *
+		 * @param controller
+		 *            The {@link Controller} the request is made of.
+		 * @param lineNames
+		 *            The names of the {@link Line}s to choose from.
+		 * @param stationNames
+		 *            The names of the {@link Station}s to choose from.
+		 * @param random
+		 *            The {@link Random} the arguments are chosen with.
+		 * @return The answer.
+		 */
+		abstract String call(Controller controller, String[] lineNames, String[] stationNames, Random random);
+
+		/**
+		 * Parses a mix, such as {@link LoadTest#DEFAULT_MIX}, into the
+		 * {@link Operation} of each unit of weight.
+		 *
+		 * @param mix
+		 *            The weight of each request, as <code>name=weight</code>
+		 *            separated by commas.
+		 * @return The {@link Operation}s, each repeated by its weight.
+		 */
+		static Operation[] parseMix(String mix) {
+
+			// Check parameters
+			if (mix == null) {
+				throw new NullPointerException("Mix cannot be null.");
+			}
+
+			final int[] weights = new int[values().length];
+			int total = 0;
+
+			for (String entry : mix.split(",")) {
+
+				final String[] parts = entry.trim().split("=");
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("A mix entry must be name=weight: " + entry);
+				}
+
+				final Operation operation = forName(parts[0].trim());
+				final int weight = Integer.parseInt(parts[1].trim());
+				if (weight < 0) {
+					throw new IllegalArgumentException("A weight cannot be negative: " + entry);
+				}
+
+				weights[operation.ordinal()] += weight;
+				total += weight;
+			}
+
+			if (total == 0) {
+				throw new IllegalArgumentException("A mix must have some weight.");
+			}
+
+			final Operation[] table = new Operation[total];
+			int next = 0;
+			for (Operation operation : values()) {
+				for (int unit = 0; unit < weights[operation.ordinal()]; unit++) {
+					table[next++] = operation;
+				}
+			}
+
+			return table;
+		}
+
+		/**
+		 * Retrieves the {@link Operation} with the specified name.
+		 *
+		 * @param name
+		 *            The name of the {@link Operation} in a mix.
+		 * @return {@link Operation}
+		 */
+		private static Operation forName(String name) {
+
+			for (Operation operation : values()) {
+				if (operation.name.equals(name)) {
+					return operation;
+				}
+			}
+
+			throw new IllegalArgumentException("Unknown request: " + name);
+		}
+	}
+
+	/**
+	 * The outcome of one {@link LoadTest#run(long)}.
+	 */
+	public static final class Result {
+
+		/**
+		 * The number of requests answered, including with an error.
+		 */
+		private long completed;
+
+		/**
+		 * The number of requests that failed.
+		 */
+		private long errors;
+
+		/**
+		 * The first failure, or <code>null</code> if none failed.
+		 */
+		private String firstError;
+
+		/**
+		 * The time, in nanoseconds, from the start until the last request was
+		 * answered.
+		 */
+		private long elapsed;
+
+		/**
+		 * The time from when each request was due until it was answered.
+		 */
+		private final LatencyHistogram responseTimes = new LatencyHistogram();
+
+		/**
+		 * The time from when each request was made until it was answered.
+		 */
+		private final LatencyHistogram serviceTimes = new LatencyHistogram();
+
+		/**
+		 * Retrieves the number of requests answered, including with an error.
+		 *
+		 * @return The number of requests.
+		 */
+		public long getCompleted() {
+			return completed;
+		}
+
+		/**
+		 * Retrieves the number of requests that failed.
+		 *
+		 * @return The number of failures.
+		 */
+		public long getErrors() {
+			return errors;
+		}
+
+		/**
+		 * Retrieves the first failure.
+		 *
+		 * @return The failure, or <code>null</code> if none failed.
+		 */
+		public String getFirstError() {
+			return firstError;
+		}
+
+		/**
+		 * Retrieves the time from the start until the last request was
+		 * answered.
+		 *
+		 * @return The time, in nanoseconds.
+		 */
+		public long getElapsed() {
+			return elapsed;
+		}
+
+		/**
+		 * Retrieves the number of requests answered per second.
+		 *
+		 * @return The throughput.
+		 */
+		public double getThroughput() {
+			return elapsed == 0 ? 0 : completed * 1e9 / elapsed;
+		}
+
+		/**
+		 * Retrieves the time from when each request was due until it was
+		 * answered, which is corrected for coordinated omission in an open
+		 * loop, and the same as the service time in a closed loop.
+		 *
+		 * @return {@link LatencyHistogram}
+		 */
+		public LatencyHistogram getResponseTimes() {
+			return responseTimes;
+		}
+
+		/**
+		 * Retrieves the time from when each request was made until it was
+		 * answered.
+		 *
+		 * @return {@link LatencyHistogram}
+		 */
+		public LatencyHistogram getServiceTimes() {
+			return serviceTimes;
+		}
+	}
+
+	/**
+	 * The timing of one {@link LoadTest#run(long)}, shared by its threads.
+	 */
+	private static final class Phase {
+
+		/**
+		 * Released once the start and end are set.
+		 */
+		final CountDownLatch go = new CountDownLatch(1);
+
+		/**
+		 * The number of requests of an open loop taken so far.
+		 */
+		final AtomicLong sequence = new AtomicLong();
+
+		/**
+		 * The {@link System#nanoTime()} of the start, set before
+		 * {@link Phase#go} is released.
+		 */
+		long start;
+
+		/**
+		 * The {@link System#nanoTime()} after which no request is made, set
+		 * before {@link Phase#go} is released.
+		 */
+		long end;
+	}
+
+	/**
+	 * The counts of one thread of a {@link LoadTest#run(long)}.
+	 */
+	private static final class Tally {
+
+		/**
+		 * The number of requests answered.
+		 */
+		long completed;
+
+		/**
+		 * The number of requests that failed.
+		 */
+		long errors;
+
+		/**
+		 * The first failure, or <code>null</code> if none failed.
+		 */
+		String firstError;
+
+		/**
+		 * The {@link System#nanoTime()} the last request was answered.
+		 */
+		long finish;
+
+		/**
+		 * The total length of the answers, kept so that they are not
+		 * optimised away.
+		 */
+		long checksum;
+
+		/**
+		 * The time from when each request was due until it was answered.
+		 */
+		final LatencyHistogram responseTimes = new LatencyHistogram();
+
+		/**
+		 * The time from when each request was made until it was answered.
+		 */
+		final LatencyHistogram serviceTimes = new LatencyHistogram();
+	}
+
+}
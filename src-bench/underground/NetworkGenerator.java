@@ -0,0 +1,615 @@
+package underground;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates synthetic {@link Metro}s of a chosen size through a
+ * {@link MetroBuilder}, so that the routing of large networks can be measured
+ * without a large data file.
+ *
+ * <p>
+ * Each {@link Topology} is generated as a stream of {@link Line}s and their
+ * {@link Station}s into a {@link Sink}, which either fills a
+ * {@link MetroBuilder} or writes a comma separated values file in the format
+ * of <code>MTRsystem_partial.csv</code>, so a network of millions of
+ * {@link Station}s is never held twice. The same {@link Topology}, number of
+ * {@link Station}s and seed always generate the same network.
+ * </p>
+ *
+ * <p>
+ * Usage: <code>NetworkGenerator topology stations [seed] [file]</code>, where
+ * the topology is one of <code>grid</code>, <code>hub-and-spoke</code>,
+ * <code>random-interchange</code> and <code>long-chain</code>. The network is
+ * written to the file, or to the standard output if there is no file.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class NetworkGenerator {
+
+	/**
+	 * The seed used when none is specified.
+	 */
+	public static final long DEFAULT_SEED = 159029448L;
+
+	/**
+	 * The number of spokes of each hub of a {@link Topology#HUB_AND_SPOKE}
+	 * network.
+	 */
+	private static final int SPOKES_PER_HUB = 8;
+
+	/**
+	 * The number of {@link Station}s of each spoke of a
+	 * {@link Topology#HUB_AND_SPOKE} network, not counting its hub.
+	 */
+	private static final int SPOKE_LENGTH = 20;
+
+	/**
+	 * The number of {@link Station}s of each {@link Line} of a
+	 * {@link Topology#RANDOM_INTERCHANGE} network.
+	 */
+	private static final int RANDOM_LINE_LENGTH = 50;
+
+	/**
+	 * The chance that a {@link Station} of a {@link Topology#RANDOM_INTERCHANGE}
+	 * network is an interchange with an earlier {@link Line}.
+	 */
+	private static final double INTERCHANGE_PROBABILITY = 0.1;
+
+	/**
+	 * The number of {@link Station}s of each {@link Line} of a
+	 * {@link Topology#LONG_CHAIN} network.
+	 */
+	private static final int CHAIN_LINE_LENGTH = 1000;
+
+	/**
+	 * Prevents {@link NetworkGenerator} being constructed.
+	 */
+	private NetworkGenerator() {
+	}
+
+	/**
+	 * Writes a generated network to a file, or to the standard output.
+	 *
+	 * @param args
+	 *            The topology and number of {@link Station}s, followed by the
+	 *            seed and the file, both optional.
+	 * @throws IOException
+	 *             If the network cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.err.println("Usage: NetworkGenerator topology stations [seed] [file]");
+			System.exit(1);
+		}
+
+		final Topology topology = Topology.forName(args[0]);
+		final int stations = Integer.parseInt(args[1]);
+		final long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+		if (args.length > 3) {
+			writeCsv(topology, stations, seed, Paths.get(args[3]));
+		} else {
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			final CsvSink sink = new CsvSink(writer);
+			generate(topology, stations, seed, sink);
+			sink.end();
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Retrieves the name of the {@link Station} at the specified row and column
+	 * of a grid.
+	 *
+	 * @param row
+	 *            The row of the {@link Station}.
+	 * @param column
+	 *            The column of the {@link Station}.
+	 * @return The name of the {@link Station}.
+	 */
+	public static String gridStation(int row, int column) {
+		return row + "-" + column;
+	}
+
+	/**
+	 * Generates a {@link Metro} laid out as a grid, where every row and every
+	 * column is a {@link Line} and every {@link Station} is an interchange
+	 * between its row and its column.
+	 *
+	 * @param rows
+	 *            The number of rows.
+	 * @param columns
+	 *            The number of columns.
+	 * @return {@link Metro}
+	 * @see NetworkGenerator#gridBuilder(int, int)
+	 */
+	public static Metro grid(int rows, int columns) {
+		return gridBuilder(rows, columns).build();
+	}
+
+	/**
+	 * Fills a {@link MetroBuilder} with a grid, where every row and every
+	 * column is a {@link Line} and every {@link Station} is an interchange
+	 * between its row and its column.
+	 *
+	 * @param rows
+	 *            The number of rows.
+	 * @param columns
+	 *            The number of columns.
+	 * @return {@link MetroBuilder}
+	 */
+	public static MetroBuilder gridBuilder(int rows, int columns) {
+
+		final MetroBuilder builder = new MetroBuilder();
+
+		try {
+			grid(rows, columns, new BuilderSink(builder));
+		} catch (IOException e) {
+			// A builder sink never throws.
+			throw new UncheckedIOException(e);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Fills a {@link MetroBuilder} with a generated network.
+	 *
+	 * @param topology
+	 *            The {@link Topology} of the network.
+	 * @param stations
+	 *            The number of {@link Station}s, which the network has at
+	 *            least and close to.
+	 * @param seed
+	 *            The seed of the random choices of the {@link Topology}.
+	 * @return {@link MetroBuilder}
+	 */
+	public static MetroBuilder builder(Topology topology, int stations, long seed) {
+
+		final MetroBuilder builder = new MetroBuilder();
+
+		try {
+			generate(topology, stations, seed, new BuilderSink(builder));
+		} catch (IOException e) {
+			// A builder sink never throws.
+			throw new UncheckedIOException(e);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Writes a generated network to a comma separated values file in the
+	 * format of <code>MTRsystem_partial.csv</code>.
+	 *
+	 * @param topology
+	 *            The {@link Topology} of the network.
+	 * @param stations
+	 *            The number of {@link Station}s, which the network has at
+	 *            least and close to.
+	 * @param seed
+	 *            The seed of the random choices of the {@link Topology}.
+	 * @param file
+	 *            The {@link Path} of the file, which is replaced if it exists.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public static void writeCsv(Topology topology, int stations, long seed, Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			final CsvSink sink = new CsvSink(writer);
+			generate(topology, stations, seed, sink);
+			sink.end();
+		}
+	}
+
+	/**
+	 * Generates a network into a {@link Sink}.
+	 *
+	 * @param topology
+	 *            The {@link Topology} of the network.
+	 * @param stations
+	 *            The number of {@link Station}s, which the network has at
+	 *            least and close to.
+	 * @param seed
+	 *            The seed of the random choices of the {@link Topology}.
+	 * @param sink
+	 *            The {@link Sink} that receives the network.
+	 * @throws IOException
+	 *             If the {@link Sink} throws.
+	 */
+	public static void generate(Topology topology, int stations, long seed, Sink sink) throws IOException {
+
+		// Check parameters
+		if (topology == null) {
+			throw new NullPointerException("Topology cannot be null.");
+		} else if (sink == null) {
+			throw new NullPointerException("Sink cannot be null.");
+		} else if (stations < 1) {
+			throw new IllegalArgumentException("A network must have at least one station.");
+		}
+
+		switch (topology) {
+		case GRID:
+			final int rows = Math.max(1, (int) Math.sqrt(stations));
+			grid(rows, (stations + rows - 1) / rows, sink);
+			break;
+		case HUB_AND_SPOKE:
+			hubAndSpoke(stations, sink);
+			break;
+		case RANDOM_INTERCHANGE:
+			randomInterchange(stations, new Random(seed), sink);
+			break;
+		case LONG_CHAIN:
+			longChain(stations, sink);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown topology: " + topology);
+		}
+	}
+
+	/**
+	 * Generates a grid, where every row and every column is a {@link Line} and
+	 * every {@link Station} is an interchange between its row and its column.
+	 *
+	 * @param rows
+	 *            The number of rows.
+	 * @param columns
+	 *            The number of columns.
+	 * @param sink
+	 *            The {@link Sink} that receives the network.
+	 * @throws IOException
+	 *             If the {@link Sink} throws.
+	 */
+	private static void grid(int rows, int columns, Sink sink) throws IOException {
+
+		if (rows < 1 || columns < 1) {
+			throw new IllegalArgumentException("A grid must have at least one row and one column.");
+		}
+
+		for (int row = 0; row < rows; row++) {
+
+			sink.line("Row " + row);
+
+			for (int column = 0; column < columns; column++) {
+				sink.station(gridStation(row, column));
+			}
+		}
+
+		for (int column = 0; column < columns; column++) {
+
+			sink.line("Column " + column);
+
+			for (int row = 0; row < rows; row++) {
+				sink.station(gridStation(row, column));
+			}
+		}
+	}
+
+	/**
+	 * Generates hubs joined in a row by a trunk {@link Line}, where each hub
+	 * has {@link NetworkGenerator#SPOKES_PER_HUB} spoke {@link Line}s that
+	 * start at the hub and share no other {@link Station}. Every path between
+	 * spokes changes at a hub.
+	 *
+	 * @param stations
+	 *            The number of {@link Station}s.
+	 * @param sink
+	 *            The {@link Sink} that receives the network.
+	 * @throws IOException
+	 *             If the {@link Sink} throws.
+	 */
+	private static void hubAndSpoke(int stations, Sink sink) throws IOException {
+
+		final int perHub = 1 + SPOKES_PER_HUB * SPOKE_LENGTH;
+		final int hubs = (stations + perHub - 1) / perHub;
+
+		sink.line("Trunk");
+		for (int hub = 0; hub < hubs; hub++) {
+			sink.station("H" + hub);
+		}
+
+		for (int hub = 0; hub < hubs; hub++) {
+			for (int spoke = 0; spoke < SPOKES_PER_HUB; spoke++) {
+
+				sink.line("Spoke " + hub + "-" + spoke);
+				sink.station("H" + hub);
+
+				for (int index = 0; index < SPOKE_LENGTH; index++) {
+					sink.station("H" + hub + "-" + spoke + "-" + index);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates {@link Line}s of {@link NetworkGenerator#RANDOM_LINE_LENGTH}
+	 * {@link Station}s, where each {@link Station} is an interchange with a
+	 * random earlier {@link Station} by chance, and otherwise new. The first
+	 * {@link Station} of every {@link Line} after the first is always an
+	 * interchange, so the network is connected.
+	 *
+	 * @param stations
+	 *            The number of {@link Station}s.
+	 * @param random
+	 *            The {@link Random} the interchanges are chosen with.
+	 * @param sink
+	 *            The {@link Sink} that receives the network.
+	 * @throws IOException
+	 *             If the {@link Sink} throws.
+	 */
+	private static void randomInterchange(int stations, Random random, Sink sink) throws IOException {
+
+		final int[] onLine = new int[RANDOM_LINE_LENGTH];
+		int created = 0;
+
+		for (int line = 0; created < stations; line++) {
+
+			sink.line("Random " + line);
+
+			for (int index = 0; index < RANDOM_LINE_LENGTH; index++) {
+
+				int station = -1;
+
+				// Change to a random earlier station, unless this line already calls there.
+				if (created > 0 && (index == 0 && line > 0 || random.nextDouble() < INTERCHANGE_PROBABILITY)) {
+					station = random.nextInt(created);
+					for (int previous = 0; previous < index; previous++) {
+						if (onLine[previous] == station) {
+							station = -1;
+							break;
+						}
+					}
+				}
+
+				if (station < 0) {
+					if (created == stations) {
+						break;
+					}
+					station = created++;
+				}
+
+				onLine[index] = station;
+				sink.station("R" + station);
+			}
+		}
+	}
+
+	/**
+	 * Generates {@link Line}s of {@link NetworkGenerator#CHAIN_LINE_LENGTH}
+	 * {@link Station}s end to end, where each {@link Line} starts at the last
+	 * {@link Station} of the one before, so the network is one long path.
+	 *
+	 * @param stations
+	 *            The number of {@link Station}s.
+	 * @param sink
+	 *            The {@link Sink} that receives the network.
+	 * @throws IOException
+	 *             If the {@link Sink} throws.
+	 */
+	private static void longChain(int stations, Sink sink) throws IOException {
+
+		int station = 0;
+
+		for (int line = 0; line == 0 || station < stations - 1; line++) {
+
+			sink.line("Chain " + line);
+
+			// Every line after the first starts where the one before ends.
+			final int last = Math.min(stations - 1, station + CHAIN_LINE_LENGTH - 1);
+			for (; station <= last; station++) {
+				sink.station("C" + station);
+			}
+			station = last;
+		}
+	}
+
+	/**
+	 * The shapes of network a {@link NetworkGenerator} generates.
+	 */
+	public enum Topology {
+
+		/**
+		 * Rows and columns of {@link Station}s, where every row and every column
+		 * is a {@link Line}, so every {@link Station} is an interchange.
+		 */
+		GRID("grid"),
+
+		/**
+		 * Hubs joined by a trunk {@link Line}, each with spoke {@link Line}s
+		 * that only meet at the hub.
+		 */
+		HUB_AND_SPOKE("hub-and-spoke"),
+
+		/**
+		 * {@link Line}s whose {@link Station}s are interchanges with random
+		 * earlier {@link Line}s by chance, the only {@link Topology} that
+		 * depends on the seed.
+		 */
+		RANDOM_INTERCHANGE("random-interchange"),
+
+		/**
+		 * {@link Line}s end to end, so the network is one long path.
+		 */
+		LONG_CHAIN("long-chain");
+
+		/**
+		 * The name of the {@link Topology} on the command line.
+		 */
+		private final String name;
+
+		/**
+		 * Constructs a new {@link Topology}.
+		 *
+		 * @param name
+		 *            {@link Topology#name}
+		 */
+		private Topology(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Retrieves the name of the {@link Topology} on the command line.
+		 *
+		 * @return The name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Retrieves the {@link Topology} with the specified name.
+		 *
+		 * @param name
+		 *            The name, as given by {@link Topology#getName()}.
+		 * @return {@link Topology}
+		 * @throws IllegalArgumentException
+		 *             If no {@link Topology} has the name.
+		 */
+		public static Topology forName(String name) {
+
+			for (Topology topology : values()) {
+				if (topology.name.equals(name)) {
+					return topology;
+				}
+			}
+
+			throw new IllegalArgumentException("Unknown topology: " + name);
+		}
+	}
+
+	/**
+	 * Receives a generated network, one {@link Line} at a time.
+	 */
+	public interface Sink {
+
+		/**
+		 * Receives the start of a {@link Line}. The {@link Station}s that
+		 * follow, until the next {@link Line}, are on it in order.
+		 *
+		 * @param lineName
+		 *            The name of the {@link Line}.
+		 * @throws IOException
+		 *             If the {@link Line} cannot be written.
+		 */
+		void line(String lineName) throws IOException;
+
+		/**
+		 * Receives the next {@link Station} of the current {@link Line}.
+		 *
+		 * @param stationName
+		 *            The name of the {@link Station}.
+		 * @throws IOException
+		 *             If the {@link Station} cannot be written.
+		 */
+		void station(String stationName) throws IOException;
+	}
+
+	/**
+	 * A {@link Sink} that adds the network to a {@link MetroBuilder}.
+	 */
+	private static final class BuilderSink implements Sink {
+
+		/**
+		 * The {@link MetroBuilder} the network is added to.
+		 */
+		private final MetroBuilder builder;
+
+		/**
+		 * The name of the current {@link Line}.
+		 */
+		private String lineName;
+
+		/**
+		 * Constructs a new {@link BuilderSink}.
+		 *
+		 * @param builder
+		 *            {@link BuilderSink#builder}
+		 */
+		BuilderSink(MetroBuilder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		public void line(String lineName) {
+			this.lineName = lineName;
+			builder.addLine(lineName);
+		}
+
+		@Override
+		public void station(String stationName) {
+			builder.addStation(stationName, lineName);
+		}
+	}
+
+	/**
+	 * A {@link Sink} that writes the network as comma separated values, one
+	 * {@link Line} per record.
+	 */
+	private static final class CsvSink implements Sink {
+
+		/**
+		 * The {@link Writer} the records are written to.
+		 */
+		private final Writer writer;
+
+		/**
+		 * Whether a {@link Line} has been written, so the next one starts a new
+		 * record.
+		 */
+		private boolean started;
+
+		/**
+		 * Constructs a new {@link CsvSink}.
+		 *
+		 * @param writer
+		 *            {@link CsvSink#writer}
+		 */
+		CsvSink(Writer writer) {
+			this.writer = writer;
+			this.started = false;
+		}
+
+		@Override
+		public void line(String lineName) throws IOException {
+
+			if (started) {
+				writer.write('\n');
+			}
+			started = true;
+
+			writer.write(lineName);
+		}
+
+		@Override
+		public void station(String stationName) throws IOException {
+			writer.write(',');
+			writer.write(stationName);
+		}
+
+		/**
+		 * Ends the last record.
+		 *
+		 * @throws IOException
+		 *             If the record cannot be ended.
+		 */
+		void end() throws IOException {
+			if (started) {
+				writer.write('\n');
+			}
+		}
+	}
+
+}
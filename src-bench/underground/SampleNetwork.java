@@ -0,0 +1,208 @@
+package underground;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import underground.NetworkGenerator.Topology;
+
+/**
+ * A network that benchmarks and load tests run on, as a filled
+ * {@link MetroBuilder} together with the names of its {@link Line}s and
+ * {@link Station}s, which the queries are made with.
+ *
+ * <p>
+ * A network is named by a specification: <code>mtr</code> for the bundled MTR
+ * data, the path of a comma separated values file in the format of
+ * <code>MTRsystem_partial.csv</code>, or
+ * <code>&lt;topology&gt;-&lt;stations&gt;</code>, such as
+ * <code>grid-10000</code>, for a network generated by the
+ * {@link NetworkGenerator} with its default seed.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class SampleNetwork {
+
+	/**
+	 * The path of the bundled MTR data, relative to the project.
+	 */
+	public static final String MTR = "Resources/MTRsystem_partial.csv";
+
+	/**
+	 * The {@link MetroBuilder} filled with the network.
+	 */
+	private final MetroBuilder builder;
+
+	/**
+	 * The names of the {@link Line}s, in the order they were added.
+	 */
+	private final String[] lineNames;
+
+	/**
+	 * The names of the {@link Station}s, in the order they were first added.
+	 */
+	private final String[] stationNames;
+
+	/**
+	 * Constructs a new {@link SampleNetwork}.
+	 *
+	 * @param builder
+	 *            {@link SampleNetwork#builder}
+	 * @param lineNames
+	 *            {@link SampleNetwork#lineNames}
+	 * @param stationNames
+	 *            {@link SampleNetwork#stationNames}
+	 */
+	private SampleNetwork(MetroBuilder builder, List<String> lineNames, Set<String> stationNames) {
+		this.builder = builder;
+		this.lineNames = lineNames.toArray(new String[0]);
+		this.stationNames = stationNames.toArray(new String[0]);
+	}
+
+	/**
+	 * Loads or generates the network of a specification.
+	 *
+	 * @param specification
+	 *            <code>mtr</code>, the path of a network file, or
+	 *            <code>&lt;topology&gt;-&lt;stations&gt;</code>.
+	 * @return {@link SampleNetwork}
+	 * @throws IOException
+	 *             If the network file cannot be read.
+	 * @throws IllegalArgumentException
+	 *             If the specification names no file and no {@link Topology}.
+	 */
+	public static SampleNetwork of(String specification) throws IOException {
+
+		// Check parameters
+		if (specification == null) {
+			throw new NullPointerException("Specification cannot be null.");
+		}
+
+		final Path file = Paths.get(specification.equals("mtr") ? MTR : specification);
+		if (Files.isRegularFile(file)) {
+			return read(file);
+		}
+
+		final int split = specification.lastIndexOf('-');
+		if (split < 0) {
+			throw new IllegalArgumentException("No such network: " + specification);
+		}
+
+		return generate(Topology.forName(specification.substring(0, split)),
+				Integer.parseInt(specification.substring(split + 1)), NetworkGenerator.DEFAULT_SEED);
+	}
+
+	/**
+	 * Reads a network file in the same way as {@link Main}.
+	 *
+	 * @param file
+	 *            The {@link Path} of the file.
+	 * @return {@link SampleNetwork}
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static SampleNetwork read(Path file) throws IOException {
+
+		final MetroBuilder builder = new MetroBuilder();
+		final List<String> lineNames = new ArrayList<>();
+		final Set<String> stationNames = new LinkedHashSet<>();
+
+		CsvReader.read(file, new CsvReader.Handler() {
+
+			private String lineName;
+
+			@Override
+			public void field(int record, int index, String value) {
+				if (index == 0) {
+					lineName = value;
+					lineNames.add(value);
+				} else if (!value.isEmpty()) {
+					builder.addStation(value, lineName);
+					stationNames.add(value);
+				}
+			}
+		});
+
+		return new SampleNetwork(builder, lineNames, stationNames);
+	}
+
+	/**
+	 * Generates a network with the {@link NetworkGenerator}.
+	 *
+	 * @param topology
+	 *            The {@link Topology} of the network.
+	 * @param stations
+	 *            The number of {@link Station}s.
+	 * @param seed
+	 *            The seed of the network.
+	 * @return {@link SampleNetwork}
+	 */
+	public static SampleNetwork generate(Topology topology, int stations, long seed) {
+
+		final MetroBuilder builder = new MetroBuilder();
+		final List<String> lineNames = new ArrayList<>();
+		final Set<String> stationNames = new LinkedHashSet<>();
+
+		try {
+			NetworkGenerator.generate(topology, stations, seed, new NetworkGenerator.Sink() {
+
+				private String lineName;
+
+				@Override
+				public void line(String lineName) {
+					this.lineName = lineName;
+					builder.addLine(lineName);
+					lineNames.add(lineName);
+				}
+
+				@Override
+				public void station(String stationName) {
+					builder.addStation(stationName, lineName);
+					stationNames.add(stationName);
+				}
+			});
+		} catch (IOException e) {
+			// This sink never throws.
+			throw new UncheckedIOException(e);
+		}
+
+		return new SampleNetwork(builder, lineNames, stationNames);
+	}
+
+	/**
+	 * Retrieves the {@link MetroBuilder} filled with the network.
+	 *
+	 * @return {@link MetroBuilder}
+	 */
+	public MetroBuilder getBuilder() {
+		return builder;
+	}
+
+	/**
+	 * Retrieves the names of the {@link Line}s of the network.
+	 *
+	 * @return The names, which must not be modified.
+	 */
+	public String[] getLineNames() {
+		return lineNames;
+	}
+
+	/**
+	 * Retrieves the names of the {@link Station}s of the network.
+	 *
+	 * @return The names, which must not be modified.
+	 */
+	public String[] getStationNames() {
+		return stationNames;
+	}
+
+}
@@ -0,0 +1,120 @@
+package underground;
+
+import java.util.Random;
+
+/**
+ * Compares how many {@link Station}s the {@link RoutingMode#FEWEST_STOPS}
+ * search and the {@link RoutingMode#BIDIRECTIONAL} search settle, and how long
+ * they take, for random pairs of {@link Station}s on grids of increasing size
+ * generated by the {@link NetworkGenerator}.
+ * 
+ * <p>
+ * Usage: <code>SettledNodesBenchmark [queries] [seed]</code>
+ * </p>
+ * 
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class SettledNodesBenchmark {
+
+	/**
+	 * The side lengths of the square grids that are measured.
+	 */
+	private static final int[] SIDES = { 10, 30, 100, 300 };
+
+	/**
+	 * The number of queries run on each grid when none is specified.
+	 */
+	private static final int DEFAULT_QUERIES = 1000;
+
+	/**
+	 * The seed of the random pairs of {@link Station}s when none is specified.
+	 */
+	private static final long DEFAULT_SEED = 159029448L;
+
+	/**
+	 * Prevents {@link SettledNodesBenchmark} being constructed.
+	 */
+	private SettledNodesBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            The number of queries on each grid and the random seed, both
+	 *            optional.
+	 */
+	public static void main(String[] args) {
+
+		final int queries = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_QUERIES;
+		final long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+
+		System.out.printf("%9s %12s %12s %8s %10s %10s%n", "stations", "settled", "settled", "ratio", "time (us)",
+				"time (us)");
+		System.out.printf("%9s %12s %12s %8s %10s %10s%n", "", "one-way", "two-way", "", "one-way", "two-way");
+
+		for (int side : SIDES) {
+
+			final Metro metro = NetworkGenerator.grid(side, side);
+			final Random random = new Random(seed);
+
+			final Station[] starts = new Station[queries];
+			final Station[] ends = new Station[queries];
+			for (int query = 0; query < queries; query++) {
+				starts[query] = new Station(NetworkGenerator.gridStation(random.nextInt(side), random.nextInt(side)));
+				ends[query] = new Station(NetworkGenerator.gridStation(random.nextInt(side), random.nextInt(side)));
+			}
+
+			// Warm up both searches before measuring them.
+			run(metro, starts, ends, RoutingMode.FEWEST_STOPS);
+			run(metro, starts, ends, RoutingMode.BIDIRECTIONAL);
+
+			final long oneWayStart = System.nanoTime();
+			final long oneWay = run(metro, starts, ends, RoutingMode.FEWEST_STOPS);
+			final long oneWayTime = System.nanoTime() - oneWayStart;
+
+			final long twoWayStart = System.nanoTime();
+			final long twoWay = run(metro, starts, ends, RoutingMode.BIDIRECTIONAL);
+			final long twoWayTime = System.nanoTime() - twoWayStart;
+
+			System.out.printf("%9d %12.1f %12.1f %8.2f %10.2f %10.2f%n", side * side, (double) oneWay / queries,
+					(double) twoWay / queries, (double) oneWay / twoWay, oneWayTime / 1000.0 / queries,
+					twoWayTime / 1000.0 / queries);
+		}
+	}
+
+	/**
+	 * Routes every pair of {@link Station}s with the specified
+	 * {@link RoutingMode}.
+	 * 
+	 * @param metro
+	 *            {@link Metro}
+	 * @param starts
+	 *            The start {@link Station} of each query.
+	 * @param ends
+	 *            The end {@link Station} of each query.
+	 * @param mode
+	 *            {@link RoutingMode}
+	 * @return The total number of {@link Station}s settled.
+	 */
+	private static long run(Metro metro, Station[] starts, Station[] ends, RoutingMode mode) {
+
+		long settled = 0;
+
+		for (int query = 0; query < starts.length; query++) {
+
+			final Route route = metro.route(starts[query], ends[query], mode);
+
+			if (!route.isFound()) {
+				throw new IllegalStateException("There is no path between " + starts[query] + " and " + ends[query]);
+			}
+
+			settled += route.getSettled();
+		}
+
+		return settled;
+	}
+
+}
@@ -0,0 +1,221 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code ControllerServerTest} is a test class for the
+ * {@link ControllerServer} class using the JUnit testing framework.
+ *
+ * <p>
+ * Requests are made through an {@link HttpController}, so every answer
+ * should be the same as that of the {@link RequestHandler} which is served.
+ * </p>
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class ControllerServerTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The {@link RequestHandler} of a {@link Metro} of an "East Line" from
+	 * A to "D Street" and a "North Line" which crosses it at "C Park".
+	 */
+	private RequestHandler handler;
+	/**
+	 * The {@link MetricsController} of the {@link #handler}, which is served.
+	 */
+	private MetricsController metrics;
+	/**
+	 * The {@link ControllerServer} of the {@link #metrics}, on any free port.
+	 */
+	private ControllerServer server;
+	/**
+	 * The {@link HttpController} of the {@link #server}.
+	 */
+	private HttpController http;
+	//=========================================================================
+	//Before and after.
+	/**
+	 * Setup and start the {@link #server} before running each test case.
+	 *
+	 * @throws IOException If the {@link #server} cannot listen.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C Park", "D Street"})
+			builder.addStation(station, "East Line");
+		for(final String station: new String[]{"E", "C Park", "F & G"})
+			builder.addStation(station, "North Line");
+		handler = new RequestHandler(builder.build());
+		metrics = new MetricsController(handler);
+		server = new ControllerServer(
+				metrics,
+				new InetSocketAddress("localhost", 0),
+				2);
+		server.start();
+		http = new HttpController(baseUrl());
+	}
+	/**
+	 * Close the {@link #server} after running each test case.
+	 */
+	@After
+	public final void tearDown()
+	{
+		server.close();
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the <code>/termini</code> request.
+	 *
+	 * <p>
+	 * This test will only pass if the answer is the same as that of the
+	 * {@link RequestHandler}, with its line breaks.
+	 * </p>
+	 */
+	@Test
+	public final void testListAllTermini()
+	{
+		assertEquals(handler.listAllTermini(), http.listAllTermini());
+	}
+	/**
+	 * Test the <code>/stations</code> and <code>/connected</code> requests.
+	 *
+	 * <p>
+	 * This test will only pass if the answers are the same as those of the
+	 * {@link RequestHandler}, including for a line that does not exist.
+	 * </p>
+	 */
+	@Test
+	public final void testLines()
+	{
+		assertEquals(handler.listStationsInLine("North Line"),
+				http.listStationsInLine("North Line"));
+		assertEquals(handler.listAllDirectlyConnectedLines("East Line"),
+				http.listAllDirectlyConnectedLines("East Line"));
+		assertEquals(handler.listStationsInLine("West Line"),
+				http.listStationsInLine("West Line"));
+	}
+	/**
+	 * Test the <code>/path</code> request, with and without the
+	 * <code>fewest-changes</code> mode.
+	 *
+	 * <p>
+	 * This test will only pass if the answers are the same as those of the
+	 * {@link RequestHandler}, for station names which must be encoded.
+	 * </p>
+	 */
+	@Test
+	public final void testShowPathBetween()
+	{
+		assertEquals(handler.showPathBetween("A", "F & G"),
+				http.showPathBetween("A", "F & G"));
+		assertEquals(
+				handler.showPathWithFewestChangesBetween("F & G", "D Street"),
+				http.showPathWithFewestChangesBetween("F & G", "D Street"));
+	}
+	/**
+	 * Test the <code>/metrics</code> request.
+	 *
+	 * <p>
+	 * This test will only pass if the requests which were served are
+	 * counted by the {@link MetricsController}.
+	 * </p>
+	 */
+	@Test
+	public final void testMetrics()
+	{
+		http.listAllTermini();
+		http.listAllTermini();
+		assertEquals(2, metrics.snapshot().getOperations()
+				.get("listAllTermini").getLatencies().getCount());
+		assertEquals(HttpURLConnection.HTTP_OK, get("/metrics"));
+	}
+	/**
+	 * Test the responses to requests which cannot be answered.
+	 *
+	 * <p>
+	 * This test will only pass if a missing parameter or mode that is not
+	 * valid is answered with <code>400</code>, and a path that does not
+	 * exist with <code>404</code>.
+	 * </p>
+	 */
+	@Test
+	public final void testErrors()
+	{
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, get("/stations"));
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, get("/path?from=A"));
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+				get("/path?from=A&to=B&mode=fastest"));
+		assertEquals(HttpURLConnection.HTTP_NOT_FOUND, get("/lines"));
+	}
+	/**
+	 * Test the {@link ControllerServer} constructor, with no
+	 * {@link Controller}.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link NullPointerException} is thrown.
+	 * </p>
+	 *
+	 * @throws IOException If the {@link ControllerServer} cannot listen.
+	 */
+	@Test(expected = NullPointerException.class)
+	public final void testConstructor_NullController()
+			throws
+			IOException
+	{
+		new ControllerServer(null, new InetSocketAddress(0));
+	}
+	//=========================================================================
+	//Helpers.
+	/**
+	 * Retrieve the base URL of the {@link #server}.
+	 *
+	 * @return The base URL.
+	 */
+	private String baseUrl()
+	{
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+	/**
+	 * Make a <code>GET</code> request of the {@link #server}.
+	 *
+	 * @param path The path and query of the request.
+	 * @return The status of the response.
+	 */
+	private int get(final String path)
+	{
+		try
+		{
+			final HttpURLConnection connection = (HttpURLConnection)
+					new URL(baseUrl() + path).openConnection();
+			final int status = connection.getResponseCode();
+			connection.disconnect();
+			return status;
+		}
+		catch(final IOException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code CsvReaderTest} is a test class for the {@link CsvReader}
+ * class using the JUnit testing framework.
+ *
+ * <p>
+ * {@code CsvReaderTest} will test the methods of the {@link CsvReader}
+ * class. A method in the {@link CsvReader} class may have multiple test
+ * cases to test different scenarios.
+ * </p>
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class CsvReaderTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The temporary file which is read in the test cases.
+	 */
+	private Path file;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #file} before running each test case.
+	 *
+	 * @throws IOException If the temporary file cannot be created.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		file = Files.createTempFile("CsvReaderTest", ".csv");
+	}
+	//=========================================================================
+	//After.
+	/**
+	 * Delete the {@link #file} after running each test case.
+	 *
+	 * @throws IOException If the temporary file cannot be deleted.
+	 */
+	@After
+	public final void tearDown()
+			throws
+			IOException
+	{
+		Files.deleteIfExists(file);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link CsvReader#read(Path, CsvReader.Handler)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the method throws a
+	 * {@link NullPointerException} when provided a <code>null</code>
+	 * {@link CsvReader.Handler}.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test(expected = NullPointerException.class)
+	public final void testRead_NullHandler()
+			throws
+			IOException
+	{
+		CsvReader.read(file, null);
+	}
+	/**
+	 * Test the {@link CsvReader#read(Path, CsvReader.Handler)} method.
+	 *
+	 * <p>
+	 * This test will only pass if each record is split into its fields, and
+	 * a last record without a line break is still read.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test
+	public final void testRead_Records()
+			throws
+			IOException
+	{
+		final List<List<String>> records = read("A,a,b\nB,c\nC", false);
+		assertEquals(Arrays.asList(
+				Arrays.asList("A", "a", "b"),
+				Arrays.asList("B", "c"),
+				Arrays.asList("C")), records);
+	}
+	/**
+	 * Test the {@link CsvReader#read(Path, CsvReader.Handler)} method.
+	 *
+	 * <p>
+	 * This test will only pass if quoted fields keep their commas and line
+	 * breaks, and doubled double quotes are read as one double quote.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test
+	public final void testRead_Quoted()
+			throws
+			IOException
+	{
+		final List<List<String>> records = read(
+				"\"A, B\",\"say \"\"hi\"\"\",\"two\nlines\",\"\"\n", false);
+		assertEquals(Arrays.asList(Arrays.asList(
+				"A, B", "say \"hi\"", "two\nlines", "")), records);
+	}
+	/**
+	 * Test the {@link CsvReader#read(Path, CsvReader.Handler)} method.
+	 *
+	 * <p>
+	 * This test will only pass if carriage return line feeds end records
+	 * the same as line feeds, and empty lines are skipped.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test
+	public final void testRead_LineBreaks()
+			throws
+			IOException
+	{
+		final List<List<String>> records = read(
+				"A,a\r\n\r\nB,b\n\nC,c\r\n", false);
+		assertEquals(Arrays.asList(
+				Arrays.asList("A", "a"),
+				Arrays.asList("B", "b"),
+				Arrays.asList("C", "c")), records);
+	}
+	/**
+	 * Test the {@link CsvReader#read(Path, CsvReader.Handler)} method.
+	 *
+	 * <p>
+	 * This test will only pass if a byte order mark at the start of the file
+	 * is not read as part of the first field, and multi-byte characters are
+	 * decoded as UTF-8.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test
+	public final void testRead_ByteOrderMark()
+			throws
+			IOException
+	{
+		final List<List<String>> records = read(
+				"\uFEFFTsuen Wan,\u8343\u7063\n", false);
+		assertEquals(Arrays.asList(
+				Arrays.asList("Tsuen Wan", "\u8343\u7063")), records);
+	}
+	/**
+	 * Test the {@link CsvReader#read(Path, boolean, CsvReader.Handler)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if a memory mapped file is read the same as a
+	 * buffered file, including a file larger than one buffer.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be read.
+	 */
+	@Test
+	public final void testRead_Mapped()
+			throws
+			IOException
+	{
+		final StringBuilder contents = new StringBuilder();
+		for(int i = 0; i < 20000; i++)
+			contents.append("Line ").append(i).append(",\"a,").append(i)
+					.append("\",b\r\n");
+		assertEquals(
+				read(contents.toString(), false),
+				read(contents.toString(), true));
+		assertEquals(20000, read(contents.toString(), true).size());
+	}
+	//=========================================================================
+	//Methods.
+	/**
+	 * Write the specified contents to the {@link #file} and read it back.
+	 *
+	 * @param contents The contents of the file.
+	 * @param mapped Whether the file is memory mapped.
+	 * @return The fields of each record of the file.
+	 * @throws IOException If the file cannot be written or read.
+	 */
+	private List<List<String>> read(
+			final String contents,
+			final boolean mapped)
+			throws
+			IOException
+	{
+		Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+		final List<List<String>> records = new ArrayList<>();
+		CsvReader.read(file, mapped, (record, index, value) ->
+		{
+			if(index == 0)
+				records.add(new ArrayList<>());
+			records.get(record).add(value);
+		});
+		return records;
+	}
+}
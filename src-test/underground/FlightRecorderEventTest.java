@@ -0,0 +1,269 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * The {@code FlightRecorderEventTest} is a test class for the
+ * {@link BuildPhaseEvent}, {@link CsvLoadEvent}, {@link RouteEvent} and
+ * {@link RouteCacheEvent} classes using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class FlightRecorderEventTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The {@link Recording} the events of each test case are recorded into.
+	 */
+	private Recording recording;
+	/**
+	 * The temporary file the {@link #recording} is written to.
+	 */
+	private Path file;
+	//=========================================================================
+	//Before and after.
+	/**
+	 * Setup the {@link #recording} and the {@link #file} before running each
+	 * test case.
+	 *
+	 * @throws IOException If the temporary file cannot be created.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		recording = new Recording();
+		file = Files.createTempFile("FlightRecorderEventTest", ".jfr");
+	}
+	/**
+	 * Close the {@link #recording} and delete the {@link #file} after
+	 * running each test case.
+	 *
+	 * @throws IOException If the temporary file cannot be deleted.
+	 */
+	@After
+	public final void tearDown()
+			throws
+			IOException
+	{
+		recording.close();
+		Files.deleteIfExists(file);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link RouteEvent} class.
+	 *
+	 * <p>
+	 * This test will only pass if every path found while the event is
+	 * enabled is recorded with its start, end, algorithm, nodes settled and
+	 * path length.
+	 * </p>
+	 *
+	 * @throws IOException If the recording cannot be read.
+	 */
+	@Test
+	public final void testRoute()
+			throws
+			IOException
+	{
+		final Metro metro = buildMetro();
+		recording.enable("underground.Route");
+		recording.start();
+		final Route route = metro.route(
+				metro.getStation("A"),
+				metro.getStation("F"),
+				RoutingMode.FEWEST_CHANGES);
+		final List<RecordedEvent> events = stop("underground.Route");
+		assertEquals(1, events.size());
+		final RecordedEvent event = events.get(0);
+		assertEquals("A", event.getString("start"));
+		assertEquals("F", event.getString("end"));
+		assertEquals("FEWEST_CHANGES", event.getString("algorithm"));
+		assertEquals(route.getSettled(), event.getInt("settled"));
+		assertEquals(4, event.getInt("pathLength"));
+	}
+	/**
+	 * Test the {@link RouteEvent} class, when the event is not enabled.
+	 *
+	 * <p>
+	 * This test will only pass if no path is recorded, as the event is
+	 * disabled by default.
+	 * </p>
+	 *
+	 * @throws IOException If the recording cannot be read.
+	 */
+	@Test
+	public final void testRoute_Disabled()
+			throws
+			IOException
+	{
+		final Metro metro = buildMetro();
+		recording.start();
+		metro.findPath(metro.getStation("A"), metro.getStation("F"));
+		assertTrue(stop("underground.Route").isEmpty());
+	}
+	/**
+	 * Test the {@link RouteCacheEvent} class.
+	 *
+	 * <p>
+	 * This test will only pass if the first request is recorded as a miss,
+	 * the same request again as a hit, and the request in the other
+	 * direction as a reversed hit.
+	 * </p>
+	 *
+	 * @throws IOException If the recording cannot be read.
+	 */
+	@Test
+	public final void testRouteCache()
+			throws
+			IOException
+	{
+		final Metro metro = buildMetro();
+		final RouteCache cache = new RouteCache(metro, 16);
+		final Station a = metro.getStation("A");
+		final Station f = metro.getStation("F");
+		recording.enable("underground.RouteCache");
+		recording.start();
+		cache.route(a, f, RoutingMode.FEWEST_STOPS);
+		cache.route(a, f, RoutingMode.FEWEST_STOPS);
+		cache.route(f, a, RoutingMode.FEWEST_STOPS);
+		final List<RecordedEvent> events = stop("underground.RouteCache");
+		assertEquals(3, events.size());
+		assertFalse(events.get(0).getBoolean("hit"));
+		assertTrue(events.get(1).getBoolean("hit"));
+		assertFalse(events.get(1).getBoolean("reversed"));
+		assertTrue(events.get(2).getBoolean("hit"));
+		assertTrue(events.get(2).getBoolean("reversed"));
+		assertEquals("F", events.get(2).getString("start"));
+	}
+	/**
+	 * Test the {@link BuildPhaseEvent} class.
+	 *
+	 * <p>
+	 * This test will only pass if the lines, graph, interchanges and
+	 * connectivity phases of a build are each recorded with the size of the
+	 * {@link Metro}.
+	 * </p>
+	 *
+	 * @throws IOException If the recording cannot be read.
+	 */
+	@Test
+	public final void testBuildPhase()
+			throws
+			IOException
+	{
+		recording.enable("underground.BuildPhase");
+		recording.start();
+		buildMetro();
+		final List<RecordedEvent> events = stop("underground.BuildPhase");
+		final List<String> phases = new ArrayList<>();
+		for(final RecordedEvent event: events)
+		{
+			phases.add(event.getString("phase"));
+			assertEquals(6, event.getInt("stations"));
+			assertEquals(2, event.getInt("lines"));
+		}
+		assertTrue(phases.containsAll(Arrays.asList(
+				BuildPhaseEvent.LINES,
+				BuildPhaseEvent.GRAPH,
+				BuildPhaseEvent.INTERCHANGES,
+				BuildPhaseEvent.CONNECTIVITY)));
+	}
+	/**
+	 * Test the {@link CsvLoadEvent} class.
+	 *
+	 * <p>
+	 * This test will only pass if the file is recorded with its size and
+	 * number of records.
+	 * </p>
+	 *
+	 * @throws IOException If the file or the recording cannot be read.
+	 */
+	@Test
+	public final void testCsvLoad()
+			throws
+			IOException
+	{
+		final Path csv = Files.createTempFile("FlightRecorderEventTest", ".csv");
+		try
+		{
+			final byte[] bytes = "East,A,B\nNorth,C,D\n"
+					.getBytes(StandardCharsets.UTF_8);
+			Files.write(csv, bytes);
+			recording.enable("underground.CsvLoad");
+			recording.start();
+			CsvReader.read(csv, (record, index, value) -> {});
+			final List<RecordedEvent> events = stop("underground.CsvLoad");
+			assertEquals(1, events.size());
+			assertEquals(csv.toString(), events.get(0).getString("file"));
+			assertEquals(bytes.length, events.get(0).getLong("size"));
+			assertEquals(2, events.get(0).getInt("records"));
+		}
+		finally
+		{
+			Files.delete(csv);
+		}
+	}
+	//=========================================================================
+	//Helpers.
+	/**
+	 * Build a {@link Metro} of an "East" {@link Line} from A to D and a
+	 * "North" {@link Line} which crosses it at C.
+	 *
+	 * @return The {@link Metro}.
+	 */
+	private static Metro buildMetro()
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C", "D"})
+			builder.addStation(station, "East");
+		for(final String station: new String[]{"E", "C", "F"})
+			builder.addStation(station, "North");
+		return builder.build();
+	}
+	/**
+	 * Stop the {@link #recording} and read back its events of one type.
+	 *
+	 * @param name The name of the type of event.
+	 * @return The {@link List} of events, in the order they were recorded.
+	 * @throws IOException If the recording cannot be read.
+	 */
+	private List<RecordedEvent> stop(final String name)
+			throws
+			IOException
+	{
+		recording.stop();
+		recording.dump(file);
+		final List<RecordedEvent> events = new ArrayList<>();
+		for(final RecordedEvent event: RecordingFile.readAllEvents(file))
+			if(event.getEventType().getName().equals(name))
+				events.add(event);
+		events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+		return events;
+	}
+}
@@ -0,0 +1,146 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The {@code LatencyHistogramTest} is a test class for the
+ * {@link LatencyHistogram} class using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class LatencyHistogramTest
+{
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link LatencyHistogram#getPercentile(double)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the percentiles of evenly spread latencies
+	 * are within 1% of the exact percentiles, and the count, mean and
+	 * maximum are exact.
+	 * </p>
+	 */
+	@Test
+	public final void testGetPercentile()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for(long nanos = 1; nanos <= 100000; ++nanos)
+			histogram.record(nanos);
+		assertEquals(100000, histogram.getCount());
+		assertEquals(50000.5, histogram.getMean(), 1e-9);
+		assertEquals(100000, histogram.getMax());
+		assertEquals(100000, histogram.getPercentile(100));
+		for(final double percentile: new double[]{1, 50, 90, 99, 99.9})
+		{
+			final double exact = percentile * 1000;
+			assertEquals(exact, histogram.getPercentile(percentile),
+					exact / 100);
+		}
+	}
+	/**
+	 * Test the {@link LatencyHistogram#getPercentile(double)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an empty {@link LatencyHistogram} has no
+	 * latencies and every percentile is <code>0</code>.
+	 * </p>
+	 */
+	@Test
+	public final void testGetPercentile_Empty()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99));
+		assertEquals(0, histogram.getMean(), 0);
+	}
+	/**
+	 * Test the {@link LatencyHistogram#getPercentile(double)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalArgumentException} is
+	 * thrown for a percentile above <code>100</code>.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testGetPercentile_OutOfRange()
+	{
+		new LatencyHistogram().getPercentile(101);
+	}
+	/**
+	 * Test the {@link LatencyHistogram#record(long)} method.
+	 *
+	 * <p>
+	 * This test will only pass if latencies far longer than the last bucket
+	 * are counted, and the maximum is still exact.
+	 * </p>
+	 */
+	@Test
+	public final void testRecord_Long()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.record(-5);
+		assertEquals(2, histogram.getCount());
+		assertEquals(Long.MAX_VALUE, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+	/**
+	 * Test the {@link LatencyHistogram#record(long)} method.
+	 *
+	 * <p>
+	 * This test will only pass if no latency is lost when several threads
+	 * record at once.
+	 * </p>
+	 *
+	 * @throws InterruptedException If the test is interrupted.
+	 */
+	@Test
+	public final void testRecord_Concurrent()
+			throws
+			InterruptedException
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		final Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; ++i)
+		{
+			threads[i] = new Thread(() ->
+			{
+				for(int j = 0; j < 100000; ++j)
+					histogram.record(j % 1000);
+			});
+			threads[i].start();
+		}
+		for(final Thread thread: threads)
+			thread.join();
+		assertEquals(400000, histogram.getCount());
+		assertEquals(999, histogram.getMax());
+	}
+	/**
+	 * Test the {@link LatencyHistogram#snapshot()} method.
+	 *
+	 * <p>
+	 * This test will only pass if a snapshot does not change when more
+	 * latencies are recorded.
+	 * </p>
+	 */
+	@Test
+	public final void testSnapshot()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(10);
+		final LatencyHistogram snapshot = histogram.snapshot();
+		histogram.record(1000);
+		assertEquals(1, snapshot.getCount());
+		assertEquals(10, snapshot.getMax());
+		assertEquals(2, histogram.getCount());
+	}
+}
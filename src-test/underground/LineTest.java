@@ -2,6 +2,7 @@ package underground;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -323,6 +324,103 @@ public class LineTest
 	{
 		assertEquals(STATION_B, MOCK_LINE_A.lastTerminal());
 	}
+	/**
+	 * Test the {@link Line#indexOf(Station)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Line#indexOf(Station)} method
+	 * returns the position of a {@link Station} on the {@link Line}, and
+	 * <code>-1</code> for a {@link Station} which is not on the {@link Line}.
+	 * </p>
+	 */
+	@Test
+	public final void testIndexOf()
+	{
+		assertEquals(0, MOCK_LINE_A.indexOf(STATION_A));
+		assertEquals(1, MOCK_LINE_A.indexOf(STATION_B));
+		assertEquals(-1, MOCK_LINE_A.indexOf(STATION_C));
+	}
+	/**
+	 * Test the {@link Line#getPathBetween(Station, Station)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the
+	 * {@link Line#getPathBetween(Station, Station)} method returns the
+	 * {@link Station} objects in the order of travel, when travelling towards
+	 * the first terminal.
+	 * </p>
+	 */
+	@Test
+	public final void testGetPathBetween_Reversed()
+	{
+		assertEquals(
+				Arrays.asList(STATION_B, STATION_A),
+				MOCK_LINE_A.getPathBetween(STATION_B, STATION_A));
+	}
+	/**
+	 * Test the {@link Line#getPathBetween(Station, Station)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the
+	 * {@link Line#getPathBetween(Station, Station)} method throws an
+	 * {@link IllegalArgumentException} when a {@link Station} is not on the
+	 * {@link Line}.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testGetPathBetween_NotExisting()
+	{
+		MOCK_LINE_A.getPathBetween(STATION_A, STATION_C);
+	}
+	/**
+	 * Test the {@link Line#getTravelTime(int)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Line#getTravelTime(int)} method
+	 * returns the {@link Line#DEFAULT_TRAVEL_TIME} when the {@link Line} was
+	 * constructed without travel times.
+	 * </p>
+	 */
+	@Test
+	public final void testGetTravelTime_Default()
+	{
+		assertEquals(Line.DEFAULT_TRAVEL_TIME, MOCK_LINE_A.getTravelTime(0));
+	}
+	/**
+	 * Test the {@link Line#getTravelTime(int)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Line#getTravelTime(int)} method
+	 * returns the travel time the {@link Line} was constructed with.
+	 * </p>
+	 */
+	@Test
+	public final void testGetTravelTime_Specified()
+	{
+		assertEquals(45, new Line(
+				MOCK_LINE_NAME_A,
+				MOCK_LINE_A.getStations(),
+				Collections.emptyMap(),
+				new int[] {45}).getTravelTime(0));
+	}
+	/**
+	 * Test the {@link Line#Line(String, Set, Map, int[])} constructor.
+	 * 
+	 * <p>
+	 * This test will only pass if the constructor throws an
+	 * {@link IllegalArgumentException} when the number of travel times does
+	 * not match the number of pairs of neighbouring {@link Station} objects.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testConstructor_TravelTimeCount()
+	{
+		new Line(
+				MOCK_LINE_NAME_A,
+				MOCK_LINE_A.getStations(),
+				Collections.emptyMap(),
+				new int[] {45, 45});
+	}
 	/**
 	 * Test the {@link Line#getStations()} methods.
 	 * 
@@ -0,0 +1,191 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code MappedMetroTest} is a test class for the {@link MappedMetro}
+ * class using the JUnit testing framework.
+ *
+ * <p>
+ * {@code MappedMetroTest} will test the methods of the {@link MappedMetro}
+ * class against the {@link Metro} which wrote its snapshot.
+ * </p>
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class MappedMetroTest
+{
+	//=========================================================================
+	//Static fields.
+	/**
+	 * The names of the {@link Station} objects of the {@link #metro}.
+	 */
+	private static final String[] NAMES =
+			{"A", "B", "C", "D", "E", "F", "G", "X", "Y"};
+	//=========================================================================
+	//Fields.
+	/**
+	 * The temporary file the snapshot is written to.
+	 */
+	private Path file;
+	/**
+	 * The {@link Metro} of two {@link Line} objects which cross at two
+	 * interchanges, and a third {@link Line} which is not connected to them.
+	 */
+	private Metro metro;
+	/**
+	 * The {@link MappedMetro} of the snapshot of the {@link #metro}.
+	 */
+	private MappedMetro mockMappedMetro;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #metro} and the {@link #mockMappedMetro} before
+	 * running each test case.
+	 *
+	 * @throws IOException If the snapshot cannot be written or mapped.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C", "D", "E"})
+			builder.addStation(station, "East");
+		for(final String station: new String[]{"F", "B", "G", "E"})
+			builder.addStation(station, "North");
+		for(final String station: new String[]{"X", "Y"})
+			builder.addStation(station, "Island");
+		builder.setTravelTime("East", "B", "C", 600);
+		metro = builder.build();
+		file = Files.createTempFile("MappedMetroTest", ".snapshot");
+		metro.writeSnapshot(file);
+		mockMappedMetro = MappedMetro.open(file);
+	}
+	//=========================================================================
+	//After.
+	/**
+	 * Delete the snapshot after running each test case.
+	 *
+	 * @throws IOException If the snapshot cannot be deleted.
+	 */
+	@After
+	public final void tearDown()
+			throws
+			IOException
+	{
+		Files.deleteIfExists(file);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link MappedMetro#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link MappedMetro} finds the same
+	 * paths as the {@link Metro} in every {@link RoutingMode} it supports.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_SameAsMetro()
+	{
+		for(final RoutingMode mode: RoutingMode.values())
+		{
+			if(mode == RoutingMode.LEGACY_DEPTH_FIRST)
+				continue;
+			for(final String start: NAMES)
+				for(final String end: NAMES)
+					assertEquals(mode + " " + start + " " + end,
+							metro.findPath(metro.getStation(start),
+									metro.getStation(end), mode),
+							mockMappedMetro.findPath(new Station(start),
+									new Station(end), mode));
+		}
+	}
+	/**
+	 * Test the {@link MappedMetro#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the path taken by travel time avoids the
+	 * slow connection of the {@link #metro}.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_Fastest()
+	{
+		assertEquals(4, mockMappedMetro.findPath(new Station("B"),
+				new Station("D"), RoutingMode.FASTEST).size());
+		assertFalse(mockMappedMetro.route(new Station("A"),
+				new Station("X"), RoutingMode.FASTEST).isFound());
+	}
+	/**
+	 * Test the {@link MappedMetro#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the method throws an
+	 * {@link UnsupportedOperationException} when asked to search depth
+	 * first.
+	 * </p>
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testRoute_LegacyDepthFirst()
+	{
+		mockMappedMetro.route(new Station("A"), new Station("E"),
+				RoutingMode.LEGACY_DEPTH_FIRST);
+	}
+	/**
+	 * Test the {@link MappedMetro#getStation(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the method throws a
+	 * {@link NullPointerException} when provided a name which is not in the
+	 * snapshot.
+	 * </p>
+	 */
+	@Test(expected = NullPointerException.class)
+	public final void testGetStation_NotExisting()
+	{
+		mockMappedMetro.getStation("Z");
+	}
+	/**
+	 * Test the {@link MappedMetro#listStationsOnLine(String)},
+	 * {@link MappedMetro#getAdjacentLineNames(String)} and
+	 * {@link MappedMetro#outputAllStations()} methods.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link Line} objects of the
+	 * {@link MappedMetro} are the same as those of the {@link Metro}.
+	 * </p>
+	 */
+	@Test
+	public final void testLines_SameAsMetro()
+	{
+		for(final String line: new String[]{"East", "North", "Island"})
+		{
+			assertEquals(metro.listStationsOnLine(line),
+					mockMappedMetro.listStationsOnLine(line));
+			assertEquals(metro.getAdjacentLineNames(line),
+					mockMappedMetro.getAdjacentLineNames(line));
+		}
+		assertEquals(metro.outputAllStations(),
+				mockMappedMetro.outputAllStations());
+	}
+}
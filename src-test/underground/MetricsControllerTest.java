@@ -0,0 +1,182 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code MetricsControllerTest} is a test class for the
+ * {@link MetricsController} class using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class MetricsControllerTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The {@link RequestHandler} of a {@link Metro} of an "East"
+	 * {@link Line} from A to D and a "North" {@link Line} which crosses it
+	 * at C.
+	 */
+	private RequestHandler handler;
+	/**
+	 * The {@link MetricsController} of the {@link #handler}.
+	 */
+	private MetricsController metrics;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #handler} and the {@link #metrics} before running each
+	 * test case.
+	 */
+	@Before
+	public final void setup()
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C", "D"})
+			builder.addStation(station, "East");
+		for(final String station: new String[]{"E", "C", "F"})
+			builder.addStation(station, "North");
+		handler = new RequestHandler(builder.build());
+		metrics = new MetricsController(handler);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link MetricsController#showPathBetween(String, String)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the answer is the same as that of the
+	 * {@link RequestHandler}, and every request is counted.
+	 * </p>
+	 */
+	@Test
+	public final void testShowPathBetween()
+	{
+		assertEquals(handler.showPathBetween("A", "F"),
+				metrics.showPathBetween("A", "F"));
+		metrics.showPathBetween("A", "F");
+		final MetricsSnapshot.Entry entry = metrics.snapshot()
+				.getOperations().get("showPathBetween");
+		assertEquals(2, entry.getLatencies().getCount());
+		assertEquals(0, entry.getErrors());
+	}
+	/**
+	 * Test the {@link MetricsController#listStationsInLine(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if a request the {@link RequestHandler}
+	 * fails is answered with the same message, and counted as an error.
+	 * </p>
+	 */
+	@Test
+	public final void testListStationsInLine_Unknown()
+	{
+		assertEquals(handler.listStationsInLine("West"),
+				metrics.listStationsInLine("West"));
+		final MetricsSnapshot.Entry entry = metrics.snapshot()
+				.getOperations().get("listStationsInLine");
+		assertEquals(1, entry.getLatencies().getCount());
+		assertEquals(1, entry.getErrors());
+	}
+	/**
+	 * Test the {@link MetricsController#listAllTermini()} method.
+	 *
+	 * <p>
+	 * This test will only pass if an exception thrown by a
+	 * {@link Controller} which is not a {@link RequestHandler} is thrown on
+	 * and counted as an error.
+	 * </p>
+	 */
+	@Test
+	public final void testListAllTermini_Throws()
+	{
+		final MetricsController throwing = new MetricsController(
+				(Controller) java.lang.reflect.Proxy.newProxyInstance(
+						Controller.class.getClassLoader(),
+						new Class<?>[]{Controller.class},
+						(proxy, method, args) ->
+						{
+							throw new IllegalStateException("Down");
+						}));
+		try
+		{
+			throwing.listAllTermini();
+			fail("The exception was not thrown on.");
+		}
+		catch(final IllegalStateException e)
+		{
+			assertEquals("Down", e.getMessage());
+		}
+		assertEquals(1, throwing.snapshot().getOperations()
+				.get("listAllTermini").getErrors());
+	}
+	/**
+	 * Test the {@link MetricsController#snapshot()} method.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link RoutePhase}s of a path that is
+	 * searched for are timed by a {@link MetricsController} which times
+	 * them, and not by another {@link MetricsController} of the same
+	 * {@link RequestHandler}.
+	 * </p>
+	 */
+	@Test
+	public final void testSnapshot_Phases()
+	{
+		final MetricsController timed = new MetricsController(handler, true);
+		assertFalse(timed.snapshot().getPhases().isEmpty());
+		timed.showPathWithFewestChangesBetween("A", "E");
+		metrics.showPathWithFewestChangesBetween("A", "F");
+		assertEquals(1, timed.snapshot().getPhases().get("search")
+				.getLatencies().getCount());
+		assertEquals(1, timed.snapshot().getPhases().get("format")
+				.getLatencies().getCount());
+		assertTrue(metrics.snapshot().getPhases().isEmpty());
+	}
+	/**
+	 * Test the {@link MetricsSnapshot#toJson()} method.
+	 *
+	 * <p>
+	 * This test will only pass if the JSON holds the count and errors of
+	 * each operation and the counters of the {@link RouteCache}.
+	 * </p>
+	 */
+	@Test
+	public final void testToJson()
+	{
+		metrics.showPathBetween("A", "D");
+		metrics.showPathBetween("A", "D");
+		final String json = metrics.snapshot().toJson();
+		assertTrue(json, json.startsWith("{\"operations\":{"));
+		assertTrue(json, json.contains(
+				"\"showPathBetween\":{\"count\":2,\"errors\":0,"));
+		assertTrue(json, json.contains(
+				"\"routeCache\":{\"hits\":1,\"misses\":1,\"evictions\":0}"));
+		assertTrue(json.endsWith("}}"));
+	}
+	/**
+	 * Test the {@link MetricsSnapshot#toText()} method.
+	 *
+	 * <p>
+	 * This test will only pass if the text has a row for each operation.
+	 * </p>
+	 */
+	@Test
+	public final void testToText()
+	{
+		final String text = metrics.snapshot().toText();
+		for(final MetricsController.Operation operation:
+				MetricsController.Operation.values())
+			assertTrue(text.contains(operation.getName()));
+	}
+}
@@ -2,6 +2,9 @@ package underground;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -34,6 +37,16 @@ public class MetroBuilderTest
 	 * {@link MetroBuilder}.
 	 */
 	private static final String STATION_NAME_A = "a";
+	/**
+	 * The {@link String} which represent the name of a {@link Station} in the
+	 * {@link MetroBuilder}.
+	 */
+	private static final String STATION_NAME_B = "b";
+	/**
+	 * The {@link String} which represent the name of a {@link Station} in the
+	 * {@link MetroBuilder}.
+	 */
+	private static final String STATION_NAME_C = "c";
 	/**
 	 * The {@link String} which represent the name of a {@link Line} in the
 	 * {@link MetroBuilder}.
@@ -217,4 +230,230 @@ public class MetroBuilderTest
 				.map(Line::getName)
 				.anyMatch(LINE_NAME_B::equals));
 	}
+	/**
+	 * Test the {@link MetroBuilder#build()} method.
+	 * 
+	 * <p>
+	 * This test will only pass if each {@link Line} object of the produced
+	 * {@link Metro} records every {@link Station} it shares with an adjacent
+	 * {@link Line}, and is not adjacent to itself.
+	 * </p>
+	 */
+	@Test
+	public final void testBuild_SharedStations()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_C, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_B);
+		mockMetroBuilder.addStation(STATION_NAME_C, LINE_NAME_B);
+		final Metro metro = mockMetroBuilder.build();
+		final Line lineA = metro.getAdjacentLines(LINE_NAME_B)
+				.iterator().next();
+		final Line lineB = metro.getAdjacentLines(LINE_NAME_A)
+				.iterator().next();
+		assertEquals(
+				new HashSet<>(Arrays.asList(
+						new Station(STATION_NAME_B),
+						new Station(STATION_NAME_C))),
+				lineA.getIntersectingStationsOf(LINE_NAME_B));
+		assertEquals(
+				lineA.getIntersectingStationsOf(LINE_NAME_B),
+				lineB.getIntersectingStationsOf(LINE_NAME_A));
+		assertFalse(lineA.getAdjacentLineNames().contains(LINE_NAME_A));
+	}
+	/**
+	 * Test the {@link MetroBuilder#setRouteTableLimit(long)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the
+	 * {@link MetroBuilder#setRouteTableLimit(long)} method throws an
+	 * {@link IllegalArgumentException} when provided a negative limit.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSetRouteTableLimit_Negative()
+	{
+		mockMetroBuilder.setRouteTableLimit(-1);
+	}
+	/**
+	 * Test the {@link MetroBuilder#setRouteTableLimit(long)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Metro} produced by the
+	 * {@link #mockMetroBuilder} object only precomputes its routes when the
+	 * estimated size of the routes is within the limit.
+	 * </p>
+	 */
+	@Test
+	public final void testSetRouteTableLimit_Threshold()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_A);
+		final long estimate = mockMetroBuilder.estimateRouteTableSize();
+		mockMetroBuilder.setRouteTableLimit(estimate - 1);
+		assertFalse(mockMetroBuilder.build().hasRouteTable());
+		mockMetroBuilder.setRouteTableLimit(estimate);
+		final Metro metro = mockMetroBuilder.build();
+		assertTrue(metro.hasRouteTable());
+		assertEquals(2, metro.findPath(
+				new Station(STATION_NAME_B),
+				new Station(STATION_NAME_A)).size());
+	}
+	/**
+	 * Test the {@link MetroBuilder#setTravelTime(String, String, String, int)}
+	 * method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Metro} produced by the
+	 * {@link #mockMetroBuilder} object uses the travel times to find the
+	 * fastest path, even when it has more stops.
+	 * </p>
+	 */
+	@Test
+	public final void testSetTravelTime_FastestPath()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_C, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_B);
+		mockMetroBuilder.addStation(STATION_NAME_C, LINE_NAME_B);
+		mockMetroBuilder.setTravelTime(
+				LINE_NAME_A, STATION_NAME_A, STATION_NAME_B, 10);
+		mockMetroBuilder.setTravelTime(
+				LINE_NAME_A, STATION_NAME_C, STATION_NAME_B, 10);
+		mockMetroBuilder.setTravelTime(
+				LINE_NAME_B, STATION_NAME_A, STATION_NAME_C, 100);
+		final Metro metro = mockMetroBuilder.build();
+		final Station a = new Station(STATION_NAME_A);
+		final Station c = new Station(STATION_NAME_C);
+		assertEquals(3, metro.findPath(a, c, RoutingMode.FASTEST).size());
+		assertEquals(2, metro.findPath(a, c, RoutingMode.FEWEST_STOPS).size());
+	}
+	/**
+	 * Test the {@link MetroBuilder#setTransferPenalty(String, int)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the
+	 * {@link MetroBuilder#setTransferPenalty(String, int)} method throws an
+	 * {@link IllegalArgumentException} when provided a negative penalty.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSetTransferPenalty_Negative()
+	{
+		mockMetroBuilder.setTransferPenalty(STATION_NAME_A, -1);
+	}
+	/**
+	 * Test the {@link MetroBuilder#build()} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Metro} produced by the
+	 * {@link #mockMetroBuilder} object reports that there is no
+	 * {@link Route} between {@link Station} objects on {@link Line} objects
+	 * which are not connected.
+	 * </p>
+	 */
+	@Test
+	public final void testBuild_Unreachable()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_B);
+		final Route route = mockMetroBuilder.build().route(
+				new Station(STATION_NAME_A),
+				new Station(STATION_NAME_B),
+				RoutingMode.FEWEST_STOPS);
+		assertFalse(route.isFound());
+		assertNull(route.getStations());
+	}
+	/**
+	 * Test the {@link MetroBuilder#build()} method.
+	 * 
+	 * <p>
+	 * This test will only pass if every {@link Line} object of the
+	 * {@link Metro} produced by the {@link #mockMetroBuilder} object shares
+	 * the canonical {@link Station} object returned by
+	 * {@link Metro#getStation(String)}.
+	 * </p>
+	 */
+	@Test
+	public final void testBuild_CanonicalStations()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_A);
+		mockMetroBuilder.addStation(STATION_NAME_B, LINE_NAME_B);
+		mockMetroBuilder.addStation(STATION_NAME_C, LINE_NAME_B);
+		final Metro metro = mockMetroBuilder.build();
+		final Station station = metro.getStation(STATION_NAME_B);
+		assertSame(station, metro.listStationsOnLine(LINE_NAME_A).get(1));
+		assertSame(station, metro.listStationsOnLine(LINE_NAME_B).get(0));
+		assertSame(station, metro.findPath(
+				new Station(STATION_NAME_A),
+				new Station(STATION_NAME_C)).get(1));
+	}
+	/**
+	 * Test the {@link Metro#getStation(String)} method of the {@link Metro}
+	 * produced by the {@link #mockMetroBuilder} object.
+	 * 
+	 * <p>
+	 * This test will only pass if a {@link NullPointerException} is thrown
+	 * for the name of a {@link Station} which is not on any {@link Line}.
+	 * </p>
+	 */
+	@Test(expected = NullPointerException.class)
+	public final void testBuild_StationNotExisting()
+	{
+		mockMetroBuilder.addStation(STATION_NAME_A, LINE_NAME_A);
+		mockMetroBuilder.build().getStation(STATION_NAME_B);
+	}
+	/**
+	 * Test the {@link MetroBuilder#setBuildParallelism(int)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the
+	 * {@link MetroBuilder#setBuildParallelism(int)} method throws an
+	 * {@link IllegalArgumentException} when provided no threads.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSetBuildParallelism_Zero()
+	{
+		mockMetroBuilder.setBuildParallelism(0);
+	}
+	/**
+	 * Test the {@link MetroBuilder#setBuildParallelism(int)} method.
+	 * 
+	 * <p>
+	 * This test will only pass if the {@link Metro} built on several threads
+	 * has the same {@link Line} objects, adjacent {@link Line} objects and
+	 * paths as the {@link Metro} built on one thread.
+	 * </p>
+	 */
+	@Test
+	public final void testSetBuildParallelism_SameMetro()
+	{
+		//Enough lines for the build to be split into several tasks.
+		final int lineCount = 2000;
+		for(int i = 0; i < lineCount; i++)
+		{
+			mockMetroBuilder.addStation(Integer.toString(i), LINE_NAME_A + i);
+			mockMetroBuilder.addStation(Integer.toString(i + 1), LINE_NAME_A + i);
+			mockMetroBuilder.addStation(STATION_NAME_A + i % 7, LINE_NAME_A + i);
+		}
+		final Metro sequential = mockMetroBuilder.build();
+		mockMetroBuilder.setBuildParallelism(4);
+		final Metro parallel = mockMetroBuilder.build();
+		for(int i = 0; i < lineCount; i += 97)
+		{
+			assertEquals(
+					sequential.listStationsOnLine(LINE_NAME_A + i),
+					parallel.listStationsOnLine(LINE_NAME_A + i));
+			assertEquals(
+					sequential.getAdjacentLines(LINE_NAME_A + i),
+					parallel.getAdjacentLines(LINE_NAME_A + i));
+		}
+		assertEquals(
+				sequential.findPath(new Station("0"), new Station("1999")),
+				parallel.findPath(new Station("0"), new Station("1999")));
+	}
 }
@@ -0,0 +1,327 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code MetroEditTest} is a test class for the edits of a {@link Metro},
+ * such as {@link Metro#closeStation(String)}, using the JUnit testing
+ * framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class MetroEditTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The {@link MetroBuilder} of a {@link Metro} of an "East" {@link Line}
+	 * from A to D, a "North" {@link Line} which crosses it at C, and a
+	 * "South" {@link Line} from B to D through G, which goes around C.
+	 */
+	private MetroBuilder builder;
+	/**
+	 * The {@link Metro} built by the {@link #builder}.
+	 */
+	private Metro metro;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #builder} and the {@link #metro} before running each
+	 * test case.
+	 */
+	@Before
+	public final void setup()
+	{
+		builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C", "D"})
+			builder.addStation(station, "East");
+		for(final String station: new String[]{"E", "C", "F"})
+			builder.addStation(station, "North");
+		for(final String station: new String[]{"B", "G", "D"})
+			builder.addStation(station, "South");
+		metro = builder.build();
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link Metro#closeStation(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if paths of the edited {@link Metro} go
+	 * around the closed {@link Station}, and the {@link Metro} that was
+	 * edited does not change.
+	 * </p>
+	 */
+	@Test
+	public final void testCloseStation()
+	{
+		final Metro closed = metro.closeStation("C");
+		assertEquals(stations("A", "B", "G", "D"), path(closed, "A", "D"));
+		assertNull(path(closed, "E", "F"));
+		assertNull(path(closed, "A", "C"));
+		assertTrue(closed.isClosed("C"));
+		assertEquals(stations("A", "B", "C"), path(metro, "A", "C"));
+		assertFalse(metro.isClosed("C"));
+	}
+	/**
+	 * Test the {@link Metro#closeStation(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if closing a {@link Station} which is already
+	 * closed returns the same {@link Metro}.
+	 * </p>
+	 */
+	@Test
+	public final void testCloseStation_Closed()
+	{
+		final Metro closed = metro.closeStation("C");
+		assertSame(closed, closed.closeStation("C"));
+	}
+	/**
+	 * Test the {@link Metro#reopenStation(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if reopening a closed {@link Station} finds
+	 * the paths through it again.
+	 * </p>
+	 */
+	@Test
+	public final void testReopenStation()
+	{
+		final Metro reopened = metro.closeStation("C").reopenStation("C");
+		assertEquals(stations("A", "B", "C"), path(reopened, "A", "C"));
+		assertEquals(stations("E", "C", "F"), path(reopened, "E", "F"));
+		assertFalse(reopened.isClosed("C"));
+	}
+	/**
+	 * Test the {@link Metro#closeSegment(String, String, String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if paths of the edited {@link Metro} go
+	 * around the closed segment, in either order of its {@link Station}s.
+	 * </p>
+	 */
+	@Test
+	public final void testCloseSegment()
+	{
+		final Metro closed = metro.closeSegment("East", "C", "B");
+		assertEquals(stations("A", "B", "G", "D", "C"), path(closed, "A", "C"));
+		assertEquals(stations("E", "C", "F"), path(closed, "E", "F"));
+		final Metro reopened = closed.reopenSegment("East", "B", "C");
+		assertEquals(stations("A", "B", "C"), path(reopened, "A", "C"));
+	}
+	/**
+	 * Test the {@link Metro#closeSegment(String, String, String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalArgumentException} is
+	 * thrown when the {@link Station} objects are not neighbours on the
+	 * {@link Line}.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testCloseSegment_NotNeighbours()
+	{
+		metro.closeSegment("East", "A", "C");
+	}
+	/**
+	 * Test the {@link Metro#addLine(String, List, int[])} method.
+	 *
+	 * <p>
+	 * This test will only pass if the added {@link Line} and its new
+	 * {@link Station} are routed through, and its neighbours are adjacent
+	 * to it, while the {@link Metro} that was edited does not change.
+	 * </p>
+	 */
+	@Test
+	public final void testAddLine()
+	{
+		final Metro added = metro.addLine("West",
+				Arrays.asList("A", "H", "F"), new int[]{60, 60});
+		assertEquals(stations("A", "H", "F"), path(added, "A", "F"));
+		assertTrue(added.getAdjacentLineNames("North").contains("West"));
+		assertTrue(added.getAdjacentLineNames("West").contains("East"));
+		assertEquals(stations("A", "H", "F"),
+				added.listStationsOnLine("West"));
+		assertFalse(metro.getAdjacentLineNames("North").contains("West"));
+		try
+		{
+			metro.getStation("H");
+			fail("The edited Metro has a new station.");
+		}
+		catch(final NullPointerException e)
+		{
+			//The original Metro does not have the new station.
+		}
+	}
+	/**
+	 * Test the {@link Metro#addLine(String, List, int[])} method.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalArgumentException} is
+	 * thrown when the {@link Line} already exists.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testAddLine_Exists()
+	{
+		metro.addLine("East", Arrays.asList("A", "H"), null);
+	}
+	/**
+	 * Test the {@link Metro#removeLine(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link Station} objects only on the
+	 * removed {@link Line} no longer exist, and paths no longer use it.
+	 * </p>
+	 */
+	@Test
+	public final void testRemoveLine()
+	{
+		final Metro removed = metro.removeLine("South");
+		assertFalse(removed.getAdjacentLineNames("East").contains("South"));
+		assertNull(path(removed.closeStation("C"), "A", "D"));
+		assertEquals(stations("E", "C", "F"), path(removed, "E", "F"));
+		assertEquals(stations("B", "G", "D"), path(metro, "B", "D"));
+		try
+		{
+			removed.getStation("G");
+			fail("The removed line's station still exists.");
+		}
+		catch(final NullPointerException e)
+		{
+			//G was only on the removed line.
+		}
+	}
+	/**
+	 * Test the {@link Metro#closeStation(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an edited {@link Metro} which precomputes
+	 * its routes finds the same number of stops as one which searches.
+	 * </p>
+	 */
+	@Test
+	public final void testCloseStation_RouteTable()
+	{
+		builder.setRouteTableLimit(Long.MAX_VALUE);
+		final Metro closed = builder.build().closeStation("C");
+		final Metro searched = metro.closeStation("C");
+		assertTrue(closed.hasRouteTable());
+		final String[] names = {"A", "B", "C", "D", "E", "F", "G"};
+		for(final String start: names)
+			for(final String end: names)
+			{
+				final List<Station> expected = path(searched, start, end);
+				final List<Station> actual = path(closed, start, end);
+				assertEquals(expected == null, actual == null);
+				if(expected != null)
+					assertEquals(expected.size(), actual.size());
+			}
+	}
+	/**
+	 * Test the {@link Metro#route(Station, Station, RoutingMode)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link UnsupportedOperationException}
+	 * is thrown when searching a {@link Metro} with a closure in the
+	 * {@link RoutingMode#LEGACY_DEPTH_FIRST} mode.
+	 * </p>
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testRoute_LegacyClosed()
+	{
+		final Metro closed = metro.closeSegment("East", "A", "B");
+		closed.route(closed.getStation("A"), closed.getStation("D"),
+				RoutingMode.LEGACY_DEPTH_FIRST);
+	}
+	/**
+	 * Test the {@link RequestHandler#edit(java.util.function.UnaryOperator)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if an edit keeps the cached {@link Route}
+	 * objects it cannot have changed and drops the others.
+	 * </p>
+	 */
+	@Test
+	public final void testEdit_KeepsUnchangedRoutes()
+	{
+		final RequestHandler handler = new RequestHandler(metro);
+		handler.showPathBetween("A", "B");
+		handler.showPathBetween("E", "F");
+		assertEquals(2, handler.getRouteCache().size());
+		final Metro edited = handler.edit(m -> m.closeSegment("North", "E", "C"));
+		assertSame(edited, handler.getNetwork());
+		assertEquals(1, handler.getRouteCache().size());
+		final long misses = handler.getRouteCache().getMisses();
+		handler.showPathBetween("A", "B");
+		assertEquals(misses, handler.getRouteCache().getMisses());
+	}
+	/**
+	 * Test the {@link RequestHandler#edit(java.util.function.UnaryOperator)}
+	 * method, with a cached {@link RoutingMode#LEGACY_DEPTH_FIRST}
+	 * {@link Route}.
+	 *
+	 * <p>
+	 * This test will only pass if closing a segment the {@link Route} does
+	 * not use still drops it, as the edited {@link Metro} cannot be searched
+	 * in that mode.
+	 * </p>
+	 */
+	@Test
+	public final void testEdit_DropsLegacyRoutes()
+	{
+		final RequestHandler handler = new RequestHandler(metro);
+		handler.getRouteCache().route(metro.getStation("A"),
+				metro.getStation("B"), RoutingMode.LEGACY_DEPTH_FIRST);
+		assertEquals(1, handler.getRouteCache().size());
+		handler.edit(m -> m.closeSegment("North", "E", "C"));
+		assertEquals(0, handler.getRouteCache().size());
+	}
+	//=========================================================================
+	//Methods.
+	/**
+	 * Find the path with the fewest stops between two {@link Station}
+	 * objects of a {@link Metro}.
+	 *
+	 * @param network The {@link Metro}.
+	 * @param start The name of the start {@link Station}.
+	 * @param end The name of the end {@link Station}.
+	 * @return The path, or <code>null</code> if there is none.
+	 */
+	private static List<Station> path(
+			final Metro network,
+			final String start,
+			final String end)
+	{
+		return network.findPath(network.getStation(start),
+				network.getStation(end));
+	}
+	/**
+	 * Create the {@link List} of {@link Station} objects with the specified
+	 * names.
+	 *
+	 * @param names The names of the {@link Station} objects.
+	 * @return The {@link List} of {@link Station} objects.
+	 */
+	private static List<Station> stations(final String... names)
+	{
+		final Station[] stations = new Station[names.length];
+		for(int i = 0; i < names.length; ++i)
+			stations[i] = new Station(names[i]);
+		return Arrays.asList(stations);
+	}
+}
@@ -0,0 +1,275 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code MetroSnapshotTest} is a test class for the
+ * {@link Metro#writeSnapshot(Path)} and {@link Metro#readSnapshot(Path)}
+ * methods using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class MetroSnapshotTest
+{
+	//=========================================================================
+	//Fields.
+	/**
+	 * The temporary file the snapshots are written to in the test cases.
+	 */
+	private Path file;
+	/**
+	 * The {@link MetroBuilder} of a {@link Metro} of two {@link Line}
+	 * objects which cross at one interchange, and a third {@link Line}
+	 * which is not connected to them.
+	 */
+	private MetroBuilder builder;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #file} and the {@link #builder} before running each
+	 * test case.
+	 *
+	 * @throws IOException If the temporary file cannot be created.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		file = Files.createTempFile("MetroSnapshotTest", ".snapshot");
+		builder = new MetroBuilder();
+		for(final String station: new String[]{"A", "B", "C", "D"})
+			builder.addStation(station, "East");
+		for(final String station: new String[]{"E", "C", "F"})
+			builder.addStation(station, "North");
+		for(final String station: new String[]{"X", "Y"})
+			builder.addStation(station, "Island");
+		builder.setTravelTime("East", "A", "B", 60);
+		builder.setTransferPenalty("C", 30);
+	}
+	//=========================================================================
+	//After.
+	/**
+	 * Delete the {@link #file} after running each test case.
+	 *
+	 * @throws IOException If the temporary file cannot be deleted.
+	 */
+	@After
+	public final void tearDown()
+			throws
+			IOException
+	{
+		Files.deleteIfExists(file);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link Metro#readSnapshot(Path)} method.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link Metro} read back from its
+	 * snapshot finds the same paths, in every {@link RoutingMode}, and has
+	 * the same {@link Line} objects as the {@link Metro} that wrote it.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test
+	public final void testReadSnapshot_SameMetro()
+			throws
+			IOException
+	{
+		final Metro metro = builder.build();
+		metro.writeSnapshot(file);
+		final Metro read = Metro.readSnapshot(file);
+		final String[] names = {"A", "B", "C", "D", "E", "F", "X", "Y"};
+		for(final RoutingMode mode: RoutingMode.values())
+			for(final String start: names)
+				for(final String end: names)
+					assertEquals(
+							metro.route(metro.getStation(start),
+									metro.getStation(end), mode).getStations(),
+							read.route(read.getStation(start),
+									read.getStation(end), mode).getStations());
+		assertEquals(
+				metro.listStationsOnLine("North"),
+				read.listStationsOnLine("North"));
+		assertEquals(
+				metro.getAdjacentLines("East"),
+				read.getAdjacentLines("East"));
+		assertEquals(metro.outputAllStations().length(),
+				read.outputAllStations().length());
+		assertFalse(read.hasRouteTable());
+	}
+	/**
+	 * Test the {@link Metro#readSnapshot(Path)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link RouteTable} of a {@link Metro}
+	 * is read back from its snapshot.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test
+	public final void testReadSnapshot_RouteTable()
+			throws
+			IOException
+	{
+		builder.setRouteTableLimit(Long.MAX_VALUE);
+		builder.build().writeSnapshot(file);
+		final Metro read = Metro.readSnapshot(file);
+		assertTrue(read.hasRouteTable());
+		assertEquals(4, read.findPath(
+				read.getStation("A"), read.getStation("F")).size());
+	}
+	/**
+	 * Test the {@link Metro#readSnapshot(Path)} method, with a default
+	 * transfer penalty.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link Line} added to the {@link Metro}
+	 * read back from its snapshot is given the same default transfer penalty
+	 * as one added to the {@link Metro} that wrote it, so that changing onto
+	 * it is fastest.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test
+	public final void testReadSnapshot_DefaultTransferPenalty()
+			throws
+			IOException
+	{
+		final MetroBuilder penalties = new MetroBuilder();
+		for(final String station: new String[]{"P", "Q", "R"})
+			penalties.addStation(station, "Slow");
+		for(final String station: new String[]{"P", "M"})
+			penalties.addStation(station, "Fast");
+		penalties.setTravelTime("Slow", "P", "Q", 100);
+		penalties.setTravelTime("Slow", "Q", "R", 100);
+		penalties.setTravelTime("Fast", "P", "M", 10);
+		penalties.setDefaultTransferPenalty(0);
+		penalties.build().writeSnapshot(file);
+		final Metro read = Metro.readSnapshot(file).addLine(
+				"Faster", Arrays.asList("M", "R"), new int[]{10});
+		assertEquals(
+				Arrays.asList(new Station("P"), new Station("M"),
+						new Station("R")),
+				read.route(read.getStation("P"), read.getStation("R"),
+						RoutingMode.FASTEST).getStations());
+	}
+	/**
+	 * Test the {@link Metro#writeSnapshot(Path)} method, with a closed
+	 * {@link Station}.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalStateException} is
+	 * thrown, as a snapshot does not hold closures.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public final void testWriteSnapshot_Closures()
+			throws
+			IOException
+	{
+		builder.build().closeStation("B").writeSnapshot(file);
+	}
+	/**
+	 * Test the {@link Metro#readSnapshot(Path)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the method throws an {@link IOException}
+	 * when a byte of the snapshot has been changed.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test(expected = IOException.class)
+	public final void testReadSnapshot_Corrupt()
+			throws
+			IOException
+	{
+		builder.build().writeSnapshot(file);
+		try(final FileChannel channel = FileChannel.open(
+				file, StandardOpenOption.WRITE))
+		{
+			channel.write(
+					ByteBuffer.wrap(new byte[]{(byte) 0xFF}),
+					channel.size() / 2);
+		}
+		Metro.readSnapshot(file);
+	}
+	/**
+	 * Test the {@link Metro#readSnapshot(Path, boolean)} method, without
+	 * verifying the checksum.
+	 *
+	 * <p>
+	 * This test will only pass if a snapshot whose checksum no longer
+	 * matches is read back when it is not verified.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test
+	public final void testReadSnapshot_Unverified()
+			throws
+			IOException
+	{
+		builder.build().writeSnapshot(file);
+		try(final FileChannel channel = FileChannel.open(
+				file, StandardOpenOption.WRITE))
+		{
+			channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}),
+					2 * Integer.BYTES);
+		}
+		final Metro read = Metro.readSnapshot(file, false);
+		assertEquals(4, read.findPath(
+				read.getStation("A"), read.getStation("F")).size());
+	}
+	/**
+	 * Test the {@link Metro#readSnapshot(Path)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the method throws an {@link IOException}
+	 * when the snapshot was written by a different version.
+	 * </p>
+	 *
+	 * @throws IOException If the snapshot cannot be written or read.
+	 */
+	@Test(expected = IOException.class)
+	public final void testReadSnapshot_Version()
+			throws
+			IOException
+	{
+		builder.build().writeSnapshot(file);
+		try(final FileChannel channel = FileChannel.open(
+				file, StandardOpenOption.WRITE))
+		{
+			channel.write(ByteBuffer.allocate(Integer.BYTES).order(
+					MetroSnapshot.ORDER).putInt(0, MetroSnapshot.VERSION + 1),
+					Integer.BYTES);
+		}
+		Metro.readSnapshot(file);
+	}
+}
@@ -0,0 +1,201 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import underground.NetworkGenerator.Topology;
+
+/**
+ * The {@code NetworkGeneratorTest} is a test class for the
+ * {@link NetworkGenerator} class using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class NetworkGeneratorTest
+{
+	//=========================================================================
+	//Static fields.
+	/**
+	 * The number of {@link Station} objects of each generated network.
+	 */
+	private static final int STATIONS = 1000;
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link NetworkGenerator#generate(Topology, int, long,
+	 * NetworkGenerator.Sink)} method.
+	 *
+	 * <p>
+	 * This test will only pass if every {@link Topology} generates at least,
+	 * and close to, the requested number of {@link Station} objects.
+	 * </p>
+	 *
+	 * @throws IOException Never.
+	 */
+	@Test
+	public final void testGenerate_StationCount()
+			throws
+			IOException
+	{
+		for(final Topology topology: Topology.values())
+		{
+			final Set<String> stations = new HashSet<>();
+			NetworkGenerator.generate(topology, STATIONS, 1,
+					new NetworkGenerator.Sink()
+			{
+				@Override
+				public void line(String lineName)
+				{
+				}
+				@Override
+				public void station(String stationName)
+				{
+					stations.add(stationName);
+				}
+			});
+			assertTrue(topology.getName(), stations.size() >= STATIONS);
+			assertTrue(topology.getName(), stations.size() < 2 * STATIONS);
+		}
+	}
+	/**
+	 * Test the {@link NetworkGenerator#generate(Topology, int, long,
+	 * NetworkGenerator.Sink)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the same seed generates the same network,
+	 * and a different seed generates a different one.
+	 * </p>
+	 *
+	 * @throws IOException Never.
+	 */
+	@Test
+	public final void testGenerate_Seeded()
+			throws
+			IOException
+	{
+		final List<String> first = record(Topology.RANDOM_INTERCHANGE, 1);
+		assertEquals(first, record(Topology.RANDOM_INTERCHANGE, 1));
+		assertNotEquals(first, record(Topology.RANDOM_INTERCHANGE, 2));
+	}
+	/**
+	 * Test the {@link NetworkGenerator#builder(Topology, int, long)} method.
+	 *
+	 * <p>
+	 * This test will only pass if every {@link Topology} is connected, so
+	 * there is a path from the first {@link Station} generated to the last.
+	 * </p>
+	 *
+	 * @throws IOException Never.
+	 */
+	@Test
+	public final void testBuilder_Connected()
+			throws
+			IOException
+	{
+		for(final Topology topology: Topology.values())
+		{
+			final List<String> recorded = record(topology, 1);
+			final Metro metro = NetworkGenerator
+					.builder(topology, STATIONS, 1).build();
+			final Station first = metro.getStation(recorded.get(1));
+			final Station last = metro.getStation(
+					recorded.get(recorded.size() - 1));
+			assertNotNull(topology.getName(), metro.findPath(first, last));
+		}
+	}
+	/**
+	 * Test the {@link NetworkGenerator#writeCsv(Topology, int, long, Path)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the written file is read back by the
+	 * {@link CsvReader} as the same {@link Line} and {@link Station} objects
+	 * that were generated.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be written or read.
+	 */
+	@Test
+	public final void testWriteCsv()
+			throws
+			IOException
+	{
+		final Path file = Files.createTempFile("network", ".csv");
+		try
+		{
+			NetworkGenerator.writeCsv(Topology.HUB_AND_SPOKE, STATIONS, 1,
+					file);
+			final List<String> read = new ArrayList<>();
+			CsvReader.read(file, (record, index, value) ->
+					read.add(index == 0 ? "line:" + value : value));
+			assertEquals(record(Topology.HUB_AND_SPOKE, 1), read);
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+	/**
+	 * Test the {@link Topology#forName(String)} method.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalArgumentException} is
+	 * thrown for a name which is not of a {@link Topology}.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testForName_Unknown()
+	{
+		Topology.forName("ring");
+	}
+	//=========================================================================
+	//Methods.
+	/**
+	 * Record a generated network as the names of its {@link Line} objects,
+	 * prefixed with "line:", each followed by the names of its
+	 * {@link Station} objects.
+	 *
+	 * @param topology The {@link Topology} of the network.
+	 * @param seed The seed of the network.
+	 * @return The names, in the order they were generated.
+	 * @throws IOException Never.
+	 */
+	private static List<String> record(
+			final Topology topology,
+			final long seed)
+			throws
+			IOException
+	{
+		final List<String> recorded = new ArrayList<>();
+		NetworkGenerator.generate(topology, STATIONS, seed,
+				new NetworkGenerator.Sink()
+		{
+			@Override
+			public void line(String lineName)
+			{
+				recorded.add("line:" + lineName);
+			}
+			@Override
+			public void station(String stationName)
+			{
+				recorded.add(stationName);
+			}
+		});
+		return recorded;
+	}
+}
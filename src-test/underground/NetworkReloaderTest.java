@@ -0,0 +1,323 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code NetworkReloaderTest} is a test class for the
+ * {@link NetworkReloader} class using the JUnit testing framework.
+ *
+ * <p>
+ * {@code NetworkReloaderTest} will test the constructors and methods of the
+ * {@link NetworkReloader} class. A constructor or method in the
+ * {@link NetworkReloader} class may have multiple test cases to test
+ * different scenarios.
+ * </p>
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class NetworkReloaderTest
+{
+	//=========================================================================
+	//Static fields.
+	/**
+	 * The name of the watched file of {@link Line} objects.
+	 */
+	private static final String FILE_NAME = "lines.csv";
+	/**
+	 * The time, in milliseconds, the watched file must be left unchanged
+	 * before a reload starts.
+	 */
+	private static final long QUIET_PERIOD = 50;
+	/**
+	 * The longest time, in milliseconds, to wait for a reload.
+	 */
+	private static final long TIMEOUT = 20000;
+	//=========================================================================
+	//Fields.
+	/**
+	 * The temporary directory which holds the watched file.
+	 */
+	private Path directory;
+	/**
+	 * The {@link RequestHandler} the {@link Network} objects are swapped
+	 * into.
+	 */
+	private RequestHandler handler;
+	/**
+	 * The {@link NetworkReloader} used in the test cases.
+	 */
+	private NetworkReloader mockNetworkReloader;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the watched file, the {@link #handler} and the
+	 * {@link #mockNetworkReloader} before running each test case.
+	 *
+	 * @throws IOException If the file cannot be written or watched.
+	 */
+	@Before
+	public final void setup()
+			throws
+			IOException
+	{
+		directory = Files.createTempDirectory("NetworkReloaderTest");
+		write("A,a,b");
+		handler = new RequestHandler(load());
+		mockNetworkReloader = new NetworkReloader(
+				handler,
+				directory,
+				Collections.singleton(FILE_NAME),
+				this::load,
+				QUIET_PERIOD);
+	}
+	//=========================================================================
+	//After.
+	/**
+	 * Stop the {@link #mockNetworkReloader} and delete the watched file after
+	 * running each test case.
+	 *
+	 * @throws IOException If the file cannot be deleted.
+	 */
+	@After
+	public final void tearDown()
+			throws
+			IOException
+	{
+		mockNetworkReloader.close();
+		Files.deleteIfExists(directory.resolve(FILE_NAME));
+		Files.deleteIfExists(directory.resolve(Main.NETWORK));
+		Files.deleteIfExists(directory.resolve(Main.TRAVEL_TIMES));
+		Files.deleteIfExists(directory);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the
+	 * {@link NetworkReloader#NetworkReloader(RequestHandler, Path, java.util.Collection, java.util.concurrent.Callable, long)}
+	 * constructor.
+	 *
+	 * <p>
+	 * This test will only pass if the constructor throws an
+	 * {@link IllegalArgumentException} when provided a negative quiet period.
+	 * </p>
+	 *
+	 * @throws IOException If the directory cannot be watched.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testConstructor_NegativeQuietPeriod()
+			throws
+			IOException
+	{
+		new NetworkReloader(handler, directory,
+				Collections.singleton(FILE_NAME), this::load, -1);
+	}
+	/**
+	 * Test the {@link NetworkReloader#reload()} method.
+	 *
+	 * <p>
+	 * This test will only pass if a reload swaps a new {@link Network} into
+	 * the {@link #handler} along with a new, empty {@link RouteCache}.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be written.
+	 */
+	@Test
+	public final void testReload_Swap()
+			throws
+			IOException
+	{
+		handler.showPathBetween("a", "b");
+		final Network network = handler.getNetwork();
+		final RouteCache cache = handler.getRouteCache();
+		write("A,a,c,b");
+		assertTrue(mockNetworkReloader.reload());
+		assertNotSame(network, handler.getNetwork());
+		assertNotSame(cache, handler.getRouteCache());
+		assertEquals(0, handler.getRouteCache().size());
+		assertEquals("A : a <-> c <-> b", handler.listStationsInLine("A"));
+		assertEquals(1, mockNetworkReloader.getReloads());
+	}
+	/**
+	 * Test the {@link NetworkReloader#reload()} method.
+	 *
+	 * <p>
+	 * This test will only pass if a reload which fails keeps the old
+	 * {@link Network} and records the failure.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be deleted.
+	 */
+	@Test
+	public final void testReload_Failure()
+			throws
+			IOException
+	{
+		final Network network = handler.getNetwork();
+		Files.delete(directory.resolve(FILE_NAME));
+		assertFalse(mockNetworkReloader.reload());
+		assertSame(network, handler.getNetwork());
+		assertEquals(1, mockNetworkReloader.getFailures());
+		assertTrue(mockNetworkReloader.getLastFailure() instanceof IOException);
+	}
+	/**
+	 * Test the {@link NetworkReloader#reload()} method, with the loader of
+	 * the {@link Main} class and a file which has been cut short.
+	 *
+	 * <p>
+	 * This test will only pass if a reload from a travel times file whose
+	 * last record is cut short fails, keeping the old {@link Network}
+	 * rather than swapping in one built from part of the file.
+	 * </p>
+	 *
+	 * @throws IOException If a file cannot be written or watched.
+	 */
+	@Test
+	public final void testReload_Truncated()
+			throws
+			IOException
+	{
+		Files.write(directory.resolve(Main.NETWORK),
+				"A,a,b,c".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve(Main.TRAVEL_TIMES),
+				"A,a,b,60\nA,b,c,90\n".getBytes(StandardCharsets.UTF_8));
+		final NetworkReloader reloader = new NetworkReloader(
+				handler,
+				directory,
+				Collections.singleton(Main.TRAVEL_TIMES),
+				() -> Main.buildMetro(directory));
+		try
+		{
+			assertTrue(reloader.reload());
+			final Network network = handler.getNetwork();
+			Files.write(directory.resolve(Main.TRAVEL_TIMES),
+					"A,a,b,60\nA,b,".getBytes(StandardCharsets.UTF_8));
+			assertFalse(reloader.reload());
+			assertSame(network, handler.getNetwork());
+			assertEquals(1, reloader.getFailures());
+			assertTrue(reloader.getLastFailure() instanceof IOException);
+		}
+		finally
+		{
+			reloader.close();
+		}
+	}
+	/**
+	 * Test the {@link NetworkReloader#reload()} method, with the loader of
+	 * the {@link Main} class and a negative travel time.
+	 *
+	 * <p>
+	 * This test will only pass if a reload from a travel times file with a
+	 * negative time fails with an {@link IOException}, keeping the old
+	 * {@link Network}.
+	 * </p>
+	 *
+	 * @throws IOException If a file cannot be written or watched.
+	 */
+	@Test
+	public final void testReload_NegativeTime()
+			throws
+			IOException
+	{
+		Files.write(directory.resolve(Main.NETWORK),
+				"A,a,b,c".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve(Main.TRAVEL_TIMES),
+				"A,a,b,60\nA,b,c,90\n".getBytes(StandardCharsets.UTF_8));
+		final NetworkReloader reloader = new NetworkReloader(
+				handler,
+				directory,
+				Collections.singleton(Main.TRAVEL_TIMES),
+				() -> Main.buildMetro(directory));
+		try
+		{
+			assertTrue(reloader.reload());
+			final Network network = handler.getNetwork();
+			Files.write(directory.resolve(Main.TRAVEL_TIMES),
+					"A,a,b,60\nA,b,c,-90\n".getBytes(StandardCharsets.UTF_8));
+			assertFalse(reloader.reload());
+			assertSame(network, handler.getNetwork());
+			assertEquals(1, reloader.getFailures());
+			assertTrue(reloader.getLastFailure() instanceof IOException);
+		}
+		finally
+		{
+			reloader.close();
+		}
+	}
+	/**
+	 * Test the {@link NetworkReloader#start()} method.
+	 *
+	 * <p>
+	 * This test will only pass if changing the watched file swaps a
+	 * {@link Network} of the new file into the {@link #handler}.
+	 * </p>
+	 *
+	 * @throws IOException If the file cannot be written.
+	 * @throws InterruptedException If the test is interrupted.
+	 */
+	@Test
+	public final void testStart_FileChanged()
+			throws
+			IOException,
+			InterruptedException
+	{
+		mockNetworkReloader.start();
+		write("A,a,d,b");
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while(mockNetworkReloader.getReloads() == 0
+				&& System.currentTimeMillis() < deadline)
+			Thread.sleep(QUIET_PERIOD);
+		assertEquals("A : a <-> d <-> b", handler.listStationsInLine("A"));
+	}
+	//=========================================================================
+	//Methods.
+	/**
+	 * Write the watched file.
+	 *
+	 * @param contents The contents of the file.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private void write(final String contents)
+			throws
+			IOException
+	{
+		Files.write(directory.resolve(FILE_NAME),
+				contents.getBytes(StandardCharsets.UTF_8));
+	}
+	/**
+	 * Build a {@link Metro} from the watched file.
+	 *
+	 * @return The {@link Metro}.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private Metro load()
+			throws
+			IOException
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		final String[] line = new String[1];
+		CsvReader.read(directory.resolve(FILE_NAME), (record, index, value) ->
+		{
+			if(index == 0)
+				line[0] = value;
+			else
+				builder.addStation(value, line[0]);
+		});
+		return builder.build();
+	}
+}
@@ -0,0 +1,194 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@code RouteCacheTest} is a test class for the {@link RouteCache}
+ * class using the JUnit testing framework.
+ *
+ * <p>
+ * {@code RouteCacheTest} will test the constructors and methods of the
+ * {@link RouteCache} class. A constructor or method in the {@link RouteCache}
+ * class may have multiple test cases to test different scenarios.
+ * </p>
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class RouteCacheTest
+{
+	//=========================================================================
+	//Static fields.
+	/**
+	 * The {@link String} which represent the name of a {@link Line} in the
+	 * {@link Metro}.
+	 */
+	private static final String LINE_NAME = "A";
+	/**
+	 * The number of {@link Station} objects on the {@link Line} of the
+	 * {@link Metro}.
+	 */
+	private static final int STATION_COUNT = 20;
+	/**
+	 * The number of {@link Route} objects the {@link #mockRouteCache} holds.
+	 */
+	private static final int CAPACITY = 4;
+	//=========================================================================
+	//Fields.
+	/**
+	 * The {@link Station} objects of the {@link Metro}, in order along its
+	 * {@link Line}.
+	 */
+	private Station[] stations;
+	/**
+	 * The {@link RouteCache} object used in the test cases.
+	 */
+	private RouteCache mockRouteCache;
+	//=========================================================================
+	//Before.
+	/**
+	 * Setup the {@link #mockRouteCache} object before running each test case.
+	 *
+	 * <p>
+	 * Setting up the {@link #mockRouteCache} involves building a {@link Metro}
+	 * of one {@link Line} and constructing a new {@link RouteCache} in front
+	 * of it.
+	 * </p>
+	 */
+	@Before
+	public final void setup()
+	{
+		final MetroBuilder builder = new MetroBuilder();
+		stations = new Station[STATION_COUNT];
+		for(int i = 0; i < STATION_COUNT; i++)
+		{
+			stations[i] = new Station(Integer.toString(i));
+			builder.addStation(stations[i].getName(), LINE_NAME);
+		}
+		mockRouteCache = new RouteCache(builder.build(), CAPACITY);
+	}
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link RouteCache#RouteCache(Network, int)} constructor.
+	 *
+	 * <p>
+	 * This test will only pass if the constructor throws an
+	 * {@link IllegalArgumentException} when provided a capacity of zero.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testConstructor_ZeroCapacity()
+	{
+		new RouteCache(new MetroBuilder().build(), 0);
+	}
+	/**
+	 * Test the {@link RouteCache#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if a repeated request is counted as a hit and
+	 * is answered with the same {@link Route} object.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_Hit()
+	{
+		final Route route = mockRouteCache.route(
+				stations[0], stations[5], RoutingMode.FEWEST_STOPS);
+		assertSame(route, mockRouteCache.route(
+				new Station(stations[0].getName()),
+				new Station(stations[5].getName()),
+				RoutingMode.FEWEST_STOPS));
+		assertEquals(1, mockRouteCache.getMisses());
+		assertEquals(1, mockRouteCache.getHits());
+	}
+	/**
+	 * Test the {@link RouteCache#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if a request in the opposite direction to a
+	 * cached {@link Route} is answered by reversing that {@link Route}.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_Reversed()
+	{
+		final Route route = mockRouteCache.route(
+				stations[0], stations[5], RoutingMode.FEWEST_STOPS);
+		final Route reversed = mockRouteCache.route(
+				stations[5], stations[0], RoutingMode.FEWEST_STOPS);
+		assertEquals(stations[5], reversed.getStart());
+		assertEquals(stations[0], reversed.getEnd());
+		assertEquals(route.getStations().size(), reversed.getStations().size());
+		assertEquals(stations[4], reversed.getStations().get(1));
+		assertEquals(1, mockRouteCache.getReversedHits());
+		assertEquals(1, mockRouteCache.getMisses());
+	}
+	/**
+	 * Test the {@link RouteCache#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link RoutingMode} which is not
+	 * reversible does not answer requests by reversing a cached {@link Route}.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_NotReversible()
+	{
+		mockRouteCache.route(
+				stations[0], stations[5], RoutingMode.LEGACY_DEPTH_FIRST);
+		mockRouteCache.route(
+				stations[5], stations[0], RoutingMode.LEGACY_DEPTH_FIRST);
+		assertEquals(0, mockRouteCache.getHits());
+		assertEquals(2, mockRouteCache.getMisses());
+	}
+	/**
+	 * Test the {@link RouteCache#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if the {@link RouteCache} never holds more
+	 * {@link Route} objects than its capacity, and counts each eviction.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_Eviction()
+	{
+		for(int i = 1; i < STATION_COUNT; i++)
+			mockRouteCache.route(stations[0], stations[i], RoutingMode.FASTEST);
+		assertEquals(CAPACITY, mockRouteCache.size());
+		assertEquals(STATION_COUNT - 1 - CAPACITY, mockRouteCache.getEvictions());
+	}
+	/**
+	 * Test the {@link RouteCache#route(Station, Station, RoutingMode)}
+	 * method.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link Route} which has been requested
+	 * more than once stays in the {@link RouteCache} while many other
+	 * {@link Route} objects are requested once each.
+	 * </p>
+	 */
+	@Test
+	public final void testRoute_ScanResistant()
+	{
+		mockRouteCache.route(stations[0], stations[1], RoutingMode.FEWEST_STOPS);
+		mockRouteCache.route(stations[0], stations[1], RoutingMode.FEWEST_STOPS);
+		for(int i = 2; i < STATION_COUNT; i++)
+			mockRouteCache.route(stations[0], stations[i], RoutingMode.FEWEST_STOPS);
+		final long misses = mockRouteCache.getMisses();
+		mockRouteCache.route(stations[0], stations[1], RoutingMode.FEWEST_STOPS);
+		assertEquals(misses, mockRouteCache.getMisses());
+	}
+}
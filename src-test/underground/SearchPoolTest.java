@@ -0,0 +1,111 @@
+package underground;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * The {@code SearchPoolTest} is a test class for the {@link SearchPool} class
+ * using the JUnit testing framework.
+ *
+ * <p>
+ * The tests are formatted as: "public final void test
+ * {@code <nameOfTest>} [_TestCase]". Test cases are denoted using the
+ * {@code @Test} annotation.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ */
+public class SearchPoolTest
+{
+	//=========================================================================
+	//Tests.
+	/**
+	 * Test the {@link SearchPool#borrow()} method.
+	 *
+	 * <p>
+	 * This test will only pass if a search that has been given back is
+	 * borrowed again rather than a new one being created.
+	 * </p>
+	 */
+	@Test
+	public final void testBorrow_Reused()
+	{
+		final AtomicInteger created = new AtomicInteger();
+		final SearchPool<Object> pool = new SearchPool<>(() ->
+		{
+			created.incrementAndGet();
+			return new Object();
+		}, 2);
+		final Object search = pool.borrow();
+		pool.release(search);
+		assertSame(search, pool.borrow());
+		assertEquals(1, created.get());
+	}
+	/**
+	 * Test the {@link SearchPool#borrow()} method.
+	 *
+	 * <p>
+	 * This test will only pass if a new search is created for each borrow
+	 * while none has been given back, so no two callers share a search.
+	 * </p>
+	 */
+	@Test
+	public final void testBorrow_NoneIdle()
+	{
+		final SearchPool<Object> pool = new SearchPool<>(Object::new, 2);
+		final Object first = pool.borrow();
+		final Object second = pool.borrow();
+		assertNotSame(first, second);
+		assertEquals(0, pool.idle());
+	}
+	/**
+	 * Test the {@link SearchPool#release(Object)} method.
+	 *
+	 * <p>
+	 * This test will only pass if the pool keeps no more idle searches than
+	 * its capacity.
+	 * </p>
+	 */
+	@Test
+	public final void testRelease_Full()
+	{
+		final SearchPool<Object> pool = new SearchPool<>(Object::new, 2);
+		final Object[] searches = new Object[5];
+		for(int i = 0; i < searches.length; ++i)
+			searches[i] = pool.borrow();
+		for(final Object search: searches)
+			pool.release(search);
+		assertEquals(2, pool.idle());
+	}
+	/**
+	 * Test the {@link SearchPool#SearchPool(java.util.function.Supplier, int)}
+	 * constructor.
+	 *
+	 * <p>
+	 * This test will only pass if a {@link NullPointerException} is thrown
+	 * for a <code>null</code> factory.
+	 * </p>
+	 */
+	@Test(expected = NullPointerException.class)
+	public final void testSearchPool_NullFactory()
+	{
+		new SearchPool<Object>(null, 2);
+	}
+	/**
+	 * Test the {@link SearchPool#SearchPool(java.util.function.Supplier, int)}
+	 * constructor.
+	 *
+	 * <p>
+	 * This test will only pass if an {@link IllegalArgumentException} is
+	 * thrown for a capacity below <code>1</code>.
+	 * </p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSearchPool_NoCapacity()
+	{
+		new SearchPool<>(Object::new, 0);
+	}
+}
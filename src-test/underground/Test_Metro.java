@@ -1,7 +1,9 @@
 package underground;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -18,7 +20,7 @@ import org.junit.Test;
  * @author 159029448 Joshua_Eddy
  *
  */
-class Test_Metro {
+public class Test_Metro {
 
 	/**
 	 * Holds the sample {@link Metro} and other data that will be used for each test
@@ -46,35 +48,16 @@ class Test_Metro {
 
 		String output = data.metro.outputAllStations();
 
-		StringBuilder trueOutput = new StringBuilder();
-		trueOutput.append(data.a.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.b.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.c.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.d.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.e.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.f.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.g.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.h.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.j.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.k.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.l.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.m.getName());
-		trueOutput.append("\n");
-		trueOutput.append(data.n.getName());
-		trueOutput.append("\n");
-		
-		assertTrue(trueOutput.toString().equals(output));
+		// Each line is output with its termini, in no particular order.
+		Set<String> trueOutput = new HashSet<>();
+		trueOutput.add("line1: " + data.a.getName() + " <--> " + data.d.getName());
+		trueOutput.add("line2: " + data.d.getName() + " <--> " + data.h.getName());
+		trueOutput.add("line3: " + data.b.getName() + " <--> " + data.d.getName());
+		trueOutput.add("line4: " + data.j.getName() + " <--> " + data.f.getName());
+
+		String[] outputLines = output.split("\n");
+		assertEquals(trueOutput.size(), outputLines.length);
+		assertEquals(trueOutput, new HashSet<>(Arrays.asList(outputLines)));
 
 	}
 
@@ -88,6 +71,109 @@ class Test_Metro {
 		path.forEach(station -> System.out.println(station));
 	}
 
+	/**
+	 * Tests that {@link Metro#findPath(Station, Station)} finds the path with the
+	 * fewest stops between two {@link Station}s.
+	 */
+	@Test
+	public void test_Pathing_FewestStops() {
+
+		List<Station> path = data.metro.findPath(data.a, data.m);
+
+		assertEquals(Arrays.asList(data.a, data.b, data.j, data.l, data.m), path);
+	}
+
+	/**
+	 * Tests that the {@link RoutingMode#BIDIRECTIONAL} search finds paths with
+	 * as few stops as the {@link RoutingMode#FEWEST_STOPS} search.
+	 */
+	@Test
+	public void test_Pathing_Bidirectional() {
+
+		List<Station> path = data.metro.findPath(data.a, data.m, RoutingMode.BIDIRECTIONAL);
+
+		assertEquals(Arrays.asList(data.a, data.b, data.j, data.l, data.m), path);
+
+		path = data.metro.findPath(data.h, data.a, RoutingMode.BIDIRECTIONAL);
+
+		assertEquals(data.metro.findPath(data.h, data.a).size(), path.size());
+		assertEquals(data.h, path.get(0));
+		assertEquals(data.a, path.get(path.size() - 1));
+
+		path = data.metro.findPath(data.a, data.a, RoutingMode.BIDIRECTIONAL);
+
+		assertEquals(Arrays.asList(data.a), path);
+	}
+
+	/**
+	 * Tests that the {@link RoutingMode#FEWEST_CHANGES} search finds the path that
+	 * changes {@link Line} the fewest times, and of those the fewest stops.
+	 */
+	@Test
+	public void test_Pathing_FewestChanges() {
+
+		List<Station> path = data.metro.findPath(data.a, data.h, RoutingMode.FEWEST_CHANGES);
+
+		assertEquals(Arrays.asList(data.a, data.b, data.c, data.d, data.e, data.f, data.g, data.h), path);
+
+		path = data.metro.findPath(data.a, data.m, RoutingMode.FEWEST_CHANGES);
+
+		assertEquals(Arrays.asList(data.a, data.b, data.j, data.l, data.m), path);
+	}
+
+	/**
+	 * Tests that the {@link RoutingMode#FEWEST_CHANGES} search of one
+	 * {@link Metro} finds the same paths however many searches came before it,
+	 * as its working arrays are reused between searches.
+	 */
+	@Test
+	public void test_Pathing_FewestChanges_Repeated() {
+
+		Station[] stations = { data.a, data.b, data.c, data.d, data.e, data.f, data.g, data.h, data.j, data.k,
+				data.l, data.m, data.n };
+
+		for (int start = 0; start < stations.length; start++) {
+			for (int end = 0; end < stations.length; end++) {
+
+				// The first search of a new Metro has nothing to reuse.
+				Sample fresh = new Sample();
+				Station[] freshStations = { fresh.a, fresh.b, fresh.c, fresh.d, fresh.e, fresh.f, fresh.g, fresh.h,
+						fresh.j, fresh.k, fresh.l, fresh.m, fresh.n };
+				List<Station> expected = fresh.metro.findPath(freshStations[start], freshStations[end],
+						RoutingMode.FEWEST_CHANGES);
+
+				assertEquals(expected.toString(),
+						data.metro.findPath(stations[start], stations[end], RoutingMode.FEWEST_CHANGES).toString());
+			}
+		}
+	}
+
+	/**
+	 * Tests that the {@link RoutingMode#LEGACY_DEPTH_FIRST} search changes
+	 * {@link Line} at the interchange that gives the fewest stops when two
+	 * {@link Line}s share more than one {@link Station}.
+	 */
+	@Test
+	public void test_Pathing_LegacyInterchange() {
+
+		List<Station> path = data.metro.findPath(data.a, data.k, RoutingMode.LEGACY_DEPTH_FIRST);
+
+		assertEquals(Arrays.asList(data.a, data.b, data.j, data.k), path);
+	}
+
+	/**
+	 * Tests that the {@link RoutingMode#LEGACY_DEPTH_FIRST} search still finds a
+	 * path that starts and ends at the specified {@link Station}s.
+	 */
+	@Test
+	public void test_Pathing_LegacyDepthFirst() {
+
+		List<Station> path = data.metro.findPath(data.a, data.m, RoutingMode.LEGACY_DEPTH_FIRST);
+
+		assertEquals(data.a, path.get(0));
+		assertEquals(data.m, path.get(path.size() - 1));
+	}
+
 	/**
 	 * Holds all the fields that will be used for {@link Test_Metro}.
 	 * 
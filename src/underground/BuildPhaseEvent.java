@@ -0,0 +1,111 @@
+package underground;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of one phase of building a {@link Metro} with
+ * {@link MetroBuilder#build()}, which lasts as long as the phase.
+ *
+ * <p>
+ * The event is disabled unless a recording enables
+ * <code>underground.BuildPhase</code>.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@Name("underground.BuildPhase")
+@Label("Build Phase")
+@Category({ "Underground", "Loading" })
+@Description("A phase of building a metro")
+@Enabled(false)
+@StackTrace(false)
+final class BuildPhaseEvent extends Event {
+
+	/**
+	 * The phase of creating the {@link Line}s of a {@link MetroBuilder}.
+	 */
+	static final String LINES = "lines";
+
+	/**
+	 * The phase of compiling the {@link Line}s into a {@link Graph}.
+	 */
+	static final String GRAPH = "graph";
+
+	/**
+	 * The phase of indexing the interchanges of a {@link Graph}.
+	 */
+	static final String INTERCHANGES = "interchanges";
+
+	/**
+	 * The phase of finding the parts of a {@link Graph} that are connected.
+	 */
+	static final String CONNECTIVITY = "connectivity";
+
+	/**
+	 * The phase of precomputing the {@link RouteTable} of a {@link Graph}.
+	 */
+	static final String ROUTE_TABLE = "route table";
+
+	/**
+	 * The name of the phase.
+	 */
+	@Label("Phase")
+	String phase;
+
+	/**
+	 * The number of {@link Station}s being built.
+	 */
+	@Label("Stations")
+	int stations;
+
+	/**
+	 * The number of {@link Line}s being built.
+	 */
+	@Label("Lines")
+	int lines;
+
+	/**
+	 * Starts a new {@link BuildPhaseEvent}.
+	 *
+	 * @return {@link BuildPhaseEvent}
+	 */
+	static BuildPhaseEvent start() {
+
+		final BuildPhaseEvent event = new BuildPhaseEvent();
+		event.begin();
+
+		return event;
+	}
+
+	/**
+	 * Ends this {@link BuildPhaseEvent} and commits it if it is enabled and
+	 * lasted longer than its threshold.
+	 *
+	 * @param phase
+	 *            {@link BuildPhaseEvent#phase}
+	 * @param stations
+	 *            {@link BuildPhaseEvent#stations}
+	 * @param lines
+	 *            {@link BuildPhaseEvent#lines}
+	 */
+	void finish(String phase, int stations, int lines) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.phase = phase;
+			this.stations = stations;
+			this.lines = lines;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+package underground;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link Station}s and segments of a {@link Metro} that are closed. No
+ * train calls at or runs through a closed {@link Station}, and no train runs
+ * along a closed segment, which is the connection between two neighbouring
+ * {@link Station}s of one {@link Line}. A {@link Closures} never changes once
+ * it is constructed; closing or reopening anything constructs a new
+ * {@link Closures}.
+ *
+ * <p>
+ * Closed {@link Station}s are held by id, which never changes for a
+ * {@link Station} of a {@link StationRegistry}. Closed segments are held by the
+ * name of their {@link Line} and their position along it, where segment
+ * <code>i</code> joins the {@link Station}s at positions <code>i</code> and
+ * <code>i + 1</code>, so both survive {@link Line}s being added and removed.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro#closeStation(String)
+ * @see Metro#closeSegment(String, String, String)
+ */
+final class Closures {
+
+	/**
+	 * The {@link Closures} of a {@link Metro} where everything is open.
+	 */
+	static final Closures NONE = new Closures(new BitSet(), Collections.emptyMap());
+
+	/**
+	 * The ids of the closed {@link Station}s. Never modified.
+	 */
+	private final BitSet stations;
+
+	/**
+	 * The {@link Map} of {@link Line} name to the positions of its closed
+	 * segments. Never modified, and holds no empty {@link BitSet}s.
+	 */
+	private final Map<String, BitSet> segments;
+
+	/**
+	 * Constructs a new {@link Closures}.
+	 *
+	 * @param stations
+	 *            {@link Closures#stations}
+	 * @param segments
+	 *            {@link Closures#segments}
+	 */
+	private Closures(BitSet stations, Map<String, BitSet> segments) {
+		this.stations = stations;
+		this.segments = segments;
+	}
+
+	/**
+	 * Retrieves whether nothing is closed.
+	 *
+	 * @return Whether every {@link Station} and segment is open.
+	 */
+	boolean isEmpty() {
+		return stations.isEmpty() && segments.isEmpty();
+	}
+
+	/**
+	 * Retrieves whether a {@link Station} is closed.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return Whether the {@link Station} is closed.
+	 */
+	boolean isClosed(int station) {
+		return stations.get(station);
+	}
+
+	/**
+	 * Retrieves whether a segment of a {@link Line} is closed. This does not
+	 * consider the {@link Station}s at either end of the segment.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param segment
+	 *            The position of the segment along the {@link Line}.
+	 * @return Whether the segment is closed.
+	 */
+	boolean isClosed(String lineName, int segment) {
+		final BitSet closed = segments.get(lineName);
+		return closed != null && closed.get(segment);
+	}
+
+	/**
+	 * Retrieves whether trains run along a segment of a {@link Line}, which is
+	 * only the case if the segment and the {@link Station}s at both ends of it
+	 * are open.
+	 *
+	 * @param line
+	 *            {@link Line}
+	 * @param segment
+	 *            The position of the segment along the {@link Line}.
+	 * @param from
+	 *            The id of the {@link Station} at position <code>segment</code>.
+	 * @param to
+	 *            The id of the {@link Station} at position
+	 *            <code>segment + 1</code>.
+	 * @return Whether the segment is open.
+	 */
+	boolean isOpen(Line line, int segment, int from, int to) {
+		return !stations.get(from) && !stations.get(to) && !isClosed(line.getName(), segment);
+	}
+
+	/**
+	 * Constructs the {@link Closures} where a {@link Station} is closed or open
+	 * and everything else is as it is in this {@link Closures}.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @param closed
+	 *            Whether the {@link Station} is closed.
+	 * @return {@link Closures}
+	 */
+	Closures withStation(int station, boolean closed) {
+
+		final BitSet next = (BitSet) stations.clone();
+		next.set(station, closed);
+
+		return new Closures(next, segments);
+	}
+
+	/**
+	 * Constructs the {@link Closures} where a segment of a {@link Line} is closed
+	 * or open and everything else is as it is in this {@link Closures}.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param segment
+	 *            The position of the segment along the {@link Line}.
+	 * @param closed
+	 *            Whether the segment is closed.
+	 * @return {@link Closures}
+	 */
+	Closures withSegment(String lineName, int segment, boolean closed) {
+
+		final BitSet previous = segments.get(lineName);
+		final BitSet next = previous == null ? new BitSet() : (BitSet) previous.clone();
+		next.set(segment, closed);
+
+		final Map<String, BitSet> nextSegments = new HashMap<>(segments);
+		if (next.isEmpty()) {
+			nextSegments.remove(lineName);
+		} else {
+			nextSegments.put(lineName, next);
+		}
+
+		return new Closures(stations, Collections.unmodifiableMap(nextSegments));
+	}
+
+	/**
+	 * Constructs the {@link Closures} without the closed segments of a
+	 * {@link Line}, for when the {@link Line} is removed.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link Closures}
+	 */
+	Closures withoutLine(String lineName) {
+
+		if (!segments.containsKey(lineName)) {
+			return this;
+		}
+
+		final Map<String, BitSet> nextSegments = new HashMap<>(segments);
+		nextSegments.remove(lineName);
+
+		return new Closures(stations, Collections.unmodifiableMap(nextSegments));
+	}
+
+}
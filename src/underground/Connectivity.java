@@ -0,0 +1,203 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An index of which {@link Station}s of a {@link Graph} can be reached from
+ * each other, so that a request for a path between two {@link Station}s in
+ * separate parts of the network can be answered without searching.
+ *
+ * <p>
+ * The index is built with a union-find over every connection of the
+ * {@link Graph}, using union by size and path halving, and every
+ * {@link Station} is then pointed directly at the root of its component.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro#route(Station, Station, RoutingMode)
+ */
+final class Connectivity {
+
+	/**
+	 * The parent of each {@link Station} id in the union-find forest. After
+	 * construction every {@link Station} points directly at its root.
+	 */
+	private final int[] parents;
+
+	/**
+	 * Constructs a new {@link Connectivity} of the specified {@link Graph}.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 */
+	Connectivity(Graph graph) {
+
+		final int size = graph.size();
+		this.parents = new int[size];
+
+		// The number of stations in the tree of each root.
+		final int[] sizes = new int[size];
+
+		for (int station = 0; station < size; station++) {
+			parents[station] = station;
+			sizes[station] = 1;
+		}
+
+		// Join the trees of the two stations of every connection.
+		for (int station = 0; station < size; station++) {
+			for (int edge = graph.offsets[station]; edge < graph.offsets[station + 1]; edge++) {
+
+				int a = find(station);
+				int b = find(graph.neighbours[edge]);
+
+				if (a != b) {
+
+					// Hang the smaller tree from the larger tree.
+					if (sizes[a] < sizes[b]) {
+						final int swap = a;
+						a = b;
+						b = swap;
+					}
+
+					parents[b] = a;
+					sizes[a] += sizes[b];
+				}
+			}
+		}
+
+		// Point every station directly at its root.
+		for (int station = 0; station < size; station++) {
+			parents[station] = find(station);
+		}
+	}
+
+	/**
+	 * Constructs a new {@link Connectivity} from the roots of another
+	 * {@link Connectivity}, as given by {@link Connectivity#roots()}.
+	 *
+	 * @param roots
+	 *            The id of the root {@link Station} of the component of each
+	 *            {@link Station}. The array is used rather than copied.
+	 */
+	Connectivity(int[] roots) {
+		this.parents = roots;
+	}
+
+	/**
+	 * Constructs a new {@link Connectivity} of a {@link Graph} that differs from
+	 * the {@link Graph} of another {@link Connectivity} only in connections that
+	 * have at least one of the specified {@link Station}s at an end. Only the
+	 * components of those {@link Station}s are searched again; every other
+	 * component has kept all its connections and keeps its root.
+	 *
+	 * @param previous
+	 *            The {@link Connectivity} of the {@link Graph} before it
+	 *            changed.
+	 * @param graph
+	 *            The changed {@link Graph}, which may have more {@link Station}s
+	 *            than before but not fewer.
+	 * @param changed
+	 *            The ids of the {@link Station}s at the ends of the connections
+	 *            that were added or removed.
+	 */
+	Connectivity(Connectivity previous, Graph graph, int[] changed) {
+
+		final int size = graph.size();
+		final int previousSize = previous.parents.length;
+		this.parents = Arrays.copyOf(previous.parents, size);
+
+		// New stations start in components of their own.
+		for (int station = previousSize; station < size; station++) {
+			parents[station] = station;
+		}
+
+		// Forget the components of the changed stations.
+		final BitSet changedRoots = new BitSet(size);
+		for (int station : changed) {
+			changedRoots.set(parents[station]);
+		}
+		for (int station = 0; station < size; station++) {
+			if (changedRoots.get(parents[station])) {
+				parents[station] = -1;
+			}
+		}
+
+		// Search the new graph from each forgotten station that is not yet
+		// reached, rooting everything it reaches at it.
+		final int[] frontier = new int[size];
+		for (int root = 0; root < size; root++) {
+
+			if (parents[root] >= 0) {
+				continue;
+			}
+
+			int head = 0;
+			int tail = 0;
+			parents[root] = root;
+			frontier[tail++] = root;
+
+			while (head < tail) {
+
+				final int current = frontier[head++];
+
+				for (int edge = graph.offsets[current]; edge < graph.offsets[current + 1]; edge++) {
+
+					final int neighbour = graph.neighbours[edge];
+
+					if (parents[neighbour] < 0) {
+						parents[neighbour] = root;
+						frontier[tail++] = neighbour;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the id of the root {@link Station} of the component of each
+	 * {@link Station}.
+	 *
+	 * @return The roots, indexed by {@link Station} id. The array must not be
+	 *         modified.
+	 */
+	int[] roots() {
+		return parents;
+	}
+
+	/**
+	 * Retrieves whether there is a path between two {@link Station}s.
+	 *
+	 * @param stationA
+	 *            The id of a {@link Station}.
+	 * @param stationB
+	 *            The id of another {@link Station}.
+	 * @return Whether the {@link Station}s are in the same component.
+	 */
+	boolean connected(int stationA, int stationB) {
+
+		// Every station points directly at its root, so there is nothing to find.
+		return parents[stationA] == parents[stationB];
+	}
+
+	/**
+	 * Retrieves the root of the component of the specified {@link Station},
+	 * halving the path to the root on the way.
+	 *
+	 * @param station
+	 *            The id of a {@link Station}.
+	 * @return The id of the root {@link Station} of its component.
+	 */
+	private int find(int station) {
+
+		while (parents[station] != station) {
+			parents[station] = parents[parents[station]];
+			station = parents[station];
+		}
+
+		return station;
+	}
+
+}
@@ -41,4 +41,18 @@ public interface Controller {
 	 * @return	a String representation of a path between the specified stations
 	 */
 	String showPathBetween(String stationA, String stationB);
+
+	/**
+	 * Lists a path between the specified stations that changes line the fewest times.
+	 * The path is represented as a sequence of the name of the stations between the specified stations. 
+	 * This feature was added after the original four, so controllers that do not support it
+	 * throw an {@link UnsupportedOperationException}.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of a path between the specified stations
+	 * @throws UnsupportedOperationException	if this controller cannot find such a path
+	 */
+	default String showPathWithFewestChangesBetween(String stationA, String stationB) {
+		throw new UnsupportedOperationException("Paths with the fewest changes are not supported.");
+	}
 }
@@ -0,0 +1,486 @@
+package underground;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the requests of a {@link Controller} over HTTP, so that many clients
+ * can share one warm {@link Metro} in the same process.
+ *
+ * <p>
+ * Each request is a <code>GET</code> of one of the following, and is answered
+ * with a JSON object whose <code>answer</code> is the answer of the
+ * {@link Controller}:
+ * </p>
+ * <ul>
+ * <li><code>/termini</code>: {@link Controller#listAllTermini()}</li>
+ * <li><code>/stations?line=</code><i>line</i>:
+ * {@link Controller#listStationsInLine(String)}</li>
+ * <li><code>/connected?line=</code><i>line</i>:
+ * {@link Controller#listAllDirectlyConnectedLines(String)}</li>
+ * <li><code>/path?from=</code><i>station</i><code>&amp;to=</code><i>station</i>:
+ * {@link Controller#showPathBetween(String, String)}, or
+ * {@link Controller#showPathWithFewestChangesBetween(String, String)} with
+ * <code>&amp;mode=fewest-changes</code></li>
+ * <li><code>/metrics</code>: the {@link MetricsSnapshot#toJson()} of a
+ * {@link MetricsController}</li>
+ * </ul>
+ *
+ * <p>
+ * A request without a parameter it needs is answered with <code>400</code>,
+ * an unknown path with <code>404</code> and any method but <code>GET</code>
+ * with <code>405</code>, each with a JSON object whose <code>error</code> is
+ * the reason. If the {@link Controller} throws, the request is answered with
+ * <code>500</code>.
+ * </p>
+ *
+ * <p>
+ * Each request is handled on a virtual thread of its own where there are
+ * virtual threads, from Java 21, and otherwise on a fixed pool of threads.
+ * Routes are searched with searches borrowed from the {@link SearchPool}s of
+ * the network, so the working arrays held do not grow with the number of
+ * threads requests have been handled on.
+ * Every response has a known length, so connections are kept alive between
+ * requests and only idle connections are closed, after the idle interval of
+ * the JDK's HTTP server. Responses are sent with <code>TCP_NODELAY</code>
+ * unless the <code>sun.net.httpserver.nodelay</code> property says
+ * otherwise.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see MetricsController
+ */
+public final class ControllerServer implements Closeable {
+
+	/**
+	 * The port a {@link ControllerServer} listens on when none is specified.
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * The number of connections that may wait to be accepted.
+	 */
+	private static final int BACKLOG = 1024;
+
+	/**
+	 * The seconds that requests being handled are given to finish when a
+	 * {@link ControllerServer} is closed.
+	 */
+	private static final int STOP_DELAY = 1;
+
+	/**
+	 * The system property that makes the JDK's HTTP server send small
+	 * responses without waiting, which it reads once when it is first used.
+	 */
+	private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	/**
+	 * The type of every response.
+	 */
+	private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+	/**
+	 * The {@link Controller} the requests are passed on to.
+	 */
+	private final Controller controller;
+
+	/**
+	 * The {@link HttpServer} that accepts the connections.
+	 */
+	private final HttpServer server;
+
+	/**
+	 * The {@link ExecutorService} the requests are handled on.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Whether {@link ControllerServer#executor} runs each request on a virtual
+	 * thread.
+	 */
+	private final boolean virtual;
+
+	/**
+	 * Constructs a new {@link ControllerServer} that has not started yet.
+	 *
+	 * @param controller
+	 *            The {@link Controller} the requests are passed on to.
+	 * @param address
+	 *            The {@link InetSocketAddress} to listen on, whose port may be
+	 *            <code>0</code> for any free port.
+	 * @throws IOException
+	 *             If the address cannot be listened on.
+	 */
+	public ControllerServer(Controller controller, InetSocketAddress address) throws IOException {
+		this(controller, address, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Constructs a new {@link ControllerServer} that has not started yet.
+	 *
+	 * @param controller
+	 *            The {@link Controller} the requests are passed on to.
+	 * @param address
+	 *            The {@link InetSocketAddress} to listen on, whose port may be
+	 *            <code>0</code> for any free port.
+	 * @param threads
+	 *            The number of threads requests are handled on where there are
+	 *            no virtual threads.
+	 * @throws IOException
+	 *             If the address cannot be listened on.
+	 */
+	public ControllerServer(Controller controller, InetSocketAddress address, int threads) throws IOException {
+
+		// Check parameters
+		if (controller == null) {
+			throw new NullPointerException("Controller cannot be null.");
+		} else if (address == null) {
+			throw new NullPointerException("Address cannot be null.");
+		} else if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1.");
+		}
+
+		// The headers and body are written separately, so without this every
+		// response on a kept alive connection waits for a delayed ACK.
+		if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+			System.setProperty(NO_DELAY_PROPERTY, "true");
+		}
+
+		this.controller = controller;
+		this.server = HttpServer.create(address, BACKLOG);
+
+		final ExecutorService virtualExecutor = virtualThreadExecutor();
+		this.virtual = virtualExecutor != null;
+		this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(threads);
+
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+	}
+
+	/**
+	 * Starts accepting connections in the background.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Retrieves the address this {@link ControllerServer} listens on.
+	 *
+	 * @return {@link InetSocketAddress}, with the port that was chosen if any
+	 *         free port was asked for.
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * Retrieves whether each request is handled on a virtual thread.
+	 *
+	 * @return Whether requests are handled on virtual threads.
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Stops accepting connections, gives the requests being handled a moment
+	 * to finish and stops the threads they were handled on.
+	 */
+	@Override
+	public void close() {
+
+		server.stop(STOP_DELAY);
+		executor.shutdown();
+
+		try {
+			executor.awaitTermination(STOP_DELAY, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Answers one request.
+	 *
+	 * @param exchange
+	 *            The {@link HttpExchange} of the request.
+	 * @throws IOException
+	 *             If the response cannot be sent.
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+
+		try {
+
+			// Read what is left of the body, so the connection can be reused.
+			try (InputStream in = exchange.getRequestBody()) {
+				final byte[] buffer = new byte[1024];
+				while (in.read(buffer) >= 0) {
+				}
+			}
+
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Allow", "GET");
+				respond(exchange, 405, error("Only GET is allowed."));
+				return;
+			}
+
+			final String path = exchange.getRequestURI().getPath();
+
+			try {
+				final String body = dispatch(path, parseQuery(exchange.getRequestURI().getRawQuery()));
+				if (body == null) {
+					respond(exchange, 404, error("There is no " + path + "."));
+				} else {
+					respond(exchange, 200, body);
+				}
+			} catch (IllegalArgumentException e) {
+				respond(exchange, 400, error(e.getMessage()));
+			} catch (RuntimeException e) {
+				respond(exchange, 500, error(String.valueOf(e.getMessage())));
+			}
+
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Passes a request on to the {@link ControllerServer#controller}.
+	 *
+	 * @param path
+	 *            The path of the request.
+	 * @param query
+	 *            The parameters of the request.
+	 * @return The JSON of the answer, or <code>null</code> if the path is not
+	 *         known.
+	 * @throws IllegalArgumentException
+	 *             If a parameter the request needs is missing or not valid.
+	 */
+	private String dispatch(String path, Map<String, String> query) {
+
+		switch (path) {
+		case "/termini":
+			return answer(controller.listAllTermini());
+		case "/stations":
+			return answer(controller.listStationsInLine(require(query, "line")));
+		case "/connected":
+			return answer(controller.listAllDirectlyConnectedLines(require(query, "line")));
+		case "/path":
+			final String from = require(query, "from");
+			final String to = require(query, "to");
+			final String mode = query.getOrDefault("mode", "fewest-stops");
+			if (mode.equals("fewest-stops")) {
+				return answer(controller.showPathBetween(from, to));
+			} else if (mode.equals("fewest-changes")) {
+				return answer(controller.showPathWithFewestChangesBetween(from, to));
+			}
+			throw new IllegalArgumentException("The mode must be fewest-stops or fewest-changes.");
+		case "/metrics":
+			return controller instanceof MetricsController ? ((MetricsController) controller).snapshot().toJson()
+					: null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Retrieves a parameter a request needs.
+	 *
+	 * @param query
+	 *            The parameters of the request.
+	 * @param name
+	 *            The name of the parameter.
+	 * @return The value of the parameter.
+	 * @throws IllegalArgumentException
+	 *             If the parameter is missing.
+	 */
+	private static String require(Map<String, String> query, String name) {
+
+		final String value = query.get(name);
+
+		if (value == null) {
+			throw new IllegalArgumentException("The " + name + " parameter is missing.");
+		}
+
+		return value;
+	}
+
+	/**
+	 * Sends a response.
+	 *
+	 * @param exchange
+	 *            The {@link HttpExchange} of the request.
+	 * @param status
+	 *            The status of the response.
+	 * @param json
+	 *            The body of the response.
+	 * @throws IOException
+	 *             If the response cannot be sent.
+	 */
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+
+		final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Parses the parameters of a query.
+	 *
+	 * @param rawQuery
+	 *            The query, as it was sent, or <code>null</code> if there is
+	 *            none.
+	 * @return The value of each parameter by name. A parameter that is sent
+	 *         more than once has its last value.
+	 * @throws IllegalArgumentException
+	 *             If the query is not validly encoded.
+	 */
+	private static Map<String, String> parseQuery(String rawQuery) {
+
+		final Map<String, String> query = new HashMap<>();
+
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return query;
+		}
+
+		for (String parameter : rawQuery.split("&")) {
+
+			final int equals = parameter.indexOf('=');
+
+			if (equals < 0) {
+				query.put(decode(parameter), "");
+			} else {
+				query.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+			}
+		}
+
+		return query;
+	}
+
+	/**
+	 * Decodes a name or value of a query.
+	 *
+	 * @param value
+	 *            The encoded name or value.
+	 * @return The name or value.
+	 */
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			// Every Java platform supports UTF-8.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates the JSON of an answer.
+	 *
+	 * @param answer
+	 *            The answer of the {@link Controller}.
+	 * @return A JSON object whose <code>answer</code> is the answer.
+	 */
+	private static String answer(String answer) {
+		return toJson("answer", answer);
+	}
+
+	/**
+	 * Creates the JSON of an error.
+	 *
+	 * @param message
+	 *            The reason for the error.
+	 * @return A JSON object whose <code>error</code> is the reason.
+	 */
+	private static String error(String message) {
+		return toJson("error", message);
+	}
+
+	/**
+	 * Creates a JSON object of one string.
+	 *
+	 * @param name
+	 *            The name of the string, which needs no escaping.
+	 * @param value
+	 *            The string, or <code>null</code>.
+	 * @return The JSON object.
+	 */
+	private static String toJson(String name, String value) {
+
+		if (value == null) {
+			return "{\"" + name + "\":null}";
+		}
+
+		final StringBuilder json = new StringBuilder(value.length() + name.length() + 8);
+		json.append("{\"").append(name).append("\":\"");
+
+		for (int index = 0; index < value.length(); index++) {
+
+			final char next = value.charAt(index);
+
+			switch (next) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (next < 0x20) {
+					json.append(String.format("\\u%04x", (int) next));
+				} else {
+					json.append(next);
+				}
+			}
+		}
+
+		return json.append("\"}").toString();
+	}
+
+	/**
+	 * Retrieves an {@link ExecutorService} that runs each task on a new
+	 * virtual thread, through reflection so that this class still runs on the
+	 * versions of Java without them.
+	 *
+	 * @return The {@link ExecutorService}, or <code>null</code> if there are no
+	 *         virtual threads.
+	 */
+	static ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+}
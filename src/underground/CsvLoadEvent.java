@@ -0,0 +1,99 @@
+package underground;
+
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of one file read by a {@link CsvReader}, which
+ * lasts as long as the file is read and its fields are handled.
+ *
+ * <p>
+ * The event is disabled unless a recording enables
+ * <code>underground.CsvLoad</code>.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@Name("underground.CsvLoad")
+@Label("CSV Load")
+@Category({ "Underground", "Loading" })
+@Description("A comma separated values file read into a handler")
+@Enabled(false)
+@StackTrace(false)
+final class CsvLoadEvent extends Event {
+
+	/**
+	 * The path of the file.
+	 */
+	@Label("File")
+	String file;
+
+	/**
+	 * Whether the file was memory mapped.
+	 */
+	@Label("Mapped")
+	boolean mapped;
+
+	/**
+	 * The size of the file.
+	 */
+	@Label("Size")
+	@DataAmount
+	long size;
+
+	/**
+	 * The number of records read.
+	 */
+	@Label("Records")
+	int records;
+
+	/**
+	 * Starts a new {@link CsvLoadEvent}.
+	 *
+	 * @return {@link CsvLoadEvent}
+	 */
+	static CsvLoadEvent start() {
+
+		final CsvLoadEvent event = new CsvLoadEvent();
+		event.begin();
+
+		return event;
+	}
+
+	/**
+	 * Ends this {@link CsvLoadEvent} and commits it if it is enabled and
+	 * lasted longer than its threshold.
+	 *
+	 * @param file
+	 *            The {@link Path} of the file.
+	 * @param mapped
+	 *            {@link CsvLoadEvent#mapped}
+	 * @param size
+	 *            {@link CsvLoadEvent#size}
+	 * @param records
+	 *            {@link CsvLoadEvent#records}
+	 */
+	void finish(Path file, boolean mapped, long size, int records) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.file = file.toString();
+			this.mapped = mapped;
+			this.size = size;
+			this.records = records;
+			commit();
+		}
+	}
+
+}
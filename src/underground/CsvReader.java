@@ -0,0 +1,366 @@
+package underground;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the fields of a comma separated values file to a
+ * {@link CsvReader.Handler} as they are read, without holding more of the file
+ * than the current field in memory.
+ *
+ * <p>
+ * The file is read through a {@link FileChannel}, either into a reused buffer
+ * or memory mapped, and is parsed as UTF-8 following RFC 4180: fields are
+ * separated by commas, records by line feeds or carriage return line feeds,
+ * and a field in double quotes may contain commas, line breaks and doubled
+ * double quotes. A byte order mark at the start of the file is skipped.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class CsvReader {
+
+	/**
+	 * The size, in bytes, of the buffer the file is read into when it is not
+	 * memory mapped.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The size, in bytes, of the largest region of the file that is mapped at
+	 * once.
+	 */
+	private static final long MAX_MAPPED_REGION = Integer.MAX_VALUE;
+
+	/**
+	 * The UTF-8 byte order mark.
+	 */
+	private static final byte[] BYTE_ORDER_MARK = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * The {@link Handler} the fields are passed to.
+	 */
+	private final Handler handler;
+
+	/**
+	 * The bytes of the field being read.
+	 */
+	private byte[] field;
+
+	/**
+	 * The number of bytes in {@link CsvReader#field}.
+	 */
+	private int fieldLength;
+
+	/**
+	 * The index of the field being read within its record.
+	 */
+	private int fieldIndex;
+
+	/**
+	 * The index of the record being read.
+	 */
+	private int recordIndex;
+
+	/**
+	 * Whether the field being read started with a double quote and its closing
+	 * double quote has not been read.
+	 */
+	private boolean quoted;
+
+	/**
+	 * Whether the last byte read was a double quote inside a quoted field, which
+	 * either closes the field or is the first of a doubled double quote.
+	 */
+	private boolean quoteSeen;
+
+	/**
+	 * Whether the last byte read was a carriage return ending a record.
+	 */
+	private boolean carriageReturn;
+
+	/**
+	 * Whether any byte of the current record has been read.
+	 */
+	private boolean recordStarted;
+
+	/**
+	 * Constructs a new {@link CsvReader}.
+	 *
+	 * @param handler
+	 *            The {@link Handler} the fields are passed to.
+	 */
+	private CsvReader(Handler handler) {
+		this.handler = handler;
+		this.field = new byte[64];
+		this.fieldLength = 0;
+		this.fieldIndex = 0;
+		this.recordIndex = 0;
+		this.quoted = false;
+		this.quoteSeen = false;
+		this.carriageReturn = false;
+		this.recordStarted = false;
+	}
+
+	/**
+	 * Reads the specified file through a buffer, passing each field to the
+	 * specified {@link Handler}.
+	 *
+	 * @param file
+	 *            The {@link Path} of the file.
+	 * @param handler
+	 *            {@link Handler}
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static void read(Path file, Handler handler) throws IOException {
+		read(file, false, handler);
+	}
+
+	/**
+	 * Reads the specified file, passing each field to the specified
+	 * {@link Handler}. Each file is recorded as a {@link CsvLoadEvent} while
+	 * that event is enabled.
+	 *
+	 * @param file
+	 *            The {@link Path} of the file.
+	 * @param mapped
+	 *            Whether the file is memory mapped rather than read through a
+	 *            buffer.
+	 * @param handler
+	 *            {@link Handler}
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static void read(Path file, boolean mapped, Handler handler) throws IOException {
+
+		// Check parameters
+		if (file == null) {
+			throw new NullPointerException("File cannot be null.");
+		} else if (handler == null) {
+			throw new NullPointerException("Handler cannot be null.");
+		}
+
+		final CsvReader reader = new CsvReader(handler);
+		final CsvLoadEvent event = CsvLoadEvent.start();
+		final long size;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			// Skip the byte order mark at the start of the file.
+			final long start = hasByteOrderMark(channel) ? BYTE_ORDER_MARK.length : 0;
+			size = channel.size();
+
+			if (mapped) {
+
+				// Map the file a region at a time, as a mapping is indexed by int.
+				for (long position = start; position < size; position += MAX_MAPPED_REGION) {
+					reader.parse(channel.map(FileChannel.MapMode.READ_ONLY, position,
+							Math.min(MAX_MAPPED_REGION, size - position)));
+				}
+			} else {
+
+				final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+				channel.position(start);
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					reader.parse(buffer);
+					buffer.clear();
+				}
+			}
+		}
+
+		reader.finish();
+		event.finish(file, mapped, size, reader.recordIndex);
+	}
+
+	/**
+	 * Retrieves whether the file of the specified {@link FileChannel} starts
+	 * with the UTF-8 byte order mark.
+	 *
+	 * @param channel
+	 *            {@link FileChannel}
+	 * @return Whether the file starts with the byte order mark.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	private static boolean hasByteOrderMark(FileChannel channel) throws IOException {
+
+		final ByteBuffer start = ByteBuffer.allocate(BYTE_ORDER_MARK.length);
+
+		while (start.hasRemaining() && channel.read(start, start.position()) >= 0) {
+			// Keep reading until the start is full or the file ends.
+		}
+
+		return !start.hasRemaining() && Arrays.equals(start.array(), BYTE_ORDER_MARK);
+	}
+
+	/**
+	 * Parses the remaining bytes of the specified {@link ByteBuffer}, passing
+	 * each field that is completed to the {@link CsvReader#handler}.
+	 *
+	 * @param buffer
+	 *            {@link ByteBuffer}
+	 */
+	private void parse(ByteBuffer buffer) {
+
+		while (buffer.hasRemaining()) {
+
+			final byte next = buffer.get();
+
+			// A line feed straight after a carriage return ends the same record.
+			if (carriageReturn) {
+				carriageReturn = false;
+				if (next == '\n') {
+					continue;
+				}
+			}
+
+			if (quoted) {
+
+				if (quoteSeen) {
+					quoteSeen = false;
+
+					// A doubled double quote is a literal double quote.
+					if (next == '"') {
+						append(next);
+						continue;
+					}
+
+					// Otherwise the field has been closed.
+					quoted = false;
+				} else if (next == '"') {
+					quoteSeen = true;
+					continue;
+				} else {
+					append(next);
+					continue;
+				}
+			}
+
+			switch (next) {
+			case ',':
+				recordStarted = true;
+				endField();
+				break;
+			case '\r':
+				carriageReturn = true;
+				endRecord();
+				break;
+			case '\n':
+				endRecord();
+				break;
+			case '"':
+				recordStarted = true;
+
+				// Only a double quote that starts a field opens a quoted field.
+				if (fieldLength == 0) {
+					quoted = true;
+				} else {
+					append(next);
+				}
+				break;
+			default:
+				recordStarted = true;
+				append(next);
+			}
+		}
+	}
+
+	/**
+	 * Completes the last record if the file does not end with a line break.
+	 */
+	private void finish() {
+
+		if (quoted && quoteSeen) {
+			quoted = false;
+		}
+
+		if (recordStarted || fieldLength > 0 || quoted) {
+			endRecord();
+		}
+	}
+
+	/**
+	 * Adds a byte to the field being read.
+	 *
+	 * @param next
+	 *            The byte.
+	 */
+	private void append(byte next) {
+
+		recordStarted = true;
+
+		if (fieldLength == field.length) {
+			field = Arrays.copyOf(field, 2 * field.length);
+		}
+
+		field[fieldLength++] = next;
+	}
+
+	/**
+	 * Passes the field that has been read to the {@link CsvReader#handler} and
+	 * starts the next field of the record.
+	 */
+	private void endField() {
+		handler.field(recordIndex, fieldIndex++, new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+		fieldLength = 0;
+		quoted = false;
+		quoteSeen = false;
+	}
+
+	/**
+	 * Passes the last field of the record to the {@link CsvReader#handler}, if
+	 * the record is not an empty line, and starts the next record.
+	 */
+	private void endRecord() {
+
+		if (recordStarted || fieldLength > 0) {
+			endField();
+			handler.endRecord(recordIndex++, fieldIndex);
+		}
+
+		fieldIndex = 0;
+		recordStarted = false;
+	}
+
+	/**
+	 * Receives the fields of a comma separated values file as they are read by
+	 * a {@link CsvReader}.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+
+		/**
+		 * Receives one field.
+		 *
+		 * @param record
+		 *            The index of the record the field is in, counting from
+		 *            <code>0</code> and not counting empty lines.
+		 * @param index
+		 *            The index of the field within its record.
+		 * @param value
+		 *            The value of the field, without any enclosing double quotes.
+		 */
+		void field(int record, int index, String value);
+
+		/**
+		 * Receives the end of a record, after all of its fields.
+		 *
+		 * @param record
+		 *            The index of the record.
+		 * @param fields
+		 *            The number of fields in the record.
+		 */
+		default void endRecord(int record, int fields) {
+		}
+	}
+
+}
@@ -0,0 +1,873 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compiled form of the {@link Line}s and {@link Station}s of a
+ * {@link Metro}. Every {@link Station} and {@link Line} is given a dense
+ * <code>int</code> id and the connections between {@link Station}s are stored
+ * in compressed sparse row form so that path finding only touches primitive
+ * arrays.
+ *
+ * <p>
+ * The neighbours of the {@link Station} with id <code>s</code> are
+ * <code>neighbours[offsets[s]]</code> to
+ * <code>neighbours[offsets[s + 1] - 1]</code>, and the {@link Line} that each
+ * of those connections is on is held at the same index of
+ * {@link Graph#edgeLines}. In the same way the {@link Line}s that
+ * <code>s</code> is on are <code>stationLines[lineOffsets[s]]</code> to
+ * <code>stationLines[lineOffsets[s + 1] - 1]</code>.
+ * </p>
+ *
+ * <p>
+ * Each index into {@link Graph#stationLines} is also the id of a state, which
+ * is a {@link Station} on one of its {@link Line}s. Searches that care about
+ * changing {@link Line} use these states rather than {@link Station}s.
+ * </p>
+ *
+ * <p>
+ * The searches read the arrays through the {@link GraphView} that a
+ * {@link Graph} is.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro
+ */
+final class Graph implements GraphView {
+
+	/**
+	 * The {@link Station}s of this {@link Graph} indexed by their id.
+	 */
+	final Station[] stations;
+
+	/**
+	 * The {@link Line}s of this {@link Graph} indexed by their id.
+	 */
+	final Line[] lines;
+
+	/**
+	 * The index into {@link Graph#neighbours} of the first neighbour of each
+	 * {@link Station} id. Has one more element than there are {@link Station}s.
+	 */
+	final int[] offsets;
+
+	/**
+	 * The {@link Station} ids next to each {@link Station}, grouped by
+	 * {@link Graph#offsets}.
+	 */
+	final int[] neighbours;
+
+	/**
+	 * The {@link Line} id of each connection in {@link Graph#neighbours}.
+	 */
+	final int[] edgeLines;
+
+	/**
+	 * The travel time, in seconds, of each connection in
+	 * {@link Graph#neighbours}.
+	 */
+	final int[] edgeTimes;
+
+	/**
+	 * The time, in seconds, it takes to change {@link Line} at each
+	 * {@link Station}.
+	 */
+	final int[] transferPenalties;
+
+	/**
+	 * The index into {@link Graph#stationLines} of the first {@link Line} of each
+	 * {@link Station} id. Has one more element than there are {@link Station}s.
+	 */
+	final int[] lineOffsets;
+
+	/**
+	 * The {@link Line} ids that each {@link Station} is on, grouped by
+	 * {@link Graph#lineOffsets}.
+	 */
+	final int[] stationLines;
+
+	/**
+	 * The {@link Station} id of each state.
+	 */
+	final int[] stateStations;
+
+	/**
+	 * The position of the {@link Station} of each state on the {@link Line} of
+	 * that state, counting from <code>0</code> at the first terminal.
+	 */
+	final int[] statePositions;
+
+	/**
+	 * The state of each connection in {@link Graph#neighbours}, which is the
+	 * neighbouring {@link Station} on the {@link Line} of the connection.
+	 */
+	final int[] edgeStates;
+
+	/**
+	 * The index into {@link Graph#adjacentLines} of the first adjacent
+	 * {@link Line} of each {@link Line} id. Has one more element than there are
+	 * {@link Line}s.
+	 */
+	final int[] adjacentLineOffsets;
+
+	/**
+	 * The {@link Line} ids that share at least one {@link Station} with each
+	 * {@link Line}, grouped by {@link Graph#adjacentLineOffsets}.
+	 */
+	final int[] adjacentLines;
+
+	/**
+	 * The {@link StationRegistry} that gives each {@link Station} its id.
+	 */
+	private final StationRegistry registry;
+
+	/**
+	 * The {@link Map} of each {@link Line} name to its id.
+	 */
+	private final Map<String, Integer> lineIds;
+
+	/**
+	 * Compiles the specified {@link Line}s into a new {@link Graph}.
+	 *
+	 * @param lines
+	 *            The {@link Map} of {@link Line} name to their associated
+	 *            {@link Line}.
+	 * @param registry
+	 *            The {@link StationRegistry} whose ids are used as the
+	 *            {@link Station} ids. Every {@link Station} on the {@link Line}s
+	 *            is interned into it.
+	 * @param transferPenalties
+	 *            The {@link Map} of {@link Station}s to the time, in seconds, it
+	 *            takes to change {@link Line} at them.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at a
+	 *            {@link Station} that is not in <code>transferPenalties</code>.
+	 */
+	Graph(Map<String, Line> lines, StationRegistry registry, Map<Station, Integer> transferPenalties,
+			int defaultTransferPenalty) {
+
+		this.lines = lines.values().toArray(new Line[lines.size()]);
+		this.lineIds = new HashMap<>();
+		this.registry = registry;
+
+		// Give each line an id, and each distinct station the id of its registry.
+		int lineStationCount = 0;
+		for (int line = 0; line < this.lines.length; line++) {
+
+			lineIds.put(this.lines[line].getName(), line);
+
+			for (Station station : this.lines[line].getStations()) {
+				registry.intern(station);
+				lineStationCount++;
+			}
+		}
+
+		final int stationCount = registry.size();
+		this.stations = new Station[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			this.stations[station] = registry.get(station);
+		}
+
+		// Count the neighbours and lines of each station.
+		final int[] degree = new int[stationCount];
+		final int[] lineCount = new int[stationCount];
+		for (Line line : this.lines) {
+
+			int previous = -1;
+			for (Station station : line.getStations()) {
+
+				final int current = registry.idOf(station);
+				lineCount[current]++;
+
+				if (previous >= 0) {
+					degree[previous]++;
+					degree[current]++;
+				}
+				previous = current;
+			}
+		}
+
+		this.offsets = prefixSum(degree);
+		this.lineOffsets = prefixSum(lineCount);
+		this.neighbours = new int[offsets[stationCount]];
+		this.edgeLines = new int[offsets[stationCount]];
+		this.edgeTimes = new int[offsets[stationCount]];
+		this.stationLines = new int[lineStationCount];
+		this.stateStations = new int[lineStationCount];
+		this.statePositions = new int[lineStationCount];
+		this.edgeStates = new int[offsets[stationCount]];
+
+		// Fill each station's neighbours and lines, reusing the counts as cursors.
+		final int[] edgeCursor = Arrays.copyOf(offsets, stationCount);
+		final int[] lineCursor = Arrays.copyOf(lineOffsets, stationCount);
+		for (int line = 0; line < this.lines.length; line++) {
+
+			int previous = -1;
+			int position = 0;
+			for (Station station : this.lines[line].getStations()) {
+
+				final int current = registry.idOf(station);
+				final int state = lineCursor[current]++;
+				stationLines[state] = line;
+				stateStations[state] = current;
+				statePositions[state] = position;
+
+				if (previous >= 0) {
+					final int time = this.lines[line].getTravelTime(position - 1);
+					neighbours[edgeCursor[previous]] = current;
+					edgeLines[edgeCursor[previous]] = line;
+					edgeTimes[edgeCursor[previous]++] = time;
+					neighbours[edgeCursor[current]] = previous;
+					edgeLines[edgeCursor[current]] = line;
+					edgeTimes[edgeCursor[current]++] = time;
+				}
+				previous = current;
+				position++;
+			}
+		}
+
+		// Resolve the names of the lines adjacent to each line.
+		final int[] adjacentCount = new int[this.lines.length];
+		for (int line = 0; line < this.lines.length; line++) {
+			for (String adjacent : this.lines[line].getAdjacentLineNames()) {
+				if (lineIds.containsKey(adjacent)) {
+					adjacentCount[line]++;
+				}
+			}
+		}
+
+		this.adjacentLineOffsets = prefixSum(adjacentCount);
+		this.adjacentLines = new int[adjacentLineOffsets[this.lines.length]];
+		for (int line = 0; line < this.lines.length; line++) {
+
+			int cursor = adjacentLineOffsets[line];
+			for (String adjacent : this.lines[line].getAdjacentLineNames()) {
+				if (lineIds.containsKey(adjacent)) {
+					adjacentLines[cursor++] = lineIds.get(adjacent);
+				}
+			}
+		}
+
+		// Set the time it takes to change line at each station.
+		this.transferPenalties = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			final Integer penalty = transferPenalties.get(stations[station]);
+			this.transferPenalties[station] = penalty == null ? defaultTransferPenalty : penalty;
+		}
+
+		// Resolve the state at the far end of each connection.
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = offsets[station]; edge < offsets[station + 1]; edge++) {
+				edgeStates[edge] = stateOf(neighbours[edge], edgeLines[edge]);
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new {@link Graph} from arrays that were compiled by another
+	 * {@link Graph}, such as those read back from a {@link MetroSnapshot}. The
+	 * arrays are used as they are rather than copied.
+	 *
+	 * @param lines
+	 *            The {@link Line}s indexed by their id.
+	 * @param registry
+	 *            The {@link StationRegistry} holding every {@link Station}, where
+	 *            the id of each {@link Station} is its id in the
+	 *            {@link Graph}.
+	 * @param offsets
+	 *            {@link Graph#offsets}
+	 * @param neighbours
+	 *            {@link Graph#neighbours}
+	 * @param edgeLines
+	 *            {@link Graph#edgeLines}
+	 * @param edgeTimes
+	 *            {@link Graph#edgeTimes}
+	 * @param transferPenalties
+	 *            {@link Graph#transferPenalties}
+	 * @param lineOffsets
+	 *            {@link Graph#lineOffsets}
+	 * @param stationLines
+	 *            {@link Graph#stationLines}
+	 * @param stateStations
+	 *            {@link Graph#stateStations}
+	 * @param statePositions
+	 *            {@link Graph#statePositions}
+	 * @param edgeStates
+	 *            {@link Graph#edgeStates}
+	 * @param adjacentLineOffsets
+	 *            {@link Graph#adjacentLineOffsets}
+	 * @param adjacentLines
+	 *            {@link Graph#adjacentLines}
+	 */
+	Graph(Line[] lines, StationRegistry registry, int[] offsets, int[] neighbours, int[] edgeLines, int[] edgeTimes,
+			int[] transferPenalties, int[] lineOffsets, int[] stationLines, int[] stateStations,
+			int[] statePositions, int[] edgeStates, int[] adjacentLineOffsets, int[] adjacentLines) {
+
+		this.lines = lines;
+		this.registry = registry;
+		this.offsets = offsets;
+		this.neighbours = neighbours;
+		this.edgeLines = edgeLines;
+		this.edgeTimes = edgeTimes;
+		this.transferPenalties = transferPenalties;
+		this.lineOffsets = lineOffsets;
+		this.stationLines = stationLines;
+		this.stateStations = stateStations;
+		this.statePositions = statePositions;
+		this.edgeStates = edgeStates;
+		this.adjacentLineOffsets = adjacentLineOffsets;
+		this.adjacentLines = adjacentLines;
+
+		this.stations = new Station[registry.size()];
+		for (int station = 0; station < stations.length; station++) {
+			this.stations[station] = registry.get(station);
+		}
+
+		this.lineIds = new HashMap<>(2 * lines.length);
+		for (int line = 0; line < lines.length; line++) {
+			lineIds.put(lines[line].getName(), line);
+		}
+	}
+
+	/**
+	 * Constructs a new {@link Graph} with the same {@link Station}s,
+	 * {@link Line}s and states as another {@link Graph} but different
+	 * connections. Everything but the connections is shared rather than copied.
+	 *
+	 * @param graph
+	 *            The {@link Graph} whose {@link Station}s, {@link Line}s and
+	 *            states are shared.
+	 * @param offsets
+	 *            {@link Graph#offsets}
+	 * @param neighbours
+	 *            {@link Graph#neighbours}
+	 * @param edgeLines
+	 *            {@link Graph#edgeLines}
+	 * @param edgeTimes
+	 *            {@link Graph#edgeTimes}
+	 * @param edgeStates
+	 *            {@link Graph#edgeStates}
+	 */
+	private Graph(Graph graph, int[] offsets, int[] neighbours, int[] edgeLines, int[] edgeTimes, int[] edgeStates) {
+
+		this.stations = graph.stations;
+		this.lines = graph.lines;
+		this.registry = graph.registry;
+		this.lineIds = graph.lineIds;
+		this.transferPenalties = graph.transferPenalties;
+		this.lineOffsets = graph.lineOffsets;
+		this.stationLines = graph.stationLines;
+		this.stateStations = graph.stateStations;
+		this.statePositions = graph.statePositions;
+		this.adjacentLineOffsets = graph.adjacentLineOffsets;
+		this.adjacentLines = graph.adjacentLines;
+		this.offsets = offsets;
+		this.neighbours = neighbours;
+		this.edgeLines = edgeLines;
+		this.edgeTimes = edgeTimes;
+		this.edgeStates = edgeStates;
+	}
+
+	/**
+	 * Constructs a new {@link Graph} where the connections along the specified
+	 * {@link Line}s are only those segments that the specified {@link Closures}
+	 * leave open. The connections along every other {@link Line} are kept as
+	 * they are, and everything but the connections is shared with this
+	 * {@link Graph}, so the cost is one copy of the connections plus a walk
+	 * along each changed {@link Line}.
+	 *
+	 * @param changed
+	 *            The ids of the {@link Line}s whose connections are rebuilt.
+	 * @param closures
+	 *            The {@link Closures} the rebuilt connections respect.
+	 * @return {@link Graph}
+	 */
+	Graph reconnect(BitSet changed, Closures closures) {
+
+		final int stationCount = size();
+		final int[][] lineStations = new int[lines.length][];
+
+		// Count the kept connections of each station and the open segments of the
+		// changed lines.
+		final int[] degree = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = offsets[station]; edge < offsets[station + 1]; edge++) {
+				if (!changed.get(edgeLines[edge])) {
+					degree[station]++;
+				}
+			}
+		}
+		for (int line = changed.nextSetBit(0); line >= 0; line = changed.nextSetBit(line + 1)) {
+
+			lineStations[line] = stationsOf(line);
+
+			for (int segment = 0; segment < lineStations[line].length - 1; segment++) {
+
+				final int from = lineStations[line][segment];
+				final int to = lineStations[line][segment + 1];
+
+				if (closures.isOpen(lines[line], segment, from, to)) {
+					degree[from]++;
+					degree[to]++;
+				}
+			}
+		}
+
+		final int[] nextOffsets = prefixSum(degree);
+		final int[] nextNeighbours = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeLines = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeTimes = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeStates = new int[nextOffsets[stationCount]];
+
+		// Copy the kept connections, reusing the counts as cursors.
+		final int[] cursor = Arrays.copyOf(nextOffsets, stationCount);
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = offsets[station]; edge < offsets[station + 1]; edge++) {
+				if (!changed.get(edgeLines[edge])) {
+					final int next = cursor[station]++;
+					nextNeighbours[next] = neighbours[edge];
+					nextEdgeLines[next] = edgeLines[edge];
+					nextEdgeTimes[next] = edgeTimes[edge];
+					nextEdgeStates[next] = edgeStates[edge];
+				}
+			}
+		}
+
+		// Add the open segments of the changed lines in both directions.
+		for (int line = changed.nextSetBit(0); line >= 0; line = changed.nextSetBit(line + 1)) {
+			for (int segment = 0; segment < lineStations[line].length - 1; segment++) {
+
+				final int from = lineStations[line][segment];
+				final int to = lineStations[line][segment + 1];
+
+				if (closures.isOpen(lines[line], segment, from, to)) {
+
+					final int time = lines[line].getTravelTime(segment);
+
+					final int forward = cursor[from]++;
+					nextNeighbours[forward] = to;
+					nextEdgeLines[forward] = line;
+					nextEdgeTimes[forward] = time;
+					nextEdgeStates[forward] = stateOf(to, line);
+
+					final int backward = cursor[to]++;
+					nextNeighbours[backward] = from;
+					nextEdgeLines[backward] = line;
+					nextEdgeTimes[backward] = time;
+					nextEdgeStates[backward] = stateOf(from, line);
+				}
+			}
+		}
+
+		return new Graph(this, nextOffsets, nextNeighbours, nextEdgeLines, nextEdgeTimes, nextEdgeStates);
+	}
+
+	/**
+	 * Constructs a new {@link Graph} where {@link Line}s have been added to or
+	 * removed from this {@link Graph}, without compiling the {@link Line}s that
+	 * are kept again. The states and connections of the kept {@link Line}s are
+	 * copied across with their ids mapped, so the cost is one pass over the
+	 * arrays of this {@link Graph} plus a walk along each added {@link Line}.
+	 *
+	 * <p>
+	 * A kept {@link Line} may be replaced by another {@link Line} with the same
+	 * {@link Station}s and travel times, such as one that is adjacent to
+	 * different {@link Line}s, in which case only its adjacent {@link Line}s are
+	 * resolved again.
+	 * </p>
+	 *
+	 * @param nextLines
+	 *            The {@link Line}s of the new {@link Graph} indexed by their id.
+	 * @param lineMap
+	 *            The id in the new {@link Graph} of each {@link Line} of this
+	 *            {@link Graph}, or <code>-1</code> if it was removed. Each
+	 *            {@link Line} of <code>nextLines</code> that no {@link Line} of
+	 *            this {@link Graph} is mapped to is added.
+	 * @param nextRegistry
+	 *            The {@link StationRegistry} of the new {@link Graph}, which
+	 *            holds every {@link Station} of this {@link Graph} with the same
+	 *            id.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at a
+	 *            {@link Station} that is not in this {@link Graph}.
+	 * @param closures
+	 *            The {@link Closures} the connections of the added {@link Line}s
+	 *            respect.
+	 * @return {@link Graph}
+	 */
+	Graph withLines(Line[] nextLines, int[] lineMap, StationRegistry nextRegistry, int defaultTransferPenalty,
+			Closures closures) {
+
+		final int stationCount = nextRegistry.size();
+		final int lineCount = nextLines.length;
+
+		// The id in this graph of each line of the new graph, or -1 if it is added.
+		final int[] previousIds = new int[lineCount];
+		Arrays.fill(previousIds, -1);
+		for (int line = 0; line < lineMap.length; line++) {
+			if (lineMap[line] >= 0) {
+				previousIds[lineMap[line]] = line;
+			}
+		}
+
+		// Count the kept lines of each station and the stations of the added lines.
+		final int[][] addedStations = new int[lineCount][];
+		final int[] stateCounts = new int[stationCount];
+		for (int station = 0; station < size(); station++) {
+			for (int state = lineOffsets[station]; state < lineOffsets[station + 1]; state++) {
+				if (lineMap[stationLines[state]] >= 0) {
+					stateCounts[station]++;
+				}
+			}
+		}
+		for (int line = 0; line < lineCount; line++) {
+			if (previousIds[line] < 0) {
+
+				addedStations[line] = new int[nextLines[line].getStations().size()];
+
+				int position = 0;
+				for (Station station : nextLines[line].getStations()) {
+					addedStations[line][position] = nextRegistry.idOf(station);
+					stateCounts[addedStations[line][position++]]++;
+				}
+			}
+		}
+
+		// Copy the kept states, then append the states of the added lines.
+		final int[] nextLineOffsets = prefixSum(stateCounts);
+		final int stateCount = nextLineOffsets[stationCount];
+		final int[] nextStationLines = new int[stateCount];
+		final int[] nextStateStations = new int[stateCount];
+		final int[] nextStatePositions = new int[stateCount];
+		final int[] stateMap = new int[states()];
+		final int[] lineCursor = Arrays.copyOf(nextLineOffsets, stationCount);
+		for (int station = 0; station < size(); station++) {
+			for (int state = lineOffsets[station]; state < lineOffsets[station + 1]; state++) {
+
+				final int line = lineMap[stationLines[state]];
+
+				if (line < 0) {
+					stateMap[state] = -1;
+				} else {
+					final int next = lineCursor[station]++;
+					stateMap[state] = next;
+					nextStationLines[next] = line;
+					nextStateStations[next] = station;
+					nextStatePositions[next] = statePositions[state];
+				}
+			}
+		}
+		final int[][] addedStates = new int[lineCount][];
+		for (int line = 0; line < lineCount; line++) {
+			if (addedStations[line] != null) {
+
+				addedStates[line] = new int[addedStations[line].length];
+
+				for (int position = 0; position < addedStations[line].length; position++) {
+					final int station = addedStations[line][position];
+					final int next = lineCursor[station]++;
+					addedStates[line][position] = next;
+					nextStationLines[next] = line;
+					nextStateStations[next] = station;
+					nextStatePositions[next] = position;
+				}
+			}
+		}
+
+		// Count the kept connections and the open segments of the added lines.
+		final int[] degree = new int[stationCount];
+		for (int station = 0; station < size(); station++) {
+			for (int edge = offsets[station]; edge < offsets[station + 1]; edge++) {
+				if (lineMap[edgeLines[edge]] >= 0) {
+					degree[station]++;
+				}
+			}
+		}
+		for (int line = 0; line < lineCount; line++) {
+			if (addedStations[line] != null) {
+				for (int segment = 0; segment < addedStations[line].length - 1; segment++) {
+
+					final int from = addedStations[line][segment];
+					final int to = addedStations[line][segment + 1];
+
+					if (closures.isOpen(nextLines[line], segment, from, to)) {
+						degree[from]++;
+						degree[to]++;
+					}
+				}
+			}
+		}
+
+		// Copy the kept connections, then add the open segments of the added lines.
+		final int[] nextOffsets = prefixSum(degree);
+		final int[] nextNeighbours = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeLines = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeTimes = new int[nextOffsets[stationCount]];
+		final int[] nextEdgeStates = new int[nextOffsets[stationCount]];
+		final int[] edgeCursor = Arrays.copyOf(nextOffsets, stationCount);
+		for (int station = 0; station < size(); station++) {
+			for (int edge = offsets[station]; edge < offsets[station + 1]; edge++) {
+
+				final int line = lineMap[edgeLines[edge]];
+
+				if (line >= 0) {
+					final int next = edgeCursor[station]++;
+					nextNeighbours[next] = neighbours[edge];
+					nextEdgeLines[next] = line;
+					nextEdgeTimes[next] = edgeTimes[edge];
+					nextEdgeStates[next] = stateMap[edgeStates[edge]];
+				}
+			}
+		}
+		for (int line = 0; line < lineCount; line++) {
+			if (addedStations[line] != null) {
+				for (int segment = 0; segment < addedStations[line].length - 1; segment++) {
+
+					final int from = addedStations[line][segment];
+					final int to = addedStations[line][segment + 1];
+
+					if (closures.isOpen(nextLines[line], segment, from, to)) {
+
+						final int time = nextLines[line].getTravelTime(segment);
+
+						final int forward = edgeCursor[from]++;
+						nextNeighbours[forward] = to;
+						nextEdgeLines[forward] = line;
+						nextEdgeTimes[forward] = time;
+						nextEdgeStates[forward] = addedStates[line][segment + 1];
+
+						final int backward = edgeCursor[to]++;
+						nextNeighbours[backward] = from;
+						nextEdgeLines[backward] = line;
+						nextEdgeTimes[backward] = time;
+						nextEdgeStates[backward] = addedStates[line][segment];
+					}
+				}
+			}
+		}
+
+		// Resolve the adjacent lines of the added and replaced lines by name, and
+		// map those of the lines that are kept as they are.
+		final Map<String, Integer> nextLineIds = new HashMap<>(2 * lineCount);
+		for (int line = 0; line < lineCount; line++) {
+			nextLineIds.put(nextLines[line].getName(), line);
+		}
+		final int[][] adjacent = new int[lineCount][];
+		final int[] adjacentCount = new int[lineCount];
+		for (int line = 0; line < lineCount; line++) {
+
+			final int previous = previousIds[line];
+
+			if (previous >= 0 && lines[previous] == nextLines[line]) {
+
+				adjacent[line] = new int[adjacentLineOffsets[previous + 1] - adjacentLineOffsets[previous]];
+				for (int edge = adjacentLineOffsets[previous]; edge < adjacentLineOffsets[previous + 1]; edge++) {
+					final int mapped = lineMap[adjacentLines[edge]];
+					if (mapped >= 0) {
+						adjacent[line][adjacentCount[line]++] = mapped;
+					}
+				}
+			} else {
+
+				adjacent[line] = new int[nextLines[line].getAdjacentLineNames().size()];
+				for (String name : nextLines[line].getAdjacentLineNames()) {
+					final Integer id = nextLineIds.get(name);
+					if (id != null) {
+						adjacent[line][adjacentCount[line]++] = id;
+					}
+				}
+			}
+		}
+		final int[] nextAdjacentLineOffsets = prefixSum(adjacentCount);
+		final int[] nextAdjacentLines = new int[nextAdjacentLineOffsets[lineCount]];
+		for (int line = 0; line < lineCount; line++) {
+			System.arraycopy(adjacent[line], 0, nextAdjacentLines, nextAdjacentLineOffsets[line], adjacentCount[line]);
+		}
+
+		// New stations take the default transfer penalty.
+		final int[] nextTransferPenalties = Arrays.copyOf(transferPenalties, stationCount);
+		Arrays.fill(nextTransferPenalties, size(), stationCount, defaultTransferPenalty);
+
+		return new Graph(nextLines, nextRegistry, nextOffsets, nextNeighbours, nextEdgeLines, nextEdgeTimes,
+				nextTransferPenalties, nextLineOffsets, nextStationLines, nextStateStations, nextStatePositions,
+				nextEdgeStates, nextAdjacentLineOffsets, nextAdjacentLines);
+	}
+
+	/**
+	 * Retrieves the ids of the {@link Station}s of a {@link Line} in order from
+	 * its first terminal.
+	 *
+	 * @param line
+	 *            The id of the {@link Line}.
+	 * @return The {@link Station} ids.
+	 */
+	int[] stationsOf(int line) {
+
+		final int[] ids = new int[lines[line].getStations().size()];
+
+		int position = 0;
+		for (Station station : lines[line].getStations()) {
+			ids[position++] = registry.idOf(station);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Retrieves whether a {@link Station} is on at least one {@link Line}. A
+	 * {@link Station} whose every {@link Line} has been removed keeps its id but
+	 * is on none.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return Whether the {@link Station} is on a {@link Line}.
+	 */
+	boolean isOnLine(int station) {
+		return lineOffsets[station] < lineOffsets[station + 1];
+	}
+
+	@Override
+	public int size() {
+		return stations.length;
+	}
+
+	@Override
+	public int states() {
+		return stationLines.length;
+	}
+
+	@Override
+	public int offset(int station) {
+		return offsets[station];
+	}
+
+	@Override
+	public int neighbour(int edge) {
+		return neighbours[edge];
+	}
+
+	@Override
+	public int edgeLine(int edge) {
+		return edgeLines[edge];
+	}
+
+	@Override
+	public int edgeTime(int edge) {
+		return edgeTimes[edge];
+	}
+
+	@Override
+	public int edgeState(int edge) {
+		return edgeStates[edge];
+	}
+
+	@Override
+	public int transferPenalty(int station) {
+		return transferPenalties[station];
+	}
+
+	@Override
+	public int lineOffset(int station) {
+		return lineOffsets[station];
+	}
+
+	@Override
+	public int stationLine(int state) {
+		return stationLines[state];
+	}
+
+	@Override
+	public int stateStation(int state) {
+		return stateStations[state];
+	}
+
+	@Override
+	public Station station(int station) {
+		return stations[station];
+	}
+
+	/**
+	 * Retrieves the state of a {@link Station} on one of its {@link Line}s.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @param line
+	 *            The id of the {@link Line}.
+	 * @return The state, or <code>-1</code> if the {@link Station} is not on the
+	 *         {@link Line}.
+	 */
+	int stateOf(int station, int line) {
+
+		for (int state = lineOffsets[station]; state < lineOffsets[station + 1]; state++) {
+			if (stationLines[state] == line) {
+				return state;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Retrieves the position of a {@link Station} on one of its {@link Line}s.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @param line
+	 *            The id of the {@link Line}.
+	 * @return The position of the {@link Station}, counting from <code>0</code>
+	 *         at the first terminal of the {@link Line}.
+	 */
+	int positionOf(int station, int line) {
+		return statePositions[stateOf(station, line)];
+	}
+
+	/**
+	 * Retrieves the id of the specified {@link Station}.
+	 *
+	 * @param station
+	 *            {@link Station}
+	 * @return The id of the {@link Station}, or <code>-1</code> if it is not in
+	 *         this {@link Graph}.
+	 */
+	int idOf(Station station) {
+		return registry.idOf(station);
+	}
+
+	/**
+	 * Retrieves the id of the {@link Line} with the specified name.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return The id of the {@link Line}, or <code>-1</code> if it is not in this
+	 *         {@link Graph}.
+	 */
+	int lineIdOf(String lineName) {
+		final Integer id = lineIds.get(lineName);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Converts the specified counts into the offsets of each group, where the
+	 * last element of the result is the sum of all the counts.
+	 *
+	 * @param counts
+	 *            The number of elements in each group.
+	 * @return The offsets of each group.
+	 */
+	private static int[] prefixSum(int[] counts) {
+
+		final int[] offsets = new int[counts.length + 1];
+
+		for (int index = 0; index < counts.length; index++) {
+			offsets[index + 1] = offsets[index] + counts[index];
+		}
+
+		return offsets;
+	}
+
+}
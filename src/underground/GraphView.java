@@ -0,0 +1,127 @@
+package underground;
+
+/**
+ * A read only view of the compiled connections of a network, which the
+ * {@link StopSearch}, {@link TransferSearch} and {@link TravelTimeSearch}
+ * traverse. It is laid out in the same compressed sparse row form as the
+ * arrays of a {@link Graph}, so a {@link Graph} is searched through its arrays
+ * on the heap and a {@link MappedMetro} through the mapped sections of its
+ * snapshot, with the same search for each {@link RoutingMode}.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Graph
+ */
+interface GraphView {
+
+	/**
+	 * Retrieves the number of {@link Station}s in this {@link GraphView}.
+	 *
+	 * @return The number of {@link Station}s.
+	 */
+	int size();
+
+	/**
+	 * Retrieves the number of states, each a {@link Station} on one of its
+	 * {@link Line}s, in this {@link GraphView}.
+	 *
+	 * @return The number of states.
+	 */
+	int states();
+
+	/**
+	 * Retrieves the index of the first connection of a {@link Station}. The
+	 * connections of <code>s</code> run up to <code>offset(s + 1)</code>.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return {@link Graph#offsets}
+	 */
+	int offset(int station);
+
+	/**
+	 * Retrieves the {@link Station} at the far end of a connection.
+	 *
+	 * @param edge
+	 *            The index of the connection.
+	 * @return {@link Graph#neighbours}
+	 */
+	int neighbour(int edge);
+
+	/**
+	 * Retrieves the {@link Line} of a connection.
+	 *
+	 * @param edge
+	 *            The index of the connection.
+	 * @return {@link Graph#edgeLines}
+	 */
+	int edgeLine(int edge);
+
+	/**
+	 * Retrieves the travel time, in seconds, of a connection.
+	 *
+	 * @param edge
+	 *            The index of the connection.
+	 * @return {@link Graph#edgeTimes}
+	 */
+	int edgeTime(int edge);
+
+	/**
+	 * Retrieves the state at the far end of a connection.
+	 *
+	 * @param edge
+	 *            The index of the connection.
+	 * @return {@link Graph#edgeStates}
+	 */
+	int edgeState(int edge);
+
+	/**
+	 * Retrieves the time, in seconds, it takes to change {@link Line} at a
+	 * {@link Station}.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return {@link Graph#transferPenalties}
+	 */
+	int transferPenalty(int station);
+
+	/**
+	 * Retrieves the first state of a {@link Station}. The states of
+	 * <code>s</code> run up to <code>lineOffset(s + 1)</code>.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return {@link Graph#lineOffsets}
+	 */
+	int lineOffset(int station);
+
+	/**
+	 * Retrieves the {@link Line} of a state.
+	 *
+	 * @param state
+	 *            The state.
+	 * @return {@link Graph#stationLines}
+	 */
+	int stationLine(int state);
+
+	/**
+	 * Retrieves the {@link Station} of a state.
+	 *
+	 * @param state
+	 *            The state.
+	 * @return {@link Graph#stateStations}
+	 */
+	int stateStation(int state);
+
+	/**
+	 * Retrieves the {@link Station} with the specified id, as it is given in
+	 * the paths that are found.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return {@link Station}
+	 */
+	Station station(int station);
+
+}
@@ -0,0 +1,185 @@
+package underground;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of <code>int</code> items, each between <code>0</code>
+ * and the capacity of the heap, ordered by an <code>int</code> key. The heap
+ * tracks the position of every item so that the key of an item already in the
+ * heap can be decreased in place, and nothing is allocated after construction.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see TravelTimeSearch
+ */
+final class IndexedHeap {
+
+	/**
+	 * The items in the heap, in heap order.
+	 */
+	private final int[] heap;
+
+	/**
+	 * The key of each item.
+	 */
+	private final int[] keys;
+
+	/**
+	 * The index of each item in {@link IndexedHeap#heap}, or <code>-1</code> if
+	 * the item is not in the heap.
+	 */
+	private final int[] positions;
+
+	/**
+	 * The number of items in the heap.
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new empty {@link IndexedHeap} that can hold the items from
+	 * <code>0</code> up to but not including the specified capacity.
+	 *
+	 * @param capacity
+	 *            The number of possible items.
+	 */
+	IndexedHeap(int capacity) {
+
+		this.heap = new int[capacity];
+		this.keys = new int[capacity];
+		this.positions = new int[capacity];
+		this.size = 0;
+
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Retrieves whether the heap is empty.
+	 *
+	 * @return Whether there are no items in the heap.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes every item from the heap. Only the items in the heap are touched.
+	 */
+	void clear() {
+
+		for (int index = 0; index < size; index++) {
+			positions[heap[index]] = -1;
+		}
+
+		size = 0;
+	}
+
+	/**
+	 * Adds an item to the heap, or lowers its key if it is already in the heap
+	 * with a larger key.
+	 *
+	 * @param item
+	 *            The item.
+	 * @param key
+	 *            The key of the item.
+	 */
+	void offer(int item, int key) {
+
+		int index = positions[item];
+
+		if (index < 0) {
+			index = size++;
+		} else if (key >= keys[item]) {
+			return;
+		}
+
+		keys[item] = key;
+		siftUp(item, index);
+	}
+
+	/**
+	 * Removes the item with the smallest key from the heap.
+	 *
+	 * @return The item with the smallest key.
+	 */
+	int poll() {
+
+		final int top = heap[0];
+		positions[top] = -1;
+
+		final int last = heap[--size];
+
+		if (size > 0) {
+			siftDown(last, 0);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Moves an item up from the specified index until its parent has a smaller
+	 * or equal key.
+	 *
+	 * @param item
+	 *            The item to place.
+	 * @param index
+	 *            The index the item starts at.
+	 */
+	private void siftUp(int item, int index) {
+
+		final int key = keys[item];
+
+		while (index > 0) {
+
+			final int parent = (index - 1) >>> 1;
+
+			if (keys[heap[parent]] <= key) {
+				break;
+			}
+
+			heap[index] = heap[parent];
+			positions[heap[index]] = index;
+			index = parent;
+		}
+
+		heap[index] = item;
+		positions[item] = index;
+	}
+
+	/**
+	 * Moves an item down from the specified index until both of its children
+	 * have larger or equal keys.
+	 *
+	 * @param item
+	 *            The item to place.
+	 * @param index
+	 *            The index the item starts at.
+	 */
+	private void siftDown(int item, int index) {
+
+		final int key = keys[item];
+		final int half = size >>> 1;
+
+		while (index < half) {
+
+			int child = 2 * index + 1;
+			final int right = child + 1;
+
+			if (right < size && keys[heap[right]] < keys[heap[child]]) {
+				child = right;
+			}
+
+			if (key <= keys[heap[child]]) {
+				break;
+			}
+
+			heap[index] = heap[child];
+			positions[heap[index]] = index;
+			index = child;
+		}
+
+		heap[index] = item;
+		positions[item] = index;
+	}
+
+}
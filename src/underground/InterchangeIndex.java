@@ -0,0 +1,284 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the interchange {@link Station}s between every pair of
+ * {@link Line}s of a {@link Graph} that share at least one {@link Station}.
+ * Looking up the interchanges of a pair of {@link Line}s is a single hash
+ * lookup, and the position of each interchange on either {@link Line} is then
+ * available from {@link Graph#positionOf(int, int)}.
+ *
+ * <p>
+ * An index of a {@link Graph} with added or removed {@link Line}s shares the
+ * interchanges of the index it was made from and holds only the pairs of the
+ * changed {@link Line}s itself, until there are enough of those that merging
+ * them into one {@link Map} is cheap by comparison.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro
+ */
+final class InterchangeIndex {
+
+	/**
+	 * The result of {@link InterchangeIndex#between(int, int)} for two
+	 * {@link Line}s that do not share a {@link Station}.
+	 */
+	private static final int[] NONE = new int[0];
+
+	/**
+	 * The {@link Map} of each pair of {@link Line} ids, as given by
+	 * {@link InterchangeIndex#pairOf(int, int)}, to the ids of the
+	 * {@link Station}s that are on both {@link Line}s.
+	 */
+	private final Map<Long, int[]> interchanges;
+
+	/**
+	 * The {@link Map} of the pairs whose interchanges differ from those in
+	 * {@link InterchangeIndex#interchanges}, which it may share with other
+	 * {@link InterchangeIndex}es. A pair that no longer shares a {@link Station}
+	 * maps to {@link InterchangeIndex#NONE}.
+	 */
+	private final Map<Long, int[]> overrides;
+
+	/**
+	 * Constructs a new {@link InterchangeIndex} of the specified {@link Graph}.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 */
+	InterchangeIndex(Graph graph) {
+
+		// Count the interchanges of each pair of lines.
+		final Map<Long, Integer> counts = new HashMap<>();
+		forEachPair(graph, (station, pair) -> counts.merge(pair, 1, Integer::sum));
+
+		this.interchanges = new HashMap<>(2 * counts.size());
+		this.overrides = Collections.emptyMap();
+		counts.forEach((pair, count) -> interchanges.put(pair, new int[count]));
+
+		// Fill the interchanges of each pair, reusing the counts as cursors.
+		forEachPair(graph, (station, pair) -> {
+			final int index = counts.merge(pair, -1, Integer::sum);
+			interchanges.get(pair)[index] = station;
+		});
+	}
+
+	/**
+	 * Constructs a new {@link InterchangeIndex} from the interchanges of each
+	 * pair of adjacent {@link Line}s of the specified {@link Graph}, in the
+	 * order of {@link Graph#adjacentLines}.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 * @param offsets
+	 *            The index into <code>stations</code> of the first interchange
+	 *            of each element of {@link Graph#adjacentLines}. Has one more
+	 *            element than {@link Graph#adjacentLines}.
+	 * @param stations
+	 *            The ids of the interchange {@link Station}s of each pair,
+	 *            grouped by <code>offsets</code>.
+	 */
+	InterchangeIndex(Graph graph, int[] offsets, int[] stations) {
+
+		this.interchanges = new HashMap<>(2 * graph.adjacentLines.length);
+		this.overrides = Collections.emptyMap();
+
+		for (int line = 0; line < graph.lines.length; line++) {
+			for (int edge = graph.adjacentLineOffsets[line]; edge < graph.adjacentLineOffsets[line + 1]; edge++) {
+				if (offsets[edge] < offsets[edge + 1]) {
+					interchanges.put(pairOf(line, graph.adjacentLines[edge]),
+							Arrays.copyOfRange(stations, offsets[edge], offsets[edge + 1]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new {@link InterchangeIndex} of a {@link Graph} made from the
+	 * {@link Graph} of another {@link InterchangeIndex} by
+	 * {@link Graph#withLines(Line[], int[], StationRegistry, int, Closures)}.
+	 * Only the pairs of the {@link Line} ids that hold a different
+	 * {@link Line} than before are found again.
+	 *
+	 * @param previous
+	 *            The {@link InterchangeIndex} of the previous {@link Graph}.
+	 * @param previousGraph
+	 *            The previous {@link Graph}.
+	 * @param graph
+	 *            The new {@link Graph}.
+	 * @param lineMap
+	 *            The id in the new {@link Graph} of each {@link Line} of the
+	 *            previous {@link Graph}, or <code>-1</code> if it was removed.
+	 */
+	InterchangeIndex(InterchangeIndex previous, Graph previousGraph, Graph graph, int[] lineMap) {
+
+		final Map<Long, int[]> changed = new HashMap<>(previous.overrides);
+
+		// Forget the pairs of every id whose line was removed or moved.
+		for (int line = 0; line < lineMap.length; line++) {
+			if (lineMap[line] != line) {
+				for (int edge = previousGraph.adjacentLineOffsets[line]; edge < previousGraph.adjacentLineOffsets[line
+						+ 1]; edge++) {
+					changed.put(pairOf(line, previousGraph.adjacentLines[edge]), NONE);
+					changed.put(pairOf(previousGraph.adjacentLines[edge], line), NONE);
+				}
+			}
+		}
+
+		// Find the pairs of every id that now holds a different line.
+		for (int line = 0; line < graph.lines.length; line++) {
+			if (line >= lineMap.length || lineMap[line] != line) {
+				putPairsOf(graph, line, changed);
+			}
+		}
+
+		// Merge the changes once they are a large share of the shared pairs.
+		if (changed.size() > previous.interchanges.size() / 4) {
+
+			this.interchanges = new HashMap<>(previous.interchanges);
+			this.overrides = Collections.emptyMap();
+
+			changed.forEach((pair, stations) -> {
+				if (stations == NONE) {
+					interchanges.remove(pair);
+				} else {
+					interchanges.put(pair, stations);
+				}
+			});
+		} else {
+			this.interchanges = previous.interchanges;
+			this.overrides = changed;
+		}
+	}
+
+	/**
+	 * Retrieves the ids of the {@link Station}s that are on both of the
+	 * specified {@link Line}s.
+	 *
+	 * @param lineA
+	 *            The id of a {@link Line}.
+	 * @param lineB
+	 *            The id of another {@link Line}.
+	 * @return The ids of the interchange {@link Station}s. The array must not be
+	 *         modified.
+	 */
+	int[] between(int lineA, int lineB) {
+
+		final long pair = pairOf(lineA, lineB);
+		final int[] override = overrides.get(pair);
+
+		return override != null ? override : interchanges.getOrDefault(pair, NONE);
+	}
+
+	/**
+	 * Retrieves the key of an ordered pair of {@link Line} ids. The two ids are
+	 * packed into one <code>long</code> which is then scrambled by multiplying
+	 * by an odd constant, which keeps every key distinct. Without scrambling
+	 * the hash of the key would be <code>lineA ^ lineB</code>, which collides
+	 * for every pair of neighbouring {@link Line} ids.
+	 *
+	 * @param lineA
+	 *            The id of a {@link Line}.
+	 * @param lineB
+	 *            The id of another {@link Line}.
+	 * @return The key of the pair.
+	 */
+	private static long pairOf(int lineA, int lineB) {
+		return (((long) lineA << 32) | lineB) * 0x9E3779B97F4A7C15L;
+	}
+
+	/**
+	 * Finds the interchanges between one {@link Line} and each {@link Line} it
+	 * shares a {@link Station} with, and puts them into a {@link Map} under both
+	 * orders of each pair.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 * @param line
+	 *            The id of the {@link Line}.
+	 * @param interchanges
+	 *            The {@link Map} the interchanges are put into.
+	 */
+	private static void putPairsOf(Graph graph, int line, Map<Long, int[]> interchanges) {
+
+		final int[] stations = graph.stationsOf(line);
+
+		// Count the interchanges with each other line.
+		final Map<Integer, Integer> counts = new HashMap<>();
+		for (int station : stations) {
+			for (int state = graph.lineOffsets[station]; state < graph.lineOffsets[station + 1]; state++) {
+				if (graph.stationLines[state] != line) {
+					counts.merge(graph.stationLines[state], 1, Integer::sum);
+				}
+			}
+		}
+
+		final Map<Integer, int[]> between = new HashMap<>(2 * counts.size());
+		counts.forEach((other, count) -> between.put(other, new int[count]));
+
+		// Fill the interchanges with each other line, reusing the counts as cursors.
+		for (int station : stations) {
+			for (int state = graph.lineOffsets[station]; state < graph.lineOffsets[station + 1]; state++) {
+
+				final int other = graph.stationLines[state];
+
+				if (other != line) {
+					between.get(other)[counts.merge(other, -1, Integer::sum)] = station;
+				}
+			}
+		}
+
+		between.forEach((other, shared) -> {
+			interchanges.put(pairOf(line, other), shared);
+			interchanges.put(pairOf(other, line), shared);
+		});
+	}
+
+	/**
+	 * Performs an action for every {@link Station} and every ordered pair of
+	 * different {@link Line}s that {@link Station} is on.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 * @param action
+	 *            The action performed with the {@link Station} id and the key of
+	 *            the pair of {@link Line}s.
+	 */
+	private static void forEachPair(Graph graph, PairAction action) {
+
+		for (int station = 0; station < graph.size(); station++) {
+			for (int a = graph.lineOffsets[station]; a < graph.lineOffsets[station + 1]; a++) {
+				for (int b = graph.lineOffsets[station]; b < graph.lineOffsets[station + 1]; b++) {
+					if (a != b) {
+						action.accept(station, pairOf(graph.stationLines[a], graph.stationLines[b]));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * An action performed on a {@link Station} id and a pair of {@link Line}s.
+	 */
+	@FunctionalInterface
+	private interface PairAction {
+
+		/**
+		 * Performs this action.
+		 *
+		 * @param station
+		 *            The id of the {@link Station}.
+		 * @param pair
+		 *            The key of the pair of {@link Line}s.
+		 */
+		void accept(int station, long pair);
+	}
+
+}
@@ -0,0 +1,305 @@
+package underground;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets whose width grows with the latency, so that any
+ * latency from one nanosecond to about eighteen minutes is held to within 1%
+ * in a fixed amount of memory, in the manner of an HDR histogram. Percentiles
+ * are read from the counts rather than from every recorded latency, and longer
+ * latencies are counted in the last bucket.
+ *
+ * <p>
+ * A {@link LatencyHistogram} is thread safe. Recording is a couple of atomic
+ * additions to counts that are split into stripes by thread, so threads on
+ * different cores rarely write to the same counts. Reading adds the stripes
+ * together, so it is only as consistent as the recording going on at the same
+ * time allows.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * The number of bits of each latency that are kept exactly. Every bucket
+	 * is at most <code>2<sup>-SUB_BUCKET_BITS</sup></code> of its latency wide.
+	 */
+	private static final int SUB_BUCKET_BITS = 7;
+
+	/**
+	 * The number of buckets of each power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The number of bits of the longest latency that has a bucket of its own.
+	 */
+	private static final int HIGHEST_BITS = 40;
+
+	/**
+	 * The number of buckets.
+	 */
+	private static final int BUCKETS = (HIGHEST_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/**
+	 * The index within each stripe of the sum of its latencies, after the
+	 * counts of the buckets.
+	 */
+	private static final int SUM = BUCKETS;
+
+	/**
+	 * The most stripes a {@link LatencyHistogram} has.
+	 */
+	private static final int MAX_STRIPES = 8;
+
+	/**
+	 * The number of stripes of every {@link LatencyHistogram}, a power of two.
+	 */
+	private static final int STRIPES = Math.min(MAX_STRIPES,
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+	/**
+	 * The counts of each bucket, followed by the sum of the latencies, of each
+	 * stripe.
+	 */
+	private final AtomicLongArray[] stripes;
+
+	/**
+	 * The largest recorded latency.
+	 */
+	private final AtomicLong max;
+
+	/**
+	 * Constructs a new empty {@link LatencyHistogram}.
+	 */
+	public LatencyHistogram() {
+		this(STRIPES);
+	}
+
+	/**
+	 * Constructs a new empty {@link LatencyHistogram} with the specified number
+	 * of stripes.
+	 *
+	 * @param stripeCount
+	 *            The number of stripes, a power of two.
+	 */
+	private LatencyHistogram(int stripeCount) {
+
+		this.stripes = new AtomicLongArray[stripeCount];
+		for (int stripe = 0; stripe < stripeCount; stripe++) {
+			stripes[stripe] = new AtomicLongArray(BUCKETS + 1);
+		}
+
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos
+	 *            The latency, in nanoseconds. A negative latency is recorded as
+	 *            <code>0</code>.
+	 */
+	public void record(long nanos) {
+
+		final long value = Math.max(0, nanos);
+
+		@SuppressWarnings("deprecation")
+		final AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+		stripe.incrementAndGet(indexOf(value));
+		stripe.addAndGet(SUM, value);
+
+		// Only write the maximum when it grows, which is rare once warm.
+		long current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+		}
+	}
+
+	/**
+	 * Adds the latencies recorded by another {@link LatencyHistogram} to this
+	 * one.
+	 *
+	 * @param other
+	 *            {@link LatencyHistogram}
+	 */
+	public void add(LatencyHistogram other) {
+
+		final long[] counts = other.merged();
+		final AtomicLongArray stripe = stripes[0];
+
+		for (int index = 0; index <= SUM; index++) {
+			if (counts[index] != 0) {
+				stripe.addAndGet(index, counts[index]);
+			}
+		}
+
+		final long otherMax = other.getMax();
+		long current;
+		while (otherMax > (current = max.get()) && !max.compareAndSet(current, otherMax)) {
+		}
+	}
+
+	/**
+	 * Copies the latencies recorded so far into a new {@link LatencyHistogram},
+	 * which does not change as more are recorded into this one.
+	 *
+	 * @return {@link LatencyHistogram}
+	 */
+	public LatencyHistogram snapshot() {
+
+		final LatencyHistogram snapshot = new LatencyHistogram(1);
+		snapshot.add(this);
+
+		return snapshot;
+	}
+
+	/**
+	 * Retrieves the number of recorded latencies.
+	 *
+	 * @return The number of latencies.
+	 */
+	public long getCount() {
+		return countOf(merged());
+	}
+
+	/**
+	 * Retrieves the mean of the recorded latencies.
+	 *
+	 * @return The mean, in nanoseconds, or <code>0</code> if none are
+	 *         recorded.
+	 */
+	public double getMean() {
+
+		final long[] counts = merged();
+		final long total = countOf(counts);
+
+		return total == 0 ? 0 : (double) counts[SUM] / total;
+	}
+
+	/**
+	 * Retrieves the largest recorded latency, exactly.
+	 *
+	 * @return The largest latency, in nanoseconds.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Retrieves the latency that the specified percentage of the recorded
+	 * latencies are at or below, to within the width of its bucket.
+	 *
+	 * @param percentile
+	 *            The percentage, from <code>0</code> to <code>100</code>.
+	 * @return The latency, in nanoseconds, or <code>0</code> if none are
+	 *         recorded.
+	 */
+	public long getPercentile(double percentile) {
+
+		// Check parameters
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be from 0 to 100.");
+		}
+
+		final long[] counts = merged();
+		final long total = countOf(counts);
+
+		if (total == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		final long largest = getMax();
+
+		long seen = 0;
+		for (int index = 0; index < BUCKETS; index++) {
+			seen += counts[index];
+			if (seen >= rank) {
+				return Math.min(largest, highestOf(index));
+			}
+		}
+
+		return largest;
+	}
+
+	/**
+	 * Adds the stripes together.
+	 *
+	 * @return The counts of each bucket, followed by the sum of the latencies.
+	 */
+	private long[] merged() {
+
+		final long[] counts = new long[BUCKETS + 1];
+
+		for (AtomicLongArray stripe : stripes) {
+			for (int index = 0; index <= SUM; index++) {
+				counts[index] += stripe.get(index);
+			}
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Retrieves the number of latencies of merged counts.
+	 *
+	 * @param counts
+	 *            The counts, as given by {@link LatencyHistogram#merged()}.
+	 * @return The number of latencies.
+	 */
+	private static long countOf(long[] counts) {
+
+		long total = 0;
+		for (int index = 0; index < BUCKETS; index++) {
+			total += counts[index];
+		}
+
+		return total;
+	}
+
+	/**
+	 * Retrieves the bucket of a latency.
+	 *
+	 * @param value
+	 *            The latency, which is not negative.
+	 * @return The index of its bucket.
+	 */
+	private static int indexOf(long value) {
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+		// Small latencies have a bucket each.
+		if (exponent < SUB_BUCKET_BITS) {
+			return (int) value;
+		} else if (exponent >= HIGHEST_BITS) {
+			return BUCKETS - 1;
+		}
+
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Retrieves the highest latency of a bucket.
+	 *
+	 * @param index
+	 *            The index of the bucket.
+	 * @return The highest latency, in nanoseconds.
+	 */
+	private static long highestOf(int index) {
+
+		final int band = index / SUB_BUCKETS;
+		if (band == 0) {
+			return index;
+		}
+
+		final int shift = band - 1;
+		final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
@@ -1,10 +1,14 @@
 package underground;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 /**
@@ -21,6 +25,11 @@ import java.util.Set;
 public class Line {
 	//=========================================================================
 	//Static fields.
+	/**
+	 * The travel time, in seconds, between two neighbouring {@link Station}
+	 * objects of a {@code Line} when no travel time is specified.
+	 */
+	public static final int DEFAULT_TRAVEL_TIME = 120;
 	/**
 	 * The {@link String} which is used to separate the {@link #name} of a
 	 * {@code Line} and the {@link Station} objects within a the {@code Line}.
@@ -68,6 +77,27 @@ public class Line {
 	private static final String NULL_ADJACENT_LINES =
 			"The Map representing afjacent lines and shared stations cannot"
 			+ "be null";
+	/**
+	 * The {@link String} representing the error message for when a
+	 * {@code Line} is created with a different number of travel times than
+	 * there are pairs of neighbouring {@link Station} objects.
+	 */
+	private static final String TRAVEL_TIME_COUNT =
+			"A line must have one travel time between each pair of "
+			+ "neighbouring stations";
+	/**
+	 * The {@link String} representing the error message for when a
+	 * {@code Line} is created with a negative travel time.
+	 */
+	private static final String NEGATIVE_TRAVEL_TIME =
+			"A travel time cannot be negative";
+	/**
+	 * The {@link String} representing the error message for when a path is
+	 * requested between {@link Station} objects which are not on the
+	 * {@code Line}.
+	 */
+	private static final String STATION_NOT_ON_LINE =
+			"Both stations of a path must be on the line";
 	//=========================================================================
 	//Fields.
 	/**
@@ -88,6 +118,16 @@ public class Line {
 	 * <code>this</code> {@code Line}.
 	 */
 	private final Set<Station> stations;
+	/**
+	 * The {@link Station} objects of <code>this</code> {@code Line} in order,
+	 * from the first termini to the last termini.
+	 */
+	private final Station[] sequence;
+	/**
+	 * The {@link Map} of each {@link Station} object in {@link #sequence} to
+	 * its index in {@link #sequence}.
+	 */
+	private final Map<Station, Integer> ordinals;
 	/**
 	 * The {@link Map} of {@link String} object which represent the names of
 	 * lines which exist adjacent to <code>this</code> {@code Line}. The values
@@ -101,6 +141,13 @@ public class Line {
 	 * </p>
 	 */
 	private final Map<String, Set<Station>> adjacentLines;
+	/**
+	 * The travel time, in seconds, between each pair of neighbouring
+	 * {@link Station} objects in {@link #stations}, where the travel time at
+	 * index <code>i</code> is between the {@link Station} objects at index
+	 * <code>i</code> and <code>i + 1</code>.
+	 */
+	private final int[] travelTimes;
 	//=========================================================================
 	//Constructors.
 	/**
@@ -128,6 +175,34 @@ public class Line {
 			String name,
 			Set<Station> stations,
 			Map<String, Set<Station>> adjasentLines)
+	{
+		this(name, stations, adjasentLines, null);
+	}
+	/**
+	 * Create a new {@code Line} object with the travel time between each pair
+	 * of neighbouring {@link Station} objects.
+	 * 
+	 * @param name The name of the {@code Line} to be created.
+	 * @param stations The {@link Set} of {@link Station} objects which exist
+	 * 			on the {@code Line} to be created.
+	 * @param adjasentLines The {@link Map} of {@link String} objects which
+	 * 			represents the {@code Line} objects which are directly
+	 * 			connected to the created {@code Line}, to the {@link Station}
+	 * 			objects which are shared with them.
+	 * @param travelTimes The travel time, in seconds, between each pair of
+	 * 			neighbouring {@link Station} objects in the order of
+	 * 			<code>stations</code>, or <code>null</code> to use the
+	 * 			{@link #DEFAULT_TRAVEL_TIME} for every pair.
+	 * @throws IllegalArgumentException If the number of travel times is not
+	 * 			one less than the number of {@link Station} objects, or if a
+	 * 			travel time is negative.
+	 * @see Station
+	 */
+	public Line(
+			String name,
+			Set<Station> stations,
+			Map<String, Set<Station>> adjasentLines,
+			int[] travelTimes)
 	{
 		if(name == null)
 			throw new NullPointerException(NULL_NAME);
@@ -146,12 +221,36 @@ public class Line {
 				new LinkedHashSet<>(stations));
 		this.adjacentLines = Collections.unmodifiableMap(
 				new HashMap<>(adjasentLines));
-		final Station[] stationArray = stations.toArray(
-				new Station[stations.size()]);
+		final Station[] stationArray = this.stations.toArray(
+				new Station[this.stations.size()]);
+		this.sequence = stationArray;
+		
+		//Index the position of each station along the line.
+		final Map<Station, Integer> positions = new HashMap<>(
+				2 * stationArray.length);
+		for(int i = 0; i < stationArray.length; ++i)
+			positions.put(stationArray[i], i);
+		this.ordinals = Collections.unmodifiableMap(positions);
 		
 		//Set the first and last termini.
 		firstTermini = stationArray[0];
 		lastTermini = stationArray[stationArray.length - 1];
+		
+		//Use the default travel time if none were given.
+		if(travelTimes == null)
+		{
+			this.travelTimes = new int[stationArray.length - 1];
+			Arrays.fill(this.travelTimes, DEFAULT_TRAVEL_TIME);
+		}
+		else
+		{
+			if(travelTimes.length != stationArray.length - 1)
+				throw new IllegalArgumentException(TRAVEL_TIME_COUNT);
+			for(final int time: travelTimes)
+				if(time < 0)
+					throw new IllegalArgumentException(NEGATIVE_TRAVEL_TIME);
+			this.travelTimes = travelTimes.clone();
+		}
 
 	}
 	//=========================================================================
@@ -223,6 +322,69 @@ public class Line {
 	{
 		return stations;
 	}
+	/**
+	 * Get the position of a {@link Station} on <code>this</code>
+	 * {@code Line}.
+	 * 
+	 * @param station The {@link Station} to find.
+	 * @return The position of <code>station</code>, counting from
+	 * 			<code>0</code> at the {@link #firstTerminal()}, or
+	 * 			<code>-1</code> if <code>station</code> is not on
+	 * 			<code>this</code> {@code Line}.
+	 */
+	public final int indexOf(final Station station)
+	{
+		if(station == null)
+			throw new NullPointerException(NULL_STATION_MESSAGE);
+		final Integer index = ordinals.get(station);
+		return index == null ? -1 : index;
+	}
+	/**
+	 * Get the {@link Station} objects along <code>this</code> {@code Line}
+	 * from one {@link Station} to another, in either direction.
+	 * 
+	 * <p>
+	 * The returned {@link List} is an unmodifiable view of
+	 * <code>this</code> {@code Line}, so getting it does not copy any
+	 * {@link Station} objects.
+	 * </p>
+	 * 
+	 * @param from The {@link Station} at the start of the {@link List}.
+	 * @param to The {@link Station} at the end of the {@link List}.
+	 * @return The {@link List} of {@link Station} objects from
+	 * 			<code>from</code> to <code>to</code>, including both.
+	 * @throws IllegalArgumentException If either {@link Station} is not on
+	 * 			<code>this</code> {@code Line}.
+	 */
+	public final List<Station> getPathBetween(
+			final Station from,
+			final Station to)
+			throws
+			IllegalArgumentException
+	{
+		final int start = indexOf(from);
+		final int end = indexOf(to);
+		if(start < 0 || end < 0)
+			throw new IllegalArgumentException(STATION_NOT_ON_LINE);
+		return new Leg(sequence, start, end);
+	}
+	/**
+	 * Get the travel time between two neighbouring {@link Station} objects on
+	 * <code>this</code> {@code Line}.
+	 * 
+	 * @param segment The index of the first of the two {@link Station}
+	 * 			objects, in the order of {@link #getStations()}.
+	 * @return The travel time, in seconds, between the {@link Station} at
+	 * 			index <code>segment</code> and the next {@link Station}.
+	 * @throws IndexOutOfBoundsException If there is no {@link Station} after
+	 * 			the {@link Station} at index <code>segment</code>.
+	 */
+	public final int getTravelTime(final int segment)
+			throws
+			IndexOutOfBoundsException
+	{
+		return travelTimes[segment];
+	}
 	/**
 	 * Get the names of the {@code Line} object which exist adjacent to
 	 * <code>this</code>.
@@ -333,4 +495,62 @@ public class Line {
 			.append(iter.next());
 		return sb.toString();
 	}
+	//=========================================================================
+	//Nested classes.
+	/**
+	 * The {@code Leg} class is an unmodifiable {@link List} view of a range of
+	 * the {@link Station} objects of a {@link Line}, in either direction.
+	 */
+	private static final class Leg
+			extends AbstractList<Station>
+			implements RandomAccess
+	{
+		/**
+		 * The {@link Station} objects of the {@link Line} in order.
+		 */
+		private final Station[] sequence;
+		/**
+		 * The index in {@link #sequence} of the first {@link Station} of
+		 * <code>this</code> {@code Leg}.
+		 */
+		private final int start;
+		/**
+		 * The number of {@link Station} objects in <code>this</code>
+		 * {@code Leg}.
+		 */
+		private final int size;
+		/**
+		 * The step through {@link #sequence}, which is <code>1</code> to go
+		 * towards the last termini and <code>-1</code> to go towards the
+		 * first termini.
+		 */
+		private final int step;
+		/**
+		 * Create a new {@code Leg} from one index of a sequence of
+		 * {@link Station} objects to another.
+		 * 
+		 * @param sequence The {@link Station} objects of a {@link Line}.
+		 * @param start The index of the first {@link Station}.
+		 * @param end The index of the last {@link Station}.
+		 */
+		private Leg(final Station[] sequence, final int start, final int end)
+		{
+			this.sequence = sequence;
+			this.start = start;
+			this.size = Math.abs(end - start) + 1;
+			this.step = end < start ? -1 : 1;
+		}
+		@Override
+		public Station get(final int index)
+		{
+			if(index < 0 || index >= size)
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			return sequence[start + step * index];
+		}
+		@Override
+		public int size()
+		{
+			return size;
+		}
+	}
 }
@@ -1,5 +1,13 @@
 package underground;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 /**
  * 
  * The {@code Main} class is the class which contains the entry point for this
@@ -16,6 +24,50 @@ package underground;
  * @version 11/12/2017
  */
 public class Main {
+	/**
+	 * The name of the directory which contains the network files.
+	 */
+	private static final String RESOURCES = "Resources";
+	/**
+	 * The name of the file of lines, where each line is
+	 * <code>line,station,station,...</code>.
+	 */
+	static final String NETWORK = "MTRsystem_partial.csv";
+	/**
+	 * The name of the optional file of travel times, where each line is
+	 * <code>line,station,station,seconds</code>.
+	 */
+	static final String TRAVEL_TIMES = "MTRsystem_times.csv";
+	/**
+	 * The name of the optional file of transfer penalties, where each line is
+	 * <code>station,seconds</code>.
+	 */
+	static final String TRANSFER_PENALTIES = "MTRsystem_transfers.csv";
+	/**
+	 * The name of the binary snapshot of the compiled {@link Metro}, which is
+	 * written after the {@link Metro} is built from the comma separated
+	 * values files and is loaded instead while it is newer than all of them.
+	 */
+	private static final String SNAPSHOT = "MTRsystem.snapshot";
+	/**
+	 * The argument which makes the program answer queries from a
+	 * {@link MappedMetro} of the {@link #SNAPSHOT}, so that every process
+	 * started with it shares one copy of the network.
+	 */
+	private static final String MAPPED_OPTION = "--mapped";
+	/**
+	 * The argument which makes the program record the latency and failures
+	 * of every request with a {@link MetricsController}, time the
+	 * {@link RoutePhase}s, and print the metrics when it exits.
+	 */
+	private static final String METRICS_OPTION = "--metrics";
+	/**
+	 * The argument which makes the program serve requests over HTTP with a
+	 * {@link ControllerServer} instead of the {@link TUI}, on the
+	 * {@link ControllerServer#DEFAULT_PORT} or on the port given after an
+	 * equals sign, such as <code>--http=9000</code>.
+	 */
+	private static final String HTTP_OPTION = "--http";
 	/**
 	 * The main method of the program.
 	 * 
@@ -24,35 +76,401 @@ public class Main {
 	 * </p>
 	 * 
 	 * <p>
-	 * When run, the MTRsystem_partial.csv file will be read to construct a
+	 * When run, the MTRsystem_partial.csv file will be streamed by a
+	 * {@link CsvReader} to construct a
 	 * {@link Metro} object from the contents of the file, then a {@link TUI}
 	 * and a {@link RequestHandler} will also be set up allow for interaction
 	 * which he {@link Metro} representing the read file.
 	 * </p>
 	 * 
+	 * <p>
+	 * If the {@link #TRAVEL_TIMES} or {@link #TRANSFER_PENALTIES} files
+	 * exist, they are also read into the {@link Metro} for finding the
+	 * fastest paths.
+	 * </p>
+	 * 
+	 * <p>
+	 * If the {@link #SNAPSHOT} is newer than the files it was built from, the
+	 * {@link Metro} is loaded from it instead of being built again. If the
+	 * {@link #MAPPED_OPTION} is passed, the {@link #SNAPSHOT} is instead
+	 * memory mapped as a {@link MappedMetro}.
+	 * </p>
+	 * 
+	 * <p>
+	 * While the program runs, a {@link NetworkReloader} rebuilds the
+	 * {@link Metro} whenever one of the files changes and swaps it into the
+	 * {@link RequestHandler}.
+	 * </p>
+	 * 
+	 * <p>
+	 * If the {@link #METRICS_OPTION} is passed, the {@link RequestHandler} is
+	 * wrapped in a {@link MetricsController} whose metrics are printed when
+	 * the program exits.
+	 * </p>
+	 * 
+	 * <p>
+	 * If the {@link #HTTP_OPTION} is passed, the requests are served over
+	 * HTTP by a {@link ControllerServer} until the program is stopped,
+	 * rather than read from the {@link TUI}.
+	 * </p>
+	 * 
 	 * @param args The {@link string} objects passed as arguments to the
 	 * 		program.
 	 */
 	public static void main(String...args){
 		
+		//Setup the TUI, controller and load or build the Metro.
+		final boolean mapped = Arrays.asList(args).contains(MAPPED_OPTION);
+		final RequestHandler handler = new RequestHandler(
+				mapped ? loadMappedMetro() : loadMetro());
+		
+		//Rebuild the network in the background whenever its files change.
+		try
+		{
+			new NetworkReloader(
+					handler,
+					Paths.get(RESOURCES),
+					Arrays.asList(NETWORK, TRAVEL_TIMES, TRANSFER_PENALTIES),
+					mapped ? Main::remapMetro : Main::rebuildMetro).start();
+		}
+		catch(final IOException e)
+		{
+			System.out.println("Failed to watch " + RESOURCES);
+		}
+		
+		//Record the metrics of every request, if asked to.
+		Controller controller = handler;
+		if(Arrays.asList(args).contains(METRICS_OPTION))
+		{
+			final MetricsController metrics = new MetricsController(
+					handler,
+					true);
+			Runtime.getRuntime().addShutdownHook(new Thread(
+					() -> System.out.print(metrics.snapshot().toText())));
+			controller = metrics;
+		}
+		
+		//Serve the requests over HTTP instead of the TUI, if asked to.
+		for(final String arg: args)
+		{
+			if(arg.equals(HTTP_OPTION) || arg.startsWith(HTTP_OPTION + "="))
+			{
+				serve(controller, arg.equals(HTTP_OPTION)
+						? String.valueOf(ControllerServer.DEFAULT_PORT)
+						: arg.substring(HTTP_OPTION.length() + 1));
+				return;
+			}
+		}
+		
+		final TUI tui = new TUI(controller);
+	}
+	/**
+	 * Serve the requests of a {@link Controller} over HTTP with a
+	 * {@link ControllerServer}, which runs until the program is stopped.
+	 * 
+	 * <p>
+	 * If the port is not a number or cannot be listened on a message is
+	 * printed instead.
+	 * </p>
+	 * 
+	 * @param controller The {@link Controller} which answers the requests.
+	 * @param port The port to listen on.
+	 */
+	private static void serve(
+			final Controller controller,
+			final String port)
+	{
+		try
+		{
+			final ControllerServer server = new ControllerServer(
+					controller,
+					new InetSocketAddress(Integer.parseInt(port)));
+			Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+			server.start();
+			System.out.println("Serving on port "
+					+ server.getAddress().getPort()
+					+ (server.isVirtual()
+							? " with virtual threads"
+							: " with platform threads"));
+		}
+		catch(final IllegalArgumentException e)
+		{
+			System.out.println("Invalid port " + port);
+		}
+		catch(final IOException e)
+		{
+			System.out.println("Failed to listen on port " + port);
+		}
+	}
+	/**
+	 * Map the {@link #SNAPSHOT} as a {@link MappedMetro} if it is newer than
+	 * the comma separated values files. Otherwise the {@link Metro} is built
+	 * by {@link #loadMetro()}, which writes a new {@link #SNAPSHOT} for the
+	 * next process to map.
+	 * 
+	 * @return The {@link Network}.
+	 */
+	private static Network loadMappedMetro()
+	{
+		final Path snapshot = Paths.get(RESOURCES, SNAPSHOT);
+		if(isNewerThanSources(snapshot.toFile()))
+		{
+			try
+			{
+				return MappedMetro.open(snapshot);
+			}
+			catch(final IOException e)
+			{
+				System.out.println("Failed to map " + SNAPSHOT);
+			}
+		}
+		return loadMetro();
+	}
+	/**
+	 * Load the {@link Metro} from the {@link #SNAPSHOT} if it is newer than
+	 * the comma separated values files, otherwise build it from the files
+	 * and write a new {@link #SNAPSHOT}.
+	 * 
+	 * <p>
+	 * If the files cannot be read a message is printed, and an empty
+	 * {@link Metro} is returned until a reload succeeds.
+	 * </p>
+	 * 
+	 * @return The {@link Metro}.
+	 */
+	private static Metro loadMetro()
+	{
+		final Path snapshot = Paths.get(RESOURCES, SNAPSHOT);
+		if(isNewerThanSources(snapshot.toFile()))
+		{
+			try
+			{
+				return Metro.readSnapshot(snapshot);
+			}
+			catch(final IOException e)
+			{
+				System.out.println("Failed to read " + SNAPSHOT);
+			}
+		}
+		try
+		{
+			return rebuildMetro();
+		}
+		catch(final IOException e)
+		{
+			System.out.println("Failed to read " + e.getMessage());
+			return new MetroBuilder().build();
+		}
+	}
+	/**
+	 * Build the {@link Metro} from the comma separated values files and
+	 * write a new {@link #SNAPSHOT} of it.
+	 * 
+	 * @return The {@link Metro}.
+	 * @throws IOException If a file cannot be read or holds a malformed
+	 * 			record, so that no {@link Metro} of part of the files is
+	 * 			returned.
+	 */
+	private static Metro rebuildMetro()
+			throws
+			IOException
+	{
+		final Metro metro = buildMetro(Paths.get(RESOURCES));
+		try
+		{
+			metro.writeSnapshot(Paths.get(RESOURCES, SNAPSHOT));
+		}
+		catch(final IOException e)
+		{
+			System.out.println("Failed to write " + SNAPSHOT);
+		}
+		return metro;
+	}
+	/**
+	 * Build the {@link Metro} from the comma separated values files, write a
+	 * new {@link #SNAPSHOT} of it and map the {@link #SNAPSHOT}.
+	 * 
+	 * @return The {@link MappedMetro}.
+	 * @throws IOException If a file cannot be read or holds a malformed
+	 * 			record, or the {@link #SNAPSHOT} cannot be mapped.
+	 */
+	private static Network remapMetro()
+			throws
+			IOException
+	{
+		rebuildMetro();
+		return MappedMetro.open(Paths.get(RESOURCES, SNAPSHOT));
+	}
+	/**
+	 * Check if a snapshot is newer than every comma separated values file
+	 * the {@link Metro} is built from.
+	 * 
+	 * @param snapshot The {@link File} of the snapshot.
+	 * @return <code>true</code> if the snapshot exists and was modified after
+	 * 			every file, otherwise, returns <code>false</code>.
+	 */
+	private static boolean isNewerThanSources(final File snapshot)
+	{
+		if(!snapshot.isFile())
+			return false;
+		for(final String source: new String[]{
+				NETWORK, TRAVEL_TIMES, TRANSFER_PENALTIES})
+			if(new File(RESOURCES, source).lastModified()
+					>= snapshot.lastModified())
+				return false;
+		return true;
+	}
+	/**
+	 * Build the {@link Metro} from the comma separated values files of a
+	 * directory.
+	 * 
+	 * <p>
+	 * The {@link #NETWORK} file must exist. A record of the
+	 * {@link #TRAVEL_TIMES} or {@link #TRANSFER_PENALTIES} files with too few
+	 * fields or a time that is not a number, or is negative, is malformed, as
+	 * the last record of a file that is cut short while being written often
+	 * is.
+	 * </p>
+	 * 
+	 * @param directory The {@link Path} of the directory of the files.
+	 * @return The {@link Metro}.
+	 * @throws IOException If a file cannot be read or holds a malformed
+	 * 			record.
+	 */
+	static Metro buildMetro(final Path directory)
+			throws
+			IOException
+	{
 		//Construct a Metro using a MetroBuilder.
 		final MetroBuilder builder = new MetroBuilder();
 		
 		/*
-		 * Read the MTRsystem_partial.csv file line by line and iterate through
-		 * each line.
+		 * Stream the MTRsystem_partial.csv file into the builder, where the
+		 * first field of each record is the line and the rest are its
+		 * stations.
 		 */
-		for(final String s: TextFileReader.scanFile(
-				"Resources",
-				"MTRsystem_partial.csv"))
+		read(directory, NETWORK, new CsvReader.Handler()
 		{
-			//Read the comma separated values into the builder.
-			final String[] str = s.split(",");
-			for(int i = 1; i < str.length; ++i)
-				builder.addStation(str[i], str[0]);
-		}
+			private String lineName;
+			
+			@Override
+			public void field(int record, int index, String value)
+			{
+				if(index == 0)
+					lineName = value;
+				//Skip the empty field left by a trailing comma.
+				else if(!value.isEmpty())
+					builder.addStation(value, lineName);
+			}
+		});
 		
-		//Setup the TUI, controller and build the Metro from the builder.
-		final TUI tui = new TUI(new RequestHandler(builder.build()));
+		//Read the travel times and transfer penalties, if there are any.
+		if(directory.resolve(TRAVEL_TIMES).toFile().isFile())
+			read(directory, TRAVEL_TIMES, new RecordHandler(4)
+			{
+				@Override
+				void record(String[] fields)
+				{
+					builder.setTravelTime(
+							fields[0],
+							fields[1],
+							fields[2],
+							Integer.parseInt(fields[3].trim()));
+				}
+			});
+		if(directory.resolve(TRANSFER_PENALTIES).toFile().isFile())
+			read(directory, TRANSFER_PENALTIES, new RecordHandler(2)
+			{
+				@Override
+				void record(String[] fields)
+				{
+					builder.setTransferPenalty(
+							fields[0],
+							Integer.parseInt(fields[1].trim()));
+				}
+			});
+		return builder.build();
+	}
+	/**
+	 * Stream a file of a directory into a {@link CsvReader.Handler}.
+	 * 
+	 * @param directory The {@link Path} of the directory.
+	 * @param fileName The name of the file.
+	 * @param handler The {@link CsvReader.Handler} which receives the fields.
+	 * @throws IOException If the file cannot be read, or the
+	 * 			{@link CsvReader.Handler} finds a malformed record.
+	 */
+	private static void read(
+			final Path directory,
+			final String fileName,
+			final CsvReader.Handler handler)
+			throws
+			IOException
+	{
+		try
+		{
+			CsvReader.read(directory.resolve(fileName), handler);
+		}
+		catch(final UncheckedIOException e)
+		{
+			throw new IOException(
+					fileName + ": " + e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+	//=========================================================================
+	//Nested classes.
+	/**
+	 * A {@link CsvReader.Handler} which collects a fixed number of fields of
+	 * each record. A record with fewer fields, or which cannot be received,
+	 * is malformed and stops the file being read with an
+	 * {@link UncheckedIOException}.
+	 */
+	private static abstract class RecordHandler implements CsvReader.Handler
+	{
+		/**
+		 * The fields of the current record.
+		 */
+		private final String[] fields;
+		/**
+		 * Create a new {@code RecordHandler}.
+		 * 
+		 * @param fieldCount The number of fields of each record.
+		 */
+		RecordHandler(final int fieldCount)
+		{
+			fields = new String[fieldCount];
+		}
+		@Override
+		public final void field(int record, int index, String value)
+		{
+			if(index < fields.length)
+				fields[index] = value;
+		}
+		@Override
+		public final void endRecord(int record, int fieldCount)
+		{
+			if(fieldCount < fields.length)
+				throw new UncheckedIOException(new IOException(
+						"Record " + (record + 1) + " has " + fieldCount
+						+ " of " + fields.length + " fields"));
+			try
+			{
+				record(fields);
+			}
+			catch(final IllegalArgumentException e)
+			{
+				throw new UncheckedIOException(new IOException(
+						"Record " + (record + 1) + " is malformed", e));
+			}
+		}
+		/**
+		 * Receive the fields of a complete record.
+		 * 
+		 * @param fields The fields of the record.
+		 * @throws IllegalArgumentException If a field is not a number, or
+		 * 			is not a valid value.
+		 */
+		abstract void record(String[] fields);
 	}
 }
@@ -0,0 +1,671 @@
+package underground;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import underground.MetroSnapshot.Section;
+
+/**
+ * A read only {@link Network} that answers every query directly from a memory
+ * mapped snapshot written by {@link Metro#writeSnapshot(Path)}, without copying
+ * the snapshot onto the heap.
+ *
+ * <p>
+ * The {@link Station}s, {@link Line}s, connections and names stay in the
+ * mapped file and are read through {@link IntBuffer} views of it, and names are
+ * found by a binary search of the sorted name sections. As the file is mapped
+ * read only, every process that opens the same snapshot shares one copy of it
+ * in the page cache. The heap of each process only holds the working arrays of
+ * the searches in its {@link SearchPool}s, and the {@link Station}s of the
+ * results.
+ * </p>
+ *
+ * <p>
+ * Paths are found by the same searches as those of a {@link Metro}, which read
+ * the mapped sections through a {@link GraphView}, and paths with the fewest
+ * stops are followed through the {@link RouteTable} of the snapshot when it
+ * has one. {@link RoutingMode#LEGACY_DEPTH_FIRST} is not supported, as it needs
+ * the {@link Line} objects of a {@link Metro}.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see MetroSnapshot
+ */
+public final class MappedMetro implements Network {
+
+	/**
+	 * The number of {@link Station}s in the snapshot.
+	 */
+	private final int stationCount;
+
+	/**
+	 * The number of {@link Line}s in the snapshot.
+	 */
+	private final int lineCount;
+
+	/**
+	 * The number of states, each a {@link Station} on one of its {@link Line}s,
+	 * in the snapshot.
+	 */
+	private final int stateCount;
+
+	/**
+	 * {@link Section#STATION_NAME_OFFSETS}
+	 */
+	private final IntBuffer stationNameOffsets;
+
+	/**
+	 * {@link Section#STATION_NAMES}
+	 */
+	private final ByteBuffer stationNames;
+
+	/**
+	 * {@link Section#STATION_NAME_ORDER}
+	 */
+	private final IntBuffer stationNameOrder;
+
+	/**
+	 * {@link Section#LINE_NAME_OFFSETS}
+	 */
+	private final IntBuffer lineNameOffsets;
+
+	/**
+	 * {@link Section#LINE_NAMES}
+	 */
+	private final ByteBuffer lineNames;
+
+	/**
+	 * {@link Section#LINE_NAME_ORDER}
+	 */
+	private final IntBuffer lineNameOrder;
+
+	/**
+	 * {@link Section#LINE_STATION_OFFSETS}
+	 */
+	private final IntBuffer lineStationOffsets;
+
+	/**
+	 * {@link Section#LINE_STATIONS}
+	 */
+	private final IntBuffer lineStations;
+
+	/**
+	 * {@link Graph#offsets}
+	 */
+	private final IntBuffer offsets;
+
+	/**
+	 * {@link Graph#neighbours}
+	 */
+	private final IntBuffer neighbours;
+
+	/**
+	 * {@link Graph#edgeLines}
+	 */
+	private final IntBuffer edgeLines;
+
+	/**
+	 * {@link Graph#edgeTimes}
+	 */
+	private final IntBuffer edgeTimes;
+
+	/**
+	 * {@link Graph#transferPenalties}
+	 */
+	private final IntBuffer transferPenalties;
+
+	/**
+	 * {@link Graph#lineOffsets}
+	 */
+	private final IntBuffer lineOffsets;
+
+	/**
+	 * {@link Graph#stationLines}
+	 */
+	private final IntBuffer stationLines;
+
+	/**
+	 * {@link Graph#stateStations}
+	 */
+	private final IntBuffer stateStations;
+
+	/**
+	 * {@link Graph#edgeStates}
+	 */
+	private final IntBuffer edgeStates;
+
+	/**
+	 * {@link Graph#adjacentLineOffsets}
+	 */
+	private final IntBuffer adjacentLineOffsets;
+
+	/**
+	 * {@link Graph#adjacentLines}
+	 */
+	private final IntBuffer adjacentLines;
+
+	/**
+	 * {@link Connectivity#roots()}
+	 */
+	private final IntBuffer components;
+
+	/**
+	 * {@link RouteTable#nextHops()}, or <code>null</code> if the snapshot has no
+	 * {@link RouteTable}.
+	 */
+	private final ShortBuffer routeTable;
+
+	/**
+	 * The {@link GraphView} of the mapped sections, which the searches traverse.
+	 */
+	private final GraphView graph;
+
+	/**
+	 * The {@link TravelTimeSearch}es that search this {@link MappedMetro}.
+	 */
+	private final SearchPool<TravelTimeSearch> travelTimeSearches;
+
+	/**
+	 * The {@link StopSearch}es that search this {@link MappedMetro}.
+	 */
+	private final SearchPool<StopSearch> stopSearches;
+
+	/**
+	 * The {@link TransferSearch}es that search this {@link MappedMetro}.
+	 */
+	private final SearchPool<TransferSearch> transferSearches;
+
+	/**
+	 * Constructs a new {@link MappedMetro} by mapping each section of a
+	 * snapshot.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}.
+	 * @throws IOException
+	 *             If a section cannot be mapped.
+	 */
+	private MappedMetro(FileChannel channel, long[][] sections) throws IOException {
+
+		this.stationNameOffsets = ints(channel, sections, Section.STATION_NAME_OFFSETS);
+		this.stationNames = MetroSnapshot.map(channel, sections, Section.STATION_NAMES);
+		this.stationNameOrder = ints(channel, sections, Section.STATION_NAME_ORDER);
+		this.lineNameOffsets = ints(channel, sections, Section.LINE_NAME_OFFSETS);
+		this.lineNames = MetroSnapshot.map(channel, sections, Section.LINE_NAMES);
+		this.lineNameOrder = ints(channel, sections, Section.LINE_NAME_ORDER);
+		this.lineStationOffsets = ints(channel, sections, Section.LINE_STATION_OFFSETS);
+		this.lineStations = ints(channel, sections, Section.LINE_STATIONS);
+		this.offsets = ints(channel, sections, Section.OFFSETS);
+		this.neighbours = ints(channel, sections, Section.NEIGHBOURS);
+		this.edgeLines = ints(channel, sections, Section.EDGE_LINES);
+		this.edgeTimes = ints(channel, sections, Section.EDGE_TIMES);
+		this.transferPenalties = ints(channel, sections, Section.TRANSFER_PENALTIES);
+		this.lineOffsets = ints(channel, sections, Section.LINE_OFFSETS);
+		this.stationLines = ints(channel, sections, Section.STATION_LINES);
+		this.stateStations = ints(channel, sections, Section.STATE_STATIONS);
+		this.edgeStates = ints(channel, sections, Section.EDGE_STATES);
+		this.adjacentLineOffsets = ints(channel, sections, Section.ADJACENT_LINE_OFFSETS);
+		this.adjacentLines = ints(channel, sections, Section.ADJACENT_LINES);
+		this.components = ints(channel, sections, Section.COMPONENTS);
+
+		this.stationCount = stationNameOffsets.limit() - 1;
+		this.lineCount = lineNameOffsets.limit() - 1;
+		this.stateCount = stationLines.limit();
+
+		// A table too large to map as one buffer is searched for instead.
+		final long tableLength = sections[Section.ROUTE_TABLE.ordinal()][1];
+		if (tableLength == 0 || tableLength > Integer.MAX_VALUE) {
+			this.routeTable = null;
+		} else {
+			this.routeTable = MetroSnapshot.map(channel, sections, Section.ROUTE_TABLE).asShortBuffer();
+		}
+
+		this.graph = new MappedGraph();
+		this.travelTimeSearches = new SearchPool<>(() -> new TravelTimeSearch(graph));
+		this.stopSearches = new SearchPool<>(() -> new StopSearch(graph));
+		this.transferSearches = new SearchPool<>(() -> new TransferSearch(graph));
+	}
+
+	/**
+	 * Maps a snapshot written by {@link Metro#writeSnapshot(Path)} as a new
+	 * {@link MappedMetro}. The checksum of the snapshot is checked, which reads
+	 * it once, and the file is then only read as it is queried.
+	 *
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @return {@link MappedMetro}
+	 * @throws IOException
+	 *             If the snapshot cannot be mapped, was written by a different
+	 *             version, or does not match its checksum.
+	 */
+	public static MappedMetro open(Path file) throws IOException {
+
+		// Check parameters
+		if (file == null) {
+			throw new NullPointerException("File cannot be null.");
+		}
+
+		// The mapped buffers stay valid after the channel is closed.
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MappedMetro(channel, MetroSnapshot.readHeader(channel, true));
+		}
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s using the specified
+	 * {@link RoutingMode}. If the {@link Station}s are in separate parts of this
+	 * {@link MappedMetro} the {@link Route} records that there is no path,
+	 * without searching.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link Route}
+	 * @throws UnsupportedOperationException
+	 *             If the {@link RoutingMode} is
+	 *             {@link RoutingMode#LEGACY_DEPTH_FIRST}.
+	 */
+	public Route route(Station start, Station end, RoutingMode mode) {
+
+		// Check parameters
+		if (start == null) {
+			throw new NullPointerException("Start cannot be null.");
+		} else if (end == null) {
+			throw new NullPointerException("End cannot be null.");
+		} else if (mode == null) {
+			throw new NullPointerException("Routing mode cannot be null.");
+		} else if (mode == RoutingMode.LEGACY_DEPTH_FIRST) {
+			throw new UnsupportedOperationException("A MappedMetro cannot search in " + mode + " mode.");
+		}
+
+		final int source = stationIdOf(start.getName());
+		final int target = stationIdOf(end.getName());
+
+		if (source < 0) {
+			throw new NullPointerException(start.getName() + " does not exist in this Metro.");
+		} else if (target < 0) {
+			throw new NullPointerException(end.getName() + " does not exist in this Metro.");
+		} else if (components.get(source) != components.get(target)) {
+			return Route.unreachable(start, end, mode);
+		}
+
+		// Only the phases of a Metro are timed.
+		final List<Station> path;
+		final int settled;
+
+		switch (mode) {
+		case FEWEST_CHANGES:
+			final TransferSearch transferSearch = transferSearches.borrow();
+			path = transferSearch.search(source, target, PhaseTimer.NONE);
+			settled = transferSearch.settled();
+			transferSearches.release(transferSearch);
+			break;
+		case FASTEST:
+			final TravelTimeSearch travelTimeSearch = travelTimeSearches.borrow();
+			path = travelTimeSearch.search(source, target, PhaseTimer.NONE);
+			settled = travelTimeSearch.settled();
+			travelTimeSearches.release(travelTimeSearch);
+			break;
+		case BIDIRECTIONAL:
+			final StopSearch bidirectionalSearch = stopSearches.borrow();
+			path = bidirectionalSearch.searchBidirectional(source, target, PhaseTimer.NONE);
+			settled = bidirectionalSearch.settled();
+			stopSearches.release(bidirectionalSearch);
+			break;
+		case FEWEST_STOPS:
+		default:
+			if (routeTable != null) {
+				path = followRouteTable(source, target);
+				settled = 0;
+			} else {
+				final StopSearch stopSearch = stopSearches.borrow();
+				path = stopSearch.search(source, target, PhaseTimer.NONE);
+				settled = stopSearch.settled();
+				stopSearches.release(stopSearch);
+			}
+			break;
+		}
+
+		if (path == null) {
+			return Route.unreachable(start, end, mode);
+		}
+
+		return Route.found(mode, path, settled);
+	}
+
+	/**
+	 * Retrieves the {@link Station} of this {@link MappedMetro} with the
+	 * specified name.
+	 *
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return {@link Station}
+	 */
+	public Station getStation(String stationName) {
+
+		// Check parameters
+		if (stationName == null) {
+			throw new NullPointerException("Station name cannot be null.");
+		} else if (stationIdOf(stationName) < 0) {
+			throw new NullPointerException(stationName + " does not exist in this Metro.");
+		}
+
+		return new Station(stationName);
+	}
+
+	/**
+	 * Lists all the {@link Station}s on a {@link Line}.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link List} of {@link Station}s.
+	 */
+	public List<Station> listStationsOnLine(String lineName) {
+
+		final int line = lineIdOf(lineName);
+
+		final List<Station> stations = new ArrayList<>(
+				lineStationOffsets.get(line + 1) - lineStationOffsets.get(line));
+		for (int index = lineStationOffsets.get(line); index < lineStationOffsets.get(line + 1); index++) {
+			stations.add(station(lineStations.get(index)));
+		}
+
+		return stations;
+	}
+
+	/**
+	 * Retrieves the names of the {@link Line}s that connect to the specified
+	 * {@link Line}.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link Set} of {@link Line} names.
+	 */
+	public Set<String> getAdjacentLineNames(String lineName) {
+
+		final int line = lineIdOf(lineName);
+
+		final Set<String> names = new LinkedHashSet<>();
+		for (int edge = adjacentLineOffsets.get(line); edge < adjacentLineOffsets.get(line + 1); edge++) {
+			names.add(name(lineNames, lineNameOffsets, adjacentLines.get(edge)));
+		}
+
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Outputs all the {@link Line}s and their terminals into a string separated
+	 * by "\n"
+	 *
+	 * @return List of all lines
+	 */
+	public String outputAllStations() {
+
+		final StringBuilder output = new StringBuilder();
+
+		for (int line = 0; line < lineCount; line++) {
+			output.append(name(lineNames, lineNameOffsets, line)).append(": ")
+					.append(stationName(lineStations.get(lineStationOffsets.get(line)))).append(" <--> ")
+					.append(stationName(lineStations.get(lineStationOffsets.get(line + 1) - 1))).append("\n");
+		}
+
+		return output.toString();
+	}
+
+	/**
+	 * Retrieves whether the snapshot of this {@link MappedMetro} holds a
+	 * {@link RouteTable} that paths with the fewest stops are looked up in.
+	 *
+	 * @return Whether paths are looked up rather than searched for.
+	 */
+	public boolean hasRouteTable() {
+		return routeTable != null;
+	}
+
+	/**
+	 * Rebuilds the path with the fewest stops between two {@link Station}s by
+	 * following the next hops of the {@link MappedMetro#routeTable}.
+	 *
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
+	 */
+	private List<Station> followRouteTable(int source, int target) {
+
+		final List<Station> path = new ArrayList<>();
+		final int row = target * stationCount;
+
+		for (int station = source; station != target; station = routeTable.get(row + station) & 0xFFFF) {
+
+			// There is no path if there is no next hop.
+			if (station == 0xFFFF) {
+				return null;
+			}
+
+			path.add(station(station));
+		}
+		path.add(station(target));
+
+		return path;
+	}
+
+	/**
+	 * Retrieves the id of the {@link Station} with the specified name.
+	 *
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return The id, or <code>-1</code> if there is no such {@link Station}.
+	 */
+	private int stationIdOf(String stationName) {
+		return find(stationNames, stationNameOffsets, stationNameOrder, stationName);
+	}
+
+	/**
+	 * Retrieves the id of the {@link Line} with the specified name.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return The id of the {@link Line}.
+	 * @throws NullPointerException
+	 *             If there is no such {@link Line}.
+	 */
+	private int lineIdOf(String lineName) {
+
+		final int line = lineName == null ? -1 : find(lineNames, lineNameOffsets, lineNameOrder, lineName);
+
+		if (line < 0) {
+			throw new NullPointerException(lineName + " does not exist in this Metro.");
+		}
+
+		return line;
+	}
+
+	/**
+	 * Retrieves the name of the {@link Station} with the specified id.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return The name of the {@link Station}.
+	 */
+	private String stationName(int station) {
+		return name(stationNames, stationNameOffsets, station);
+	}
+
+	/**
+	 * Creates the {@link Station} with the specified id.
+	 *
+	 * @param station
+	 *            The id of the {@link Station}.
+	 * @return {@link Station}
+	 */
+	private Station station(int station) {
+		return new Station(stationName(station));
+	}
+
+	/**
+	 * Finds a name by a binary search of the ids in the order of their names.
+	 *
+	 * @param names
+	 *            The {@link ByteBuffer} of the UTF-8 names.
+	 * @param nameOffsets
+	 *            The offset of each name in <code>names</code>.
+	 * @param order
+	 *            The ids in the order of their names.
+	 * @param name
+	 *            The name to find.
+	 * @return The id of the name, or <code>-1</code> if it is not found.
+	 */
+	private static int find(ByteBuffer names, IntBuffer nameOffsets, IntBuffer order, String name) {
+
+		final byte[] key = name.getBytes(StandardCharsets.UTF_8);
+
+		int low = 0;
+		int high = order.limit() - 1;
+		while (low <= high) {
+
+			final int middle = (low + high) >>> 1;
+			final int id = order.get(middle);
+			final int comparison = MetroSnapshot.compareName(names, nameOffsets.get(id), nameOffsets.get(id + 1),
+					key);
+
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return id;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Decodes the name with the specified id.
+	 *
+	 * @param names
+	 *            The {@link ByteBuffer} of the UTF-8 names.
+	 * @param nameOffsets
+	 *            The offset of each name in <code>names</code>.
+	 * @param id
+	 *            The id of the name.
+	 * @return The name.
+	 */
+	private static String name(ByteBuffer names, IntBuffer nameOffsets, int id) {
+
+		final int from = nameOffsets.get(id);
+		final byte[] bytes = new byte[nameOffsets.get(id + 1) - from];
+
+		// Read through a duplicate, so that threads do not share a position.
+		final ByteBuffer source = names.duplicate();
+		source.position(from);
+		source.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Maps a section of <code>int</code> values.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}.
+	 * @param section
+	 *            {@link Section}
+	 * @return The {@link IntBuffer} view of the section.
+	 * @throws IOException
+	 *             If the section cannot be mapped.
+	 */
+	private static IntBuffer ints(FileChannel channel, long[][] sections, Section section) throws IOException {
+		return MetroSnapshot.map(channel, sections, section).asIntBuffer();
+	}
+
+	/**
+	 * The {@link GraphView} of the mapped sections of a {@link MappedMetro},
+	 * which gives a new {@link Station} for each {@link Station} of a path.
+	 */
+	private final class MappedGraph implements GraphView {
+
+		@Override
+		public int size() {
+			return stationCount;
+		}
+
+		@Override
+		public int states() {
+			return stateCount;
+		}
+
+		@Override
+		public int offset(int station) {
+			return offsets.get(station);
+		}
+
+		@Override
+		public int neighbour(int edge) {
+			return neighbours.get(edge);
+		}
+
+		@Override
+		public int edgeLine(int edge) {
+			return edgeLines.get(edge);
+		}
+
+		@Override
+		public int edgeTime(int edge) {
+			return edgeTimes.get(edge);
+		}
+
+		@Override
+		public int edgeState(int edge) {
+			return edgeStates.get(edge);
+		}
+
+		@Override
+		public int transferPenalty(int station) {
+			return transferPenalties.get(station);
+		}
+
+		@Override
+		public int lineOffset(int station) {
+			return lineOffsets.get(station);
+		}
+
+		@Override
+		public int stationLine(int state) {
+			return stationLines.get(state);
+		}
+
+		@Override
+		public int stateStation(int state) {
+			return stateStations.get(state);
+		}
+
+		@Override
+		public Station station(int station) {
+			return MappedMetro.this.station(station);
+		}
+	}
+
+}
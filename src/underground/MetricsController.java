@@ -0,0 +1,287 @@
+package underground;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Controller} that passes every request on to another
+ * {@link Controller}, recording how long each kind of request takes in a
+ * {@link LatencyHistogram} and counting the requests that fail.
+ *
+ * <p>
+ * A request fails if the {@link Controller} throws, in which case the
+ * exception is thrown on. A {@link RequestHandler} answers a failed request
+ * with the message of the failure instead, so when the {@link Controller} is a
+ * {@link RequestHandler} its failures are counted and answered with their
+ * message in the same way.
+ * </p>
+ *
+ * <p>
+ * Recording costs two reads of {@link System#nanoTime()} and a couple of
+ * uncontended atomic additions per request. Where the time of path requests
+ * goes is shown by the {@link RoutePhase}s, which a {@link MetricsController}
+ * constructed to time them records for its own requests and includes in each
+ * {@link MetricsSnapshot}.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see MetricsController#snapshot()
+ */
+public final class MetricsController implements Controller {
+
+	/**
+	 * The {@link Controller} the requests are passed on to.
+	 */
+	private final Controller delegate;
+
+	/**
+	 * The {@link MetricsController#delegate} if it is a {@link RequestHandler},
+	 * otherwise <code>null</code>.
+	 */
+	private final RequestHandler handler;
+
+	/**
+	 * The times each {@link Operation} took, by {@link Operation#ordinal()}.
+	 */
+	private final LatencyHistogram[] latencies;
+
+	/**
+	 * The number of each {@link Operation} that failed, by
+	 * {@link Operation#ordinal()}.
+	 */
+	private final LongAdder[] errors;
+
+	/**
+	 * The {@link PhaseTimer} of the path requests, which is
+	 * {@link PhaseTimer#NONE} unless the {@link RoutePhase}s are timed.
+	 */
+	private final PhaseTimer timer;
+
+	/**
+	 * Constructs a new {@link MetricsController} that does not time the
+	 * {@link RoutePhase}s.
+	 *
+	 * @param delegate
+	 *            The {@link Controller} the requests are passed on to.
+	 */
+	public MetricsController(Controller delegate) {
+		this(delegate, false);
+	}
+
+	/**
+	 * Constructs a new {@link MetricsController}. The {@link RoutePhase}s can
+	 * only be timed when the {@link Controller} is a {@link RequestHandler}.
+	 *
+	 * @param delegate
+	 *            The {@link Controller} the requests are passed on to.
+	 * @param timed
+	 *            Whether the {@link RoutePhase}s of the path requests are
+	 *            timed.
+	 */
+	public MetricsController(Controller delegate, boolean timed) {
+
+		// Check parameters
+		if (delegate == null) {
+			throw new NullPointerException("Controller cannot be null.");
+		}
+
+		this.delegate = delegate;
+		this.handler = delegate instanceof RequestHandler ? (RequestHandler) delegate : null;
+		this.timer = timed && handler != null ? new PhaseTimer() : PhaseTimer.NONE;
+
+		final Operation[] operations = Operation.values();
+		this.latencies = new LatencyHistogram[operations.length];
+		this.errors = new LongAdder[operations.length];
+		for (Operation operation : operations) {
+			latencies[operation.ordinal()] = new LatencyHistogram();
+			errors[operation.ordinal()] = new LongAdder();
+		}
+	}
+
+	@Override
+	public String listAllTermini() {
+
+		final long start = System.nanoTime();
+		try {
+			return delegate.listAllTermini();
+		} catch (RuntimeException e) {
+			return failed(Operation.LIST_ALL_TERMINI, e);
+		} finally {
+			latencies[Operation.LIST_ALL_TERMINI.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String listStationsInLine(String line) {
+
+		final long start = System.nanoTime();
+		try {
+			return handler != null ? handler.stationsInLine(line) : delegate.listStationsInLine(line);
+		} catch (RuntimeException e) {
+			return failed(Operation.LIST_STATIONS_IN_LINE, e);
+		} finally {
+			latencies[Operation.LIST_STATIONS_IN_LINE.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String listAllDirectlyConnectedLines(String line) {
+
+		final long start = System.nanoTime();
+		try {
+			return handler != null ? handler.directlyConnectedLines(line)
+					: delegate.listAllDirectlyConnectedLines(line);
+		} catch (RuntimeException e) {
+			return failed(Operation.LIST_ALL_DIRECTLY_CONNECTED_LINES, e);
+		} finally {
+			latencies[Operation.LIST_ALL_DIRECTLY_CONNECTED_LINES.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String showPathBetween(String stationA, String stationB) {
+
+		final long start = System.nanoTime();
+		try {
+			return handler != null ? handler.pathBetween(stationA, stationB, RoutingMode.FEWEST_STOPS, timer)
+					: delegate.showPathBetween(stationA, stationB);
+		} catch (RuntimeException e) {
+			return failed(Operation.SHOW_PATH_BETWEEN, e);
+		} finally {
+			latencies[Operation.SHOW_PATH_BETWEEN.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String showPathWithFewestChangesBetween(String stationA, String stationB) {
+
+		final long start = System.nanoTime();
+		try {
+			return handler != null ? handler.pathBetween(stationA, stationB, RoutingMode.FEWEST_CHANGES, timer)
+					: delegate.showPathWithFewestChangesBetween(stationA, stationB);
+		} catch (RuntimeException e) {
+			return failed(Operation.SHOW_PATH_WITH_FEWEST_CHANGES_BETWEEN, e);
+		} finally {
+			latencies[Operation.SHOW_PATH_WITH_FEWEST_CHANGES_BETWEEN.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Retrieves the {@link Controller} the requests are passed on to.
+	 *
+	 * @return {@link Controller}
+	 */
+	public Controller getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Copies the metrics recorded so far, along with the {@link RoutePhase}s if
+	 * this {@link MetricsController} times them and the {@link RouteCache}
+	 * counters if the
+	 * {@link Controller} is a {@link RequestHandler}.
+	 *
+	 * @return {@link MetricsSnapshot}
+	 */
+	public MetricsSnapshot snapshot() {
+
+		final MetricsSnapshot snapshot = new MetricsSnapshot();
+
+		for (Operation operation : Operation.values()) {
+			snapshot.addOperation(operation.getName(), latencies[operation.ordinal()].snapshot(),
+					errors[operation.ordinal()].sum());
+		}
+
+		if (timer.isTimed()) {
+			for (RoutePhase phase : RoutePhase.values()) {
+				snapshot.addPhase(phase.getName(), timer.getHistogram(phase).snapshot());
+			}
+		}
+
+		if (handler != null) {
+			final RouteCache routeCache = handler.getRouteCache();
+			snapshot.setRouteCache(routeCache.getHits(), routeCache.getMisses(), routeCache.getEvictions());
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Counts a failed request and answers it as the {@link Controller} would.
+	 *
+	 * @param operation
+	 *            The {@link Operation} that failed.
+	 * @param e
+	 *            The failure.
+	 * @return The message of the failure, if the {@link Controller} is a
+	 *         {@link RequestHandler}.
+	 */
+	private String failed(Operation operation, RuntimeException e) {
+
+		errors[operation.ordinal()].increment();
+
+		if (handler != null) {
+			return e.getMessage();
+		}
+
+		throw e;
+	}
+
+	/**
+	 * The requests of a {@link Controller}.
+	 */
+	public enum Operation {
+
+		/**
+		 * {@link Controller#listAllTermini()}.
+		 */
+		LIST_ALL_TERMINI("listAllTermini"),
+
+		/**
+		 * {@link Controller#listStationsInLine(String)}.
+		 */
+		LIST_STATIONS_IN_LINE("listStationsInLine"),
+
+		/**
+		 * {@link Controller#listAllDirectlyConnectedLines(String)}.
+		 */
+		LIST_ALL_DIRECTLY_CONNECTED_LINES("listAllDirectlyConnectedLines"),
+
+		/**
+		 * {@link Controller#showPathBetween(String, String)}.
+		 */
+		SHOW_PATH_BETWEEN("showPathBetween"),
+
+		/**
+		 * {@link Controller#showPathWithFewestChangesBetween(String, String)}.
+		 */
+		SHOW_PATH_WITH_FEWEST_CHANGES_BETWEEN("showPathWithFewestChangesBetween");
+
+		/**
+		 * The name of the {@link Operation} in exported metrics, which is the
+		 * name of its method.
+		 */
+		private final String name;
+
+		/**
+		 * Constructs a new {@link Operation}.
+		 *
+		 * @param name
+		 *            {@link Operation#name}
+		 */
+		private Operation(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Retrieves the name of the {@link Operation} in exported metrics.
+		 *
+		 * @return The name.
+		 */
+		public String getName() {
+			return name;
+		}
+	}
+
+}
@@ -0,0 +1,300 @@
+package underground;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The metrics a {@link MetricsController} recorded up to one moment, which can
+ * be exported as text for people or as JSON for monitoring systems. A
+ * {@link MetricsSnapshot} does not change once it is taken.
+ *
+ * <p>
+ * The JSON is an object with an <code>operations</code> object of each
+ * {@link MetricsController.Operation}, a <code>phases</code> object of each
+ * {@link RoutePhase} if they were timed, and a <code>routeCache</code> object
+ * if there was a {@link RouteCache}. Each operation and phase has its
+ * <code>count</code>, <code>errors</code> (operations only), and its
+ * <code>mean</code>, <code>max</code>, <code>p50</code>, <code>p90</code>,
+ * <code>p99</code> and <code>p99.9</code> latencies in nanoseconds.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+public final class MetricsSnapshot {
+
+	/**
+	 * The percentiles that are exported.
+	 */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/**
+	 * The names of the exported percentiles, matching
+	 * {@link MetricsSnapshot#PERCENTILES}.
+	 */
+	private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99.9" };
+
+	/**
+	 * The {@link Entry} of each operation, in the order they were added.
+	 */
+	private final Map<String, Entry> operations;
+
+	/**
+	 * The {@link Entry} of each {@link RoutePhase}, in the order they were
+	 * added.
+	 */
+	private final Map<String, Entry> phases;
+
+	/**
+	 * The hits, misses and evictions of the {@link RouteCache}, or
+	 * <code>null</code> if there was none.
+	 */
+	private long[] routeCache;
+
+	/**
+	 * Constructs a new empty {@link MetricsSnapshot}, which is filled by its
+	 * {@link MetricsController}.
+	 */
+	MetricsSnapshot() {
+		this.operations = new LinkedHashMap<>();
+		this.phases = new LinkedHashMap<>();
+		this.routeCache = null;
+	}
+
+	/**
+	 * Adds the metrics of an operation.
+	 *
+	 * @param name
+	 *            The name of the operation.
+	 * @param latencies
+	 *            A {@link LatencyHistogram} that is no longer recorded into.
+	 * @param errors
+	 *            The number of failures.
+	 */
+	void addOperation(String name, LatencyHistogram latencies, long errors) {
+		operations.put(name, new Entry(latencies, errors));
+	}
+
+	/**
+	 * Adds the metrics of a {@link RoutePhase}.
+	 *
+	 * @param name
+	 *            The name of the {@link RoutePhase}.
+	 * @param latencies
+	 *            A {@link LatencyHistogram} that is no longer recorded into.
+	 */
+	void addPhase(String name, LatencyHistogram latencies) {
+		phases.put(name, new Entry(latencies, 0));
+	}
+
+	/**
+	 * Sets the counters of the {@link RouteCache}.
+	 *
+	 * @param hits
+	 *            {@link RouteCache#getHits()}
+	 * @param misses
+	 *            {@link RouteCache#getMisses()}
+	 * @param evictions
+	 *            {@link RouteCache#getEvictions()}
+	 */
+	void setRouteCache(long hits, long misses, long evictions) {
+		routeCache = new long[] { hits, misses, evictions };
+	}
+
+	/**
+	 * Retrieves the metrics of each operation by name.
+	 *
+	 * @return An unmodifiable {@link Map} of operation name to {@link Entry}.
+	 */
+	public Map<String, Entry> getOperations() {
+		return Collections.unmodifiableMap(operations);
+	}
+
+	/**
+	 * Retrieves the metrics of each timed {@link RoutePhase} by name.
+	 *
+	 * @return An unmodifiable {@link Map} of phase name to {@link Entry}, which
+	 *         is empty if the phases were not timed.
+	 */
+	public Map<String, Entry> getPhases() {
+		return Collections.unmodifiableMap(phases);
+	}
+
+	/**
+	 * Exports the metrics as text, one row per operation and phase, with the
+	 * latencies in microseconds.
+	 *
+	 * @return The text.
+	 */
+	public String toText() {
+
+		final StringBuilder text = new StringBuilder();
+
+		text.append(String.format(Locale.ROOT, "%-34s %10s %8s %10s", "operation", "count", "errors", "mean (us)"));
+		for (String name : PERCENTILE_NAMES) {
+			text.append(String.format(Locale.ROOT, " %10s", name));
+		}
+		text.append(String.format(Locale.ROOT, " %10s%n", "max"));
+
+		for (Map.Entry<String, Entry> operation : operations.entrySet()) {
+			appendRow(text, operation.getKey(), operation.getValue());
+		}
+
+		for (Map.Entry<String, Entry> phase : phases.entrySet()) {
+			appendRow(text, "phase " + phase.getKey(), phase.getValue());
+		}
+
+		if (routeCache != null) {
+			text.append(String.format(Locale.ROOT, "route cache: %d hits, %d misses, %d evictions%n", routeCache[0],
+					routeCache[1], routeCache[2]));
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Exports the metrics as JSON, with the latencies in nanoseconds.
+	 *
+	 * @return The JSON.
+	 */
+	public String toJson() {
+
+		final StringBuilder json = new StringBuilder("{\"operations\":{");
+		appendEntries(json, operations, true);
+		json.append('}');
+
+		if (!phases.isEmpty()) {
+			json.append(",\"phases\":{");
+			appendEntries(json, phases, false);
+			json.append('}');
+		}
+
+		if (routeCache != null) {
+			json.append(",\"routeCache\":{\"hits\":").append(routeCache[0]).append(",\"misses\":")
+					.append(routeCache[1]).append(",\"evictions\":").append(routeCache[2]).append('}');
+		}
+
+		return json.append('}').toString();
+	}
+
+	/**
+	 * Exports the metrics as text.
+	 *
+	 * @return {@link MetricsSnapshot#toText()}
+	 */
+	@Override
+	public String toString() {
+		return toText();
+	}
+
+	/**
+	 * Appends one row of {@link MetricsSnapshot#toText()}.
+	 *
+	 * @param text
+	 *            The {@link StringBuilder} of the text.
+	 * @param name
+	 *            The name of the row.
+	 * @param entry
+	 *            {@link Entry}
+	 */
+	private static void appendRow(StringBuilder text, String name, Entry entry) {
+
+		final LatencyHistogram latencies = entry.getLatencies();
+
+		text.append(String.format(Locale.ROOT, "%-34s %10d %8d %10.1f", name, latencies.getCount(),
+				entry.getErrors(), latencies.getMean() / 1e3));
+		for (double percentile : PERCENTILES) {
+			text.append(String.format(Locale.ROOT, " %10.1f", latencies.getPercentile(percentile) / 1e3));
+		}
+		text.append(String.format(Locale.ROOT, " %10.1f%n", latencies.getMax() / 1e3));
+	}
+
+	/**
+	 * Appends the members of a JSON object of {@link Entry}s.
+	 *
+	 * @param json
+	 *            The {@link StringBuilder} of the JSON.
+	 * @param entries
+	 *            The {@link Entry}s by name.
+	 * @param withErrors
+	 *            Whether the number of errors is included.
+	 */
+	private static void appendEntries(StringBuilder json, Map<String, Entry> entries, boolean withErrors) {
+
+		boolean first = true;
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+
+			final LatencyHistogram latencies = entry.getValue().getLatencies();
+
+			// The names are fixed identifiers, so they need no escaping.
+			json.append('"').append(entry.getKey()).append("\":{\"count\":").append(latencies.getCount());
+			if (withErrors) {
+				json.append(",\"errors\":").append(entry.getValue().getErrors());
+			}
+			json.append(",\"mean\":").append(Math.round(latencies.getMean()));
+			json.append(",\"max\":").append(latencies.getMax());
+			for (int index = 0; index < PERCENTILES.length; index++) {
+				json.append(",\"").append(PERCENTILE_NAMES[index]).append("\":")
+						.append(latencies.getPercentile(PERCENTILES[index]));
+			}
+			json.append('}');
+		}
+	}
+
+	/**
+	 * The metrics of one operation or {@link RoutePhase}.
+	 */
+	public static final class Entry {
+
+		/**
+		 * The latencies.
+		 */
+		private final LatencyHistogram latencies;
+
+		/**
+		 * The number of failures.
+		 */
+		private final long errors;
+
+		/**
+		 * Constructs a new {@link Entry}.
+		 *
+		 * @param latencies
+		 *            {@link Entry#latencies}
+		 * @param errors
+		 *            {@link Entry#errors}
+		 */
+		Entry(LatencyHistogram latencies, long errors) {
+			this.latencies = latencies;
+			this.errors = errors;
+		}
+
+		/**
+		 * Retrieves the latencies, which must not be recorded into.
+		 *
+		 * @return {@link LatencyHistogram}
+		 */
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+
+		/**
+		 * Retrieves the number of failures.
+		 *
+		 * @return The number of failures, which is <code>0</code> for a
+		 *         {@link RoutePhase}.
+		 */
+		public long getErrors() {
+			return errors;
+		}
+	}
+
+}
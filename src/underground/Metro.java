@@ -1,41 +1,117 @@
 package underground;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This encapsulates the behaviours of the Metro which is a system of
  * interconnected {@link Line}s containing a set of {@link Station}s.
  * 
+ * <p>
+ * A {@link Metro} never changes once it is constructed. Closing or reopening a
+ * {@link Station} or a segment, or adding or removing a {@link Line}, returns
+ * a new {@link Metro} that shares every structure the edit leaves alone with
+ * the {@link Metro} it was edited from, so requests may carry on against the
+ * old {@link Metro} while the edit is made.
+ * </p>
+ * 
  * @author Joshua_Eddy 159029448
  * @author John_Berg 159014260
  *
  */
-public final class Metro {
+public final class Metro implements Network {
 
 	/**
-	 * The {@link Set} of all {@link Station}s in this {@link Metro}.
+	 * The time, in seconds, it takes to change {@link Line} at a {@link Station}
+	 * when no time is specified.
 	 */
-	private final Set<Station> allStations;
+	public static final int DEFAULT_TRANSFER_PENALTY = 300;
 
 	/**
-	 * The {@link Map} of {@link Station}s to their parent {@link Set} of
-	 * {@link Line}(s). This exists as for the purpose of path finding a
-	 * {@link Station} must know which line(s) it is a part of.
+	 * The {@link Map} of {@link Line} name to their associated {@link Line}.
 	 */
-	private final Map<Station, Set<Line>> stationLineLookUp;
+	private final Map<String, Line> lines;
 
 	/**
-	 * The {@link Map} of {@link Line} name to their associated {@link Line}.
+	 * The {@link StationRegistry} of the canonical {@link Station}s of this
+	 * {@link Metro}.
 	 */
-	private final Map<String, Line> lines;
+	private final StationRegistry registry;
+
+	/**
+	 * The {@link Graph} that the {@link Line}s of this {@link Metro} are compiled
+	 * into. This is the graph that the {@link StopSearch} of
+	 * {@link Metro#findPath(Station, Station)} traverses.
+	 */
+	private final Graph graph;
+
+	/**
+	 * The {@link RouteTable} of the next hop between every pair of
+	 * {@link Station}s, or <code>null</code> if routes are searched for on demand.
+	 */
+	private final RouteTable routeTable;
+
+	/**
+	 * The {@link InterchangeIndex} of the {@link Station}s shared by each pair of
+	 * {@link Line}s, used to choose where to change {@link Line} on a path.
+	 */
+	private final InterchangeIndex interchanges;
+
+	/**
+	 * The {@link Connectivity} of the {@link Station}s, used to answer requests
+	 * for a path between separate parts of this {@link Metro} without searching.
+	 */
+	private final Connectivity connectivity;
+
+	/**
+	 * The {@link Closures} of the {@link Station}s and segments of this
+	 * {@link Metro} that are closed.
+	 */
+	private final Closures closures;
+
+	/**
+	 * The time, in seconds, it takes to change {@link Line} at a {@link Station}
+	 * that was given no time, which is also given to the new {@link Station}s
+	 * of an added {@link Line}.
+	 */
+	private final int defaultTransferPenalty;
+
+	/**
+	 * The {@link MetroEdit} that made this {@link Metro} from another, or
+	 * <code>null</code> if this {@link Metro} was not made by an edit.
+	 */
+	private final MetroEdit edit;
+
+	/**
+	 * The {@link TravelTimeSearch}es that search this {@link Metro}, so that
+	 * searching by travel time does not allocate.
+	 */
+	private final SearchPool<TravelTimeSearch> travelTimeSearches;
+
+	/**
+	 * The {@link StopSearch}es that search this {@link Metro}, so that
+	 * searching by stops does not allocate.
+	 */
+	private final SearchPool<StopSearch> stopSearches;
+
+	/**
+	 * The {@link TransferSearch}es that search this {@link Metro}, so that
+	 * searching by changes does not allocate.
+	 */
+	private final SearchPool<TransferSearch> transferSearches;
 
 	/**
 	 * Constructs a new {@link Metro}.
@@ -46,65 +122,949 @@ public final class Metro {
 	 *            increase path finding efficiency.
 	 */
 	public Metro(Map<String, Line> lines) {
+		this(lines, new StationRegistry(), 0, Collections.emptyMap(), DEFAULT_TRANSFER_PENALTY);
+	}
+
+	/**
+	 * Constructs a new {@link Metro} that precomputes a {@link RouteTable} of the
+	 * path with the fewest stops between every pair of {@link Station}s, if the
+	 * estimated size of that table does not exceed the specified limit.
+	 * Otherwise paths are searched for when they are requested.
+	 * 
+	 * @param lines
+	 *            The {@link Line}s that make up this {@link Metro}.
+	 * @param registry
+	 *            The {@link StationRegistry} of the canonical {@link Station}s
+	 *            of this {@link Metro}.
+	 * @param routeTableLimit
+	 *            The largest number of bytes the {@link RouteTable} may use.
+	 * @param transferPenalties
+	 *            The {@link Map} of {@link Station}s to the time, in seconds, it
+	 *            takes to change {@link Line} at them.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at any
+	 *            other {@link Station}.
+	 */
+	Metro(Map<String, Line> lines, StationRegistry registry, long routeTableLimit,
+			Map<Station, Integer> transferPenalties, int defaultTransferPenalty) {
 
 		this.lines = lines;
+		this.registry = registry;
+
+		final BuildPhaseEvent compiling = BuildPhaseEvent.start();
+		this.graph = new Graph(lines, registry, transferPenalties, defaultTransferPenalty);
+		compiling.finish(BuildPhaseEvent.GRAPH, graph.size(), lines.size());
+
+		this.travelTimeSearches = new SearchPool<>(() -> new TravelTimeSearch(graph));
+		this.stopSearches = new SearchPool<>(() -> new StopSearch(graph));
+		this.transferSearches = new SearchPool<>(() -> new TransferSearch(graph));
+
+		final BuildPhaseEvent indexing = BuildPhaseEvent.start();
+		this.interchanges = new InterchangeIndex(graph);
+		indexing.finish(BuildPhaseEvent.INTERCHANGES, graph.size(), lines.size());
+
+		final BuildPhaseEvent connecting = BuildPhaseEvent.start();
+		this.connectivity = new Connectivity(graph);
+		connecting.finish(BuildPhaseEvent.CONNECTIVITY, graph.size(), lines.size());
+
+		this.closures = Closures.NONE;
+		this.defaultTransferPenalty = defaultTransferPenalty;
+		this.edit = null;
+
+		// Only precompute the routes if the table fits within the limit.
+		if (RouteTable.estimateBytes(graph.size()) <= routeTableLimit) {
+			final BuildPhaseEvent precomputing = BuildPhaseEvent.start();
+			this.routeTable = new RouteTable(graph, ForkJoinPool.commonPool());
+			precomputing.finish(BuildPhaseEvent.ROUTE_TABLE, graph.size(), lines.size());
+		} else {
+			this.routeTable = null;
+		}
 
-		// The set of stations that will be used to construct allStations
-		final Set<Station> stations = new HashSet<>();
+	}
 
-		// The map of associations between stations and their lines.
-		final Map<Station, Set<Line>> stationToLine = new HashMap<>();
+	/**
+	 * Constructs a new {@link Metro} from parts that have already been compiled,
+	 * such as those read back from a {@link MetroSnapshot}.
+	 * 
+	 * @param lines
+	 *            The {@link Line}s that make up this {@link Metro}.
+	 * @param registry
+	 *            The {@link StationRegistry} of the canonical {@link Station}s
+	 *            of this {@link Metro}.
+	 * @param graph
+	 *            The {@link Graph} the {@link Line}s are compiled into.
+	 * @param routeTable
+	 *            The {@link RouteTable} of the {@link Graph}, or
+	 *            <code>null</code> if routes are searched for on demand.
+	 * @param interchanges
+	 *            The {@link InterchangeIndex} of the {@link Graph}.
+	 * @param connectivity
+	 *            The {@link Connectivity} of the {@link Graph}.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at a
+	 *            {@link Station} that was given no time.
+	 */
+	Metro(Map<String, Line> lines, StationRegistry registry, Graph graph, RouteTable routeTable,
+			InterchangeIndex interchanges, Connectivity connectivity, int defaultTransferPenalty) {
+		this(lines, registry, graph, routeTable, interchanges, connectivity, Closures.NONE, defaultTransferPenalty,
+				null);
+	}
 
-		// Process the lines into the stations
-		parseLines(lines, stations, stationToLine);
+	/**
+	 * Constructs a new {@link Metro} from parts that have already been compiled,
+	 * such as those of an edit of another {@link Metro}.
+	 * 
+	 * @param lines
+	 *            The {@link Line}s that make up this {@link Metro}.
+	 * @param registry
+	 *            The {@link StationRegistry} of the canonical {@link Station}s
+	 *            of this {@link Metro}.
+	 * @param graph
+	 *            The {@link Graph} the {@link Line}s are compiled into.
+	 * @param routeTable
+	 *            The {@link RouteTable} of the {@link Graph}, or
+	 *            <code>null</code> if routes are searched for on demand.
+	 * @param interchanges
+	 *            The {@link InterchangeIndex} of the {@link Graph}.
+	 * @param connectivity
+	 *            The {@link Connectivity} of the {@link Graph}.
+	 * @param closures
+	 *            The {@link Closures} the {@link Graph} respects.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at a
+	 *            {@link Station} that was given no time.
+	 * @param edit
+	 *            The {@link MetroEdit} that made this {@link Metro}, or
+	 *            <code>null</code>.
+	 */
+	private Metro(Map<String, Line> lines, StationRegistry registry, Graph graph, RouteTable routeTable,
+			InterchangeIndex interchanges, Connectivity connectivity, Closures closures, int defaultTransferPenalty,
+			MetroEdit edit) {
 
-		// Set the fields as unmodifiable.
-		this.stationLineLookUp = Collections.unmodifiableMap(stationToLine);
-		this.allStations = Collections.unmodifiableSet(stations);
+		this.lines = lines;
+		this.registry = registry;
+		this.graph = graph;
+		this.routeTable = routeTable;
+		this.interchanges = interchanges;
+		this.connectivity = connectivity;
+		this.closures = closures;
+		this.defaultTransferPenalty = defaultTransferPenalty;
+		this.edit = edit;
+		this.travelTimeSearches = new SearchPool<>(() -> new TravelTimeSearch(graph));
+		this.stopSearches = new SearchPool<>(() -> new StopSearch(graph));
+		this.transferSearches = new SearchPool<>(() -> new TransferSearch(graph));
+	}
 
+	/**
+	 * Reads a {@link Metro} back from a snapshot written by
+	 * {@link Metro#writeSnapshot(Path)}, after checking the snapshot matches
+	 * its checksum. The compiled structures are copied out of the snapshot as
+	 * they are, so no index is rebuilt, but the copy still takes time in
+	 * proportion to the size of the network.
+	 * 
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @return {@link Metro}
+	 * @throws IOException
+	 *             If the snapshot cannot be read, was written by a different
+	 *             version, or does not match its checksum.
+	 * @see MetroSnapshot
+	 * @see MappedMetro#open(Path)
+	 */
+	public static Metro readSnapshot(Path file) throws IOException {
+		return readSnapshot(file, true);
 	}
 
 	/**
-	 * Finds a path between two specified {@link Station}s and retrieves the
-	 * {@link Queue} of {@link Station}s that denotes the path..
+	 * Reads a {@link Metro} back from a snapshot written by
+	 * {@link Metro#writeSnapshot(Path)}. Checking the checksum reads the whole
+	 * snapshot once more, which a caller that trusts the file may skip.
+	 * 
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @param verify
+	 *            Whether the snapshot is checked against its checksum.
+	 * @return {@link Metro}
+	 * @throws IOException
+	 *             If the snapshot cannot be read, was written by a different
+	 *             version, or is verified and does not match its checksum.
+	 * @see MetroSnapshot
+	 */
+	public static Metro readSnapshot(Path file, boolean verify) throws IOException {
+
+		// Check parameters
+		if (file == null) {
+			throw new NullPointerException("File cannot be null.");
+		}
+
+		return MetroSnapshot.read(file, verify);
+	}
+
+	/**
+	 * Writes a versioned and checksummed binary snapshot of the compiled
+	 * structures of this {@link Metro}, which {@link Metro#readSnapshot(Path)}
+	 * reads back without rebuilding them. The snapshot replaces the file
+	 * atomically once it has been written in full.
+	 * 
+	 * <p>
+	 * A snapshot holds no closures, as a {@link Metro} read back from it could
+	 * not reopen what was closed, so a {@link Metro} with a closed
+	 * {@link Station} or segment cannot be written.
+	 * </p>
+	 * 
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @throws IOException
+	 *             If the snapshot cannot be written.
+	 * @throws IllegalStateException
+	 *             If a {@link Station} or segment of this {@link Metro} is
+	 *             closed.
+	 * @see MetroSnapshot
+	 */
+	public void writeSnapshot(Path file) throws IOException {
+
+		// Check parameters
+		if (file == null) {
+			throw new NullPointerException("File cannot be null.");
+		} else if (!closures.isEmpty()) {
+			throw new IllegalStateException("A Metro with closures cannot be written to a snapshot.");
+		}
+
+		MetroSnapshot.write(file, graph, interchanges, connectivity, routeTable, defaultTransferPenalty);
+	}
+
+	/**
+	 * Finds the path with the fewest stops between two specified {@link Station}s
+	 * and retrieves the {@link List} of {@link Station}s that denotes the path.
 	 * 
 	 * @param start
 	 *            {@link Station}
 	 * @param end
 	 *            {@link Station}
-	 * @return {@link Queue} path
+	 * @return {@link List} path
+	 * @see RoutingMode#FEWEST_STOPS
 	 */
 	public List<Station> findPath(Station start, Station end) {
+		return findPath(start, end, RoutingMode.FEWEST_STOPS);
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s using the specified
+	 * {@link RoutingMode} and retrieves the {@link List} of {@link Station}s that
+	 * denotes the path.
+	 * 
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link List} path, or <code>null</code> if there is no path.
+	 */
+	public List<Station> findPath(Station start, Station end, RoutingMode mode) {
+		return route(start, end, mode).getStations();
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s using the specified
+	 * {@link RoutingMode}. If the {@link Station}s are in separate parts of this
+	 * {@link Metro} the {@link Route} records that there is no path, without
+	 * searching. Each path is recorded as a {@link RouteEvent} while that event
+	 * is enabled.
+	 * 
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link Route}
+	 * @throws UnsupportedOperationException
+	 *             If the {@link RoutingMode} is
+	 *             {@link RoutingMode#LEGACY_DEPTH_FIRST} and something in this
+	 *             {@link Metro} is closed, as that search follows whole
+	 *             {@link Line}s.
+	 */
+	public Route route(Station start, Station end, RoutingMode mode) {
+		return route(start, end, mode, PhaseTimer.NONE);
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s as
+	 * {@link Metro#route(Station, Station, RoutingMode)} does, timing the
+	 * {@link RoutePhase#SEARCH} and {@link RoutePhase#PATH} with the specified
+	 * {@link PhaseTimer}.
+	 * 
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @param timer
+	 *            {@link PhaseTimer}
+	 * @return {@link Route}
+	 */
+	Route route(Station start, Station end, RoutingMode mode, PhaseTimer timer) {
 
 		// Check parameters
 		if (start == null) {
 			throw new NullPointerException("Start cannot be null.");
 		} else if (end == null) {
 			throw new NullPointerException("End cannot be null.");
-		} else if (!allStations.contains(start)) {
+		} else if (mode == null) {
+			throw new NullPointerException("Routing mode cannot be null.");
+		} else if (timer == null) {
+			throw new NullPointerException("Phase timer cannot be null.");
+		}
+
+		final int source = graph.idOf(start);
+		final int target = graph.idOf(end);
+
+		if (source < 0 || !graph.isOnLine(source)) {
 			throw new NullPointerException(start.getName() + " does not exist in this Metro.");
-		} else if (!allStations.contains(end)) {
+		} else if (target < 0 || !graph.isOnLine(target)) {
 			throw new NullPointerException(end.getName() + " does not exist in this Metro.");
+		} else if (mode == RoutingMode.LEGACY_DEPTH_FIRST && !closures.isEmpty()) {
+			throw new UnsupportedOperationException("The legacy search cannot avoid closures.");
 		}
 
-		// Holds the lines that the path from the start to end stations traverses
-		Stack<Line> linePath = new Stack<>();
+		final RouteEvent event = RouteEvent.start();
+		final Route route = connectivity.connected(source, target) ? search(source, target, mode, timer)
+				: Route.unreachable(start, end, mode);
+		event.finish(route);
 
-		// THe set of lines that have been traversed by the path
-		Set<Line> traversed = new HashSet<>();
+		return route;
+	}
 
-		// The first line that will be checked
-		Line startLine = stationLineLookUp.get(start).iterator().next();
+	/**
+	 * Searches for a path between two connected {@link Station}s using the
+	 * specified {@link RoutingMode}.
+	 * 
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the search.
+	 * @return {@link Route}
+	 */
+	private Route search(int source, int target, RoutingMode mode, PhaseTimer timer) {
+
+		final long started = timer.start();
+		final List<Station> path;
+		final int settled;
+
+		switch (mode) {
+		case LEGACY_DEPTH_FIRST:
+			path = findLinePath(source, target);
+			settled = 0;
+			break;
+		case FEWEST_CHANGES:
+			final TransferSearch transferSearch = transferSearches.borrow();
+			path = transferSearch.search(source, target, timer);
+			settled = transferSearch.settled();
+			transferSearches.release(transferSearch);
+			break;
+		case FASTEST:
+			final TravelTimeSearch travelTimeSearch = travelTimeSearches.borrow();
+			path = travelTimeSearch.search(source, target, timer);
+			settled = travelTimeSearch.settled();
+			travelTimeSearches.release(travelTimeSearch);
+			break;
+		case BIDIRECTIONAL:
+			final StopSearch bidirectionalSearch = stopSearches.borrow();
+			path = bidirectionalSearch.searchBidirectional(source, target, timer);
+			settled = bidirectionalSearch.settled();
+			stopSearches.release(bidirectionalSearch);
+			break;
+		case FEWEST_STOPS:
+		default:
+			if (routeTable != null) {
+				final long following = timer.start();
+				path = followRouteTable(source, target);
+				timer.end(RoutePhase.PATH, following);
+				settled = 0;
+			} else {
+				final StopSearch stopSearch = stopSearches.borrow();
+				path = stopSearch.search(source, target, timer);
+				settled = stopSearch.settled();
+				stopSearches.release(stopSearch);
+			}
+			break;
+		}
+
+		timer.end(RoutePhase.SEARCH, started);
+
+		if (path == null) {
+			return Route.unreachable(graph.stations[source], graph.stations[target], mode);
+		}
+
+		return Route.found(mode, path, settled);
+	}
+
+	/**
+	 * Retrieves the canonical {@link Station} of this {@link Metro} with the
+	 * specified name. Passing the canonical {@link Station}s to the methods of
+	 * this {@link Metro} saves looking them up by name.
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return {@link Station}
+	 */
+	public Station getStation(String stationName) {
+		return graph.stations[stationIdOf(stationName)];
+	}
+
+	/**
+	 * Retrieves whether this {@link Metro} precomputed the path with the fewest
+	 * stops between every pair of {@link Station}s when it was constructed.
+	 * 
+	 * @return Whether paths are looked up rather than searched for.
+	 */
+	public boolean hasRouteTable() {
+		return routeTable != null;
+	}
+
+	/**
+	 * Closes a {@link Station}, so that no train calls at or runs through it
+	 * until it is reopened. Each {@link Line} through the {@link Station} is cut
+	 * in two there.
+	 * 
+	 * <p>
+	 * Only the connections along the {@link Line}s through the {@link Station}
+	 * are compiled again, along with the components and precomputed routes that
+	 * they change. Everything else is shared with this {@link Metro}, which does
+	 * not change.
+	 * </p>
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return The edited {@link Metro}, or this {@link Metro} if the
+	 *         {@link Station} is already closed.
+	 */
+	public Metro closeStation(String stationName) {
+		return setStationClosed(stationName, true);
+	}
+
+	/**
+	 * Reopens a {@link Station} closed by {@link Metro#closeStation(String)}.
+	 * The segments either side of it are reopened too, unless they were closed
+	 * by {@link Metro#closeSegment(String, String, String)}.
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return The edited {@link Metro}, or this {@link Metro} if the
+	 *         {@link Station} is already open.
+	 */
+	public Metro reopenStation(String stationName) {
+		return setStationClosed(stationName, false);
+	}
+
+	/**
+	 * Retrieves whether a {@link Station} is closed.
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return Whether the {@link Station} is closed.
+	 */
+	public boolean isClosed(String stationName) {
+		return closures.isClosed(stationIdOf(stationName));
+	}
+
+	/**
+	 * Closes the segment of a {@link Line} between two neighbouring
+	 * {@link Station}s, so that no train on that {@link Line} runs between them
+	 * until it is reopened. Only the connections along that {@link Line} are
+	 * compiled again.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param stationA
+	 *            The name of the {@link Station} at one end of the segment.
+	 * @param stationB
+	 *            The name of the {@link Station} at the other end.
+	 * @return The edited {@link Metro}, or this {@link Metro} if the segment is
+	 *         already closed.
+	 * @throws IllegalArgumentException
+	 *             If the {@link Station}s are not neighbours on the
+	 *             {@link Line}.
+	 */
+	public Metro closeSegment(String lineName, String stationA, String stationB) {
+		return setSegmentClosed(lineName, stationA, stationB, true);
+	}
 
-		// If there is a line path get the path
-		if (searchAdjacentLine(linePath, traversed, startLine, end)) {
+	/**
+	 * Reopens a segment closed by
+	 * {@link Metro#closeSegment(String, String, String)}. Trains only run along
+	 * it again if neither of its {@link Station}s is closed.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param stationA
+	 *            The name of the {@link Station} at one end of the segment.
+	 * @param stationB
+	 *            The name of the {@link Station} at the other end.
+	 * @return The edited {@link Metro}, or this {@link Metro} if the segment is
+	 *         already open.
+	 * @throws IllegalArgumentException
+	 *             If the {@link Station}s are not neighbours on the
+	 *             {@link Line}.
+	 */
+	public Metro reopenSegment(String lineName, String stationA, String stationB) {
+		return setSegmentClosed(lineName, stationA, stationB, false);
+	}
 
-			// Return the path
-			return buildPath(linePath, start, end);
+	/**
+	 * Adds a {@link Line} through the specified {@link Station}s, in order from
+	 * its first terminal. {@link Station}s that are not in this {@link Metro}
+	 * are added with it.
+	 * 
+	 * <p>
+	 * Only the {@link Line}s that share a {@link Station} with the new
+	 * {@link Line} are constructed again, to record that they are adjacent to
+	 * it, and every other {@link Line} and {@link Station} is shared with this
+	 * {@link Metro}.
+	 * </p>
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param stationNames
+	 *            The names of the {@link Station}s of the {@link Line}.
+	 * @param travelTimes
+	 *            The time, in seconds, between each pair of neighbouring
+	 *            {@link Station}s, or <code>null</code> to use
+	 *            {@link Line#DEFAULT_TRAVEL_TIME}.
+	 * @return The edited {@link Metro}.
+	 * @throws IllegalArgumentException
+	 *             If the {@link Line} already exists in this {@link Metro}, a
+	 *             {@link Station} is on it more than once, or it has no
+	 *             {@link Station}s.
+	 */
+	public Metro addLine(String lineName, List<String> stationNames, int[] travelTimes) {
+
+		// Check parameters
+		if (lineName == null) {
+			throw new NullPointerException("Line name cannot be null.");
+		} else if (stationNames == null) {
+			throw new NullPointerException("Station names cannot be null.");
+		} else if (lines.containsKey(lineName)) {
+			throw new IllegalArgumentException(lineName + " already exists in this Metro.");
 		}
 
-		return null;
+		// Copy the registry before adding any station this Metro does not have.
+		StationRegistry editedRegistry = registry;
+		for (String stationName : stationNames) {
+			if (stationName == null) {
+				throw new NullPointerException("Station name cannot be null.");
+			} else if (editedRegistry == registry && registry.get(stationName) == null) {
+				editedRegistry = new StationRegistry(registry);
+			}
+		}
+
+		final Set<Station> stations = new LinkedHashSet<>();
+		for (String stationName : stationNames) {
+			if (!stations.add(editedRegistry.intern(stationName))) {
+				throw new IllegalArgumentException(stationName + " is on " + lineName + " more than once.");
+			}
+		}
+
+		// The new line is adjacent to every other line of its stations.
+		final Map<String, Set<Station>> adjacentLines = new HashMap<>();
+		for (Station station : stations) {
+
+			final int id = editedRegistry.idOf(station);
+
+			// A station new to this metro is on no other line.
+			if (id >= graph.size()) {
+				continue;
+			}
+
+			for (int state = graph.lineOffsets[id]; state < graph.lineOffsets[id + 1]; state++) {
+				adjacentLines.computeIfAbsent(graph.lines[graph.stationLines[state]].getName(),
+						name -> new LinkedHashSet<>()).add(station);
+			}
+		}
 
+		final Line line = new Line(lineName, stations, adjacentLines, travelTimes);
+
+		// The new line takes the next id, and its neighbours are relinked to it.
+		final Map<String, Line> editedLines = new LinkedHashMap<>(lines);
+		final Line[] lineArray = Arrays.copyOf(graph.lines, graph.lines.length + 1);
+		adjacentLines.forEach((adjacent, shared) -> {
+			final Line neighbour = relink(lines.get(adjacent), lineName, shared);
+			editedLines.put(adjacent, neighbour);
+			lineArray[graph.lineIdOf(adjacent)] = neighbour;
+		});
+		editedLines.put(lineName, line);
+		lineArray[graph.lines.length] = line;
+
+		final int[] lineMap = new int[graph.lines.length];
+		for (int id = 0; id < lineMap.length; id++) {
+			lineMap[id] = id;
+		}
+
+		final Graph editedGraph = graph.withLines(lineArray, lineMap, editedRegistry, defaultTransferPenalty,
+				closures);
+		final BitSet added = new BitSet();
+		added.set(graph.lines.length);
+
+		return edited(editedLines, editedRegistry, editedGraph,
+				new InterchangeIndex(interchanges, graph, editedGraph, lineMap), closures, new long[0],
+				segments(editedGraph, added, closures, null));
+	}
+
+	/**
+	 * Removes a {@link Line}. Its {@link Station}s that are on no other
+	 * {@link Line} no longer exist in the edited {@link Metro}. Only the
+	 * {@link Line}s that shared a {@link Station} with it are constructed again.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return The edited {@link Metro}.
+	 */
+	public Metro removeLine(String lineName) {
+
+		final int line = lineIdOf(lineName);
+		final int last = graph.lines.length - 1;
+
+		// The last line takes the id of the removed line, so no other id changes.
+		final int[] lineMap = new int[graph.lines.length];
+		for (int id = 0; id < lineMap.length; id++) {
+			lineMap[id] = id;
+		}
+		lineMap[line] = -1;
+		lineMap[last] = line == last ? -1 : line;
+
+		final Line[] lineArray = Arrays.copyOf(graph.lines, last);
+		if (line != last) {
+			lineArray[line] = graph.lines[last];
+		}
+
+		// Relink the neighbours of the removed line.
+		final Map<String, Line> editedLines = new LinkedHashMap<>(lines);
+		editedLines.remove(lineName);
+		for (String adjacent : graph.lines[line].getAdjacentLineNames()) {
+
+			final Line neighbour = relink(lines.get(adjacent), lineName, null);
+			editedLines.put(adjacent, neighbour);
+			lineArray[lineMap[graph.lineIdOf(adjacent)]] = neighbour;
+		}
+
+		final BitSet removed = new BitSet();
+		removed.set(line);
+
+		final Closures editedClosures = closures.withoutLine(lineName);
+		final Graph editedGraph = graph.withLines(lineArray, lineMap, registry, defaultTransferPenalty,
+				editedClosures);
+
+		return edited(editedLines, registry, editedGraph,
+				new InterchangeIndex(interchanges, graph, editedGraph, lineMap), editedClosures,
+				segments(graph, removed, closures, null), new long[0]);
+	}
+
+	/**
+	 * Retrieves whether a {@link Station} or segment of this {@link Metro} is
+	 * closed, in which case it cannot be searched with
+	 * {@link RoutingMode#LEGACY_DEPTH_FIRST}.
+	 * 
+	 * @return Whether anything is closed.
+	 */
+	boolean hasClosures() {
+		return !closures.isEmpty();
+	}
+
+	/**
+	 * Retrieves whether this {@link Metro} was made by an edit of the specified
+	 * {@link Metro}, such as {@link Metro#closeStation(String)}.
+	 * 
+	 * @param metro
+	 *            {@link Metro}
+	 * @return Whether this {@link Metro} is an edit of the {@link Metro}.
+	 */
+	boolean isEditOf(Metro metro) {
+		return edit != null && edit.isFrom(metro);
+	}
+
+	/**
+	 * Retrieves whether a {@link Route} found by the {@link Metro} this
+	 * {@link Metro} was edited from may no longer be the best {@link Route}.
+	 * 
+	 * @param route
+	 *            {@link Route}
+	 * @return Whether the {@link Route} must be found again.
+	 * @see MetroEdit#isStale(Route, Graph, Connectivity)
+	 */
+	boolean isStale(Route route) {
+		return edit == null || edit.isStale(route, graph, connectivity);
+	}
+
+	/**
+	 * Closes or opens a {@link Station}.
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @param closed
+	 *            Whether the {@link Station} is closed.
+	 * @return The edited {@link Metro}, or this {@link Metro} if nothing changed.
+	 */
+	private Metro setStationClosed(String stationName, boolean closed) {
+
+		final int station = stationIdOf(stationName);
+
+		if (closures.isClosed(station) == closed) {
+			return this;
+		}
+
+		final BitSet changed = new BitSet();
+		for (int state = graph.lineOffsets[station]; state < graph.lineOffsets[station + 1]; state++) {
+			changed.set(graph.stationLines[state]);
+		}
+
+		return reconnect(closures.withStation(station, closed), changed);
+	}
+
+	/**
+	 * Closes or opens a segment of a {@link Line}.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @param stationA
+	 *            The name of the {@link Station} at one end of the segment.
+	 * @param stationB
+	 *            The name of the {@link Station} at the other end.
+	 * @param closed
+	 *            Whether the segment is closed.
+	 * @return The edited {@link Metro}, or this {@link Metro} if nothing changed.
+	 */
+	private Metro setSegmentClosed(String lineName, String stationA, String stationB, boolean closed) {
+
+		final int line = lineIdOf(lineName);
+		final int a = graph.lines[line].indexOf(graph.stations[stationIdOf(stationA)]);
+		final int b = graph.lines[line].indexOf(graph.stations[stationIdOf(stationB)]);
+
+		if (a < 0 || b < 0 || Math.abs(a - b) != 1) {
+			throw new IllegalArgumentException(stationA + " and " + stationB + " are not neighbours on " + lineName
+					+ ".");
+		}
+
+		final int segment = Math.min(a, b);
+
+		if (closures.isClosed(lineName, segment) == closed) {
+			return this;
+		}
+
+		final BitSet changed = new BitSet();
+		changed.set(line);
+
+		return reconnect(closures.withSegment(lineName, segment, closed), changed);
+	}
+
+	/**
+	 * Constructs the {@link Metro} with the specified {@link Closures}, where
+	 * only the connections along the specified {@link Line}s have changed.
+	 * 
+	 * @param editedClosures
+	 *            The {@link Closures} of the edited {@link Metro}.
+	 * @param changed
+	 *            The ids of the {@link Line}s whose connections changed.
+	 * @return The edited {@link Metro}.
+	 */
+	private Metro reconnect(Closures editedClosures, BitSet changed) {
+
+		final Graph editedGraph = graph.reconnect(changed, editedClosures);
+
+		return edited(lines, registry, editedGraph, interchanges, editedClosures,
+				segments(graph, changed, closures, editedClosures), segments(graph, changed, editedClosures, closures));
+	}
+
+	/**
+	 * Constructs the edited {@link Metro} from its compiled {@link Graph},
+	 * computing again only the components and rows of the {@link RouteTable}
+	 * that the changed connections affect.
+	 * 
+	 * @param editedLines
+	 *            The {@link Line}s of the edited {@link Metro}.
+	 * @param editedRegistry
+	 *            The {@link StationRegistry} of the edited {@link Metro}.
+	 * @param editedGraph
+	 *            The {@link Graph} of the edited {@link Metro}.
+	 * @param editedInterchanges
+	 *            The {@link InterchangeIndex} of the edited {@link Metro}.
+	 * @param editedClosures
+	 *            The {@link Closures} of the edited {@link Metro}.
+	 * @param removed
+	 *            The connections of this {@link Metro} that the edited
+	 *            {@link Metro} does not have.
+	 * @param added
+	 *            The connections of the edited {@link Metro} that this
+	 *            {@link Metro} does not have.
+	 * @return The edited {@link Metro}.
+	 */
+	private Metro edited(Map<String, Line> editedLines, StationRegistry editedRegistry, Graph editedGraph,
+			InterchangeIndex editedInterchanges, Closures editedClosures, long[] removed, long[] added) {
+
+		// Only the components of the stations of the changed connections change.
+		final int[] changed = new int[2 * (removed.length + added.length)];
+		int count = 0;
+		for (long pair : removed) {
+			changed[count++] = MetroEdit.firstOf(pair);
+			changed[count++] = MetroEdit.secondOf(pair);
+		}
+		for (long pair : added) {
+			changed[count++] = MetroEdit.firstOf(pair);
+			changed[count++] = MetroEdit.secondOf(pair);
+		}
+		final Connectivity editedConnectivity = new Connectivity(connectivity, editedGraph, changed);
+
+		// Keep precomputing routes if this metro does, updating only the rows that changed.
+		final RouteTable editedRouteTable;
+		if (routeTable == null || editedGraph.size() > RouteTable.MAX_STATIONS) {
+			editedRouteTable = null;
+		} else if (editedGraph.size() == graph.size()) {
+			editedRouteTable = new RouteTable(routeTable, editedGraph, removed, added, ForkJoinPool.commonPool());
+		} else {
+			editedRouteTable = new RouteTable(editedGraph, ForkJoinPool.commonPool());
+		}
+
+		return new Metro(editedLines, editedRegistry, editedGraph, editedRouteTable, editedInterchanges,
+				editedConnectivity, editedClosures, defaultTransferPenalty,
+				new MetroEdit(this, editedConnectivity, removed, added));
+	}
+
+	/**
+	 * Retrieves the connections along the specified {@link Line}s of a
+	 * {@link Graph} that are open under one {@link Closures} but not under
+	 * another.
+	 * 
+	 * @param graph
+	 *            {@link Graph}
+	 * @param lineIds
+	 *            The ids of the {@link Line}s.
+	 * @param open
+	 *            The {@link Closures} the connections are open under.
+	 * @param closed
+	 *            The {@link Closures} the connections are closed under, or
+	 *            <code>null</code> to retrieve every connection that is open
+	 *            under <code>open</code>.
+	 * @return The connections, as given by {@link MetroEdit#pairOf(int, int)}.
+	 */
+	private static long[] segments(Graph graph, BitSet lineIds, Closures open, Closures closed) {
+
+		long[] pairs = new long[16];
+		int count = 0;
+
+		for (int line = lineIds.nextSetBit(0); line >= 0; line = lineIds.nextSetBit(line + 1)) {
+
+			final int[] stations = graph.stationsOf(line);
+
+			for (int segment = 0; segment < stations.length - 1; segment++) {
+
+				final int from = stations[segment];
+				final int to = stations[segment + 1];
+
+				if (open.isOpen(graph.lines[line], segment, from, to)
+						&& (closed == null || !closed.isOpen(graph.lines[line], segment, from, to))) {
+
+					if (count == pairs.length) {
+						pairs = Arrays.copyOf(pairs, 2 * count);
+					}
+					pairs[count++] = MetroEdit.pairOf(from, to);
+				}
+			}
+		}
+
+		return Arrays.copyOf(pairs, count);
+	}
+
+	/**
+	 * Constructs a copy of a {@link Line} where it is adjacent to another
+	 * {@link Line} at the specified {@link Station}s, or is not adjacent to it.
+	 * 
+	 * @param line
+	 *            {@link Line}
+	 * @param lineName
+	 *            The name of the other {@link Line}.
+	 * @param shared
+	 *            The {@link Station}s on both {@link Line}s, or
+	 *            <code>null</code> if they are no longer adjacent.
+	 * @return {@link Line}
+	 */
+	private static Line relink(Line line, String lineName, Set<Station> shared) {
+
+		final Map<String, Set<Station>> adjacentLines = new HashMap<>();
+		for (String adjacent : line.getAdjacentLineNames()) {
+			adjacentLines.put(adjacent, line.getIntersectingStationsOf(adjacent));
+		}
+
+		if (shared == null) {
+			adjacentLines.remove(lineName);
+		} else {
+			adjacentLines.put(lineName, shared);
+		}
+
+		final int[] travelTimes = new int[line.getStations().size() - 1];
+		for (int segment = 0; segment < travelTimes.length; segment++) {
+			travelTimes[segment] = line.getTravelTime(segment);
+		}
+
+		return new Line(line.getName(), line.getStations(), adjacentLines, travelTimes);
+	}
+
+	/**
+	 * Retrieves the id of the {@link Station} of this {@link Metro} with the
+	 * specified name.
+	 * 
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return The id of the {@link Station}.
+	 * @throws NullPointerException
+	 *             If the {@link Station} is not on any {@link Line} of this
+	 *             {@link Metro}.
+	 */
+	private int stationIdOf(String stationName) {
+
+		// Check parameters
+		if (stationName == null) {
+			throw new NullPointerException("Station name cannot be null.");
+		}
+
+		final Station station = registry.get(stationName);
+		final int id = station == null ? -1 : graph.idOf(station);
+
+		if (id < 0 || !graph.isOnLine(id)) {
+			throw new NullPointerException(stationName + " does not exist in this Metro.");
+		}
+
+		return id;
+	}
+
+	/**
+	 * Retrieves the id of the {@link Line} of this {@link Metro} with the
+	 * specified name.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return The id of the {@link Line}.
+	 * @throws NullPointerException
+	 *             If the {@link Line} does not exist in this {@link Metro}.
+	 */
+	private int lineIdOf(String lineName) {
+
+		// Check parameters
+		if (lineName == null) {
+			throw new NullPointerException("Line name cannot be null.");
+		}
+
+		final int line = graph.lineIdOf(lineName);
+
+		if (line < 0) {
+			throw new NullPointerException(lineName + " does not exist in this Metro.");
+		}
+
+		return line;
 	}
 
 	/**
@@ -166,6 +1126,26 @@ public final class Metro {
 		return currentLines;
 	}
 
+	/**
+	 * Retrieves the names of the {@link Line}s that connect to the specified
+	 * {@link Line}.
+	 * 
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link Set} of {@link Line} names.
+	 */
+	public Set<String> getAdjacentLineNames(String lineName) {
+
+		final Line line = lines.get(lineName);
+
+		// Check parameters
+		if (line == null) {
+			throw new NullPointerException(lineName + " does not exist in this Metro.");
+		}
+
+		return line.getAdjacentLineNames();
+	}
+
 	/**
 	 * Retrieves the {@link Set} of {@link Line}s that connect to the specified
 	 * {@link Line}.
@@ -185,249 +1165,248 @@ public final class Metro {
 	}
 
 	/**
-	 * Processes the specified {@link Map} of {@link Line}s into the specified
-	 * {@link Set} of {@link Station}s and {@link Map} of {@link Station}s to the
-	 * {@link Line}s they are on.
+	 * Rebuilds the path with the fewest stops between two {@link Station}s by
+	 * following the next hops of the {@link Metro#routeTable}.
 	 * 
-	 * @param lines
-	 *            {@link Map} of {@link Line}s
-	 * @param stations
-	 *            {@link Set} of {@link Station}s
-	 * @param stationToLine
-	 *            {@link Map} of {@link Station}s to the {@link Line}s they are on.
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
 	 */
-	private void parseLines(final Map<String, Line> lines, final Set<Station> stations,
-			final Map<Station, Set<Line>> stationToLine) {
+	private List<Station> followRouteTable(int source, int target) {
 
-		// Iterate through each line in the parameter line map.
-		lines.forEach((lineName, line) -> {
+		final List<Station> path = new ArrayList<>();
 
-			// Add all the stations on that line to the set of all stations.
-			final Set<Station> stationsInLine = line.getStations();
-			stations.addAll(stationsInLine);
+		for (int station = source; station != target; station = routeTable.nextHop(station, target)) {
 
-			// Iterate through all the stations on the current line and add an association
-			// for from the station back to its parent line(s).
-			stationsInLine.forEach(station -> {
-
-				if (!stationToLine.containsKey(station)) {
-					stationToLine.put(station, new HashSet<>());
-				}
+			// There is no path if there is no next hop.
+			if (station < 0) {
+				return null;
+			}
 
-				stationToLine.get(station).add(line);
+			path.add(graph.stations[station]);
+		}
+		path.add(graph.stations[target]);
 
-			});
-		});
+		return path;
 	}
 
 	/**
-	 * Retrieves the {@link Station}s along one {@link Line} until the common
-	 * {@link Station} is reached.
+	 * Finds a path between two {@link Station}s using a depth first search over
+	 * the {@link Line}s of this {@link Metro}, starting from the first
+	 * {@link Line} of the start {@link Station} and stopping at the first
+	 * {@link Line} reached that the end {@link Station} is on.
 	 * 
-	 * @param line
-	 *            {@link Line} both {@link Station}s are on.
-	 * @param start
-	 *            {@link Station} A
-	 * @param end
-	 *            {@link Station} b
-	 * @return {@link Queue} path between the two stations.
+	 * <p>
+	 * The search keeps its own stack of {@link Line} ids, along with how far
+	 * through the adjacent {@link Line}s of each it has got, rather than
+	 * recursing, so the length of the {@link Line} chain is not limited by the
+	 * size of the thread stack.
+	 * </p>
+	 * 
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
 	 */
-	private LinkedList<Station> getPathOnLine(Line line, Station start, Station end) {
+	private List<Station> findLinePath(int source, int target) {
 
-		// The path between the two stations
-		LinkedList<Station> path = new LinkedList<>();
+		final int lineCount = graph.lines.length;
 
-		// Whether the path contains 'start' already
-		boolean containsStart = false;
+		// Whether the end station is on each line.
+		final boolean[] targetLines = new boolean[lineCount];
+		for (int state = graph.lineOffsets[target]; state < graph.lineOffsets[target + 1]; state++) {
+			targetLines[graph.stationLines[state]] = true;
+		}
 
-		// Whether the path contains 'end' already
-		boolean containsEnd = false;
+		// Holds the lines that the path from the start to end stations traverses
+		final int[] linePath = new int[lineCount];
 
-		/**
-		 * Adds all the stations between 'start' and 'end' to the path
-		 */
-		for (Station station : line.getStations()) {
+		// The index of the next adjacent line to try for each line on the path.
+		final int[] cursors = new int[lineCount];
 
-			// Whether the current station is 'start'
-			final boolean isStart = station.equals(start);
+		// The set of lines that have been traversed by the path
+		final boolean[] traversed = new boolean[lineCount];
 
-			// Whether the current station is 'end'
-			final boolean isEnd = station.equals(end);
+		// The first line that will be checked
+		int depth = 0;
+		int current = graph.stationLines[graph.lineOffsets[source]];
 
-			// If both stations are in the path stop iterating through the stations
-			if (containsStart && containsEnd) {
-				break;
-			}
+		while (true) {
 
-			/*
-			 * If the current station is 'start' or 'end' OR the the path contains 'start'
-			 * or 'end' add the current station to the path.
-			 */
-			if (containsStart || containsEnd || isStart || isEnd) {
+			// Add this line to the path and set it as traversed.
+			linePath[depth] = current;
+			cursors[depth] = graph.adjacentLineOffsets[current];
+			traversed[current] = true;
+			depth++;
 
-				// If the current station is 'start' then the path contains the start station.
-				if (isStart) {
-					containsStart = true;
-				}
+			// If the target station is on the current line a path has been found.
+			if (targetLines[current]) {
+				return buildPath(linePath, depth, source, target);
+			}
 
-				// If the current station is 'end' then path contains the end station.
-				if (isEnd) {
-					containsEnd = true;
+			// If any of the adjacent lines is a target line it completes the path.
+			for (int edge = graph.adjacentLineOffsets[current]; edge < graph.adjacentLineOffsets[current + 1]; edge++) {
+				if (targetLines[graph.adjacentLines[edge]]) {
+					linePath[depth++] = graph.adjacentLines[edge];
+					return buildPath(linePath, depth, source, target);
 				}
-
-				path.add(station);
 			}
 
-		}
+			// Find the next line that has not been traversed, returning to parent lines
+			// when a line has none left.
+			current = -1;
+			while (current < 0 && depth > 0) {
 
-		// If 'end' is at the start of the path. Reverse the path.
-		if (path.peek().equals(end)) {
-			return reversePath(path);
-		}
+				final int top = depth - 1;
+				final int line = linePath[top];
 
-		return path;
+				if (cursors[top] < graph.adjacentLineOffsets[line + 1]) {
+
+					final int next = graph.adjacentLines[cursors[top]++];
+
+					if (!traversed[next]) {
+						current = next;
+					}
+				} else {
+					depth--;
+				}
+			}
+
+			if (current < 0) {
+				return null;
+			}
+		}
 	}
 
 	/**
-	 * Converts the path created by the DFS
-	 * {@link Metro#searchAdjacentLine(Stack, Set, Line, Station)} into a
-	 * {@link List} of {@link Station}s.
+	 * Retrieves the {@link Station}s along one {@link Line} from one
+	 * {@link Station} to another. The result is a view of the {@link Line}, so no
+	 * {@link Station}s are copied.
 	 * 
-	 * @param linePath
-	 *            The {@link Stack} of {@link Line}s that are on the path from the
-	 *            start {@link Station} to the end {@link Station}.
+	 * @param line
+	 *            {@link Line} both {@link Station}s are on.
 	 * @param start
-	 *            {@link Station}
+	 *            {@link Station} A
 	 * @param end
-	 *            {@link Station}
-	 * @return {@link List} of {@link Station}s representing the path.
+	 *            {@link Station} b
+	 * @return {@link List} path between the two stations.
 	 */
-	private List<Station> buildPath(Stack<Line> linePath, Station start, Station end) {
-
-		// Holds the full path from the start station to the end station.
-		final LinkedList<Station> fullPath = new LinkedList<>();
-
-		Station previousStationNode = start;
-		Station nextStationNode = null;
-		Line previousLine = null;
+	private List<Station> getPathOnLine(Line line, Station start, Station end) {
+		return line.getPathBetween(start, end);
+	}
 
-		// Iterate through each line of the line path from.
-		for (Line line : linePath) {
+	/**
+	 * Converts the path created by the DFS
+	 * {@link Metro#findLinePath(int, int)} into a {@link List} of
+	 * {@link Station}s.
+	 * 
+	 * <p>
+	 * Where two consecutive {@link Line}s share more than one {@link Station},
+	 * the interchanges are chosen so that the total number of stops along the
+	 * {@link Line}s is the smallest. Each leg looks up its candidate interchanges
+	 * in the {@link Metro#interchanges} and the position of each candidate on its
+	 * {@link Line}s in the {@link Metro#graph}, and the best choice for every leg
+	 * is found in a single pass over the legs.
+	 * </p>
+	 * 
+	 * @param lineIds
+	 *            The ids of the {@link Line}s that are on the path from the start
+	 *            {@link Station} to the end {@link Station}.
+	 * @param legs
+	 *            The number of {@link Line}s on the path.
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @return {@link List} of {@link Station}s representing the path.
+	 */
+	private List<Station> buildPath(int[] lineIds, int legs, int source, int target) {
 
-			// If there is a previous line.
-			if (previousLine != null) {
+		// The candidate interchanges between each line and the next.
+		final int[][] candidates = new int[legs - 1][];
 
-				// Set the next node as the first intersecting node between the current line and
-				// the previous line.
-				nextStationNode = line.getIntersectingStationsOf(previousLine.getName()).iterator().next();
+		// The fewest stops from the start to each candidate of the previous leg.
+		long[] stops = { 0 };
+		int[] previousCandidates = { source };
 
-				// Get the path along the previous line from the previous node to the current
-				// node.
-				final LinkedList<Station> path = getPathOnLine(previousLine, previousStationNode, nextStationNode);
+		// The index of the best previous candidate for each candidate of each leg.
+		final int[][] best = new int[legs - 1][];
 
-				// Remove the station that will start the next leg of the full path along the
-				// current line.
-				previousStationNode = path.removeLast();
+		for (int leg = 0; leg < legs - 1; leg++) {
 
-				// Add the path to the full path
-				fullPath.addAll(path);
-			}
+			candidates[leg] = interchanges.between(lineIds[leg], lineIds[leg + 1]);
+			best[leg] = new int[candidates[leg].length];
 
-			// Set the current line as the previous line.
-			previousLine = line;
+			final long[] nextStops = new long[candidates[leg].length];
 
-		}
+			// Find the cheapest way to reach each candidate along this leg's line.
+			for (int next = 0; next < candidates[leg].length; next++) {
 
-		// Add the last leg of the path from the last node to the end station
-		fullPath.addAll(getPathOnLine(previousLine, previousStationNode, end));
+				final int to = graph.positionOf(candidates[leg][next], lineIds[leg]);
+				nextStops[next] = Long.MAX_VALUE;
 
-		return fullPath;
-	}
+				for (int previous = 0; previous < previousCandidates.length; previous++) {
 
-	/**
-	 * Performs one stage of a recursive depth first search across all the
-	 * {@link Line} in the {@link Metro}.
-	 * 
-	 * @param linePath
-	 *            {@link Stack} path of {@link Line}s that have been.
-	 * @param traversed
-	 *            {@link Set} of {@link Line}s that have been traversed.
-	 * @param current
-	 *            The current {@link Line} being evaluated.
-	 * @param target
-	 *            The target {@link Station} that this DFS is attempting to find.
-	 * @return Whether a path was found or not.
-	 */
-	private boolean searchAdjacentLine(Stack<Line> linePath, Set<Line> traversed, Line current, Station target) {
+					final int from = graph.positionOf(previousCandidates[previous], lineIds[leg]);
+					final long total = stops[previous] + Math.abs(to - from);
 
-		// Add this line to the path and set it as traversed.
-		linePath.push(current);
-		traversed.add(current);
+					if (total < nextStops[next]) {
+						nextStops[next] = total;
+						best[leg][next] = previous;
+					}
+				}
+			}
 
-		/*
-		 * If the target station is on the current line a path has been found. A base
-		 * case for this recursive algorithm.
-		 */
-		if (current.contains(target)) {
-			return true;
+			stops = nextStops;
+			previousCandidates = candidates[leg];
 		}
 
-		final Set<Line> validLines = new HashSet<>();
-		final Set<Line> adjacentLines = getAdjacentLines(current);
-		final Set<Line> targetLines = stationLineLookUp.get(target);
+		// Choose the last interchange by the stops of the final leg to the end.
+		final int lastLine = lineIds[legs - 1];
+		final int endPosition = graph.positionOf(target, lastLine);
+		int chosen = 0;
+		long fewest = Long.MAX_VALUE;
+		for (int candidate = 0; candidate < previousCandidates.length; candidate++) {
 
-		// Check if any of the current adjacent lines are a target line.
-		for (Line line : adjacentLines) {
+			final long total = stops[candidate]
+					+ Math.abs(endPosition - graph.positionOf(previousCandidates[candidate], lastLine));
 
-			/*
-			 * If the set of lines connected to the target station then add the line to the
-			 * line path as it line. A base case for this recursive algorithm.
-			 */
-			if (targetLines.contains(line)) {
-				linePath.push(line);
-				return true;
+			if (total < fewest) {
+				fewest = total;
+				chosen = candidate;
 			}
-
-			// If the line has not already been traversed add it as a valid child.
-			if (!traversed.contains(line)) {
-				validLines.add(line);
-			}
-
 		}
 
-		// Iterate through each valid child line. Return true if a path is found using a
-		// child line.
-		for (Line line : validLines) {
-			if (searchAdjacentLine(linePath, traversed, line, target)) {
-				return true;
-			}
+		// Walk back through the legs to recover the chosen interchanges.
+		final Station[] waypoints = new Station[legs + 1];
+		waypoints[0] = graph.stations[source];
+		waypoints[legs] = graph.stations[target];
+		for (int leg = legs - 2; leg >= 0; leg--) {
+			waypoints[leg + 1] = graph.stations[candidates[leg][chosen]];
+			chosen = best[leg][chosen];
 		}
 
-		// If there are no valid child lines then remove this line from the line path
-		// and return to parent line.
-		linePath.pop();
-		return false;
-	}
+		// Holds the full path from the start station to the end station.
+		final List<Station> fullPath = new ArrayList<>();
 
-	/**
-	 * Reverses the specified {@link LinkedList} of {@link Station}s.
-	 * 
-	 * @param path
-	 *            {@link LinkedList} of {@link Station}s
-	 * @return reversed {@link LinkedList} of {@link Station}s
-	 */
-	private LinkedList<Station> reversePath(LinkedList<Station> path) {
+		for (int leg = 0; leg < legs; leg++) {
 
-		LinkedList<Station> reversedPath = new LinkedList<>();
+			final List<Station> path = getPathOnLine(graph.lines[lineIds[leg]], waypoints[leg], waypoints[leg + 1]);
 
-		/*
-		 * Remove the last element from the path and add it to the reversed path
-		 */
-		while (!path.isEmpty()) {
-			reversedPath.add(path.removeLast());
+			// Leave out the station that will start the next leg of the full path.
+			if (leg < legs - 1) {
+				fullPath.addAll(path.subList(0, path.size() - 1));
+			} else {
+				fullPath.addAll(path);
+			}
 		}
 
-		return reversedPath;
+		return fullPath;
 	}
 
 }
\ No newline at end of file
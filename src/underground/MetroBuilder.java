@@ -1,11 +1,16 @@
 package underground;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
 
 /**
  * {@code MetroBuilder} is a class which creates {@link Metro} objects.
@@ -46,6 +51,35 @@ public class MetroBuilder
 	 */
 	private static final String STATION_NAME_NOT_NULL =
 			"A station name cannot be null";
+	/**
+	 * The {@link String} representing an message for when the limit of the
+	 * precomputed routes is set to a negative number of bytes.
+	 */
+	private static final String NEGATIVE_ROUTE_TABLE_LIMIT =
+			"The route table limit cannot be negative";
+	/**
+	 * The {@link String} representing an message for when a negative travel
+	 * time or transfer penalty is being added to a <code>MetroBuilder</code>.
+	 */
+	private static final String NEGATIVE_TIME =
+			"A travel time or transfer penalty cannot be negative";
+	/**
+	 * The {@link String} which separates the names of the two
+	 * {@link Station} objects of a segment in the keys of
+	 * {@link #travelTimes}.
+	 */
+	private static final String SEGMENT_SEPARATOR = "\n";
+	/**
+	 * The {@link String} representing an message for when the build is set
+	 * to use fewer than one thread.
+	 */
+	private static final String NON_POSITIVE_PARALLELISM =
+			"The build parallelism must be at least 1";
+	/**
+	 * The largest number of indices a {@link RangeTask} performs its action
+	 * for without splitting.
+	 */
+	private static final int RANGE_THRESHOLD = 256;
 	//=========================================================================
 	//Fields.
 	/**
@@ -53,6 +87,34 @@ public class MetroBuilder
 	 * {@link Set} containing {@link String} representations of stations names. 
 	 */
 	private final Map<String, Set<String>> lineInfo;
+	/**
+	 * The largest number of bytes the built {@link Metro} may use to
+	 * precompute the routes between every pair of {@link Station} objects.
+	 */
+	private long routeTableLimit;
+	/**
+	 * The {@link Map} which maps a {@link String} representing line names to
+	 * a {@link Map} of the segments of that line to their travel time, in
+	 * seconds.
+	 * 
+	 * @see #segmentOf(String, String)
+	 */
+	private final Map<String, Map<String, Integer>> travelTimes;
+	/**
+	 * The {@link Map} which maps a {@link String} representing station names
+	 * to the time, in seconds, it takes to change line at that station.
+	 */
+	private final Map<String, Integer> transferPenalties;
+	/**
+	 * The time, in seconds, it takes to change line at a station which is not
+	 * in {@link #transferPenalties}.
+	 */
+	private int defaultTransferPenalty;
+	/**
+	 * The number of threads used to create the {@link Line} objects of the
+	 * {@link Metro}.
+	 */
+	private int buildParallelism;
 	//=========================================================================
 	//Constructors.
 	/**
@@ -61,33 +123,68 @@ public class MetroBuilder
 	public MetroBuilder()
 	{
 		lineInfo = new HashMap<>();
+		routeTableLimit = 0;
+		travelTimes = new HashMap<>();
+		transferPenalties = new HashMap<>();
+		defaultTransferPenalty = Metro.DEFAULT_TRANSFER_PENALTY;
+		buildParallelism = 1;
 	}
 	//=========================================================================
 	//Methods.
 	/**
-	 * Get the {@link Station} objects of a {@link Line} which exists inside
-	 * <code>this</code>
+	 * Get the travel time between each pair of neighbouring {@link Station}
+	 * objects of a {@link Line} which exists inside <code>this</code>.
 	 * 
 	 * <p>
-	 * The resulting {@link Set} is unmodifiable, and does not allow for
-	 * insertion or removal.
+	 * <b>For internal use only!</b>
 	 * </p>
 	 * 
+	 * @param lineName The {@link String} which represents the {@link Line}
+	 * 			object to get the travel times of.
+	 * @return The travel times, in seconds, in the order of the
+	 * 			{@link Station} objects of the {@link Line}. Segments without a
+	 * 			travel time use the {@link Line#DEFAULT_TRAVEL_TIME}.
+	 */
+	private int[] getTravelTimesOf(final String lineName)
+	{
+		final Set<String> stations = lineInfo.get(lineName);
+		final Map<String, Integer> times = travelTimes.getOrDefault(
+				lineName,
+				Collections.emptyMap());
+		final int[] segmentTimes = new int[Math.max(0, stations.size() - 1)];
+		
+		//Look up each segment between a station and the one before it.
+		String previous = null;
+		int segment = 0;
+		for(final String station: stations)
+		{
+			if(previous != null)
+				segmentTimes[segment++] = times.getOrDefault(
+						segmentOf(previous, station),
+						Line.DEFAULT_TRAVEL_TIME);
+			previous = station;
+		}
+		return segmentTimes;
+	}
+	/**
+	 * Get the key of the segment between two {@link Station} objects, which
+	 * is the same in either direction.
+	 * 
 	 * <p>
 	 * <b>For internal use only!</b>
 	 * </p>
 	 * 
-	 * @param lineName The {@link String} which represents the {@link Line}
-	 * 			object to get the {@link Station} objects from.
-	 * @return A {@link Set} of {@link Station} objects, which belong to the
-	 * 			{@link Line} which is represented by <code>lineName</code>.
+	 * @param stationA The name of a {@link Station}.
+	 * @param stationB The name of another {@link Station}.
+	 * @return The {@link String} representing the segment.
 	 */
-	private Set<Station> getStationsOf(final String lineName)
+	private static String segmentOf(
+			final String stationA,
+			final String stationB)
 	{
-		return Collections.unmodifiableSet(new LinkedHashSet<>(
-				lineInfo.get(lineName).stream()
-				.map(Station::new)
-				.collect(Collectors.toList())));
+		return stationA.compareTo(stationB) < 0
+				? stationA + SEGMENT_SEPARATOR + stationB
+				: stationB + SEGMENT_SEPARATOR + stationA;
 	}
 	/**
 	 * Create the {@link Map} of {@link String} to {@link Line} objects, where
@@ -100,72 +197,190 @@ public class MetroBuilder
 	 * </p>
 	 * 
 	 * <p>
+	 * Every {@link Station} is interned first, in the order the
+	 * {@link Line} objects are held, so the ids of the {@link Station}
+	 * objects do not depend on how the build is run. The index of the
+	 * {@link Line} objects of each {@link Station}, the adjacent {@link Line}
+	 * objects of each {@link Line} and the {@link Line} objects themselves
+	 * are then computed by ranges of {@link Line} objects, which are run as
+	 * fork-join tasks on <code>pool</code> if there is one.
+	 * </p>
+	 * 
+	 * <p>
 	 * <b>For internal use only!</b>
 	 * </p>
 	 * 
+	 * @param registry The {@link StationRegistry} which holds the canonical
+	 * 			{@link Station} objects.
+	 * @param pool The {@link ForkJoinPool} to build on, or <code>null</code>
+	 * 			to build on the calling thread.
 	 * @return The {@link Map} which contains the {@link String} and the
 	 * 			corresponding {@link Line} object.
 	 */
-	private Map<String, Line> createLines()
+	private Map<String, Line> createLines(
+			final StationRegistry registry,
+			final ForkJoinPool pool)
 	{
-		final Map<String, Line> lines = new HashMap<>(
-				(int) 1.5 * lineInfo.size());
+		final String[] lineNames = lineInfo.keySet().toArray(
+				new String[lineInfo.size()]);
+		final Station[][] lineStations = new Station[lineNames.length][];
 		
-		//Go through all the entries in lineInfo
-		for(Map.Entry<String, Set<String>> e: lineInfo.entrySet())
+		//Interning gives each station the next id, so it is done in order.
+		for(int line = 0; line < lineNames.length; ++line)
 		{
-			final String lineName = e.getKey();
-			final Set<Station> stations = getStationsOf(lineName);
-			lines.put(
-					lineName,
-					new Line(
-							lineName,
-							stations,
-							findAdjecentLinesTo(lineName)));
-		} //for
-		return Collections.unmodifiableMap(lines);
+			final Set<String> stationNames = lineInfo.get(lineNames[line]);
+			final Station[] stations = new Station[stationNames.size()];
+			int i = 0;
+			for(final String stationName: stationNames)
+				stations[i++] = registry.intern(stationName);
+			lineStations[line] = stations;
+		}
+		final int[][] linesOfStations = indexLinesOfStations(
+				lineStations,
+				registry.size(),
+				pool);
+		
+		//Create every line from its stations and the index.
+		final Line[] lines = new Line[lineNames.length];
+		forEachIndex(pool, lineNames.length, line -> lines[line] = new Line(
+				lineNames[line],
+				new LinkedHashSet<>(Arrays.asList(lineStations[line])),
+				findAdjecentLinesTo(
+						line,
+						lineNames,
+						lineStations,
+						linesOfStations),
+				getTravelTimesOf(lineNames[line])));
+		final Map<String, Line> lineMap = new HashMap<>(2 * lines.length);
+		for(final Line line: lines)
+			lineMap.put(line.getName(), line);
+		return Collections.unmodifiableMap(lineMap);
+	}
+	/**
+	 * Create the inverted index of the {@link Line} objects each
+	 * {@link Station} is on.
+	 * 
+	 * <p>
+	 * The {@link Line} objects of each {@link Station} are counted, then
+	 * written into an array of that size, and finally sorted so that the
+	 * index is the same however the ranges of {@link Line} objects were run.
+	 * </p>
+	 * 
+	 * <p>
+	 * <b>For internal use only!</b>
+	 * </p>
+	 * 
+	 * @param lineStations The {@link Station} objects of each {@link Line},
+	 * 			indexed by the position of the {@link Line}.
+	 * @param stationCount The number of {@link Station} objects.
+	 * @param pool The {@link ForkJoinPool} to build on, or <code>null</code>
+	 * 			to build on the calling thread.
+	 * @return The positions of the {@link Line} objects of each
+	 * 			{@link Station}, in ascending order, indexed by the id of the
+	 * 			{@link Station}.
+	 */
+	private static int[][] indexLinesOfStations(
+			final Station[][] lineStations,
+			final int stationCount,
+			final ForkJoinPool pool)
+	{
+		final AtomicIntegerArray counts = new AtomicIntegerArray(stationCount);
+		forEachIndex(pool, lineStations.length, line -> {
+			for(final Station station: lineStations[line])
+				counts.incrementAndGet(station.id);
+		});
+		final int[][] linesOfStations = new int[stationCount][];
+		forEachIndex(pool, stationCount, station ->
+				linesOfStations[station] = new int[counts.get(station)]);
+		
+		//Count back down to fill each station's lines.
+		forEachIndex(pool, lineStations.length, line -> {
+			for(final Station station: lineStations[line])
+				linesOfStations[station.id][counts.decrementAndGet(station.id)]
+						= line;
+		});
+		forEachIndex(pool, stationCount, station ->
+				Arrays.sort(linesOfStations[station]));
+		return linesOfStations;
 	}
 	/**
 	 * Find the names of the {@link Line} objects which exist adjacent to
 	 * a specified {@link Line}.
 	 * 
-	 * @param lineName The {@link String} representation of a {@link Line}
-	 * 			object to find the adjacent {@link Line} objects.
+	 * <p>
+	 * Only the {@link Line} objects of the {@link Station} objects on the
+	 * specified {@link Line} are visited, so finding the adjacent
+	 * {@link Line} objects of every {@link Line} takes one pass over the
+	 * {@link Station} objects of all the {@link Line} objects.
+	 * </p>
+	 * 
+	 * @param line The position of the {@link Line} object to find the
+	 * 			adjacent {@link Line} objects of.
+	 * @param lineNames The names of the {@link Line} objects, indexed by
+	 * 			their position.
+	 * @param lineStations The {@link Station} objects of each {@link Line},
+	 * 			indexed by the position of the {@link Line}.
+	 * @param linesOfStations The positions of the {@link Line} objects of
+	 * 			each {@link Station}, as created by
+	 * 			{@link #indexLinesOfStations(Station[][], int, ForkJoinPool)}.
 	 * @return The {@link Map} of {@link String} objects which represent the
 	 * 			names of the {@link Line} objects which are directly connected
-	 * 			to the {@link Line} represented by <code>lineName</code>. The
-	 * 			values of the {@link Map} is the {@link Station} objects which
-	 * 			exist on both the {@link Line} represented by
-	 * 			<code>lineName</code> and the adjacent {@link Line}.
+	 * 			to the {@link Line} at <code>line</code>. The values of the
+	 * 			{@link Map} is the {@link Station} objects which exist on both
+	 * 			the {@link Line} at <code>line</code> and the adjacent
+	 * 			{@link Line}.
 	 */
-	private Map<String, Set<Station>> findAdjecentLinesTo(final String lineName)
+	private static Map<String, Set<Station>> findAdjecentLinesTo(
+			final int line,
+			final String[] lineNames,
+			final Station[][] lineStations,
+			final int[][] linesOfStations)
 	{
-		/*
-		 * Maintain a list of the adjacent lines, and the stations which are
-		 * contained in lineName.
-		 */
 		final Map<String, Set<Station>> adjacentLines = new HashMap<>();
-		final Set<String> stations = lineInfo.get(lineName);
 		
-		//Search all the lines for lines directly connected to lineName.
-		for(final Map.Entry<String, Set<String>> e: lineInfo.entrySet())
+		//Every other line of a station on the line is adjacent to it.
+		for(final Station station: lineStations[line])
 		{
-			//Get all the stations which intersect between two lines.
-			final Set<Station> intersectingStations = e.getValue().stream()
-					.filter(stations::contains)
-					.map(Station::new)
-					.collect(Collectors.toSet());
-			/*
-			 * If the set of intersecting stations is not empty, add the set
-			 * and a the String representing the line to the adjacentLines map.
-			 */
-			if(!intersectingStations.isEmpty())
-				adjacentLines.put(e.getKey(), intersectingStations);
+			for(final int other: linesOfStations[station.id])
+			{
+				//A line cannot be adjacent to itself.
+				if(other != line)
+					adjacentLines.computeIfAbsent(
+							lineNames[other],
+							name -> new LinkedHashSet<>()).add(station);
+			}
 		}
-		//A line cannot be adjacent to itself, remove it.
-		adjacentLines.remove(lineName);
 		return Collections.unmodifiableMap(adjacentLines);
 	}
+	/**
+	 * Perform an action for every index from <code>0</code> up to but not
+	 * including <code>count</code>, splitting the indices into
+	 * {@link RangeTask} objects on <code>pool</code> if there is one.
+	 * 
+	 * <p>
+	 * <b>For internal use only!</b>
+	 * </p>
+	 * 
+	 * @param pool The {@link ForkJoinPool} to run on, or <code>null</code>
+	 * 			to run on the calling thread.
+	 * @param count The number of indices.
+	 * @param action The action performed for each index.
+	 */
+	private static void forEachIndex(
+			final ForkJoinPool pool,
+			final int count,
+			final IntConsumer action)
+	{
+		if(pool == null)
+		{
+			for(int i = 0; i < count; ++i)
+				action.accept(i);
+		}
+		else
+		{
+			pool.invoke(new RangeTask(0, count, action));
+		}
+	}
 	/**
 	 * Add a new line to <code>this</code> {@code MetroBuilder}.
 	 * 
@@ -223,6 +438,144 @@ public class MetroBuilder
 		//Add the station to the specified line.
 		lineInfo.get(lineName).add(stationName);
 	}
+	/**
+	 * Set the travel time between two neighbouring stations of a line.
+	 * 
+	 * <p>
+	 * The travel time is the same in either direction. A segment which is
+	 * not given a travel time uses the {@link Line#DEFAULT_TRAVEL_TIME}, and
+	 * a travel time between two stations which are not next to each other on
+	 * the line is ignored.
+	 * </p>
+	 * 
+	 * @param lineName The name of the line.
+	 * @param stationA The name of a station on the line.
+	 * @param stationB The name of the neighbouring station.
+	 * @param seconds The travel time, in seconds.
+	 * @throws NullPointerException If any of the names are
+	 * 			<code>null</code>.
+	 * @throws IllegalArgumentException If <code>seconds</code> is negative.
+	 */
+	public final void setTravelTime(
+			final String lineName,
+			final String stationA,
+			final String stationB,
+			final int seconds)
+			throws
+			NullPointerException,
+			IllegalArgumentException
+	{
+		if(lineName == null)
+			throw new NullPointerException(LINE_NAME_NOT_NULL);
+		if(stationA == null || stationB == null)
+			throw new NullPointerException(STATION_NAME_NOT_NULL);
+		if(seconds < 0)
+			throw new IllegalArgumentException(NEGATIVE_TIME);
+		travelTimes.computeIfAbsent(lineName, name -> new HashMap<>())
+				.put(segmentOf(stationA, stationB), seconds);
+	}
+	/**
+	 * Set the time it takes to change line at a station.
+	 * 
+	 * @param stationName The name of the station.
+	 * @param seconds The time, in seconds, it takes to change line.
+	 * @throws NullPointerException If <code>stationName</code> is
+	 * 			<code>null</code>.
+	 * @throws IllegalArgumentException If <code>seconds</code> is negative.
+	 */
+	public final void setTransferPenalty(
+			final String stationName,
+			final int seconds)
+			throws
+			NullPointerException,
+			IllegalArgumentException
+	{
+		if(stationName == null)
+			throw new NullPointerException(STATION_NAME_NOT_NULL);
+		if(seconds < 0)
+			throw new IllegalArgumentException(NEGATIVE_TIME);
+		transferPenalties.put(stationName, seconds);
+	}
+	/**
+	 * Set the time it takes to change line at any station which has not been
+	 * given a time using {@link #setTransferPenalty(String, int)}.
+	 * 
+	 * <p>
+	 * The default is {@link Metro#DEFAULT_TRANSFER_PENALTY}.
+	 * </p>
+	 * 
+	 * @param seconds The time, in seconds, it takes to change line.
+	 * @throws IllegalArgumentException If <code>seconds</code> is negative.
+	 */
+	public final void setDefaultTransferPenalty(final int seconds)
+			throws
+			IllegalArgumentException
+	{
+		if(seconds < 0)
+			throw new IllegalArgumentException(NEGATIVE_TIME);
+		defaultTransferPenalty = seconds;
+	}
+	/**
+	 * Set the number of threads used to create the {@link Line} objects of
+	 * the {@link Metro} when {@link #build()} is called.
+	 * 
+	 * <p>
+	 * With more than one thread the index of the {@link Line} objects of each
+	 * {@link Station}, the adjacent {@link Line} objects of each
+	 * {@link Line} and the {@link Line} objects themselves are computed as
+	 * fork-join tasks on a {@link ForkJoinPool} of that many threads. The
+	 * built {@link Metro} is the same either way. The default is
+	 * <code>1</code>, which builds on the calling thread.
+	 * </p>
+	 * 
+	 * @param threads The number of threads to build with.
+	 * @throws IllegalArgumentException If <code>threads</code> is less than
+	 * 			<code>1</code>.
+	 */
+	public final void setBuildParallelism(final int threads)
+			throws
+			IllegalArgumentException
+	{
+		if(threads < 1)
+			throw new IllegalArgumentException(NON_POSITIVE_PARALLELISM);
+		buildParallelism = threads;
+	}
+	/**
+	 * Set the largest number of bytes the built {@link Metro} may use to
+	 * precompute the route between every pair of {@link Station} objects.
+	 * 
+	 * <p>
+	 * If the estimate given by {@link #estimateRouteTableSize()} is larger
+	 * than <code>bytes</code>, the built {@link Metro} will instead search
+	 * for each route when it is requested. The default limit is
+	 * <code>0</code>, which never precomputes routes.
+	 * </p>
+	 * 
+	 * @param bytes The largest number of bytes of the precomputed routes.
+	 * @throws IllegalArgumentException If <code>bytes</code> is negative.
+	 */
+	public final void setRouteTableLimit(final long bytes)
+			throws
+			IllegalArgumentException
+	{
+		if(bytes < 0)
+			throw new IllegalArgumentException(NEGATIVE_ROUTE_TABLE_LIMIT);
+		routeTableLimit = bytes;
+	}
+	/**
+	 * Estimate the number of bytes the precomputed routes of the
+	 * {@link Metro} represented by <code>this</code> would use.
+	 * 
+	 * @return The estimated number of bytes, or {@link Long#MAX_VALUE} if
+	 * 			the network is too large for the routes to be precomputed.
+	 * @see #setRouteTableLimit(long)
+	 */
+	public final long estimateRouteTableSize()
+	{
+		final Set<String> stations = new HashSet<>();
+		lineInfo.values().forEach(stations::addAll);
+		return RouteTable.estimateBytes(stations.size());
+	}
 	/**
 	 * Create a {@link Metro} object.
 	 * 
@@ -235,7 +588,18 @@ public class MetroBuilder
 	 * <p>
 	 * The {@link Station} objects contained in the output {@link Metro} object
 	 * is created from the {@link String} representations of {@link Line} and
-	 * {@link Station}.
+	 * {@link Station}. Each {@link Station} is created once, and every
+	 * {@link Line} shares the same {@link Station} object.
+	 * </p>
+	 * 
+	 * <p>
+	 * The {@link Line} objects are created on as many threads as set by
+	 * {@link #setBuildParallelism(int)}.
+	 * </p>
+	 * 
+	 * <p>
+	 * Each phase of the build is recorded as a {@link BuildPhaseEvent} while
+	 * that event is enabled.
 	 * </p>
 	 * 
 	 * @return The {@link Metro} which <code>this</code> represents.
@@ -244,6 +608,93 @@ public class MetroBuilder
 	 */
 	public final Metro build()
 	{
-		return new Metro(createLines());
+		final StationRegistry registry = new StationRegistry();
+		final ForkJoinPool pool = buildParallelism > 1
+				? new ForkJoinPool(buildParallelism)
+				: null;
+		final Map<String, Line> lines;
+		final BuildPhaseEvent event = BuildPhaseEvent.start();
+		try
+		{
+			lines = createLines(registry, pool);
+		}
+		finally
+		{
+			if(pool != null)
+				pool.shutdown();
+		}
+		event.finish(BuildPhaseEvent.LINES, registry.size(), lines.size());
+		final Map<Station, Integer> penalties = new HashMap<>();
+		
+		//Penalties of stations which are not on any line are not needed.
+		transferPenalties.forEach((stationName, seconds) -> {
+			final Station station = registry.get(stationName);
+			if(station != null)
+				penalties.put(station, seconds);
+		});
+		return new Metro(
+				lines,
+				registry,
+				routeTableLimit,
+				penalties,
+				defaultTransferPenalty);
+	}
+	//=========================================================================
+	//Nested classes.
+	/**
+	 * A fork-join task which performs an action for a range of indices,
+	 * splitting the range in half until it is small enough to run directly.
+	 */
+	private static final class RangeTask extends RecursiveAction
+	{
+		/**
+		 * The serial version of {@code RangeTask}.
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The first index of the range.
+		 */
+		private final int from;
+		/**
+		 * The index after the last index of the range.
+		 */
+		private final int to;
+		/**
+		 * The action performed for each index.
+		 */
+		private final IntConsumer action;
+		/**
+		 * Create a new {@code RangeTask}.
+		 * 
+		 * @param from The first index of the range.
+		 * @param to The index after the last index of the range.
+		 * @param action The action performed for each index.
+		 */
+		RangeTask(final int from, final int to, final IntConsumer action)
+		{
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+		/**
+		 * Perform the action for each index of the range, or split the range
+		 * into two {@code RangeTask} objects if it is too large.
+		 */
+		@Override
+		protected void compute()
+		{
+			if(to - from <= RANGE_THRESHOLD)
+			{
+				for(int i = from; i < to; ++i)
+					action.accept(i);
+			}
+			else
+			{
+				final int middle = (from + to) >>> 1;
+				invokeAll(
+						new RangeTask(from, middle, action),
+						new RangeTask(middle, to, action));
+			}
+		}
 	}
 }
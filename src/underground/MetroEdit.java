@@ -0,0 +1,175 @@
+package underground;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The connections between {@link Station}s that one edit of a {@link Metro},
+ * such as {@link Metro#closeStation(String)}, added and removed. The edited
+ * {@link Metro} keeps its {@link MetroEdit} so that a {@link RouteCache} of the
+ * {@link Metro} it was edited from can keep the {@link Route}s the edit cannot
+ * have changed.
+ *
+ * <p>
+ * Removing connections only makes paths longer, so a {@link Route} that used
+ * none of the removed connections is still the best {@link Route}. Adding
+ * connections can shorten any path within the components they join, so a
+ * {@link Route} is only kept if neither of its {@link Station}s is in one of
+ * those components.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RequestHandler#edit(java.util.function.UnaryOperator)
+ */
+final class MetroEdit {
+
+	/**
+	 * The {@link Metro} that was edited. The reference is weak so that a chain
+	 * of edits does not keep every earlier {@link Metro} alive.
+	 */
+	private final WeakReference<Metro> base;
+
+	/**
+	 * The removed connections, as given by {@link MetroEdit#pairOf(int, int)},
+	 * in ascending order.
+	 */
+	private final long[] removed;
+
+	/**
+	 * The roots, in the edited {@link Metro}, of the components that the added
+	 * connections are in.
+	 */
+	private final BitSet joinedRoots;
+
+	/**
+	 * Constructs a new {@link MetroEdit}.
+	 *
+	 * @param base
+	 *            The {@link Metro} that was edited.
+	 * @param connectivity
+	 *            The {@link Connectivity} of the edited {@link Metro}.
+	 * @param removed
+	 *            The removed connections.
+	 * @param added
+	 *            The added connections.
+	 */
+	MetroEdit(Metro base, Connectivity connectivity, long[] removed, long[] added) {
+
+		this.base = new WeakReference<>(base);
+		this.removed = removed.clone();
+		this.joinedRoots = new BitSet();
+
+		Arrays.sort(this.removed);
+
+		final int[] roots = connectivity.roots();
+		for (long pair : added) {
+			joinedRoots.set(roots[firstOf(pair)]);
+		}
+	}
+
+	/**
+	 * Retrieves the key of the connection between two {@link Station}s, which is
+	 * the same whichever way round they are given.
+	 *
+	 * @param stationA
+	 *            The id of a {@link Station}.
+	 * @param stationB
+	 *            The id of another {@link Station}.
+	 * @return The key of the connection.
+	 */
+	static long pairOf(int stationA, int stationB) {
+		return stationA < stationB ? (long) stationA << 32 | stationB : (long) stationB << 32 | stationA;
+	}
+
+	/**
+	 * Retrieves the {@link Station} with the lower id of a connection.
+	 *
+	 * @param pair
+	 *            The key of the connection.
+	 * @return The id of the {@link Station}.
+	 */
+	static int firstOf(long pair) {
+		return (int) (pair >>> 32);
+	}
+
+	/**
+	 * Retrieves the {@link Station} with the higher id of a connection.
+	 *
+	 * @param pair
+	 *            The key of the connection.
+	 * @return The id of the {@link Station}.
+	 */
+	static int secondOf(long pair) {
+		return (int) pair;
+	}
+
+	/**
+	 * Retrieves whether this {@link MetroEdit} was made to the specified
+	 * {@link Metro}.
+	 *
+	 * @param metro
+	 *            {@link Metro}
+	 * @return Whether the {@link Metro} is the one that was edited.
+	 */
+	boolean isFrom(Metro metro) {
+		return base.get() == metro;
+	}
+
+	/**
+	 * Retrieves whether a {@link Route} found by the edited {@link Metro} may no
+	 * longer be the best {@link Route} after this edit.
+	 *
+	 * @param route
+	 *            The {@link Route}.
+	 * @param graph
+	 *            The {@link Graph} of the edited {@link Metro}.
+	 * @param connectivity
+	 *            The {@link Connectivity} of the edited {@link Metro}.
+	 * @return Whether the {@link Route} must be found again.
+	 */
+	boolean isStale(Route route, Graph graph, Connectivity connectivity) {
+
+		final int start = graph.idOf(route.getStart());
+		final int end = graph.idOf(route.getEnd());
+
+		// A station whose every line was removed no longer exists.
+		if (!graph.isOnLine(start) || !graph.isOnLine(end)) {
+			return true;
+		}
+
+		// Added connections may shorten any path within the components they join.
+		if (!joinedRoots.isEmpty()) {
+
+			final int[] roots = connectivity.roots();
+
+			if (joinedRoots.get(roots[start]) || joinedRoots.get(roots[end])) {
+				return true;
+			}
+		}
+
+		if (removed.length == 0 || !route.isFound()) {
+			return false;
+		}
+
+		// Removed connections only matter to the routes that used them.
+		final List<Station> stations = route.getStations();
+		int previous = graph.idOf(stations.get(0));
+		for (int index = 1; index < stations.size(); index++) {
+
+			final int current = graph.idOf(stations.get(index));
+
+			if (Arrays.binarySearch(removed, pairOf(previous, current)) >= 0) {
+				return true;
+			}
+
+			previous = current;
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,815 @@
+package underground;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the compiled structures of a {@link Metro} to a binary snapshot and
+ * reads them back, so that a {@link Metro} can be loaded without parsing its
+ * source files or rebuilding any of its indices.
+ *
+ * <p>
+ * A snapshot is a header followed by a list of sections, each holding one
+ * array of the {@link Graph}, {@link InterchangeIndex}, {@link Connectivity}
+ * or {@link RouteTable} in little endian order. The header is:
+ * </p>
+ *
+ * <ul>
+ * <li>the <code>int</code> {@link MetroSnapshot#MAGIC},</li>
+ * <li>the <code>int</code> {@link MetroSnapshot#VERSION} of the format,</li>
+ * <li>the <code>int</code> CRC-32 of every byte after this field,</li>
+ * <li>the <code>int</code> number of sections, and</li>
+ * <li>the <code>long</code> offset and <code>long</code> length in bytes of
+ * each {@link Section}, in order.</li>
+ * </ul>
+ *
+ * <p>
+ * Each section starts, and the file ends, on an 8 byte boundary. The {@link Station} and
+ * {@link Line} names are held as UTF-8 bytes with a section of the offset of
+ * each name and a section of the ids in name order, so that a name can be
+ * found by a binary search of the file. An empty {@link Section#ROUTE_TABLE} means the {@link Metro}
+ * had no {@link RouteTable}, or one too large to write in a single buffer.
+ * </p>
+ *
+ * <p>
+ * The snapshot is read through memory mapped regions of the file, but a
+ * {@link Metro} keeps its structures on the heap, so each section is copied in
+ * bulk into its array and each {@link Line} is recreated. Reading a
+ * {@link Metro} therefore costs time in proportion to the size of its network,
+ * and one more pass over the file if the checksum is verified, which is still
+ * far less than parsing and compiling its source files. A {@link MappedMetro}
+ * answers requests from the mapped sections where they lie instead.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro#writeSnapshot(Path)
+ * @see Metro#readSnapshot(Path)
+ * @see MappedMetro
+ */
+final class MetroSnapshot {
+
+	/**
+	 * The first four bytes of every snapshot, which read "MTRS" in big endian
+	 * order.
+	 */
+	static final int MAGIC = 0x4D545253;
+
+	/**
+	 * The version of the format written by this class. A snapshot of any other
+	 * version is rejected, and should be rebuilt from the source files.
+	 */
+	static final int VERSION = 3;
+
+	/**
+	 * The byte order of every value in a snapshot.
+	 */
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * The offset of the first byte covered by the checksum, which is the byte
+	 * after the checksum itself.
+	 */
+	private static final int CHECKED_FROM = 3 * Integer.BYTES;
+
+	/**
+	 * The size, in bytes, of the fixed part of the header.
+	 */
+	private static final int FIXED_HEADER = 4 * Integer.BYTES;
+
+	/**
+	 * The size, in bytes, of the entry of each section in the header.
+	 */
+	private static final int SECTION_ENTRY = 2 * Long.BYTES;
+
+	/**
+	 * The alignment, in bytes, of the start of each section.
+	 */
+	private static final int ALIGNMENT = Long.BYTES;
+
+	/**
+	 * The size, in bytes, of the largest region of the file that is mapped at
+	 * once. It is a multiple of {@link MetroSnapshot#ALIGNMENT} so that no
+	 * value is split between two regions.
+	 */
+	private static final int MAX_REGION = 1 << 30;
+
+	/**
+	 * The sections of a snapshot, in the order they are held in the file.
+	 */
+	enum Section {
+
+		/** The offset of each {@link Station} name in {@link #STATION_NAMES}. */
+		STATION_NAME_OFFSETS,
+
+		/** The UTF-8 bytes of the {@link Station} names, in id order. */
+		STATION_NAMES,
+
+		/** The {@link Station} ids in the order of their UTF-8 names. */
+		STATION_NAME_ORDER,
+
+		/** The offset of each {@link Line} name in {@link #LINE_NAMES}. */
+		LINE_NAME_OFFSETS,
+
+		/** The UTF-8 bytes of the {@link Line} names, in id order. */
+		LINE_NAMES,
+
+		/** The {@link Line} ids in the order of their UTF-8 names. */
+		LINE_NAME_ORDER,
+
+		/** The index into {@link #LINE_STATIONS} of the first of each line. */
+		LINE_STATION_OFFSETS,
+
+		/** The {@link Station} ids of each {@link Line}, in order. */
+		LINE_STATIONS,
+
+		/** The travel times of each {@link Line}, one fewer than its stations. */
+		LINE_TIMES,
+
+		/** {@link Graph#offsets} */
+		OFFSETS,
+
+		/** {@link Graph#neighbours} */
+		NEIGHBOURS,
+
+		/** {@link Graph#edgeLines} */
+		EDGE_LINES,
+
+		/** {@link Graph#edgeTimes} */
+		EDGE_TIMES,
+
+		/** {@link Graph#transferPenalties} */
+		TRANSFER_PENALTIES,
+
+		/** {@link Graph#lineOffsets} */
+		LINE_OFFSETS,
+
+		/** {@link Graph#stationLines} */
+		STATION_LINES,
+
+		/** {@link Graph#stateStations} */
+		STATE_STATIONS,
+
+		/** {@link Graph#statePositions} */
+		STATE_POSITIONS,
+
+		/** {@link Graph#edgeStates} */
+		EDGE_STATES,
+
+		/** {@link Graph#adjacentLineOffsets} */
+		ADJACENT_LINE_OFFSETS,
+
+		/** {@link Graph#adjacentLines} */
+		ADJACENT_LINES,
+
+		/** The index into {@link #INTERCHANGES} of each adjacent line pair. */
+		INTERCHANGE_OFFSETS,
+
+		/** The {@link InterchangeIndex} in {@link Graph#adjacentLines} order. */
+		INTERCHANGES,
+
+		/** {@link Connectivity#roots()} */
+		COMPONENTS,
+
+		/** {@link RouteTable#nextHops()}, or empty. */
+		ROUTE_TABLE,
+
+		/** The default transfer penalty of the {@link Metro}, alone. */
+		DEFAULT_TRANSFER_PENALTY;
+	}
+
+	/**
+	 * Prevents a {@link MetroSnapshot} from being constructed.
+	 */
+	private MetroSnapshot() {
+	}
+
+	/**
+	 * Writes a snapshot of the specified compiled structures of a {@link Metro}
+	 * to a temporary file next to the specified file, then moves it over the
+	 * specified file so that a reader never sees a partly written snapshot.
+	 *
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @param graph
+	 *            {@link Graph}
+	 * @param interchanges
+	 *            {@link InterchangeIndex}
+	 * @param connectivity
+	 *            {@link Connectivity}
+	 * @param routeTable
+	 *            {@link RouteTable}, or <code>null</code>.
+	 * @param defaultTransferPenalty
+	 *            The time, in seconds, it takes to change {@link Line} at a
+	 *            {@link Station} that was given no time.
+	 * @throws IOException
+	 *             If the snapshot cannot be written.
+	 */
+	static void write(Path file, Graph graph, InterchangeIndex interchanges, Connectivity connectivity,
+			RouteTable routeTable, int defaultTransferPenalty) throws IOException {
+
+		final ByteBuffer[] sections = new ByteBuffer[Section.values().length];
+
+		// Encode the names of the stations and lines.
+		final String[] stationNames = new String[graph.size()];
+		for (int station = 0; station < stationNames.length; station++) {
+			stationNames[station] = graph.stations[station].getName();
+		}
+		final String[] lineNames = new String[graph.lines.length];
+		for (int line = 0; line < lineNames.length; line++) {
+			lineNames[line] = graph.lines[line].getName();
+		}
+		putNames(sections, Section.STATION_NAME_OFFSETS, Section.STATION_NAMES, Section.STATION_NAME_ORDER,
+				stationNames);
+		putNames(sections, Section.LINE_NAME_OFFSETS, Section.LINE_NAMES, Section.LINE_NAME_ORDER, lineNames);
+
+		// Record the stations of each line in order, and the times between them.
+		final int[] lineStationOffsets = new int[graph.lines.length + 1];
+		for (int line = 0; line < graph.lines.length; line++) {
+			lineStationOffsets[line + 1] = lineStationOffsets[line] + graph.lines[line].getStations().size();
+		}
+		final int[] lineStations = new int[lineStationOffsets[graph.lines.length]];
+		final int[] lineTimes = new int[lineStations.length - graph.lines.length];
+		for (int line = 0; line < graph.lines.length; line++) {
+
+			int index = lineStationOffsets[line];
+			for (Station station : graph.lines[line].getStations()) {
+				lineStations[index++] = graph.idOf(station);
+			}
+
+			final int first = lineStationOffsets[line] - line;
+			for (int time = 0; time < lineStationOffsets[line + 1] - lineStationOffsets[line] - 1; time++) {
+				lineTimes[first + time] = graph.lines[line].getTravelTime(time);
+			}
+		}
+		sections[Section.LINE_STATION_OFFSETS.ordinal()] = ints(lineStationOffsets);
+		sections[Section.LINE_STATIONS.ordinal()] = ints(lineStations);
+		sections[Section.LINE_TIMES.ordinal()] = ints(lineTimes);
+
+		sections[Section.OFFSETS.ordinal()] = ints(graph.offsets);
+		sections[Section.NEIGHBOURS.ordinal()] = ints(graph.neighbours);
+		sections[Section.EDGE_LINES.ordinal()] = ints(graph.edgeLines);
+		sections[Section.EDGE_TIMES.ordinal()] = ints(graph.edgeTimes);
+		sections[Section.TRANSFER_PENALTIES.ordinal()] = ints(graph.transferPenalties);
+		sections[Section.LINE_OFFSETS.ordinal()] = ints(graph.lineOffsets);
+		sections[Section.STATION_LINES.ordinal()] = ints(graph.stationLines);
+		sections[Section.STATE_STATIONS.ordinal()] = ints(graph.stateStations);
+		sections[Section.STATE_POSITIONS.ordinal()] = ints(graph.statePositions);
+		sections[Section.EDGE_STATES.ordinal()] = ints(graph.edgeStates);
+		sections[Section.ADJACENT_LINE_OFFSETS.ordinal()] = ints(graph.adjacentLineOffsets);
+		sections[Section.ADJACENT_LINES.ordinal()] = ints(graph.adjacentLines);
+
+		// Flatten the interchanges of each pair of adjacent lines.
+		final int[] interchangeOffsets = new int[graph.adjacentLines.length + 1];
+		for (int line = 0; line < graph.lines.length; line++) {
+			for (int edge = graph.adjacentLineOffsets[line]; edge < graph.adjacentLineOffsets[line + 1]; edge++) {
+				interchangeOffsets[edge + 1] = interchangeOffsets[edge]
+						+ interchanges.between(line, graph.adjacentLines[edge]).length;
+			}
+		}
+		final int[] interchangeStations = new int[interchangeOffsets[graph.adjacentLines.length]];
+		for (int line = 0; line < graph.lines.length; line++) {
+			for (int edge = graph.adjacentLineOffsets[line]; edge < graph.adjacentLineOffsets[line + 1]; edge++) {
+				final int[] between = interchanges.between(line, graph.adjacentLines[edge]);
+				System.arraycopy(between, 0, interchangeStations, interchangeOffsets[edge], between.length);
+			}
+		}
+		sections[Section.INTERCHANGE_OFFSETS.ordinal()] = ints(interchangeOffsets);
+		sections[Section.INTERCHANGES.ordinal()] = ints(interchangeStations);
+
+		sections[Section.COMPONENTS.ordinal()] = ints(connectivity.roots());
+
+		// A table too large for one buffer is left out, and searched for instead.
+		final boolean fits = routeTable != null
+				&& routeTable.nextHops().length <= (Integer.MAX_VALUE - ALIGNMENT) / Short.BYTES;
+		sections[Section.ROUTE_TABLE.ordinal()] = fits ? shorts(routeTable.nextHops()) : ByteBuffer.allocate(0);
+
+		sections[Section.DEFAULT_TRANSFER_PENALTY.ordinal()] = ints(new int[] { defaultTransferPenalty });
+
+		// Lay out the sections after the header.
+		final ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER + SECTION_ENTRY * sections.length).order(ORDER);
+		header.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(sections.length);
+		final long[] offsets = new long[sections.length];
+		long end = header.capacity();
+		for (int section = 0; section < sections.length; section++) {
+			offsets[section] = align(end);
+			end = offsets[section] + sections[section].remaining();
+			header.putLong(offsets[section]).putLong(sections[section].remaining());
+		}
+
+		final long size = align(end);
+
+		// Checksum everything after the checksum field, including the padding.
+		final CRC32 crc = new CRC32();
+		header.flip();
+		final ByteBuffer checked = header.duplicate();
+		checked.position(CHECKED_FROM);
+		crc.update(checked);
+		long position = header.limit();
+		for (int section = 0; section < sections.length; section++) {
+			crc.update(new byte[(int) (offsets[section] - position)]);
+			crc.update(sections[section].duplicate());
+			position = offsets[section] + sections[section].remaining();
+		}
+		crc.update(new byte[(int) (size - position)]);
+		header.putInt(2 * Integer.BYTES, (int) crc.getValue());
+
+		// Write to a temporary file and move it into place once it is complete.
+		final Path directory = file.toAbsolutePath().getParent();
+		final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+
+				writeFully(channel, header, 0);
+				for (int section = 0; section < sections.length; section++) {
+					writeFully(channel, sections[section], offsets[section]);
+				}
+
+				// Pad the end too, so that an empty last section is inside the file.
+				writeFully(channel, ByteBuffer.allocate((int) (size - channel.size())), channel.size());
+				channel.force(true);
+			}
+
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Reads a {@link Metro} back from a snapshot written by
+	 * {@link MetroSnapshot#write(Path, Graph, InterchangeIndex, Connectivity, RouteTable, int)}.
+	 *
+	 * @param file
+	 *            The {@link Path} of the snapshot.
+	 * @param verify
+	 *            Whether the checksum of the snapshot is checked, which reads
+	 *            the whole file.
+	 * @return {@link Metro}
+	 * @throws IOException
+	 *             If the snapshot cannot be read, was written by a different
+	 *             version, or does not match its checksum.
+	 */
+	static Metro read(Path file, boolean verify) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			final long[][] sections = readHeader(channel, verify);
+
+			// Intern the stations in id order, so each is given its own id again.
+			final StationRegistry registry = new StationRegistry();
+			for (String name : readNames(channel, sections, Section.STATION_NAME_OFFSETS, Section.STATION_NAMES)) {
+				registry.intern(name);
+			}
+
+			final String[] lineNames = readNames(channel, sections, Section.LINE_NAME_OFFSETS, Section.LINE_NAMES);
+			final int[] lineStationOffsets = readInts(channel, sections, Section.LINE_STATION_OFFSETS);
+			final int[] lineStations = readInts(channel, sections, Section.LINE_STATIONS);
+			final int[] lineTimes = readInts(channel, sections, Section.LINE_TIMES);
+			final int[] adjacentLineOffsets = readInts(channel, sections, Section.ADJACENT_LINE_OFFSETS);
+			final int[] adjacentLines = readInts(channel, sections, Section.ADJACENT_LINES);
+			final int[] interchangeOffsets = readInts(channel, sections, Section.INTERCHANGE_OFFSETS);
+			final int[] interchangeStations = readInts(channel, sections, Section.INTERCHANGES);
+
+			// Recreate each line from its stations, times and interchanges.
+			final Line[] lines = new Line[lineNames.length];
+			final Map<String, Line> lineMap = new LinkedHashMap<>(2 * lines.length);
+			for (int line = 0; line < lines.length; line++) {
+
+				final Set<Station> stations = new LinkedHashSet<>();
+				for (int index = lineStationOffsets[line]; index < lineStationOffsets[line + 1]; index++) {
+					stations.add(registry.get(lineStations[index]));
+				}
+
+				final Map<String, Set<Station>> adjacent = new HashMap<>();
+				for (int edge = adjacentLineOffsets[line]; edge < adjacentLineOffsets[line + 1]; edge++) {
+
+					final Set<Station> shared = new LinkedHashSet<>();
+					for (int index = interchangeOffsets[edge]; index < interchangeOffsets[edge + 1]; index++) {
+						shared.add(registry.get(interchangeStations[index]));
+					}
+					adjacent.put(lineNames[adjacentLines[edge]], shared);
+				}
+
+				final int first = lineStationOffsets[line] - line;
+				lines[line] = new Line(lineNames[line], stations, adjacent,
+						Arrays.copyOfRange(lineTimes, first, first + stations.size() - 1));
+				lineMap.put(lineNames[line], lines[line]);
+			}
+
+			final Graph graph = new Graph(lines, registry, readInts(channel, sections, Section.OFFSETS),
+					readInts(channel, sections, Section.NEIGHBOURS), readInts(channel, sections, Section.EDGE_LINES),
+					readInts(channel, sections, Section.EDGE_TIMES),
+					readInts(channel, sections, Section.TRANSFER_PENALTIES),
+					readInts(channel, sections, Section.LINE_OFFSETS),
+					readInts(channel, sections, Section.STATION_LINES),
+					readInts(channel, sections, Section.STATE_STATIONS),
+					readInts(channel, sections, Section.STATE_POSITIONS),
+					readInts(channel, sections, Section.EDGE_STATES), adjacentLineOffsets, adjacentLines);
+
+			final short[] nextHops = readShorts(channel, sections, Section.ROUTE_TABLE);
+
+			final int[] defaultTransferPenalty = readInts(channel, sections, Section.DEFAULT_TRANSFER_PENALTY);
+			if (defaultTransferPenalty.length != 1) {
+				throw new IOException("Section " + Section.DEFAULT_TRANSFER_PENALTY + " does not hold one value.");
+			}
+
+			return new Metro(lineMap, registry, graph,
+					nextHops.length == 0 ? null : new RouteTable(graph.size(), nextHops),
+					new InterchangeIndex(graph, interchangeOffsets, interchangeStations),
+					new Connectivity(readInts(channel, sections, Section.COMPONENTS)), defaultTransferPenalty[0]);
+		}
+	}
+
+	/**
+	 * Reads and checks the header of a snapshot.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param verify
+	 *            Whether the checksum of the snapshot is checked, which reads
+	 *            the whole file.
+	 * @return The offset and length in bytes of each {@link Section}, indexed by
+	 *         its ordinal.
+	 * @throws IOException
+	 *             If the header cannot be read, the snapshot was written by a
+	 *             different version, or does not match its checksum.
+	 */
+	static long[][] readHeader(FileChannel channel, boolean verify) throws IOException {
+
+		final long size = channel.size();
+		final int sectionCount = Section.values().length;
+		final int headerSize = FIXED_HEADER + SECTION_ENTRY * sectionCount;
+
+		if (size < FIXED_HEADER) {
+			throw new IOException("The snapshot is too short to hold its header.");
+		}
+
+		final ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER);
+		if (fixed.getInt() != MAGIC) {
+			throw new IOException("The file is not a Metro snapshot.");
+		} else if (fixed.getInt() != VERSION) {
+			throw new IOException("The snapshot was written by an unsupported version.");
+		}
+
+		final int checksum = fixed.getInt();
+		if (fixed.getInt() != sectionCount || size < headerSize) {
+			throw new IOException("The snapshot does not have " + sectionCount + " sections.");
+		}
+
+		// Read the offset and length of each section and check it is in the file.
+		final ByteBuffer entries = readFully(channel, FIXED_HEADER, SECTION_ENTRY * sectionCount);
+		final long[][] sections = new long[sectionCount][];
+		for (int section = 0; section < sectionCount; section++) {
+
+			final long offset = entries.getLong();
+			final long length = entries.getLong();
+
+			if (offset < headerSize || offset % ALIGNMENT != 0 || length < 0 || offset + length > size) {
+				throw new IOException("Section " + Section.values()[section] + " is outside the snapshot.");
+			}
+
+			sections[section] = new long[] { offset, length };
+		}
+
+		if (verify) {
+			final CRC32 crc = new CRC32();
+			forEachRegion(channel, CHECKED_FROM, size - CHECKED_FROM, crc::update);
+			if ((int) crc.getValue() != checksum) {
+				throw new IOException("The snapshot does not match its checksum.");
+			}
+		}
+
+		return sections;
+	}
+
+	/**
+	 * Performs an action on each memory mapped region of part of a file, in
+	 * order. No region is larger than {@link MetroSnapshot#MAX_REGION}.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the file.
+	 * @param offset
+	 *            The offset, in bytes, of the part of the file.
+	 * @param length
+	 *            The length, in bytes, of the part of the file.
+	 * @param action
+	 *            The action performed on the {@link ByteBuffer} of each region,
+	 *            which is in {@link MetroSnapshot#ORDER}.
+	 * @throws IOException
+	 *             If the file cannot be mapped.
+	 */
+	private static void forEachRegion(FileChannel channel, long offset, long length, Consumer<ByteBuffer> action)
+			throws IOException {
+
+		for (long position = 0; position < length; position += MAX_REGION) {
+			action.accept(channel.map(FileChannel.MapMode.READ_ONLY, offset + position,
+					Math.min(MAX_REGION, length - position)).order(ORDER));
+		}
+	}
+
+	/**
+	 * Reads a section of <code>int</code> values.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}.
+	 * @param section
+	 *            {@link Section}
+	 * @return The values of the section.
+	 * @throws IOException
+	 *             If the section cannot be read.
+	 */
+	private static int[] readInts(FileChannel channel, long[][] sections, Section section) throws IOException {
+
+		final long length = sections[section.ordinal()][1];
+		if (length % Integer.BYTES != 0 || length / Integer.BYTES > Integer.MAX_VALUE) {
+			throw new IOException("Section " + section + " does not hold whole int values.");
+		}
+
+		final int[] values = new int[(int) (length / Integer.BYTES)];
+		final int[] read = { 0 };
+		forEachRegion(channel, sections[section.ordinal()][0], length, region -> {
+			final int count = region.remaining() / Integer.BYTES;
+			region.asIntBuffer().get(values, read[0], count);
+			read[0] += count;
+		});
+
+		return values;
+	}
+
+	/**
+	 * Reads a section of <code>short</code> values.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}.
+	 * @param section
+	 *            {@link Section}
+	 * @return The values of the section.
+	 * @throws IOException
+	 *             If the section cannot be read.
+	 */
+	private static short[] readShorts(FileChannel channel, long[][] sections, Section section) throws IOException {
+
+		final long length = sections[section.ordinal()][1];
+		if (length % Short.BYTES != 0 || length / Short.BYTES > Integer.MAX_VALUE) {
+			throw new IOException("Section " + section + " does not hold whole short values.");
+		}
+
+		final short[] values = new short[(int) (length / Short.BYTES)];
+		final int[] read = { 0 };
+		forEachRegion(channel, sections[section.ordinal()][0], length, region -> {
+			final int count = region.remaining() / Short.BYTES;
+			region.asShortBuffer().get(values, read[0], count);
+			read[0] += count;
+		});
+
+		return values;
+	}
+
+	/**
+	 * Reads the names held by a section of offsets and a section of UTF-8
+	 * bytes.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}.
+	 * @param offsetSection
+	 *            The {@link Section} of the offset of each name.
+	 * @param byteSection
+	 *            The {@link Section} of the bytes of the names.
+	 * @return The names.
+	 * @throws IOException
+	 *             If the sections cannot be read.
+	 */
+	private static String[] readNames(FileChannel channel, long[][] sections, Section offsetSection,
+			Section byteSection) throws IOException {
+
+		final int[] offsets = readInts(channel, sections, offsetSection);
+		final long length = sections[byteSection.ordinal()][1];
+		if (offsets.length == 0 || length > MAX_REGION || offsets[offsets.length - 1] != length) {
+			throw new IOException("Section " + byteSection + " does not match its offsets.");
+		}
+
+		final byte[] bytes = new byte[(int) length];
+		forEachRegion(channel, sections[byteSection.ordinal()][0], length, region -> region.get(bytes));
+
+		final String[] names = new String[offsets.length - 1];
+		for (int name = 0; name < names.length; name++) {
+			names[name] = new String(bytes, offsets[name], offsets[name + 1] - offsets[name], StandardCharsets.UTF_8);
+		}
+
+		return names;
+	}
+
+	/**
+	 * Encodes names into a section of offsets, a section of UTF-8 bytes and a
+	 * section of the ids of the names in the order of their bytes.
+	 *
+	 * @param sections
+	 *            The sections of the snapshot being written.
+	 * @param offsetSection
+	 *            The {@link Section} of the offset of each name.
+	 * @param byteSection
+	 *            The {@link Section} of the bytes of the names.
+	 * @param orderSection
+	 *            The {@link Section} of the ids in name order.
+	 * @param names
+	 *            The names.
+	 */
+	private static void putNames(ByteBuffer[] sections, Section offsetSection, Section byteSection,
+			Section orderSection, String[] names) {
+
+		final byte[][] encoded = new byte[names.length][];
+		final int[] offsets = new int[names.length + 1];
+		for (int name = 0; name < names.length; name++) {
+			encoded[name] = names[name].getBytes(StandardCharsets.UTF_8);
+			offsets[name + 1] = offsets[name] + encoded[name].length;
+		}
+
+		final ByteBuffer bytes = ByteBuffer.allocate(offsets[names.length]);
+		for (byte[] name : encoded) {
+			bytes.put(name);
+		}
+		bytes.flip();
+
+		// Sort the ids by their bytes, as compareName compares them.
+		final Integer[] order = new Integer[names.length];
+		for (int name = 0; name < names.length; name++) {
+			order[name] = name;
+		}
+		Arrays.sort(order, (a, b) -> compareName(ByteBuffer.wrap(encoded[a]), 0, encoded[a].length, encoded[b]));
+		final int[] sorted = new int[names.length];
+		for (int name = 0; name < names.length; name++) {
+			sorted[name] = order[name];
+		}
+
+		sections[offsetSection.ordinal()] = ints(offsets);
+		sections[byteSection.ordinal()] = bytes;
+		sections[orderSection.ordinal()] = ints(sorted);
+	}
+
+	/**
+	 * Compares the UTF-8 bytes of a name held in a {@link ByteBuffer} with the
+	 * UTF-8 bytes of another name, treating each byte as unsigned so that
+	 * names are ordered by their code points.
+	 *
+	 * @param names
+	 *            The {@link ByteBuffer} holding the first name.
+	 * @param from
+	 *            The index of the first byte of the first name.
+	 * @param to
+	 *            The index after the last byte of the first name.
+	 * @param key
+	 *            The bytes of the second name.
+	 * @return A negative number, zero or a positive number as the first name
+	 *         is before, the same as or after the second name.
+	 */
+	static int compareName(ByteBuffer names, int from, int to, byte[] key) {
+
+		final int length = Math.min(to - from, key.length);
+		for (int index = 0; index < length; index++) {
+			final int difference = (names.get(from + index) & 0xFF) - (key[index] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+
+		return (to - from) - key.length;
+	}
+
+	/**
+	 * Memory maps a section of a snapshot.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the snapshot.
+	 * @param sections
+	 *            The offset and length of each {@link Section}, as given by
+	 *            {@link MetroSnapshot#readHeader(FileChannel, boolean)}.
+	 * @param section
+	 *            {@link Section}
+	 * @return The read only {@link ByteBuffer} of the section, in
+	 *         {@link MetroSnapshot#ORDER}.
+	 * @throws IOException
+	 *             If the section cannot be mapped, or is too large to map as
+	 *             one buffer.
+	 */
+	static ByteBuffer map(FileChannel channel, long[][] sections, Section section) throws IOException {
+
+		final long length = sections[section.ordinal()][1];
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Section " + section + " is too large to map.");
+		}
+
+		return channel.map(FileChannel.MapMode.READ_ONLY, sections[section.ordinal()][0], length).order(ORDER);
+	}
+
+	/**
+	 * Encodes <code>int</code> values into a section.
+	 *
+	 * @param values
+	 *            The values.
+	 * @return The {@link ByteBuffer} of the section, ready to be read.
+	 */
+	private static ByteBuffer ints(int[] values) {
+		final ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES).order(ORDER);
+		buffer.asIntBuffer().put(values);
+		return buffer;
+	}
+
+	/**
+	 * Encodes <code>short</code> values into a section.
+	 *
+	 * @param values
+	 *            The values.
+	 * @return The {@link ByteBuffer} of the section, ready to be read.
+	 */
+	private static ByteBuffer shorts(short[] values) {
+		final ByteBuffer buffer = ByteBuffer.allocate(values.length * Short.BYTES).order(ORDER);
+		buffer.asShortBuffer().put(values);
+		return buffer;
+	}
+
+	/**
+	 * Rounds an offset up to the next multiple of
+	 * {@link MetroSnapshot#ALIGNMENT}.
+	 *
+	 * @param offset
+	 *            The offset, in bytes.
+	 * @return The aligned offset.
+	 */
+	private static long align(long offset) {
+		return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	/**
+	 * Reads part of a file into a new {@link ByteBuffer}.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the file.
+	 * @param offset
+	 *            The offset, in bytes, of the part of the file.
+	 * @param length
+	 *            The length, in bytes, of the part of the file.
+	 * @return The {@link ByteBuffer}, in {@link MetroSnapshot#ORDER} and ready
+	 *         to be read.
+	 * @throws IOException
+	 *             If the file ends before the part has been read.
+	 */
+	private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ORDER);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("The snapshot ended unexpectedly.");
+			}
+		}
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Writes the remaining bytes of a {@link ByteBuffer} to part of a file,
+	 * without changing the position of the {@link ByteBuffer}.
+	 *
+	 * @param channel
+	 *            The {@link FileChannel} of the file.
+	 * @param buffer
+	 *            {@link ByteBuffer}
+	 * @param offset
+	 *            The offset, in bytes, the bytes are written at.
+	 * @throws IOException
+	 *             If the bytes cannot be written.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+
+		final ByteBuffer remaining = buffer.duplicate();
+		final int start = remaining.position();
+		while (remaining.hasRemaining()) {
+			channel.write(remaining, offset + remaining.position() - start);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package underground;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The queries that a {@link RequestHandler} and a {@link RouteCache} make of a
+ * network of {@link Line}s and {@link Station}s. {@link Metro} answers them
+ * from structures on the heap and {@link MappedMetro} answers them from a
+ * memory mapped snapshot.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro
+ * @see MappedMetro
+ */
+public interface Network {
+
+	/**
+	 * Finds the path with the fewest stops between two specified {@link Station}s
+	 * and retrieves the {@link List} of {@link Station}s that denotes the path.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @return {@link List} path, or <code>null</code> if there is no path.
+	 * @see RoutingMode#FEWEST_STOPS
+	 */
+	default List<Station> findPath(Station start, Station end) {
+		return findPath(start, end, RoutingMode.FEWEST_STOPS);
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s using the specified
+	 * {@link RoutingMode} and retrieves the {@link List} of {@link Station}s that
+	 * denotes the path.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link List} path, or <code>null</code> if there is no path.
+	 */
+	default List<Station> findPath(Station start, Station end, RoutingMode mode) {
+		return route(start, end, mode).getStations();
+	}
+
+	/**
+	 * Finds a path between two specified {@link Station}s using the specified
+	 * {@link RoutingMode}.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link Route}
+	 * @throws NullPointerException
+	 *             If a {@link Station} does not exist in this {@link Network}.
+	 * @throws UnsupportedOperationException
+	 *             If this {@link Network} cannot search in the
+	 *             {@link RoutingMode}.
+	 */
+	Route route(Station start, Station end, RoutingMode mode);
+
+	/**
+	 * Retrieves the {@link Station} of this {@link Network} with the specified
+	 * name.
+	 *
+	 * @param stationName
+	 *            The name of the {@link Station}.
+	 * @return {@link Station}
+	 * @throws NullPointerException
+	 *             If the {@link Station} does not exist in this {@link Network}.
+	 */
+	Station getStation(String stationName);
+
+	/**
+	 * Lists all the {@link Station}s on a {@link Line}, in order from its first
+	 * terminal.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link List} of {@link Station}s.
+	 * @throws NullPointerException
+	 *             If the {@link Line} does not exist in this {@link Network}.
+	 */
+	List<Station> listStationsOnLine(String lineName);
+
+	/**
+	 * Retrieves the names of the {@link Line}s that share a {@link Station} with
+	 * the specified {@link Line}.
+	 *
+	 * @param lineName
+	 *            The name of the {@link Line}.
+	 * @return {@link Set} of {@link Line} names.
+	 * @throws NullPointerException
+	 *             If the {@link Line} does not exist in this {@link Network}.
+	 */
+	Set<String> getAdjacentLineNames(String lineName);
+
+	/**
+	 * Outputs each {@link Line} and its two terminals, one {@link Line} to each
+	 * line of the result.
+	 *
+	 * @return The {@link Line}s and their terminals.
+	 */
+	String outputAllStations();
+
+}
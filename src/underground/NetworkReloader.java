@@ -0,0 +1,296 @@
+package underground;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the files a {@link Network} is loaded from and, when any of them
+ * changes, loads a new {@link Network} on a background thread and swaps it
+ * into a {@link RequestHandler} with
+ * {@link RequestHandler#setNetwork(Network)}.
+ *
+ * <p>
+ * Queries are never blocked by a reload: the {@link RequestHandler} keeps
+ * answering from the old {@link Network} while the new one is loaded, and
+ * the swap is a single atomic reference update which also drops the
+ * {@link RouteCache} of the old {@link Network}. Changes that arrive close
+ * together, such as a file being written in several parts, are gathered
+ * into one reload once the files have been quiet for the quiet period. If a
+ * reload fails, the old {@link Network} is kept.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see WatchService
+ */
+public final class NetworkReloader implements Closeable {
+
+	/**
+	 * The time, in milliseconds, the files must be left unchanged before a
+	 * reload starts when no quiet period is specified.
+	 */
+	public static final long DEFAULT_QUIET_PERIOD = 250;
+
+	/**
+	 * The {@link RequestHandler} the new {@link Network}s are swapped into.
+	 */
+	private final RequestHandler handler;
+
+	/**
+	 * The names of the watched files within the watched directory.
+	 */
+	private final Set<Path> fileNames;
+
+	/**
+	 * Loads a new {@link Network} from the watched files.
+	 */
+	private final Callable<? extends Network> loader;
+
+	/**
+	 * The time, in milliseconds, the files must be left unchanged before a
+	 * reload starts.
+	 */
+	private final long quietPeriod;
+
+	/**
+	 * The {@link WatchService} of the watched directory.
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * The background thread that waits for changes and reloads.
+	 */
+	private final Thread thread;
+
+	/**
+	 * The number of reloads that swapped in a new {@link Network}.
+	 */
+	private final AtomicLong reloads;
+
+	/**
+	 * The number of reloads that failed, leaving the old {@link Network}.
+	 */
+	private final AtomicLong failures;
+
+	/**
+	 * The cause of the last failed reload, or <code>null</code> if no reload
+	 * has failed.
+	 */
+	private volatile Exception lastFailure;
+
+	/**
+	 * Constructs a new {@link NetworkReloader} that waits for the default quiet
+	 * period. The files are not watched until {@link NetworkReloader#start()}
+	 * is called.
+	 *
+	 * @param handler
+	 *            The {@link RequestHandler} the new {@link Network}s are
+	 *            swapped into.
+	 * @param directory
+	 *            The {@link Path} of the directory that holds the files.
+	 * @param fileNames
+	 *            The names of the files within the directory.
+	 * @param loader
+	 *            Loads a new {@link Network} from the files.
+	 * @throws IOException
+	 *             If the directory cannot be watched.
+	 */
+	public NetworkReloader(RequestHandler handler, Path directory, Collection<String> fileNames,
+			Callable<? extends Network> loader) throws IOException {
+		this(handler, directory, fileNames, loader, DEFAULT_QUIET_PERIOD);
+	}
+
+	/**
+	 * Constructs a new {@link NetworkReloader}. The files are not watched until
+	 * {@link NetworkReloader#start()} is called.
+	 *
+	 * @param handler
+	 *            The {@link RequestHandler} the new {@link Network}s are
+	 *            swapped into.
+	 * @param directory
+	 *            The {@link Path} of the directory that holds the files.
+	 * @param fileNames
+	 *            The names of the files within the directory.
+	 * @param loader
+	 *            Loads a new {@link Network} from the files.
+	 * @param quietPeriod
+	 *            The time, in milliseconds, the files must be left unchanged
+	 *            before a reload starts.
+	 * @throws IOException
+	 *             If the directory cannot be watched.
+	 */
+	public NetworkReloader(RequestHandler handler, Path directory, Collection<String> fileNames,
+			Callable<? extends Network> loader, long quietPeriod) throws IOException {
+
+		// Check parameters
+		if (handler == null) {
+			throw new NullPointerException("Request handler cannot be null.");
+		} else if (directory == null) {
+			throw new NullPointerException("Directory cannot be null.");
+		} else if (fileNames == null) {
+			throw new NullPointerException("File names cannot be null.");
+		} else if (loader == null) {
+			throw new NullPointerException("Loader cannot be null.");
+		} else if (quietPeriod < 0) {
+			throw new IllegalArgumentException("The quiet period cannot be negative.");
+		}
+
+		this.handler = handler;
+		this.loader = loader;
+		this.quietPeriod = quietPeriod;
+		this.reloads = new AtomicLong();
+		this.failures = new AtomicLong();
+		this.lastFailure = null;
+
+		this.fileNames = new HashSet<>();
+		for (String fileName : fileNames) {
+			this.fileNames.add(directory.getFileSystem().getPath(fileName));
+		}
+
+		this.watchService = directory.getFileSystem().newWatchService();
+		directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		this.thread = new Thread(this::watch, "NetworkReloader " + directory);
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts watching the files on the background thread.
+	 */
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Loads a new {@link Network} on the calling thread and swaps it into the
+	 * {@link RequestHandler}. If loading fails the old {@link Network} is kept
+	 * and the failure is counted.
+	 *
+	 * @return Whether a new {@link Network} was swapped in.
+	 */
+	public boolean reload() {
+
+		final Network network;
+		try {
+			network = loader.call();
+		} catch (Exception e) {
+			lastFailure = e;
+			failures.incrementAndGet();
+			return false;
+		}
+
+		if (network == null) {
+			lastFailure = new NullPointerException("The loader returned no network.");
+			failures.incrementAndGet();
+			return false;
+		}
+
+		handler.setNetwork(network);
+		reloads.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Retrieves the number of reloads that swapped in a new {@link Network}.
+	 *
+	 * @return The number of reloads.
+	 */
+	public long getReloads() {
+		return reloads.get();
+	}
+
+	/**
+	 * Retrieves the number of reloads that failed.
+	 *
+	 * @return The number of failures.
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * Retrieves the cause of the last failed reload.
+	 *
+	 * @return The cause, or <code>null</code> if no reload has failed.
+	 */
+	public Exception getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Stops watching the files. A reload in progress is allowed to finish.
+	 *
+	 * @throws IOException
+	 *             If the {@link WatchService} cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	/**
+	 * Waits for changes to the watched files and reloads once they have been
+	 * quiet for the quiet period, until this {@link NetworkReloader} is
+	 * closed.
+	 */
+	private void watch() {
+
+		try {
+			while (true) {
+
+				// Wait for a change to one of the files.
+				if (!changed(watchService.take())) {
+					continue;
+				}
+
+				// Gather the changes that follow until the files are quiet.
+				WatchKey key;
+				while ((key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+					changed(key);
+				}
+
+				reload();
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			// Closed, so stop watching.
+		}
+	}
+
+	/**
+	 * Retrieves whether the events of a {@link WatchKey} include a change to
+	 * one of the watched files, and resets the {@link WatchKey} so that it
+	 * receives further events.
+	 *
+	 * @param key
+	 *            {@link WatchKey}
+	 * @return Whether a watched file changed.
+	 */
+	private boolean changed(WatchKey key) {
+
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+
+			// Events may have been lost, so any of the files may have changed.
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileNames.contains(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+
+		return changed;
+	}
+
+}
@@ -0,0 +1,107 @@
+package underground;
+
+/**
+ * Times each {@link RoutePhase} of the paths found for one
+ * {@link MetricsController} into a {@link LatencyHistogram} of its own, so
+ * that the phases of requests made through other {@link Controller}s are not
+ * mixed in.
+ *
+ * <p>
+ * A {@link PhaseTimer} is passed down with each request for a path, from
+ * {@link RequestHandler} through {@link RouteCache} to the search of the
+ * {@link Metro}. {@link PhaseTimer#NONE} times nothing, which costs a check
+ * of a field per phase.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see MetricsController#MetricsController(Controller, boolean)
+ */
+final class PhaseTimer {
+
+	/**
+	 * The {@link PhaseTimer} of requests whose phases are not timed.
+	 */
+	static final PhaseTimer NONE = new PhaseTimer(null);
+
+	/**
+	 * The times each {@link RoutePhase} took, by {@link RoutePhase#ordinal()},
+	 * or <code>null</code> if nothing is timed.
+	 */
+	private final LatencyHistogram[] histograms;
+
+	/**
+	 * Constructs a new {@link PhaseTimer} that times every {@link RoutePhase}.
+	 */
+	PhaseTimer() {
+		this(new LatencyHistogram[RoutePhase.values().length]);
+
+		for (RoutePhase phase : RoutePhase.values()) {
+			histograms[phase.ordinal()] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Constructs a new {@link PhaseTimer}.
+	 *
+	 * @param histograms
+	 *            {@link PhaseTimer#histograms}
+	 */
+	private PhaseTimer(LatencyHistogram[] histograms) {
+		this.histograms = histograms;
+	}
+
+	/**
+	 * Retrieves whether this {@link PhaseTimer} times the phases.
+	 *
+	 * @return Whether the phases are timed.
+	 */
+	boolean isTimed() {
+		return histograms != null;
+	}
+
+	/**
+	 * Marks the start of a phase.
+	 *
+	 * @return The {@link System#nanoTime()} of the start, or <code>0</code> if
+	 *         the phases are not timed.
+	 */
+	long start() {
+		return histograms != null ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Marks the end of a phase, recording how long it took.
+	 *
+	 * @param phase
+	 *            {@link RoutePhase}
+	 * @param start
+	 *            The start of the phase, as given by
+	 *            {@link PhaseTimer#start()}.
+	 */
+	void end(RoutePhase phase, long start) {
+		if (start != 0) {
+			histograms[phase.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Retrieves the times a {@link RoutePhase} took.
+	 *
+	 * @param phase
+	 *            {@link RoutePhase}
+	 * @return {@link LatencyHistogram}
+	 * @throws IllegalStateException
+	 *             If the phases are not timed.
+	 */
+	LatencyHistogram getHistogram(RoutePhase phase) {
+
+		if (histograms == null) {
+			throw new IllegalStateException("The phases are not timed.");
+		}
+
+		return histograms[phase.ordinal()];
+	}
+
+}
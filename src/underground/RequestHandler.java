@@ -1,6 +1,8 @@
 package underground;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * This class provides concrete implementation for the @{link Controller} by
@@ -12,27 +14,150 @@ import java.util.List;
  */
 public class RequestHandler implements Controller {
 	/**
-	 * The {@link Metro} we will be instancing in this {@link RequestHandler}
+	 * The number of routes the {@link RouteCache} holds when no capacity is
+	 * specified.
 	 */
-	private Metro metro;
+	public static final int DEFAULT_CACHE_CAPACITY = 1024;
+
+	/**
+	 * The {@link Network}, such as a {@link Metro}, we will be instancing in
+	 * this {@link RequestHandler}, along with the {@link RouteCache} that paths
+	 * are looked up in before the {@link Network} is searched. Both are
+	 * replaced together by {@link RequestHandler#setNetwork(Network)}, and each
+	 * call reads them once so that it finishes on the {@link Network} it
+	 * started on.
+	 */
+	private final AtomicReference<Loaded> loaded;
+
+	/**
+	 * The largest number of paths each {@link RouteCache} holds.
+	 */
+	private final int cacheCapacity;
 
 	/**
 	 * Create a new {@link RequestHandler}
 	 * 
 	 * @param input
-	 *            The {@link Metro} representing the the whole system whose methods
-	 *            will be called and returned as strings.
+	 *            The {@link Network} representing the the whole system whose
+	 *            methods will be called and returned as strings.
+	 */
+	public RequestHandler(Network input) {
+		this(input, DEFAULT_CACHE_CAPACITY);
+
+	}
+
+	/**
+	 * Create a new {@link RequestHandler} which caches up to the specified
+	 * number of paths.
+	 * 
+	 * @param input
+	 *            The {@link Network} representing the the whole system whose
+	 *            methods will be called and returned as strings.
+	 * @param cacheCapacity
+	 *            The largest number of paths the {@link RouteCache} holds.
+	 */
+	public RequestHandler(Network input, int cacheCapacity) {
+		this.cacheCapacity = cacheCapacity;
+		this.loaded = new AtomicReference<>(new Loaded(input, new RouteCache(input, cacheCapacity)));
+
+	}
+
+	/**
+	 * Replaces the {@link Network} of this {@link RequestHandler}, dropping the
+	 * {@link RouteCache} of the old {@link Network} in the same atomic swap.
+	 * Calls already in progress finish on the old {@link Network}, and every
+	 * call made afterwards uses the new one.
+	 * 
+	 * @param network
+	 *            The new {@link Network}.
+	 * @return The old {@link Network}.
+	 */
+	public Network setNetwork(Network network) {
+		return loaded.getAndSet(new Loaded(network, new RouteCache(network, cacheCapacity))).network;
+	}
+
+	/**
+	 * Replaces the {@link Metro} of this {@link RequestHandler} with an edit of
+	 * it, such as {@link Metro#closeStation(String)}. Unlike
+	 * {@link RequestHandler#setNetwork(Network)}, only the cached {@link Route}s
+	 * that the edit may have changed are dropped. If the edit makes more than
+	 * one change, the whole {@link RouteCache} is dropped.
+	 * 
+	 * <p>
+	 * If the {@link Network} is replaced while the edit is made, the edit is
+	 * made again to the new {@link Network}, so the edit must have no other
+	 * effects.
+	 * </p>
+	 * 
+	 * @param edit
+	 *            The edit, which returns the edited {@link Metro}.
+	 * @return The edited {@link Metro}.
+	 * @throws UnsupportedOperationException
+	 *             If the {@link Network} is not a {@link Metro}.
+	 */
+	public Metro edit(UnaryOperator<Metro> edit) {
+
+		// Check parameters
+		if (edit == null) {
+			throw new NullPointerException("Edit cannot be null.");
+		}
+
+		while (true) {
+
+			final Loaded current = loaded.get();
+
+			if (!(current.network instanceof Metro)) {
+				throw new UnsupportedOperationException("Only a Metro can be edited.");
+			}
+
+			final Metro metro = (Metro) current.network;
+			final Metro edited = edit.apply(metro);
+
+			if (edited == null) {
+				throw new NullPointerException("The edit returned no metro.");
+			} else if (edited == metro) {
+				return metro;
+			}
+
+			// Carry over the cached routes that the edit cannot have changed,
+			// but no legacy routes once the legacy search cannot be used.
+			final boolean legacy = !edited.hasClosures();
+			final RouteCache routeCache = edited.isEditOf(metro)
+					? current.routeCache.retain(edited,
+							route -> (legacy || route.getMode() != RoutingMode.LEGACY_DEPTH_FIRST)
+									&& !edited.isStale(route))
+					: new RouteCache(edited, cacheCapacity);
+
+			if (loaded.compareAndSet(current, new Loaded(edited, routeCache))) {
+				return edited;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the {@link Network} this {@link RequestHandler} currently calls.
+	 * 
+	 * @return {@link Network}
 	 */
-	public RequestHandler(Metro input) {
-		metro = input;
+	public Network getNetwork() {
+		return loaded.get().network;
+	}
 
+	/**
+	 * Retrieves the {@link RouteCache} of this {@link RequestHandler}, whose
+	 * counters show how many paths were looked up rather than searched for.
+	 * 
+	 * @return {@link RouteCache} of the current {@link Network}.
+	 */
+	public RouteCache getRouteCache() {
+		return loaded.get().routeCache;
 	}
 
 	/**
 	 * Calls the {@link metro} outputAllStrings method and returns it as a String
 	 */
 	public String listAllTermini() {
-		return metro.outputAllStations();
+		return loaded.get().network.outputAllStations();
 
 	}
 
@@ -46,23 +171,36 @@ public class RequestHandler implements Controller {
 	 */
 	public String listStationsInLine(String line) {
 		try {
-			List<Station> stations = metro.listStationsOnLine(line);
-			StringBuilder sb = new StringBuilder();
-			sb.append(line).append(" : ");
-
-			for (Station tmp : stations) {
-				sb.append(tmp.getName()).append(" <-> ");
-			}
-			// Remove extra " <-> "
-			sb.setLength(sb.length() - 5);
-
-			return sb.toString();
+			return stationsInLine(line);
 		} catch (Exception e) {
 			return e.getMessage();
 		}
 
 	}
 
+	/**
+	 * Lists the stations of a {@link Line} as
+	 * {@link RequestHandler#listStationsInLine(String)} does, but throws
+	 * rather than returning the message of a failure.
+	 * 
+	 * @param line
+	 *            User inputted string naming the {@link Line} they want returned.
+	 * @return The stations of the {@link Line}.
+	 */
+	String stationsInLine(String line) {
+		List<Station> stations = loaded.get().network.listStationsOnLine(line);
+		StringBuilder sb = new StringBuilder();
+		sb.append(line).append(" : ");
+
+		for (Station tmp : stations) {
+			sb.append(tmp.getName()).append(" <-> ");
+		}
+		// Remove extra " <-> "
+		sb.setLength(sb.length() - 5);
+
+		return sb.toString();
+	}
+
 	/**
 	 * Calls the {@link metro} ListAllDirectlyConnectedLines method and tries to
 	 * return it as a String if the user inputted information provides an error
@@ -74,17 +212,31 @@ public class RequestHandler implements Controller {
 	 */
 	public String listAllDirectlyConnectedLines(String line) {
 		try {
-			StringBuilder sb = new StringBuilder();
-			sb.append(line).append("\n").append("\t");
-			metro.getAdjacentLines(line).forEach(linename -> sb.append(linename.getName()).append("\n").append("\t"));
-
-			return sb.toString();
+			return directlyConnectedLines(line);
 		} catch (Exception e) {
 			return e.getMessage();
 		}
 
 	}
 
+	/**
+	 * Lists the {@link Line}s connected to a {@link Line} as
+	 * {@link RequestHandler#listAllDirectlyConnectedLines(String)} does, but
+	 * throws rather than returning the message of a failure.
+	 * 
+	 * @param line
+	 *            User inputted string naming the {@link Line} they want connection
+	 *            information returned for.
+	 * @return The connected {@link Line}s.
+	 */
+	String directlyConnectedLines(String line) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(line).append("\n").append("\t");
+		loaded.get().network.getAdjacentLineNames(line).forEach(lineName -> sb.append(lineName).append("\n").append("\t"));
+
+		return sb.toString();
+	}
+
 	/**
 	 * Calls the @{link metro} findPath method ,convert its values into a string
 	 * using its toString method inside @{link metro}, if the user inputted
@@ -99,25 +251,113 @@ public class RequestHandler implements Controller {
 	 *            between
 	 */
 	public String showPathBetween(String stationA, String stationB) {
+		return showPathBetween(stationA, stationB, RoutingMode.FEWEST_STOPS);
+	}
+
+	/**
+	 * Calls the @{link metro} findPath method using the
+	 * {@link RoutingMode#FEWEST_CHANGES} mode and converts its values into a
+	 * string, if the user inputted information provides an error return the
+	 * message of the caught exception.
+	 * 
+	 * @param stationA
+	 *            User inputted value for the first station to check the path
+	 *            between
+	 * 
+	 * @param stationB
+	 *            User inputted value for the second station to check the path
+	 *            between
+	 */
+	public String showPathWithFewestChangesBetween(String stationA, String stationB) {
+		return showPathBetween(stationA, stationB, RoutingMode.FEWEST_CHANGES);
+	}
+
+	/**
+	 * Looks up the route in the {@link RouteCache}, which calls the @{link metro}
+	 * route method if it is not cached, with the specified
+	 * {@link RoutingMode} and converts the path into a string of station names
+	 * separated by " -> ", or a message saying there is no path.
+	 * 
+	 * @param stationA
+	 *            User inputted value for the first station
+	 * @param stationB
+	 *            User inputted value for the second station
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path
+	 */
+	private String showPathBetween(String stationA, String stationB, RoutingMode mode) {
 		try {
+			return pathBetween(stationA, stationB, mode, PhaseTimer.NONE);
+		} catch (Exception e) {
+			return e.getMessage();
+		}
 
-			StringBuilder sb = new StringBuilder();
-			Station statA = new Station(stationA);
-			Station statB = new Station(stationB);
-			List<Station> stations = metro.findPath(statA, statB);
+	}
 
-			for (Station tmp : stations) {
-				sb.append(tmp.getName()).append(" -> ");
+	/**
+	 * Shows the path between two stations as
+	 * {@link RequestHandler#showPathBetween(String, String)} does, but throws
+	 * rather than returning the message of a failure. Each {@link RoutePhase}
+	 * of the request is timed with the specified {@link PhaseTimer}.
+	 * 
+	 * @param stationA
+	 *            User inputted value for the first station
+	 * @param stationB
+	 *            User inputted value for the second station
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path
+	 * @param timer
+	 *            {@link PhaseTimer}
+	 * @return The path, or a message saying there is no path.
+	 */
+	String pathBetween(String stationA, String stationB, RoutingMode mode, PhaseTimer timer) {
 
-			}
+		// Use one network and its cache for the whole call.
+		final Loaded current = loaded.get();
 
-			sb.setLength(sb.length() - 4);
+		final long lookingUp = timer.start();
+		Station statA = current.network.getStation(stationA);
+		Station statB = current.network.getStation(stationB);
+		timer.end(RoutePhase.LOOKUP, lookingUp);
 
-			return sb.toString();
-		} catch (Exception e) {
-			return e.getMessage();
-		}
+		final Route route = current.routeCache.route(statA, statB, mode, timer);
+
+		// The route describes itself, including when there is no path.
+		final long formatting = timer.start();
+		final String answer = route.toString();
+		timer.end(RoutePhase.FORMAT, formatting);
+
+		return answer;
+	}
 
+	/**
+	 * A {@link Network} and the {@link RouteCache} of the {@link Route}s found
+	 * by it, which are only ever replaced together.
+	 */
+	private static final class Loaded {
+
+		/**
+		 * The {@link Network}.
+		 */
+		final Network network;
+
+		/**
+		 * The {@link RouteCache} in front of the {@link Loaded#network}.
+		 */
+		final RouteCache routeCache;
+
+		/**
+		 * Constructs a new {@link Loaded}.
+		 * 
+		 * @param network
+		 *            The {@link Network}.
+		 * @param routeCache
+		 *            The {@link RouteCache} in front of the {@link Network}.
+		 */
+		Loaded(Network network, RouteCache routeCache) {
+			this.network = network;
+			this.routeCache = routeCache;
+		}
 	}
 
 }
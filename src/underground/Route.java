@@ -0,0 +1,206 @@
+package underground;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of finding a path between two {@link Station}s of a
+ * {@link Metro}. A {@link Route} either holds the {@link Station}s of the path
+ * that was found, or records that there is no path between the two
+ * {@link Station}s because they are in separate parts of the network.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro#route(Station, Station, RoutingMode)
+ */
+public final class Route {
+
+	/**
+	 * The {@link Station} the {@link Route} starts at.
+	 */
+	private final Station start;
+
+	/**
+	 * The {@link Station} the {@link Route} ends at.
+	 */
+	private final Station end;
+
+	/**
+	 * The {@link RoutingMode} used to find the {@link Route}.
+	 */
+	private final RoutingMode mode;
+
+	/**
+	 * The {@link Station}s of the path from {@link Route#start} to
+	 * {@link Route#end}, or <code>null</code> if there is no path.
+	 */
+	private final List<Station> stations;
+
+	/**
+	 * The number of nodes the search that found this {@link Route} settled.
+	 */
+	private final int settled;
+
+	/**
+	 * Constructs a new {@link Route}.
+	 * 
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            {@link RoutingMode}
+	 * @param stations
+	 *            The {@link List} of {@link Station}s of the path, or
+	 *            <code>null</code> if there is no path.
+	 * @param settled
+	 *            The number of nodes the search settled.
+	 */
+	private Route(Station start, Station end, RoutingMode mode, List<Station> stations, int settled) {
+		this.start = start;
+		this.end = end;
+		this.mode = mode;
+		this.stations = stations == null ? null : Collections.unmodifiableList(stations);
+		this.settled = settled;
+	}
+
+	/**
+	 * Constructs a new {@link Route} along the specified path.
+	 * 
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @param stations
+	 *            The {@link List} of {@link Station}s of the path.
+	 * @param settled
+	 *            The number of nodes the search settled.
+	 * @return {@link Route}
+	 */
+	static Route found(RoutingMode mode, List<Station> stations, int settled) {
+		return new Route(stations.get(0), stations.get(stations.size() - 1), mode, stations, settled);
+	}
+
+	/**
+	 * Constructs a new {@link Route} which records that there is no path between
+	 * two {@link Station}s.
+	 * 
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} that was requested.
+	 * @return {@link Route}
+	 */
+	static Route unreachable(Station start, Station end, RoutingMode mode) {
+		return new Route(start, end, mode, null, 0);
+	}
+
+	/**
+	 * Constructs the {@link Route} in the opposite direction along the same
+	 * path as this {@link Route}. No search is done, so the reversed
+	 * {@link Route} settled no nodes.
+	 * 
+	 * @return {@link Route}
+	 */
+	Route reverse() {
+
+		if (stations == null) {
+			return unreachable(end, start, mode);
+		}
+
+		final List<Station> reversed = new ArrayList<>(stations);
+		Collections.reverse(reversed);
+
+		return new Route(end, start, mode, reversed, 0);
+	}
+
+	/**
+	 * Retrieves whether a path was found.
+	 * 
+	 * @return Whether there is a path between the {@link Station}s.
+	 */
+	public boolean isFound() {
+		return stations != null;
+	}
+
+	/**
+	 * Retrieves the {@link Station} this {@link Route} starts at.
+	 * 
+	 * @return {@link Station}
+	 */
+	public Station getStart() {
+		return start;
+	}
+
+	/**
+	 * Retrieves the {@link Station} this {@link Route} ends at.
+	 * 
+	 * @return {@link Station}
+	 */
+	public Station getEnd() {
+		return end;
+	}
+
+	/**
+	 * Retrieves the {@link RoutingMode} used to find this {@link Route}.
+	 * 
+	 * @return {@link RoutingMode}
+	 */
+	public RoutingMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Retrieves the {@link Station}s of the path of this {@link Route}.
+	 * 
+	 * @return The unmodifiable {@link List} of {@link Station}s from the start
+	 *         to the end, or <code>null</code> if there is no path.
+	 */
+	public List<Station> getStations() {
+		return stations;
+	}
+
+	/**
+	 * Retrieves the number of nodes the search that found this {@link Route}
+	 * settled, which is a measure of how much work the search did. The nodes are
+	 * {@link Station}s for {@link RoutingMode#FEWEST_STOPS} and
+	 * {@link RoutingMode#BIDIRECTIONAL}, and each {@link Station} on each of its
+	 * {@link Line}s for {@link RoutingMode#FEWEST_CHANGES} and
+	 * {@link RoutingMode#FASTEST}.
+	 * 
+	 * @return The number of nodes settled, or <code>0</code> if the path was
+	 *         looked up rather than searched for, was found by
+	 *         {@link RoutingMode#LEGACY_DEPTH_FIRST}, or does not exist.
+	 */
+	public int getSettled() {
+		return settled;
+	}
+
+	/**
+	 * Retrieves the {@link String} representation of this {@link Route}, which is
+	 * the name of each {@link Station} separated by " -> ".
+	 * 
+	 * @return The {@link String} representation of this {@link Route}.
+	 */
+	@Override
+	public String toString() {
+
+		if (stations == null) {
+			return "There is no path between " + start.getName() + " and " + end.getName() + ".";
+		}
+
+		final StringBuilder sb = new StringBuilder();
+
+		for (Station station : stations) {
+			sb.append(station.getName()).append(" -> ");
+		}
+
+		// Remove extra " -> "
+		sb.setLength(sb.length() - 4);
+
+		return sb.toString();
+	}
+
+}
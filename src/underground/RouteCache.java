@@ -0,0 +1,537 @@
+package underground;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A bounded cache of the {@link Route}s found by a {@link Metro}. A
+ * {@link Metro} cannot change once it is built, so a {@link Route} stays
+ * correct for as long as the {@link Metro} that found it is in use.
+ *
+ * <p>
+ * The cache is split into shards by the hash of the start, end and
+ * {@link RoutingMode} of each {@link Route}, and each shard is guarded by its
+ * own lock so that threads requesting different {@link Route}s rarely wait for
+ * each other. Each shard evicts with a segmented least recently used policy: a
+ * new {@link Route} enters a probationary segment and is only promoted to the
+ * protected segment when it is requested again, so a burst of {@link Route}s
+ * that are requested once cannot push the frequently requested {@link Route}s
+ * out of the cache.
+ * </p>
+ *
+ * <p>
+ * If the {@link RoutingMode} allows it, a request from B to A is answered by
+ * reversing a cached {@link Route} from A to B.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RoutingMode#isReversible()
+ */
+public final class RouteCache {
+
+	/**
+	 * The largest number of shards the cache is split into.
+	 */
+	private static final int MAX_SHARDS = 16;
+
+	/**
+	 * The smallest number of {@link Route}s each shard holds, unless the whole
+	 * cache is smaller.
+	 */
+	private static final int MIN_SHARD_CAPACITY = 8;
+
+	/**
+	 * The share of each shard kept for {@link Route}s that have been requested
+	 * more than once.
+	 */
+	private static final double PROTECTED_SHARE = 0.8;
+
+	/**
+	 * The {@link Network} that finds the {@link Route}s that are not cached.
+	 */
+	private final Network metro;
+
+	/**
+	 * The shards of the cache.
+	 */
+	private final Shard[] shards;
+
+	/**
+	 * The largest number of {@link Route}s the cache holds.
+	 */
+	private final int capacity;
+
+	/**
+	 * The number of requests answered from the cache.
+	 */
+	private final LongAdder hits;
+
+	/**
+	 * The number of requests answered by reversing a cached {@link Route}, which
+	 * are also counted as {@link RouteCache#hits}.
+	 */
+	private final LongAdder reversedHits;
+
+	/**
+	 * The number of requests that had to be passed to the {@link Metro}.
+	 */
+	private final LongAdder misses;
+
+	/**
+	 * The number of {@link Route}s evicted to make room for others.
+	 */
+	private final LongAdder evictions;
+
+	/**
+	 * Constructs a new empty {@link RouteCache} in front of the specified
+	 * {@link Network}.
+	 *
+	 * @param metro
+	 *            The {@link Network}, such as a {@link Metro}, that finds the
+	 *            {@link Route}s.
+	 * @param capacity
+	 *            The largest number of {@link Route}s the cache holds.
+	 */
+	public RouteCache(Network metro, int capacity) {
+
+		// Check parameters
+		if (metro == null) {
+			throw new NullPointerException("Metro cannot be null.");
+		} else if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		}
+
+		this.metro = metro;
+		this.capacity = capacity;
+		this.hits = new LongAdder();
+		this.reversedHits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+
+		// Use a power of two shards, each large enough for its segments to matter.
+		final int shardCount = Math.min(MAX_SHARDS, Integer.highestOneBit(Math.max(1, capacity / MIN_SHARD_CAPACITY)));
+		this.shards = new Shard[shardCount];
+
+		for (int index = 0; index < shardCount; index++) {
+
+			// Spread the remainder over the first shards.
+			final int shardCapacity = capacity / shardCount + (index < capacity % shardCount ? 1 : 0);
+			shards[index] = new Shard(shardCapacity);
+		}
+	}
+
+	/**
+	 * Retrieves the {@link Route} between two specified {@link Station}s using
+	 * the specified {@link RoutingMode}, from the cache if it is there and
+	 * otherwise from the {@link Metro}. Each request is recorded as a
+	 * {@link RouteCacheEvent} while that event is enabled.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @return {@link Route}
+	 * @see Metro#route(Station, Station, RoutingMode)
+	 */
+	public Route route(Station start, Station end, RoutingMode mode) {
+		return route(start, end, mode, PhaseTimer.NONE);
+	}
+
+	/**
+	 * Retrieves the {@link Route} between two specified {@link Station}s as
+	 * {@link RouteCache#route(Station, Station, RoutingMode)} does, timing the
+	 * search of a {@link Metro} with the specified {@link PhaseTimer} when the
+	 * {@link Route} is not cached.
+	 *
+	 * @param start
+	 *            {@link Station}
+	 * @param end
+	 *            {@link Station}
+	 * @param mode
+	 *            The {@link RoutingMode} used to find the path.
+	 * @param timer
+	 *            {@link PhaseTimer}
+	 * @return {@link Route}
+	 */
+	Route route(Station start, Station end, RoutingMode mode, PhaseTimer timer) {
+
+		// Check parameters
+		if (start == null) {
+			throw new NullPointerException("Start cannot be null.");
+		} else if (end == null) {
+			throw new NullPointerException("End cannot be null.");
+		} else if (mode == null) {
+			throw new NullPointerException("Routing mode cannot be null.");
+		} else if (timer == null) {
+			throw new NullPointerException("Phase timer cannot be null.");
+		}
+
+		final RouteCacheEvent event = RouteCacheEvent.start();
+		final Key key = new Key(start, end, mode);
+		final Route cached = shardOf(key).get(key);
+
+		if (cached != null) {
+			hits.increment();
+			event.finish(cached, true, false);
+			return cached;
+		}
+
+		// A route in the other direction can be reversed if the mode allows it.
+		if (mode.isReversible()) {
+
+			final Key reversedKey = new Key(end, start, mode);
+			final Route reversed = shardOf(reversedKey).get(reversedKey);
+
+			if (reversed != null) {
+				hits.increment();
+				reversedHits.increment();
+				final Route route = reversed.reverse();
+				event.finish(route, true, true);
+				return route;
+			}
+		}
+
+		misses.increment();
+
+		// Search outside of the lock so other requests to the shard are not held up.
+		// Only a Metro searches in phases that can be timed.
+		final Route route = metro instanceof Metro ? ((Metro) metro).route(start, end, mode, timer)
+				: metro.route(start, end, mode);
+		shardOf(key).put(key, route);
+		event.finish(route, false, false);
+
+		return route;
+	}
+
+	/**
+	 * Retrieves the number of requests that were answered from the cache,
+	 * including those answered by reversing a cached {@link Route}.
+	 *
+	 * @return The number of hits.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Retrieves the number of requests that were answered by reversing a cached
+	 * {@link Route} in the other direction.
+	 *
+	 * @return The number of reversed hits.
+	 */
+	public long getReversedHits() {
+		return reversedHits.sum();
+	}
+
+	/**
+	 * Retrieves the number of requests that were passed on to the {@link Metro}.
+	 *
+	 * @return The number of misses.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Retrieves the number of {@link Route}s that were evicted to make room for
+	 * other {@link Route}s.
+	 *
+	 * @return The number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Retrieves the number of {@link Route}s in the cache.
+	 *
+	 * @return The number of cached {@link Route}s.
+	 */
+	public int size() {
+
+		int size = 0;
+
+		for (Shard shard : shards) {
+			size += shard.size();
+		}
+
+		return size;
+	}
+
+	/**
+	 * Constructs a new {@link RouteCache} of the same capacity in front of
+	 * another {@link Network}, holding the cached {@link Route}s that the
+	 * specified {@link Predicate} keeps. Each shard keeps the order of its
+	 * {@link Route}s, so they are evicted as they would have been here. The
+	 * counters of the new {@link RouteCache} start from zero.
+	 *
+	 * @param network
+	 *            The {@link Network} that finds the {@link Route}s that are not
+	 *            cached.
+	 * @param keep
+	 *            Whether a {@link Route} is still correct for the
+	 *            {@link Network}.
+	 * @return {@link RouteCache}
+	 */
+	RouteCache retain(Network network, Predicate<Route> keep) {
+
+		final RouteCache retained = new RouteCache(network, capacity);
+
+		// The capacity is the same, so every route keeps its shard.
+		for (int index = 0; index < shards.length; index++) {
+			shards[index].copyTo(retained.shards[index], keep);
+		}
+
+		return retained;
+	}
+
+	/**
+	 * Retrieves the {@link String} representation of the counters of this
+	 * {@link RouteCache}.
+	 *
+	 * @return The {@link String} representation of this {@link RouteCache}.
+	 */
+	@Override
+	public String toString() {
+		return "Route cache: " + size() + " routes, " + getHits() + " hits (" + getReversedHits() + " reversed), "
+				+ getMisses() + " misses, " + getEvictions() + " evictions";
+	}
+
+	/**
+	 * Retrieves the {@link Shard} that holds the {@link Route} with the
+	 * specified {@link Key}.
+	 *
+	 * @param key
+	 *            {@link Key}
+	 * @return {@link Shard}
+	 */
+	private Shard shardOf(Key key) {
+
+		// Mix the high bits into the low bits that choose the shard.
+		final int hash = key.hashCode();
+		return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+	}
+
+	/**
+	 * The start, end and {@link RoutingMode} of a cached {@link Route}.
+	 */
+	private static final class Key {
+
+		/**
+		 * The {@link Station} the {@link Route} starts at.
+		 */
+		private final Station start;
+
+		/**
+		 * The {@link Station} the {@link Route} ends at.
+		 */
+		private final Station end;
+
+		/**
+		 * The {@link RoutingMode} used to find the {@link Route}.
+		 */
+		private final RoutingMode mode;
+
+		/**
+		 * The hash code of this {@link Key}.
+		 */
+		private final int hash;
+
+		/**
+		 * Constructs a new {@link Key}.
+		 *
+		 * @param start
+		 *            {@link Station}
+		 * @param end
+		 *            {@link Station}
+		 * @param mode
+		 *            {@link RoutingMode}
+		 */
+		Key(Station start, Station end, RoutingMode mode) {
+			this.start = start;
+			this.end = end;
+			this.mode = mode;
+			this.hash = (31 * start.hashCode() + end.hashCode()) * 31 + mode.ordinal();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			final Key other = (Key) obj;
+			return mode == other.mode && start.equals(other.start) && end.equals(other.end);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * One shard of a {@link RouteCache}, which evicts with a segmented least
+	 * recently used policy.
+	 */
+	private final class Shard {
+
+		/**
+		 * The {@link Route}s that have been requested once, from the least to the
+		 * most recently added.
+		 */
+		private final LinkedHashMap<Key, Route> probation;
+
+		/**
+		 * The {@link Route}s that have been requested more than once, from the
+		 * least to the most recently used.
+		 */
+		private final LinkedHashMap<Key, Route> protectedRoutes;
+
+		/**
+		 * The largest number of {@link Route}s in both segments.
+		 */
+		private final int capacity;
+
+		/**
+		 * The largest number of {@link Route}s in the protected segment.
+		 */
+		private final int protectedCapacity;
+
+		/**
+		 * Constructs a new empty {@link Shard}.
+		 *
+		 * @param capacity
+		 *            The largest number of {@link Route}s the {@link Shard} holds.
+		 */
+		Shard(int capacity) {
+			this.capacity = capacity;
+			this.protectedCapacity = (int) (capacity * PROTECTED_SHARE);
+			this.probation = new LinkedHashMap<>();
+			this.protectedRoutes = new LinkedHashMap<>(16, 0.75f, true);
+		}
+
+		/**
+		 * Retrieves the cached {@link Route} with the specified {@link Key},
+		 * promoting it to the protected segment if it was on probation.
+		 *
+		 * @param key
+		 *            {@link Key}
+		 * @return {@link Route}, or <code>null</code> if it is not cached.
+		 */
+		synchronized Route get(Key key) {
+
+			final Route route = protectedRoutes.get(key);
+
+			if (route != null) {
+				return route;
+			}
+
+			final Route promoted = probation.remove(key);
+
+			if (promoted != null) {
+				protectedRoutes.put(key, promoted);
+				demoteOverflow();
+			}
+
+			return promoted;
+		}
+
+		/**
+		 * Adds a {@link Route} to the probationary segment, evicting the least
+		 * recently used {@link Route} if the {@link Shard} is full.
+		 *
+		 * @param key
+		 *            {@link Key}
+		 * @param route
+		 *            {@link Route}
+		 */
+		synchronized void put(Key key, Route route) {
+
+			// Another thread may have cached the route while it was being found.
+			if (protectedRoutes.containsKey(key) || probation.containsKey(key)) {
+				return;
+			}
+
+			probation.put(key, route);
+
+			if (probation.size() + protectedRoutes.size() > capacity) {
+
+				// Evict from probation first, which may only hold the new route.
+				final Map<Key, Route> victims = probation.size() > 1 || protectedRoutes.isEmpty() ? probation
+						: protectedRoutes;
+				removeEldest(victims);
+				evictions.increment();
+			}
+		}
+
+		/**
+		 * Retrieves the number of {@link Route}s in this {@link Shard}.
+		 *
+		 * @return The number of {@link Route}s.
+		 */
+		synchronized int size() {
+			return probation.size() + protectedRoutes.size();
+		}
+
+		/**
+		 * Copies the {@link Route}s of this {@link Shard} that the specified
+		 * {@link Predicate} keeps into an empty {@link Shard} of the same
+		 * capacity.
+		 *
+		 * @param shard
+		 *            The empty {@link Shard}.
+		 * @param keep
+		 *            Whether a {@link Route} is copied.
+		 */
+		synchronized void copyTo(Shard shard, Predicate<Route> keep) {
+
+			probation.forEach((key, route) -> {
+				if (keep.test(route)) {
+					shard.probation.put(key, route);
+				}
+			});
+			protectedRoutes.forEach((key, route) -> {
+				if (keep.test(route)) {
+					shard.protectedRoutes.put(key, route);
+				}
+			});
+		}
+
+		/**
+		 * Moves the least recently used protected {@link Route}s back to the most
+		 * recent end of probation while the protected segment is too large.
+		 */
+		private void demoteOverflow() {
+
+			while (protectedRoutes.size() > protectedCapacity && protectedRoutes.size() > 1) {
+
+				final Map.Entry<Key, Route> eldest = protectedRoutes.entrySet().iterator().next();
+				probation.put(eldest.getKey(), eldest.getValue());
+				removeEldest(protectedRoutes);
+			}
+		}
+
+		/**
+		 * Removes the first entry of the specified {@link Map}.
+		 *
+		 * @param segment
+		 *            The segment to remove from.
+		 */
+		private void removeEldest(Map<Key, Route> segment) {
+
+			final Iterator<Key> keys = segment.keySet().iterator();
+			keys.next();
+			keys.remove();
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package underground;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of one request to a {@link RouteCache}, which
+ * lasts as long as the request, including the search on a miss.
+ *
+ * <p>
+ * The event is disabled unless a recording enables
+ * <code>underground.RouteCache</code>.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RouteEvent
+ */
+@Name("underground.RouteCache")
+@Label("Route Cache")
+@Category({ "Underground", "Routing" })
+@Description("A request for a path answered by a route cache")
+@Enabled(false)
+@StackTrace(false)
+final class RouteCacheEvent extends Event {
+
+	/**
+	 * The name of the {@link Station} the path starts at.
+	 */
+	@Label("Start")
+	String start;
+
+	/**
+	 * The name of the {@link Station} the path ends at.
+	 */
+	@Label("End")
+	String end;
+
+	/**
+	 * The {@link RoutingMode} of the request.
+	 */
+	@Label("Algorithm")
+	String algorithm;
+
+	/**
+	 * Whether the request was answered from the cache.
+	 */
+	@Label("Hit")
+	boolean hit;
+
+	/**
+	 * Whether the request was answered by reversing a cached {@link Route}.
+	 */
+	@Label("Reversed")
+	boolean reversed;
+
+	/**
+	 * Starts a new {@link RouteCacheEvent}.
+	 *
+	 * @return {@link RouteCacheEvent}
+	 */
+	static RouteCacheEvent start() {
+
+		final RouteCacheEvent event = new RouteCacheEvent();
+		event.begin();
+
+		return event;
+	}
+
+	/**
+	 * Ends this {@link RouteCacheEvent} and commits it if it is enabled and
+	 * lasted longer than its threshold.
+	 *
+	 * @param route
+	 *            The {@link Route} the request was answered with.
+	 * @param hit
+	 *            {@link RouteCacheEvent#hit}
+	 * @param reversed
+	 *            {@link RouteCacheEvent#reversed}
+	 */
+	void finish(Route route, boolean hit, boolean reversed) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.start = route.getStart().getName();
+			this.end = route.getEnd().getName();
+			this.algorithm = route.getMode().name();
+			this.hit = hit;
+			this.reversed = reversed;
+			commit();
+		}
+	}
+
+}
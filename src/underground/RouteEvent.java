@@ -0,0 +1,102 @@
+package underground;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of one path found by
+ * {@link Metro#route(Station, Station, RoutingMode)}, which lasts as long as
+ * the search.
+ *
+ * <p>
+ * The event is disabled unless a recording enables
+ * <code>underground.Route</code>, such as with
+ * <code>Resources/underground.jfc</code>. While it is disabled it costs a
+ * check of a flag, so slow paths can be correlated with garbage collection and
+ * safepoints in recordings of a running {@link Metro}.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ */
+@Name("underground.Route")
+@Label("Route")
+@Category({ "Underground", "Routing" })
+@Description("A path found between two stations")
+@Enabled(false)
+@StackTrace(false)
+final class RouteEvent extends Event {
+
+	/**
+	 * The name of the {@link Station} the path starts at.
+	 */
+	@Label("Start")
+	String start;
+
+	/**
+	 * The name of the {@link Station} the path ends at.
+	 */
+	@Label("End")
+	String end;
+
+	/**
+	 * The {@link RoutingMode} the path was found with.
+	 */
+	@Label("Algorithm")
+	String algorithm;
+
+	/**
+	 * The number of nodes the search settled.
+	 */
+	@Label("Nodes Settled")
+	@Description("Zero if the path was not searched for")
+	int settled;
+
+	/**
+	 * The number of {@link Station}s of the path.
+	 */
+	@Label("Path Length")
+	@Description("The number of stations of the path, or zero if there is none")
+	int pathLength;
+
+	/**
+	 * Starts a new {@link RouteEvent}.
+	 *
+	 * @return {@link RouteEvent}
+	 */
+	static RouteEvent start() {
+
+		final RouteEvent event = new RouteEvent();
+		event.begin();
+
+		return event;
+	}
+
+	/**
+	 * Ends this {@link RouteEvent} and commits it if it is enabled and lasted
+	 * longer than its threshold.
+	 *
+	 * @param route
+	 *            The {@link Route} that was found.
+	 */
+	void finish(Route route) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.start = route.getStart().getName();
+			this.end = route.getEnd().getName();
+			this.algorithm = route.getMode().name();
+			this.settled = route.getSettled();
+			this.pathLength = route.isFound() ? route.getStations().size() : 0;
+			commit();
+		}
+	}
+
+}
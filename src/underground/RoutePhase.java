@@ -0,0 +1,68 @@
+package underground;
+
+/**
+ * The phases of answering a request for a path, each of which can be timed
+ * into its own {@link LatencyHistogram} to show where the time of slow
+ * requests goes.
+ *
+ * <p>
+ * The phases are timed by the {@link PhaseTimer} of a
+ * {@link MetricsController}, so each {@link MetricsController} only sees the
+ * phases of its own requests, even when they share a {@link Metro}.
+ * {@link RoutePhase#PATH} is part of {@link RoutePhase#SEARCH}, and paths
+ * found in a {@link RouteCache} are not searched for at all.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see MetricsController#MetricsController(Controller, boolean)
+ */
+public enum RoutePhase {
+
+	/**
+	 * Finding the {@link Station}s of a {@link Network} by name.
+	 */
+	LOOKUP("lookup"),
+
+	/**
+	 * Searching a {@link Metro} for a path, including building it.
+	 */
+	SEARCH("search"),
+
+	/**
+	 * Building the {@link java.util.List} of {@link Station}s of a path once
+	 * it has been found.
+	 */
+	PATH("path"),
+
+	/**
+	 * Formatting a {@link Route} as the answer to a request.
+	 */
+	FORMAT("format");
+
+	/**
+	 * The name of the {@link RoutePhase} in exported metrics.
+	 */
+	private final String name;
+
+	/**
+	 * Constructs a new {@link RoutePhase}.
+	 *
+	 * @param name
+	 *            {@link RoutePhase#name}
+	 */
+	private RoutePhase(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Retrieves the name of this {@link RoutePhase} in exported metrics.
+	 *
+	 * @return The name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
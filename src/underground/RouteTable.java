@@ -0,0 +1,371 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A precomputed table of the next {@link Station} on the path with the fewest
+ * stops between every pair of {@link Station}s in a {@link Graph}. Any path can
+ * be rebuilt from the table by following the next hops from the start
+ * {@link Station} until the end {@link Station} is reached, without searching.
+ *
+ * <p>
+ * The next hops are held in a single <code>short</code> array of
+ * <code>n * n</code> elements, read as unsigned values, so a
+ * {@link RouteTable} can only be built for {@link Graph}s of at most
+ * {@link RouteTable#MAX_STATIONS} {@link Station}s.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro
+ */
+final class RouteTable {
+
+	/**
+	 * The largest number of {@link Station}s a {@link RouteTable} can hold, as
+	 * the table must fit in a single array.
+	 */
+	static final int MAX_STATIONS = 46340;
+
+	/**
+	 * The value stored in the table when there is no path between two
+	 * {@link Station}s.
+	 */
+	private static final int NO_HOP = 0xFFFF;
+
+	/**
+	 * The number of breadth first searches each fork join task performs before it
+	 * stops splitting.
+	 */
+	private static final int SOURCES_PER_TASK = 64;
+
+	/**
+	 * The number of {@link Station}s in the table.
+	 */
+	private final int size;
+
+	/**
+	 * The id of the next {@link Station} from <code>from</code> towards
+	 * <code>to</code> is held at <code>to * size + from</code>, so that
+	 * following a path reads a single row and each search writes a single row.
+	 */
+	private final short[] nextHops;
+
+	/**
+	 * Constructs a new {@link RouteTable} by performing a breadth first search
+	 * from every {@link Station} of the specified {@link Graph} on the specified
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param graph
+	 *            {@link Graph}
+	 * @param pool
+	 *            The {@link ForkJoinPool} that the searches run on.
+	 */
+	RouteTable(Graph graph, ForkJoinPool pool) {
+
+		if (graph.size() > MAX_STATIONS) {
+			throw new IllegalArgumentException(
+					"A route table cannot hold more than " + MAX_STATIONS + " stations.");
+		}
+
+		this.size = graph.size();
+		this.nextHops = new short[size * size];
+
+		pool.invoke(new Fill(graph, 0, size));
+	}
+
+	/**
+	 * Constructs a new {@link RouteTable} from the next hops of another
+	 * {@link RouteTable}, as given by {@link RouteTable#nextHops()}.
+	 *
+	 * @param size
+	 *            The number of {@link Station}s in the table.
+	 * @param nextHops
+	 *            The next hops. The array is used rather than copied.
+	 */
+	RouteTable(int size, short[] nextHops) {
+
+		if (nextHops.length != size * size) {
+			throw new IllegalArgumentException("A route table of " + size + " stations must hold " + size * size
+					+ " next hops.");
+		}
+
+		this.size = size;
+		this.nextHops = nextHops;
+	}
+
+	/**
+	 * Constructs a new {@link RouteTable} of a {@link Graph} that differs from
+	 * the {@link Graph} of another {@link RouteTable} only in the specified
+	 * connections. The rows of the other table are copied and only the rows of
+	 * the targets whose paths the changes affect are searched again.
+	 *
+	 * <p>
+	 * The row of a target is a tree of the paths with the fewest stops to it.
+	 * The row still holds if none of the removed connections is in the tree and
+	 * no added connection joins two {@link Station}s whose distances from the
+	 * target differ by more than one stop, as then no path can be shortened.
+	 * </p>
+	 *
+	 * @param previous
+	 *            The {@link RouteTable} of the {@link Graph} before it changed.
+	 * @param graph
+	 *            The changed {@link Graph}, with the same {@link Station}s.
+	 * @param removed
+	 *            The removed connections, as given by
+	 *            {@link MetroEdit#pairOf(int, int)}.
+	 * @param added
+	 *            The added connections, as given by
+	 *            {@link MetroEdit#pairOf(int, int)}.
+	 * @param pool
+	 *            The {@link ForkJoinPool} that the searches run on.
+	 */
+	RouteTable(RouteTable previous, Graph graph, long[] removed, long[] added, ForkJoinPool pool) {
+
+		if (graph.size() != previous.size) {
+			throw new IllegalArgumentException("A route table cannot be updated for a different number of stations.");
+		}
+
+		this.size = previous.size;
+		this.nextHops = previous.nextHops.clone();
+
+		// Find the targets whose rows no longer hold.
+		final int[] targets = new int[size];
+		int count = 0;
+		for (int target = 0; target < size; target++) {
+			if (previous.isStale(target, removed, added)) {
+				targets[count++] = target;
+			}
+		}
+
+		pool.invoke(new Fill(graph, targets, 0, count));
+	}
+
+	/**
+	 * Retrieves the next hops of this table, where the next hop from
+	 * <code>from</code> towards <code>to</code> is held at
+	 * <code>to * size + from</code>.
+	 *
+	 * @return The next hops. The array must not be modified.
+	 */
+	short[] nextHops() {
+		return nextHops;
+	}
+
+	/**
+	 * Estimates the number of bytes the table of a {@link Graph} with the
+	 * specified number of {@link Station}s will use.
+	 *
+	 * @param stations
+	 *            The number of {@link Station}s.
+	 * @return The number of bytes, or {@link Long#MAX_VALUE} if the table cannot
+	 *         be built.
+	 */
+	static long estimateBytes(int stations) {
+
+		if (stations > MAX_STATIONS) {
+			return Long.MAX_VALUE;
+		}
+
+		return (long) stations * stations * Short.BYTES;
+	}
+
+	/**
+	 * Retrieves the id of the next {@link Station} on the path with the fewest
+	 * stops from one {@link Station} to another.
+	 *
+	 * @param from
+	 *            The id of the current {@link Station}.
+	 * @param to
+	 *            The id of the end {@link Station}.
+	 * @return The id of the next {@link Station}, or <code>-1</code> if there is
+	 *         no path.
+	 */
+	int nextHop(int from, int to) {
+
+		final int hop = nextHops[to * size + from] & 0xFFFF;
+
+		return hop == NO_HOP ? -1 : hop;
+	}
+
+	/**
+	 * Retrieves whether the row of a target must be searched again after the
+	 * specified connections are removed and added.
+	 *
+	 * @param target
+	 *            The id of the target {@link Station}.
+	 * @param removed
+	 *            The removed connections.
+	 * @param added
+	 *            The added connections.
+	 * @return Whether the row no longer holds.
+	 */
+	private boolean isStale(int target, long[] removed, long[] added) {
+
+		for (long pair : removed) {
+
+			final int a = MetroEdit.firstOf(pair);
+			final int b = MetroEdit.secondOf(pair);
+
+			if (nextHop(a, target) == b || nextHop(b, target) == a) {
+				return true;
+			}
+		}
+
+		for (long pair : added) {
+
+			final int a = distance(MetroEdit.firstOf(pair), target);
+			final int b = distance(MetroEdit.secondOf(pair), target);
+
+			if (a != b && (a < 0 || b < 0 || Math.abs(a - b) > 1)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Retrieves the number of stops on the path with the fewest stops from one
+	 * {@link Station} to another, by following the next hops.
+	 *
+	 * @param from
+	 *            The id of the start {@link Station}.
+	 * @param to
+	 *            The id of the end {@link Station}.
+	 * @return The number of stops, or <code>-1</code> if there is no path.
+	 */
+	private int distance(int from, int to) {
+
+		int stops = 0;
+		for (int station = from; station != to; station = nextHop(station, to)) {
+
+			if (station < 0) {
+				return -1;
+			}
+
+			stops++;
+		}
+
+		return stops;
+	}
+
+	/**
+	 * Fills the rows of the table for a range of target {@link Station}s, or of
+	 * a range of an array of target {@link Station}s. A
+	 * breadth first search from a target reaches every other {@link Station}
+	 * from the neighbour that is one stop closer to the target, which is
+	 * exactly the next hop from that {@link Station} towards the target.
+	 */
+	private final class Fill extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The {@link Graph} being searched.
+		 */
+		private final Graph graph;
+
+		/**
+		 * The target ids, or <code>null</code> if the range is of target ids
+		 * themselves.
+		 */
+		private final int[] targets;
+
+		/**
+		 * The first target, or index into {@link Fill#targets}, of this task.
+		 */
+		private final int from;
+
+		/**
+		 * One past the last target, or index into {@link Fill#targets}, of this
+		 * task.
+		 */
+		private final int to;
+
+		/**
+		 * Constructs a new {@link Fill} of the targets from <code>from</code> up to
+		 * but not including <code>to</code>.
+		 */
+		Fill(Graph graph, int from, int to) {
+			this(graph, null, from, to);
+		}
+
+		/**
+		 * Constructs a new {@link Fill} of the targets in <code>targets</code>
+		 * from index <code>from</code> up to but not including <code>to</code>.
+		 */
+		Fill(Graph graph, int[] targets, int from, int to) {
+			this.graph = graph;
+			this.targets = targets;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			// Split the range until it is small enough to search directly.
+			if (to - from > SOURCES_PER_TASK) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new Fill(graph, targets, from, middle), new Fill(graph, targets, middle, to));
+				return;
+			}
+
+			final int[] previous = new int[size];
+			final int[] frontier = new int[size];
+
+			for (int index = from; index < to; index++) {
+				search(targets == null ? index : targets[index], previous, frontier);
+			}
+		}
+
+		/**
+		 * Performs a breadth first search from the specified target and writes the
+		 * next hop of every {@link Station} towards it.
+		 *
+		 * @param target
+		 *            The id of the target {@link Station}.
+		 * @param previous
+		 *            Working space for the {@link Station} each {@link Station} was
+		 *            reached from.
+		 * @param frontier
+		 *            Working space for the search queue.
+		 */
+		private void search(int target, int[] previous, int[] frontier) {
+
+			Arrays.fill(previous, -1);
+
+			int head = 0;
+			int tail = 0;
+
+			previous[target] = target;
+			frontier[tail++] = target;
+
+			while (head < tail) {
+
+				final int current = frontier[head++];
+
+				for (int edge = graph.offsets[current]; edge < graph.offsets[current + 1]; edge++) {
+
+					final int neighbour = graph.neighbours[edge];
+
+					if (previous[neighbour] < 0) {
+						previous[neighbour] = current;
+						frontier[tail++] = neighbour;
+					}
+				}
+			}
+
+			// Write the row of this target.
+			final int row = target * size;
+			for (int station = 0; station < size; station++) {
+				nextHops[row + station] = (short) (previous[station] < 0 ? NO_HOP : previous[station]);
+			}
+		}
+	}
+
+}
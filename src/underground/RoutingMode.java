@@ -0,0 +1,63 @@
+package underground;
+
+/**
+ * The routing algorithms that a {@link Metro} can use to find a path between
+ * two {@link Station}s.
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see Metro#findPath(Station, Station, RoutingMode)
+ */
+public enum RoutingMode {
+
+	/**
+	 * A breadth first search over the {@link Station} to {@link Station} graph
+	 * of the {@link Metro}. The path found contains the fewest stops.
+	 */
+	FEWEST_STOPS,
+
+	/**
+	 * A breadth first search forwards from the start {@link Station} and
+	 * backwards from the end {@link Station} that stops when the two searches
+	 * meet. The path found contains the fewest stops, like
+	 * {@link RoutingMode#FEWEST_STOPS}, but far fewer {@link Station}s are
+	 * settled on large networks.
+	 */
+	BIDIRECTIONAL,
+
+	/**
+	 * A 0-1 breadth first search over each {@link Station} on each of its
+	 * {@link Line}s. The path found changes {@link Line} the fewest times, and
+	 * of those paths has the fewest stops.
+	 */
+	FEWEST_CHANGES,
+
+	/**
+	 * Dijkstra's algorithm over each {@link Station} on each of its
+	 * {@link Line}s. The path found has the shortest travel time, including the
+	 * time it takes to change {@link Line}.
+	 */
+	FASTEST,
+
+	/**
+	 * The original depth first search over the {@link Line}s of the
+	 * {@link Metro}. The path found is the first {@link Line} chain reached by
+	 * the search, which is not necessarily the shortest.
+	 */
+	LEGACY_DEPTH_FIRST;
+
+	/**
+	 * Retrieves whether the reverse of a path found by this {@link RoutingMode}
+	 * is as good a path in the opposite direction as this {@link RoutingMode}
+	 * would find. This holds for every {@link RoutingMode} that finds an optimal
+	 * path, as travelling in either direction between two {@link Station}s
+	 * takes the same stops, changes and time.
+	 * 
+	 * @return Whether a path can be reversed rather than searched for.
+	 */
+	public boolean isReversible() {
+		return this != LEGACY_DEPTH_FIRST;
+	}
+
+}
@@ -0,0 +1,112 @@
+package underground;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A small, bounded pool of the searches of one network, such as the
+ * {@link StopSearch}es of a {@link Metro}. A search is borrowed for each query
+ * and given back once its path has been built, so the working arrays of a
+ * search are reused by whichever thread asks next.
+ *
+ * <p>
+ * The pool keeps at most as many idle searches as it can hold and creates a new
+ * search whenever none is idle, so borrowing never waits. A search given back
+ * to a full pool, or never given back at all such as one whose search threw,
+ * is left to the garbage collector. Unlike a search held per thread, this
+ * bounds the working arrays to the number of queries that run at once even
+ * when every query runs on a thread of its own, and the searches of a network
+ * that is no longer used are collected with it.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @param <T>
+ *            The type of the searches.
+ */
+final class SearchPool<T> {
+
+	/**
+	 * The number of idle searches a {@link SearchPool} keeps by default, which
+	 * is the number of queries that can run at once on the processors.
+	 */
+	static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a new search when none is idle.
+	 */
+	private final Supplier<T> factory;
+
+	/**
+	 * The searches that have been given back and not borrowed again.
+	 */
+	private final ArrayBlockingQueue<T> idle;
+
+	/**
+	 * Constructs a new {@link SearchPool} that keeps up to
+	 * {@link SearchPool#DEFAULT_CAPACITY} idle searches.
+	 *
+	 * @param factory
+	 *            Creates a new search when none is idle.
+	 */
+	SearchPool(Supplier<T> factory) {
+		this(factory, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@link SearchPool}.
+	 *
+	 * @param factory
+	 *            Creates a new search when none is idle.
+	 * @param capacity
+	 *            The largest number of idle searches kept.
+	 */
+	SearchPool(Supplier<T> factory, int capacity) {
+
+		// Check parameters
+		if (factory == null) {
+			throw new NullPointerException("Factory cannot be null.");
+		} else if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		}
+
+		this.factory = factory;
+		this.idle = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Borrows an idle search, or creates a new one if none is idle. The search
+	 * must only be used by the caller until it is given back.
+	 *
+	 * @return The search.
+	 */
+	T borrow() {
+
+		final T search = idle.poll();
+
+		return search != null ? search : factory.get();
+	}
+
+	/**
+	 * Gives back a search borrowed from this {@link SearchPool}, which is kept
+	 * for the next query unless the pool is full.
+	 *
+	 * @param search
+	 *            The search.
+	 */
+	void release(T search) {
+		idle.offer(search);
+	}
+
+	/**
+	 * Retrieves the number of idle searches in this {@link SearchPool}.
+	 *
+	 * @return The number of searches that can be borrowed without creating
+	 *         one.
+	 */
+	int idle() {
+		return idle.size();
+	}
+
+}
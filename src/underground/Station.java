@@ -30,7 +30,18 @@ public class Station
 	 * The {@link String} which represents the name of<code>this</code>
 	 * {@code Station}.
 	 */
-	private String name;
+	private final String name;
+	/**
+	 * The hash code of {@link #name}, computed once so that looking up
+	 * <code>this</code> {@code Station} does not hash the name again.
+	 */
+	private final int hash;
+	/**
+	 * The dense id given to <code>this</code> {@code Station} by the
+	 * {@link StationRegistry} which created it, or <code>-1</code> if
+	 * <code>this</code> was not created by a {@link StationRegistry}.
+	 */
+	final int id;
 	//=========================================================================
 	//Constructors.
 	/**
@@ -43,10 +54,32 @@ public class Station
 	public Station(final String name)
 			throws
 			NullPointerException
+	{
+		this(name, -1);
+	}
+	/**
+	 * Construct a {@code Station} with a specified name and the id given to
+	 * it by a {@link StationRegistry}.
+	 * 
+	 * <p>
+	 * <b>For internal use only!</b>
+	 * </p>
+	 * 
+	 * @param name The {@link String} representing the name of the created
+	 * 			{@code Station}.
+	 * @param id The id of the created {@code Station}.
+	 * @throws NullPointerException If <code>name</code> is <code>null</code>.
+	 * @see StationRegistry#intern(String)
+	 */
+	Station(final String name, final int id)
+			throws
+			NullPointerException
 	{
 		if(name == null)
 			throw new NullPointerException(NULL_STATION_NAME);
 		this.name = name;
+		this.hash = name.hashCode();
+		this.id = id;
 	}
 	//=========================================================================
 	//Methods.
@@ -71,6 +104,12 @@ public class Station
 	 * equal to the name of <code>this</code>.
 	 * </p>
 	 * 
+	 * <p>
+	 * The canonical {@code Station} objects of a {@link StationRegistry} are
+	 * the only {@code Station} objects with their names, so comparing them is
+	 * an identity check.
+	 * </p>
+	 * 
 	 * @param o The object to compare <code>this</code> against.
 	 * @return <code>true</code> if <code>o</code> is an instance of the
 	 * 			{@code Station} class, and the name of <code>this</code>
@@ -79,9 +118,14 @@ public class Station
 	@Override
 	public boolean equals(Object obj)
 	{
+		if (obj == this)
+		{
+			return true;
+		}
 		if (obj instanceof Station)
 		{
-			return ((Station) obj).name.equals(this.name);
+			final Station other = (Station) obj;
+			return other.hash == this.hash && other.name.equals(this.name);
 		}
 		return false;
 	}
@@ -91,7 +135,8 @@ public class Station
 	 * <p>
 	 * The hashCode of <code>this</code> is the hash code of the name which
 	 * is generated from the {@link String} which represents the name of
-	 * <code>this</code> {@code Station}.
+	 * <code>this</code> {@code Station}. It is computed when
+	 * <code>this</code> is constructed.
 	 * </p>
 	 * 
 	 * @return The hash code of <code>this</code> {@code Station}.
@@ -99,7 +144,7 @@ public class Station
 	@Override
 	public int hashCode()
 	{
-		return name.hashCode();
+		return hash;
 	}
 	/**
 	 * Get the {@link String} representation of <code>this</code>
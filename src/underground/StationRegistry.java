@@ -0,0 +1,175 @@
+package underground;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code StationRegistry} is a class which holds the one canonical
+ * {@link Station} object of each {@link Station} name in a {@link Metro}.
+ *
+ * <p>
+ * Each {@link Station} is created once, when its name is first interned, and
+ * is given the next dense <code>int</code> id, starting from
+ * <code>0</code>. Looking up a name always returns the same {@link Station}
+ * object, so the {@link Station} objects of a {@link Metro} can be compared
+ * by identity and used as keys without hashing their names again.
+ * </p>
+ *
+ * <p>
+ * A {@code StationRegistry} is filled while a {@link Metro} is built and is
+ * only read once the {@link Metro} is in use, so it does not need to be
+ * synchronized.
+ * </p>
+ *
+ * @author 	159014260 John Berg
+ * @author 	159029448 Joshua Eddy
+ * @see 	Station
+ * @see 	Metro#getStation(String)
+ */
+final class StationRegistry
+{
+	//=========================================================================
+	//Static fields.
+	/**
+	 * The {@link String} containing the message used when attempting to
+	 * intern a <code>null</code> station name.
+	 */
+	private static final String NULL_STATION_NAME =
+			"The station name was null";
+	//=========================================================================
+	//Fields.
+	/**
+	 * The canonical {@link Station} objects indexed by their id.
+	 */
+	private final List<Station> stations;
+	/**
+	 * The {@link Map} of each name to its canonical {@link Station}.
+	 */
+	private final Map<String, Station> byName;
+	//=========================================================================
+	//Constructors.
+	/**
+	 * Create a new {@code StationRegistry} which is empty.
+	 */
+	StationRegistry()
+	{
+		stations = new ArrayList<>();
+		byName = new HashMap<>();
+	}
+	/**
+	 * Create a new {@code StationRegistry} which holds the same canonical
+	 * {@link Station} objects, with the same ids, as another
+	 * {@code StationRegistry}. Interning a name into the copy does not change
+	 * <code>registry</code>, so an edited {@link Metro} can add
+	 * {@link Station} objects without changing the {@link Metro} it was
+	 * edited from.
+	 *
+	 * @param registry The {@code StationRegistry} to copy.
+	 */
+	StationRegistry(final StationRegistry registry)
+	{
+		stations = new ArrayList<>(registry.stations);
+		byName = new HashMap<>(registry.byName);
+	}
+	//=========================================================================
+	//Methods.
+	/**
+	 * Get the canonical {@link Station} with the specified name, creating it
+	 * with the next id if <code>this</code> does not hold it yet.
+	 *
+	 * @param name The name of the {@link Station}.
+	 * @return The canonical {@link Station}.
+	 * @throws NullPointerException If <code>name</code> is <code>null</code>.
+	 */
+	Station intern(final String name)
+			throws
+			NullPointerException
+	{
+		if(name == null)
+			throw new NullPointerException(NULL_STATION_NAME);
+		Station station = byName.get(name);
+		if(station == null)
+		{
+			station = new Station(name, stations.size());
+			stations.add(station);
+			byName.put(name, station);
+		}
+		return station;
+	}
+	/**
+	 * Get the canonical {@link Station} equal to the specified
+	 * {@link Station}, creating it with the next id if <code>this</code> does
+	 * not hold it yet.
+	 *
+	 * @param station The {@link Station}.
+	 * @return The canonical {@link Station}.
+	 * @throws NullPointerException If <code>station</code> is
+	 * 			<code>null</code>.
+	 */
+	Station intern(final Station station)
+			throws
+			NullPointerException
+	{
+		final int id = idOf(station);
+		return id < 0 ? intern(station.getName()) : stations.get(id);
+	}
+	/**
+	 * Get the canonical {@link Station} with the specified name.
+	 *
+	 * @param name The name of the {@link Station}.
+	 * @return The canonical {@link Station}, or <code>null</code> if
+	 * 			<code>this</code> does not hold a {@link Station} with that
+	 * 			name.
+	 */
+	Station get(final String name)
+	{
+		return byName.get(name);
+	}
+	/**
+	 * Get the canonical {@link Station} with the specified id.
+	 *
+	 * @param id The id of the {@link Station}.
+	 * @return The canonical {@link Station}.
+	 * @throws IndexOutOfBoundsException If there is no {@link Station} with
+	 * 			that id.
+	 */
+	Station get(final int id)
+			throws
+			IndexOutOfBoundsException
+	{
+		return stations.get(id);
+	}
+	/**
+	 * Get the id of the specified {@link Station}.
+	 *
+	 * <p>
+	 * A canonical {@link Station} of <code>this</code> is recognised from its
+	 * own id without a lookup. Any other {@link Station} is looked up by its
+	 * name.
+	 * </p>
+	 *
+	 * @param station The {@link Station}.
+	 * @return The id of the {@link Station}, or <code>-1</code> if
+	 * 			<code>this</code> does not hold a {@link Station} with that
+	 * 			name.
+	 */
+	int idOf(final Station station)
+	{
+		final int id = station.id;
+		if(id >= 0 && id < stations.size() && stations.get(id) == station)
+			return id;
+		final Station canonical = byName.get(station.getName());
+		return canonical == null ? -1 : canonical.id;
+	}
+	/**
+	 * Get the number of {@link Station} objects held by <code>this</code>.
+	 *
+	 * @return The number of {@link Station} objects.
+	 */
+	int size()
+	{
+		return stations.size();
+	}
+}
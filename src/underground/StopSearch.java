@@ -0,0 +1,336 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A search for the path between two {@link Station}s of a {@link GraphView}
+ * with the fewest stops, either as a breadth first search from the start
+ * {@link Station} or as a bidirectional breadth first search from both ends.
+ *
+ * <p>
+ * A {@link StopSearch} keeps its working arrays between searches and marks
+ * which entries belong to the current search with a stamp, so a search
+ * allocates nothing but its result. A {@link StopSearch} must only be used by
+ * one thread at a time.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RoutingMode#FEWEST_STOPS
+ * @see RoutingMode#BIDIRECTIONAL
+ */
+final class StopSearch {
+
+	/**
+	 * The {@link GraphView} being searched.
+	 */
+	private final GraphView graph;
+
+	/**
+	 * The {@link Station} each {@link Station} was reached from by the search
+	 * from the start.
+	 */
+	private final int[] forwardPrevious;
+
+	/**
+	 * The {@link Station} each {@link Station} was reached from by the search
+	 * from the end, which is the next {@link Station} towards the end.
+	 */
+	private final int[] backwardPrevious;
+
+	/**
+	 * The number of stops from the start to each {@link Station} reached from
+	 * the start.
+	 */
+	private final int[] forwardStops;
+
+	/**
+	 * The number of stops from each {@link Station} reached from the end to the
+	 * end.
+	 */
+	private final int[] backwardStops;
+
+	/**
+	 * The search that last reached each {@link Station} from the start.
+	 */
+	private final int[] forwardStamps;
+
+	/**
+	 * The search that last reached each {@link Station} from the end.
+	 */
+	private final int[] backwardStamps;
+
+	/**
+	 * The queue of {@link Station}s reached from the start.
+	 */
+	private final int[] forwardQueue;
+
+	/**
+	 * The queue of {@link Station}s reached from the end.
+	 */
+	private final int[] backwardQueue;
+
+	/**
+	 * The stamp of the current search.
+	 */
+	private int stamp;
+
+	/**
+	 * The number of {@link Station}s the last search settled.
+	 */
+	private int settled;
+
+	/**
+	 * Constructs a new {@link StopSearch} over the specified {@link GraphView}.
+	 *
+	 * @param graph
+	 *            {@link GraphView}
+	 */
+	StopSearch(GraphView graph) {
+		this.graph = graph;
+		this.forwardPrevious = new int[graph.size()];
+		this.backwardPrevious = new int[graph.size()];
+		this.forwardStops = new int[graph.size()];
+		this.backwardStops = new int[graph.size()];
+		this.forwardStamps = new int[graph.size()];
+		this.backwardStamps = new int[graph.size()];
+		this.forwardQueue = new int[graph.size()];
+		this.backwardQueue = new int[graph.size()];
+		this.stamp = 0;
+	}
+
+	/**
+	 * Retrieves the number of {@link Station}s that the last search settled.
+	 *
+	 * @return The number of {@link Station}s taken from the queues.
+	 */
+	int settled() {
+		return settled;
+	}
+
+	/**
+	 * Finds the path with the fewest stops between two {@link Station}s using a
+	 * breadth first search from the start {@link Station}.
+	 *
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
+	 */
+	List<Station> search(int source, int target, PhaseTimer timer) {
+
+		nextStamp();
+		settled = 0;
+
+		int head = 0;
+		int tail = 0;
+
+		forwardStamps[source] = stamp;
+		forwardPrevious[source] = -1;
+		forwardQueue[tail++] = source;
+
+		while (head < tail) {
+
+			final int current = forwardQueue[head++];
+			settled++;
+
+			// The first time the end station is reached it is by the fewest stops.
+			if (current == target) {
+				return toPath(target, -1, timer);
+			}
+
+			// Visit each neighbour that has not already been reached.
+			for (int edge = graph.offset(current); edge < graph.offset(current + 1); edge++) {
+
+				final int neighbour = graph.neighbour(edge);
+
+				if (forwardStamps[neighbour] != stamp) {
+					forwardStamps[neighbour] = stamp;
+					forwardPrevious[neighbour] = current;
+					forwardQueue[tail++] = neighbour;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds the path with the fewest stops between two {@link Station}s using a
+	 * breadth first search forwards from the start {@link Station} and backwards
+	 * from the end {@link Station}, one whole level at a time, always expanding
+	 * the side with the smaller frontier. Once a level connects the two
+	 * searches, the shortest of the connections found in that level is the path
+	 * with the fewest stops.
+	 *
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
+	 */
+	List<Station> searchBidirectional(int source, int target, PhaseTimer timer) {
+
+		nextStamp();
+		settled = 0;
+
+		if (source == target) {
+			forwardStamps[source] = stamp;
+			forwardPrevious[source] = -1;
+			return toPath(source, -1, timer);
+		}
+
+		// The queues hold one level between each head and tail.
+		int forwardHead = 0;
+		int forwardTail = 0;
+		int backwardHead = 0;
+		int backwardTail = 0;
+
+		forwardStamps[source] = stamp;
+		forwardPrevious[source] = -1;
+		forwardStops[source] = 0;
+		forwardQueue[forwardTail++] = source;
+
+		backwardStamps[target] = stamp;
+		backwardPrevious[target] = -1;
+		backwardStops[target] = 0;
+		backwardQueue[backwardTail++] = target;
+
+		while (forwardHead < forwardTail && backwardHead < backwardTail) {
+
+			// The connection with the fewest stops found in this level.
+			int bestStops = Integer.MAX_VALUE;
+			int bestForward = -1;
+			int bestBackward = -1;
+
+			if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+
+				// Expand one level forwards from the start.
+				final int levelEnd = forwardTail;
+				while (forwardHead < levelEnd) {
+
+					final int current = forwardQueue[forwardHead++];
+					settled++;
+
+					for (int edge = graph.offset(current); edge < graph.offset(current + 1); edge++) {
+
+						final int neighbour = graph.neighbour(edge);
+
+						// A neighbour reached from the end connects the two searches.
+						if (backwardStamps[neighbour] == stamp) {
+							final int stops = forwardStops[current] + 1 + backwardStops[neighbour];
+							if (stops < bestStops) {
+								bestStops = stops;
+								bestForward = current;
+								bestBackward = neighbour;
+							}
+						}
+
+						if (forwardStamps[neighbour] != stamp) {
+							forwardStamps[neighbour] = stamp;
+							forwardPrevious[neighbour] = current;
+							forwardStops[neighbour] = forwardStops[current] + 1;
+							forwardQueue[forwardTail++] = neighbour;
+						}
+					}
+				}
+			} else {
+
+				// Expand one level backwards from the end.
+				final int levelEnd = backwardTail;
+				while (backwardHead < levelEnd) {
+
+					final int current = backwardQueue[backwardHead++];
+					settled++;
+
+					for (int edge = graph.offset(current); edge < graph.offset(current + 1); edge++) {
+
+						final int neighbour = graph.neighbour(edge);
+
+						// A neighbour reached from the start connects the two searches.
+						if (forwardStamps[neighbour] == stamp) {
+							final int stops = forwardStops[neighbour] + 1 + backwardStops[current];
+							if (stops < bestStops) {
+								bestStops = stops;
+								bestForward = neighbour;
+								bestBackward = current;
+							}
+						}
+
+						if (backwardStamps[neighbour] != stamp) {
+							backwardStamps[neighbour] = stamp;
+							backwardPrevious[neighbour] = current;
+							backwardStops[neighbour] = backwardStops[current] + 1;
+							backwardQueue[backwardTail++] = neighbour;
+						}
+					}
+				}
+			}
+
+			if (bestForward >= 0) {
+				return toPath(bestForward, bestBackward, timer);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Starts a new search, invalidating the results of every previous search.
+	 */
+	private void nextStamp() {
+
+		// Only clear the stamps when they wrap around.
+		if (++stamp == 0) {
+			Arrays.fill(forwardStamps, 0);
+			Arrays.fill(backwardStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Converts the {@link Station}s reached by the searches into the
+	 * {@link List} of {@link Station}s from the start to the end.
+	 *
+	 * @param forward
+	 *            The id of the last {@link Station} of the path reached from the
+	 *            start.
+	 * @param backward
+	 *            The id of the first {@link Station} of the rest of the path
+	 *            reached from the end, or <code>-1</code> if the whole path was
+	 *            reached from the start.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path.
+	 */
+	private List<Station> toPath(int forward, int backward, PhaseTimer timer) {
+
+		final long started = timer.start();
+		final LinkedList<Station> path = new LinkedList<>();
+
+		// Walk back from the meeting point to the start station.
+		for (int station = forward; station >= 0; station = forwardPrevious[station]) {
+			path.addFirst(graph.station(station));
+		}
+
+		// Walk on from the meeting point to the end station.
+		for (int station = backward; station >= 0; station = backwardPrevious[station]) {
+			path.addLast(graph.station(station));
+		}
+
+		timer.end(RoutePhase.PATH, started);
+
+		return path;
+	}
+
+}
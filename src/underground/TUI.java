@@ -64,7 +64,15 @@ public class TUI {
 			String stationB = stdIn.nextLine().trim();
 			display(controller.showPathBetween(stationA, stationB));
 			break;
-		case "5" : // Exits the application
+		case "5" : // Finds a path with the fewest line changes between two stations
+			display("Finds a path with the fewest line changes between two stations...");
+			display("Enter the name of the start station:");
+			String changeStationA = stdIn.nextLine().trim();
+			display("Enter the name of the end station:");
+			String changeStationB = stdIn.nextLine().trim();
+			display(controller.showPathWithFewestChangesBetween(changeStationA, changeStationB));
+			break;
+		case "6" : // Exits the application
 			display("Goodbye!");
 			System.exit(0);
 			break;
@@ -91,7 +99,8 @@ public class TUI {
 			   "2: List all stations in a line in the MTR network\n" +
 		       "3: List all lines that are directly connected to a line\n" +
 			   "4: Find a path between two stations\n" +
-			   "5: Exit this application\n";
+			   "5: Find a path with the fewest line changes between two stations\n" +
+			   "6: Exit this application\n";
 	}
 	
 	/*
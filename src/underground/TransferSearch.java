@@ -0,0 +1,327 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A search for the path between two {@link Station}s of a {@link GraphView}
+ * that changes {@link Line} the fewest times, and of those paths has the
+ * fewest stops.
+ *
+ * <p>
+ * The search is a 0-1 breadth first search over the states of the
+ * {@link GraphView}: riding to the next {@link Station} on the same
+ * {@link Line} costs no changes and changing {@link Line} at a {@link Station}
+ * costs one.
+ * The states reached with the same number of changes are processed as one
+ * level, merging the states carried over from the previous level (which are
+ * already in order of stops) with the states reached by riding, so that each
+ * level is settled in order of stops. Every state and connection is processed
+ * at most once.
+ * </p>
+ *
+ * <p>
+ * A {@link TransferSearch} keeps its working arrays between searches and marks
+ * which entries belong to the current search with a stamp, so a search
+ * allocates nothing but its result. A {@link TransferSearch} must only be used
+ * by one thread at a time.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RoutingMode#FEWEST_CHANGES
+ */
+final class TransferSearch {
+
+	/**
+	 * The {@link GraphView} being searched.
+	 */
+	private final GraphView graph;
+
+	/**
+	 * The state each state was settled from, or <code>-1</code> for the start
+	 * states.
+	 */
+	private final int[] previous;
+
+	/**
+	 * The search that last settled each state.
+	 */
+	private final int[] settledStamps;
+
+	/**
+	 * The level, counted over every search, at which each state was last
+	 * queued by riding.
+	 */
+	private final int[] queuedLevels;
+
+	/**
+	 * The states carried over to the current level by changing {@link Line},
+	 * each followed by the state it was reached from and its number of stops.
+	 */
+	private int[] carried;
+
+	/**
+	 * The number of elements in {@link TransferSearch#carried}.
+	 */
+	private int carriedCount;
+
+	/**
+	 * The states carried over to the next level, in the same form as
+	 * {@link TransferSearch#carried}.
+	 */
+	private int[] next;
+
+	/**
+	 * The number of elements in {@link TransferSearch#next}.
+	 */
+	private int nextCount;
+
+	/**
+	 * The states reached by riding within the current level, in the same form as
+	 * {@link TransferSearch#carried}.
+	 */
+	private final int[] ridden;
+
+	/**
+	 * The stamp of the current search.
+	 */
+	private int stamp;
+
+	/**
+	 * The stamp of the current level, which is never repeated between
+	 * searches until it wraps around.
+	 */
+	private int levelStamp;
+
+	/**
+	 * The number of states the last search settled.
+	 */
+	private int settledCount;
+
+	/**
+	 * Constructs a new {@link TransferSearch} over the specified
+	 * {@link GraphView}.
+	 *
+	 * @param graph
+	 *            {@link GraphView}
+	 */
+	TransferSearch(GraphView graph) {
+		this.graph = graph;
+		this.previous = new int[graph.states()];
+		this.settledStamps = new int[graph.states()];
+		this.queuedLevels = new int[graph.states()];
+		this.carried = new int[3 * graph.states()];
+		this.next = new int[3 * graph.states()];
+		this.ridden = new int[3 * graph.states()];
+		this.stamp = 0;
+		this.levelStamp = 0;
+	}
+
+	/**
+	 * Retrieves the number of states that the last search settled.
+	 *
+	 * @return The number of states settled.
+	 */
+	int settled() {
+		return settledCount;
+	}
+
+	/**
+	 * Finds the path between two {@link Station}s that changes {@link Line} the
+	 * fewest times.
+	 *
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
+	 */
+	List<Station> search(int source, int target, PhaseTimer timer) {
+
+		nextStamp();
+
+		// The start station can be left on any of its lines without a change.
+		settledCount = 0;
+		carriedCount = 0;
+		nextCount = 0;
+		for (int state = graph.lineOffset(source); state < graph.lineOffset(source + 1); state++) {
+			carry(state, -1, 0);
+		}
+		swapLevels();
+
+		while (carriedCount > 0) {
+
+			final int level = nextLevel();
+			int carriedHead = 0;
+			int riddenHead = 0;
+			int riddenTail = 0;
+
+			while (carriedHead < carriedCount || riddenHead < riddenTail) {
+
+				// Take whichever of the two queues has the state with the fewest stops.
+				final int state;
+				final int from;
+				final int stopCount;
+				if (riddenHead == riddenTail
+						|| (carriedHead < carriedCount && carried[carriedHead + 2] <= ridden[riddenHead + 2])) {
+					state = carried[carriedHead++];
+					from = carried[carriedHead++];
+					stopCount = carried[carriedHead++];
+				} else {
+					state = ridden[riddenHead++];
+					from = ridden[riddenHead++];
+					stopCount = ridden[riddenHead++];
+				}
+
+				if (settledStamps[state] == stamp) {
+					continue;
+				}
+				settledStamps[state] = stamp;
+				settledCount++;
+				previous[state] = from;
+
+				final int station = graph.stateStation(state);
+
+				// The first end state settled has the fewest changes then stops.
+				if (station == target) {
+					return toPath(state, timer);
+				}
+
+				final int line = graph.stationLine(state);
+
+				// Ride to each neighbour on the same line within this level.
+				for (int edge = graph.offset(station); edge < graph.offset(station + 1); edge++) {
+
+					final int neighbour = graph.edgeState(edge);
+
+					/*
+					 * Riding settles states in order of stops, so the first time a state is
+					 * reached by riding within a level is with the fewest stops.
+					 */
+					if (graph.edgeLine(edge) == line && settledStamps[neighbour] != stamp
+							&& queuedLevels[neighbour] != level) {
+						queuedLevels[neighbour] = level;
+						ridden[riddenTail++] = neighbour;
+						ridden[riddenTail++] = state;
+						ridden[riddenTail++] = stopCount + 1;
+					}
+				}
+
+				// Change to each other line at this station in the next level.
+				for (int other = graph.lineOffset(station); other < graph.lineOffset(station + 1); other++) {
+					if (other != state && settledStamps[other] != stamp) {
+						carry(other, state, stopCount);
+					}
+				}
+			}
+
+			swapLevels();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Starts a new search, clearing the stamps of the states only when the
+	 * stamp wraps around.
+	 */
+	private void nextStamp() {
+		if (++stamp == 0) {
+			Arrays.fill(settledStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Starts a new level, clearing the levels the states were queued at only
+	 * when the level stamp wraps around.
+	 *
+	 * @return The stamp of the level.
+	 */
+	private int nextLevel() {
+
+		if (++levelStamp == 0) {
+			Arrays.fill(queuedLevels, 0);
+			levelStamp = 1;
+		}
+
+		return levelStamp;
+	}
+
+	/**
+	 * Carries a state over to the next level.
+	 *
+	 * @param state
+	 *            The state reached by changing {@link Line}.
+	 * @param from
+	 *            The state it was reached from.
+	 * @param stopCount
+	 *            The number of stops to the state.
+	 */
+	private void carry(int state, int from, int stopCount) {
+
+		/*
+		 * A state may be carried over from several stations of the same level, so
+		 * the next level can outgrow the number of states.
+		 */
+		if (nextCount + 3 > next.length) {
+			next = Arrays.copyOf(next, 2 * next.length);
+		}
+
+		next[nextCount++] = state;
+		next[nextCount++] = from;
+		next[nextCount++] = stopCount;
+	}
+
+	/**
+	 * Makes the states carried over to the next level the states of the current
+	 * level.
+	 */
+	private void swapLevels() {
+
+		final int[] swap = carried;
+		carried = next;
+		carriedCount = nextCount;
+		next = swap;
+		nextCount = 0;
+	}
+
+	/**
+	 * Converts the chain of states ending at the specified state into the
+	 * {@link List} of {@link Station}s that they pass through.
+	 *
+	 * @param end
+	 *            The state at the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path.
+	 */
+	private List<Station> toPath(int end, PhaseTimer timer) {
+
+		final long started = timer.start();
+		final LinkedList<Station> path = new LinkedList<>();
+
+		int last = -1;
+		for (int state = end; state >= 0; state = previous[state]) {
+
+			final int station = graph.stateStation(state);
+
+			// Changing line stays at the same station, so only add it once.
+			if (station != last) {
+				path.addFirst(graph.station(station));
+				last = station;
+			}
+		}
+
+		timer.end(RoutePhase.PATH, started);
+
+		return path;
+	}
+
+}
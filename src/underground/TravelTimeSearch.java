@@ -0,0 +1,211 @@
+package underground;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A search for the path between two {@link Station}s of a {@link GraphView}
+ * with the shortest travel time, including the time it takes to change
+ * {@link Line}.
+ *
+ * <p>
+ * The search is Dijkstra's algorithm over the states of the {@link GraphView},
+ * using an {@link IndexedHeap} of state ids. A {@link TravelTimeSearch} keeps
+ * its working arrays between searches and marks which entries belong to the
+ * current search with a stamp, so a search allocates nothing but its result.
+ * A {@link TravelTimeSearch} must only be used by one thread at a time.
+ * </p>
+ *
+ * @author Joshua_Eddy 159029448
+ * @author John_Berg 159014260
+ *
+ * @see RoutingMode#FASTEST
+ */
+final class TravelTimeSearch {
+
+	/**
+	 * The {@link GraphView} being searched.
+	 */
+	private final GraphView graph;
+
+	/**
+	 * The states that have been reached but not settled, ordered by travel time.
+	 */
+	private final IndexedHeap heap;
+
+	/**
+	 * The shortest travel time found so far to each state.
+	 */
+	private final int[] times;
+
+	/**
+	 * The state each state was reached from, or <code>-1</code> for the start
+	 * states.
+	 */
+	private final int[] previous;
+
+	/**
+	 * The search that last reached each state. Entries of
+	 * {@link TravelTimeSearch#times} and {@link TravelTimeSearch#previous} are
+	 * only valid when their stamp is {@link TravelTimeSearch#stamp}.
+	 */
+	private final int[] stamps;
+
+	/**
+	 * The stamp of the current search.
+	 */
+	private int stamp;
+
+	/**
+	 * The number of states the last search settled.
+	 */
+	private int settled;
+
+	/**
+	 * Constructs a new {@link TravelTimeSearch} over the specified
+	 * {@link GraphView}.
+	 *
+	 * @param graph
+	 *            {@link GraphView}
+	 */
+	TravelTimeSearch(GraphView graph) {
+		this.graph = graph;
+		this.heap = new IndexedHeap(graph.states());
+		this.times = new int[graph.states()];
+		this.previous = new int[graph.states()];
+		this.stamps = new int[graph.states()];
+		this.stamp = 0;
+	}
+
+	/**
+	 * Retrieves the number of states that the last search settled.
+	 *
+	 * @return The number of states taken from the {@link IndexedHeap}.
+	 */
+	int settled() {
+		return settled;
+	}
+
+	/**
+	 * Finds the path between two {@link Station}s with the shortest travel time.
+	 *
+	 * @param source
+	 *            The id of the start {@link Station}.
+	 * @param target
+	 *            The id of the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path, or
+	 *         <code>null</code> if there is no path.
+	 */
+	List<Station> search(int source, int target, PhaseTimer timer) {
+
+		nextStamp();
+		heap.clear();
+		settled = 0;
+
+		// The start station can be left on any of its lines without a change.
+		for (int state = graph.lineOffset(source); state < graph.lineOffset(source + 1); state++) {
+			reach(state, -1, 0);
+		}
+
+		while (!heap.isEmpty()) {
+
+			final int state = heap.poll();
+			settled++;
+			final int station = graph.stateStation(state);
+
+			// The first end state settled has the shortest travel time.
+			if (station == target) {
+				return toPath(state, timer);
+			}
+
+			final int line = graph.stationLine(state);
+			final int time = times[state];
+
+			// Ride to each neighbour on the same line.
+			for (int edge = graph.offset(station); edge < graph.offset(station + 1); edge++) {
+				if (graph.edgeLine(edge) == line) {
+					reach(graph.edgeState(edge), state, time + graph.edgeTime(edge));
+				}
+			}
+
+			// Change to each other line at this station.
+			final int changed = time + graph.transferPenalty(station);
+			for (int other = graph.lineOffset(station); other < graph.lineOffset(station + 1); other++) {
+				if (other != state) {
+					reach(other, state, changed);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Records that a state can be reached in the specified travel time, if that
+	 * is shorter than any travel time found so far.
+	 *
+	 * @param state
+	 *            The state reached.
+	 * @param from
+	 *            The state it was reached from.
+	 * @param time
+	 *            The travel time to the state.
+	 */
+	private void reach(int state, int from, int time) {
+
+		if (stamps[state] != stamp || time < times[state]) {
+			stamps[state] = stamp;
+			times[state] = time;
+			previous[state] = from;
+			heap.offer(state, time);
+		}
+	}
+
+	/**
+	 * Starts a new search, invalidating the results of every previous search.
+	 */
+	private void nextStamp() {
+
+		// Only clear the stamps when they wrap around.
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Converts the chain of states ending at the specified state into the
+	 * {@link List} of {@link Station}s that they pass through.
+	 *
+	 * @param end
+	 *            The state at the end {@link Station}.
+	 * @param timer
+	 *            The {@link PhaseTimer} of the {@link RoutePhase#PATH}.
+	 * @return {@link List} of {@link Station}s representing the path.
+	 */
+	private List<Station> toPath(int end, PhaseTimer timer) {
+
+		final long started = timer.start();
+		final LinkedList<Station> path = new LinkedList<>();
+
+		int last = -1;
+		for (int state = end; state >= 0; state = previous[state]) {
+
+			final int station = graph.stateStation(state);
+
+			// Changing line stays at the same station, so only add it once.
+			if (station != last) {
+				path.addFirst(graph.station(station));
+				last = station;
+			}
+		}
+
+		timer.end(RoutePhase.PATH, started);
+
+		return path;
+	}
+
+}